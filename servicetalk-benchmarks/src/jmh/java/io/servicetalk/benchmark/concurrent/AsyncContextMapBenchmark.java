@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.benchmark.concurrent;
 
 import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.AsyncContextMap;
 import io.servicetalk.concurrent.api.AsyncContextMap.Key;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -52,6 +53,8 @@ public class AsyncContextMapBenchmark {
     private static final Key<String> K6 = newKey("k6");
     private static final Key<String> K7 = newKey("k7");
     private static final Key<String> K8 = newKey("k8");
+    private static final Key<String> K9 = newKey("k9");
+    private static final Key<String> K10 = newKey("k10");
 
     @Setup(Level.Invocation)
     public final void setup() {
@@ -102,6 +105,42 @@ public class AsyncContextMapBenchmark {
         AsyncContext.get(K8);
     }
 
+    @Benchmark
+    public void putGetTen() {
+        AsyncContext.put(K1, "v1");
+        AsyncContext.put(K2, "v2");
+        AsyncContext.put(K3, "v3");
+        AsyncContext.put(K4, "v4");
+        AsyncContext.put(K5, "v5");
+        AsyncContext.put(K6, "v6");
+        AsyncContext.put(K7, "v7");
+        AsyncContext.put(K8, "v8");
+        AsyncContext.put(K9, "v9");
+        AsyncContext.put(K10, "v10");
+        AsyncContext.get(K1);
+        AsyncContext.get(K2);
+        AsyncContext.get(K3);
+        AsyncContext.get(K4);
+        AsyncContext.get(K5);
+        AsyncContext.get(K6);
+        AsyncContext.get(K7);
+        AsyncContext.get(K8);
+        AsyncContext.get(K9);
+        AsyncContext.get(K10);
+    }
+
+    @Benchmark
+    public void copyGetThree() {
+        AsyncContext.put(K1, "v1");
+        AsyncContext.put(K2, "v2");
+        AsyncContext.put(K3, "v3");
+        // Each request/async boundary captures a copy of the context and reads it, but rarely modifies it.
+        AsyncContextMap copy = AsyncContext.current().copy();
+        copy.get(K1);
+        copy.get(K2);
+        copy.get(K3);
+    }
+
     @Benchmark
     public void putGetMultiFour() {
         AsyncContext.putAll(FourMap.INSTANCE);
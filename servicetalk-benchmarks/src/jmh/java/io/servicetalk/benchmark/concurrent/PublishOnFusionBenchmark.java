@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.range;
+
+/**
+ * Compares chains which offload to the same {@link Executor} multiple times, which are fused into a single offload,
+ * against chains which offload to different {@link Executor}s, which require an executor hop per offload.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PublishOnFusionBenchmark {
+    static {
+        AsyncContext.disable();
+    }
+
+    @Param({"1", "1000"})
+    public int items;
+
+    private Executor executor1;
+    private Executor executor2;
+
+    @Setup
+    public void setup() {
+        executor1 = newCachedThreadExecutor();
+        executor2 = newCachedThreadExecutor();
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        executor1.closeAsync().toFuture().get();
+        executor2.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public Integer publishOnSameExecutor() throws Exception {
+        return range(0, items).publishOn(executor1)
+                .map(i -> i + 1)
+                .publishOn(executor1)
+                .map(i -> i * 2)
+                .publishOn(executor1)
+                .reduce(() -> 0, Integer::sum).toFuture().get();
+    }
+
+    @Benchmark
+    public Integer publishOnDifferentExecutors() throws Exception {
+        return range(0, items).publishOn(executor1)
+                .map(i -> i + 1)
+                .publishOn(executor2)
+                .map(i -> i * 2)
+                .publishOn(executor1)
+                .reduce(() -> 0, Integer::sum).toFuture().get();
+    }
+
+    @Benchmark
+    public Integer subscribeOnSameExecutor() throws Exception {
+        return range(0, items).subscribeOn(executor1)
+                .map(i -> i + 1)
+                .subscribeOn(executor1)
+                .reduce(() -> 0, Integer::sum).toFuture().get();
+    }
+
+    @Benchmark
+    public Integer subscribeOnDifferentExecutors() throws Exception {
+        return range(0, items).subscribeOn(executor1)
+                .map(i -> i + 1)
+                .subscribeOn(executor2)
+                .reduce(() -> 0, Integer::sum).toFuture().get();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.http;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.netty.HttpClients;
+import io.servicetalk.http.netty.HttpServers;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
+import io.servicetalk.transport.netty.internal.IoThreadFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useEpoll;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useIoUring;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoExecutor;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoUringIoExecutor;
+
+/*
+ * This benchmark compares the epoll and io_uring transports on an HTTP/1.1 echo round trip over the loopback
+ * interface, with a client and a server running on their own IoExecutor. It needs Linux, io_uring needs a 5.9+ kernel.
+ * Offloading is disabled so that the time is spent on the event loops.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class HttpTransportEchoBenchmark {
+    static {
+        AsyncContext.disable(); // reduce noise in benchmarks.
+    }
+
+    @Param({"epoll", "io_uring"})
+    public String transport;
+
+    @Param({"64", "16384"})
+    public int payloadSize;
+
+    private EventLoopAwareNettyIoExecutor serverIoExecutor;
+    private EventLoopAwareNettyIoExecutor clientIoExecutor;
+    private ServerContext serverContext;
+    private BlockingHttpClient client;
+    private Buffer payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serverIoExecutor = newIoExecutor("server");
+        clientIoExecutor = newIoExecutor("client");
+        serverContext = HttpServers.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .ioExecutor(serverIoExecutor)
+                .executionStrategy(noOffloadsStrategy())
+                .listenStreamingAndAwait((ctx, request, responseFactory) ->
+                        succeeded(responseFactory.ok().payloadBody(request.payloadBody())));
+        final InetSocketAddress serverAddress = (InetSocketAddress) serverContext.listenAddress();
+        client = HttpClients.forResolvedAddress(serverAddress.getAddress().getHostAddress(),
+                serverAddress.getPort())
+                .ioExecutor(clientIoExecutor)
+                .executionStrategy(noOffloadsStrategy())
+                .buildBlocking();
+        final byte[] bytes = new byte[payloadSize];
+        payload = DEFAULT_ALLOCATOR.wrap(bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        serverContext.close();
+        clientIoExecutor.closeAsync().toFuture().get();
+        serverIoExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public HttpResponse echo() throws Exception {
+        return client.request(client.post("/").payloadBody(payload.duplicate()));
+    }
+
+    private EventLoopAwareNettyIoExecutor newIoExecutor(final String name) {
+        final IoThreadFactory threadFactory = new IoThreadFactory(transport + '-' + name, true);
+        final EventLoopAwareNettyIoExecutor ioExecutor;
+        if ("io_uring".equals(transport)) {
+            ioExecutor = createIoUringIoExecutor(2, threadFactory);
+            if (!useIoUring(ioExecutor.eventLoopGroup())) {
+                ioExecutor.closeAsync().subscribe();
+                throw new IllegalStateException("io_uring transport is not available");
+            }
+        } else {
+            ioExecutor = createIoExecutor(2, threadFactory);
+            if (!useEpoll(ioExecutor.eventLoopGroup())) {
+                ioExecutor.closeAsync().subscribe();
+                throw new IllegalStateException("epoll transport is not available");
+            }
+        }
+        return ioExecutor;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.servicetalk.client.api.ConnectionFactory;
 import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
 import io.servicetalk.client.api.LoadBalancedConnection;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.PublisherSource.Processor;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
@@ -32,6 +33,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.net.InetSocketAddress;
@@ -40,8 +42,10 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Processors.newPublisherProcessor;
 import static io.servicetalk.concurrent.api.Publisher.fromIterable;
 import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
 import static java.net.InetSocketAddress.createUnresolved;
 
 @Fork(1)
@@ -49,17 +53,23 @@ import static java.net.InetSocketAddress.createUnresolved;
 @Warmup(iterations = 5, time = 5)
 @Measurement(iterations = 5, time = 5)
 public class RoundRobinLoadBalancerSDEventsBenchmark {
-    @Param({"5", "10", "100"})
+    @Param({"5", "10", "100", "2000", "10000"})
     public int ops;
 
     private List<ServiceDiscovererEvent<InetSocketAddress>> availableEvents;
     private List<ServiceDiscovererEvent<InetSocketAddress>> mixedEvents;
+    private List<ServiceDiscovererEvent<InetSocketAddress>> unavailableEvents;
+    private Processor<ServiceDiscovererEvent<InetSocketAddress>, ServiceDiscovererEvent<InetSocketAddress>>
+            churnEvents;
+    private RoundRobinLoadBalancer<InetSocketAddress, LoadBalancedConnection> churnLoadBalancer;
+    private int churnIndex;
 
     @Setup(Level.Trial)
     public void setup() {
         final int removalStride = 5;
         availableEvents = new ArrayList<>(ops);
         mixedEvents = new ArrayList<>(ops);
+        unavailableEvents = new ArrayList<>(ops);
         for (int i = 1; i <= ops; ++i) {
             if (i % removalStride == 0) {
                 mixedEvents.add(new DefaultServiceDiscovererEvent<>(createUnresolved("127.0.0." + (i - 1), 0), false));
@@ -67,7 +77,20 @@ public class RoundRobinLoadBalancerSDEventsBenchmark {
                 mixedEvents.add(new DefaultServiceDiscovererEvent<>(createUnresolved("127.0.0." + i, 0), true));
             }
             availableEvents.add(new DefaultServiceDiscovererEvent<>(createUnresolved("127.0.0." + i, 0), true));
+            unavailableEvents.add(new DefaultServiceDiscovererEvent<>(createUnresolved("127.0.0." + i, 0), false));
         }
+
+        // A long lived load balancer with all addresses available, used to measure the cost of churn at scale.
+        churnEvents = newPublisherProcessor(2);
+        churnLoadBalancer = new RoundRobinLoadBalancer<>(fromSource(churnEvents), ConnFactory.INSTANCE);
+        for (ServiceDiscovererEvent<InetSocketAddress> event : availableEvents) {
+            churnEvents.onNext(event);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        churnLoadBalancer.closeAsync().toFuture().get();
     }
 
     @Benchmark
@@ -82,6 +105,16 @@ public class RoundRobinLoadBalancerSDEventsBenchmark {
         return new RoundRobinLoadBalancer<>(fromIterable(availableEvents), ConnFactory.INSTANCE);
     }
 
+    @Benchmark
+    public RoundRobinLoadBalancer<InetSocketAddress, LoadBalancedConnection> churn() {
+        // Each invocation removes an address and adds it back, while all other addresses remain available.
+        final int i = churnIndex;
+        churnIndex = i + 1 == ops ? 0 : i + 1;
+        churnEvents.onNext(unavailableEvents.get(i));
+        churnEvents.onNext(availableEvents.get(i));
+        return churnLoadBalancer;
+    }
+
     private static final class ConnFactory implements ConnectionFactory<InetSocketAddress, LoadBalancedConnection> {
         static final ConnFactory INSTANCE = new ConnFactory();
 
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.http.HttpConstants.COLON;
+import static io.netty.handler.codec.http.HttpConstants.LF;
+import static io.netty.util.ByteProcessor.FIND_LF;
+import static io.servicetalk.buffer.netty.BufferUtils.indexOf;
+
+/*
+ * This benchmark compares scanning an HTTP header line for its colon and LF one byte at a time with a ByteProcessor,
+ * as HttpObjectDecoder used to do, with the 8 bytes at a time scanning of BufferUtils#indexOf.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class HttpLineScanBenchmark {
+
+    @Param({"16", "64", "256"})
+    private int lineLength;
+
+    @Param({"heap", "direct"})
+    private String bufferType;
+
+    private ByteBuf line;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final byte[] bytes = new byte[lineLength];
+        Arrays.fill(bytes, (byte) 'a');
+        // A header line with a short name and a long value, like most request headers.
+        bytes[Math.min(12, lineLength / 2)] = COLON;
+        bytes[lineLength - 2] = '\r';
+        bytes[lineLength - 1] = LF;
+        line = "direct".equals(bufferType) ? Unpooled.directBuffer(lineLength).writeBytes(bytes) :
+                Unpooled.wrappedBuffer(bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        line.release();
+    }
+
+    @Benchmark
+    public int byteProcessor() {
+        final int colon = line.forEachByte(0, lineLength, value -> value != COLON);
+        return colon + line.forEachByte(colon + 1, lineLength - colon - 1, FIND_LF);
+    }
+
+    @Benchmark
+    public int swar() {
+        final int colon = indexOf(line, 0, lineLength, COLON);
+        return colon + indexOf(line, colon + 1, lineLength, LF);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,6 +57,10 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
  * HttpResponseDecoderBenchmark.initialLine           500  thrpt    5   988277.529 ±  8913.071  ops/s
  * HttpResponseDecoderBenchmark.initialLine           600  thrpt    5   965798.581 ± 13396.336  ops/s
  * HttpResponseDecoderBenchmark.initialLine           700  thrpt    5   811948.162 ± 14176.711  ops/s
+ *
+ * The "headers" parameter switches between a response with only a content-length header and a header-heavy response
+ * which mostly carries well-known header names and values, in lower case and capitalized form. Decoding of well-known
+ * names and values should not allocate, run with "-prof gc" to compare the allocation rate of both payloads.
  */
 @Fork(value = 1)
 @State(Scope.Benchmark)
@@ -65,9 +69,25 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
 @BenchmarkMode(Mode.Throughput)
 public class HttpResponseDecoderBenchmark {
 
+    private static final String[] HEADER_HEAVY = {
+            "Date: Mon, 01 Feb 2021 00:00:00 GMT",
+            "Server: servicetalk",
+            "content-type: application/json",
+            "Cache-Control: no-cache",
+            "connection: keep-alive",
+            "Vary: accept-encoding",
+            "content-encoding: gzip",
+            "Access-Control-Allow-Origin: *",
+            "x-request-id: 0c6a8f2e-6d9b-4f53-9d1c-6f1b2f0e8d4a",
+            "Accept-Ranges: bytes",
+    };
+
     @Param({"200", "431", "500", "600", "700"})
     private int statusCode;
 
+    @Param({"minimal", "headerHeavy"})
+    private String headers;
+
     private ByteBuf responseByteBuf;
 
     private EmbeddedChannel channel;
@@ -75,11 +95,17 @@ public class HttpResponseDecoderBenchmark {
     @Setup(Level.Trial)
     public void setup() {
         final HttpResponseStatus status = status(statusCode);
-        final Buffer responseBuffer = PREFER_DIRECT_ALLOCATOR.newBuffer(100);
+        final Buffer responseBuffer = PREFER_DIRECT_ALLOCATOR.newBuffer(512);
         HTTP_1_1.writeTo(responseBuffer);
         responseBuffer.writeByte(SP);
         status.writeTo(responseBuffer);
         responseBuffer.writeShort(CRLF_SHORT);
+        if ("headerHeavy".equals(headers)) {
+            for (String header : HEADER_HEAVY) {
+                responseBuffer.writeBytes(header.getBytes(US_ASCII));
+                responseBuffer.writeShort(CRLF_SHORT);
+            }
+        }
         responseBuffer.writeBytes("content-length: 0".getBytes(US_ASCII));
         responseBuffer.writeShort(CRLF_SHORT);
         responseBuffer.writeShort(CRLF_SHORT);
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,11 +31,13 @@
 package io.servicetalk.buffer.api;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 import static java.lang.Double.longBitsToDouble;
 import static java.lang.Float.intBitsToFloat;
 import static java.lang.Short.reverseBytes;
+import static java.nio.ByteOrder.BIG_ENDIAN;
 
 abstract class AbstractBuffer implements Buffer {
     private int readerIndex;
@@ -216,6 +218,15 @@ abstract class AbstractBuffer implements Buffer {
 
     protected abstract long getLongNoBounds(int index);
 
+    /**
+     * Returns the {@link ByteOrder} in which {@link #getLongNoBounds(int)} reads the underlying storage.
+     *
+     * @return the {@link ByteOrder} in which {@link #getLongNoBounds(int)} reads the underlying storage.
+     */
+    protected ByteOrder longOrder() {
+        return BIG_ENDIAN;
+    }
+
     @Override
     public final long getLongLE(int index) {
         checkIndex0(index, 8);
@@ -528,7 +539,24 @@ abstract class AbstractBuffer implements Buffer {
     }
 
     protected int firstIndexOf(int fromIndex, int toIndex, byte value) {
-        return forEachByte(fromIndex, toIndex - fromIndex, new IndexOfByteProcessor(value));
+        checkIndex0(fromIndex, toIndex - fromIndex);
+        // Compare 8 bytes at a time, see SWARUtils.
+        final long pattern = SWARUtils.compilePattern(value);
+        final ByteOrder order = longOrder();
+        final int longCount = (toIndex - fromIndex) >>> 3;
+        for (int i = 0; i < longCount; ++i) {
+            final long matches = SWARUtils.findMatches(getLongNoBounds(fromIndex), pattern);
+            if (matches != 0) {
+                return fromIndex + SWARUtils.firstMatchIndex(matches, order);
+            }
+            fromIndex += Long.BYTES;
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (getByteNoBounds(fromIndex) == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
     }
 
     protected int lastIndexOf(int fromIndex, int toIndex, byte value) {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ package io.servicetalk.buffer.api;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.ReadOnlyBufferException;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
@@ -103,6 +104,11 @@ final class ReadOnlyByteBuffer extends AbstractBuffer {
         return buffer.getLong(index);
     }
 
+    @Override
+    protected ByteOrder longOrder() {
+        return buffer.order();
+    }
+
     @Override
     public Buffer getBytes(int index, Buffer dst, int dstIndex, int length) {
         checkDstIndex(index, length, dstIndex, dst.capacity());
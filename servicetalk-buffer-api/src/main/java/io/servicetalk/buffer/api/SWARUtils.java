@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.api;
+
+import java.nio.ByteOrder;
+
+import static java.nio.ByteOrder.BIG_ENDIAN;
+
+/**
+ * SIMD within a register (SWAR) helpers which compare the 8 bytes of a {@code long} word at once.
+ * <p>
+ * These helpers are shared by {@link Buffer} implementations and are not meant to be used directly.
+ */
+public final class SWARUtils {
+    private static final long BYTE_ONES = 0x0101010101010101L;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private SWARUtils() {
+        // no instances
+    }
+
+    /**
+     * Repeat a byte in all the bytes of a {@code long} word.
+     *
+     * @param value the byte to search for.
+     * @return a pattern to use with {@link #findMatches(long, long)}.
+     */
+    public static long compilePattern(final byte value) {
+        return (value & 0xFFL) * BYTE_ONES;
+    }
+
+    /**
+     * Find the bytes of {@code word} which are equal to the byte of {@code pattern}.
+     * <p>
+     * Unlike the classic {@code (x - 0x01..) & ~x & 0x80..} trick this does not let a borrow propagate between bytes,
+     * so there are no false positives and the result can be scanned from either end.
+     *
+     * @param word 8 bytes to search.
+     * @param pattern the result of {@link #compilePattern(byte)}.
+     * @return a word which has the high bit set in each byte that matched, and all other bits cleared.
+     */
+    public static long findMatches(final long word, final long pattern) {
+        final long input = word ^ pattern;
+        final long tmp = (input & LOW_7_BITS) + LOW_7_BITS;
+        return ~(tmp | input | LOW_7_BITS);
+    }
+
+    /**
+     * Get the offset of the first matching byte in memory of a word.
+     *
+     * @param matches a non-zero result of {@link #findMatches(long, long)}.
+     * @param order the {@link ByteOrder} which was used to read the word, the first byte in memory is the most
+     * significant byte of a {@link ByteOrder#BIG_ENDIAN} word and the least significant byte otherwise.
+     * @return the offset of the first matching byte, in {@code [0, 8)}.
+     */
+    public static int firstMatchIndex(final long matches, final ByteOrder order) {
+        return (order == BIG_ENDIAN ? Long.numberOfLeadingZeros(matches) : Long.numberOfTrailingZeros(matches)) >>> 3;
+    }
+}
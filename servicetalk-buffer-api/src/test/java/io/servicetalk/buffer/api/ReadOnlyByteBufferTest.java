@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 
 import static io.servicetalk.buffer.api.ReadOnlyBufferAllocators.DEFAULT_RO_ALLOCATOR;
 import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.assertEquals;
 
@@ -96,4 +97,44 @@ public class ReadOnlyByteBufferTest {
         assertEquals(3, buffer.indexOf(4, 0, (byte) 't'));
         assertEquals(0, buffer.indexOf(3, 0, (byte) 't'));
     }
+
+    @Test
+    public void testIndexOfSpansLongWords() {
+        // 0x00 and 0x01 next to each other would produce false positives with a borrow propagating SWAR comparison.
+        byte[] bytes = {'a', 0x01, 0x00, 'b', (byte) 0x80, (byte) 0xFF, '\r', '\n', ':', 'c', 0x01, 0x00, (byte) 0xFF,
+                'd', '\n', 'e', 'f', 'g', 'h', 'i', ':', 'j'};
+        Buffer buffer = DEFAULT_RO_ALLOCATOR.wrap(bytes);
+        for (byte value : new byte[] {0x00, 0x01, 'a', 'j', ':', '\n', (byte) 0x80, (byte) 0xFF, 'z'}) {
+            for (int fromIndex = 0; fromIndex < bytes.length; ++fromIndex) {
+                assertEquals("value: " + value + ", fromIndex: " + fromIndex,
+                        naiveIndexOf(bytes, fromIndex, value), buffer.indexOf(fromIndex, bytes.length, value));
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfLittleEndianWrappedBuffer() {
+        // Each value is found more than once within the same long word.
+        byte[] bytes = {'a', ':', 'b', ':', '\r', '\n', 'c', '\n', ':', 'd', ':', 'e', '\r', '\n', 'f', 'g', ':'};
+        for (ByteBuffer byteBuffer : new ByteBuffer[] {ByteBuffer.wrap(bytes),
+                allocateDirect(bytes.length).put(bytes)}) {
+            byteBuffer.clear();
+            Buffer buffer = DEFAULT_RO_ALLOCATOR.wrap(byteBuffer.order(LITTLE_ENDIAN));
+            for (byte value : new byte[] {':', '\r', '\n', 'a', 'g', 'z'}) {
+                for (int fromIndex = 0; fromIndex < bytes.length; ++fromIndex) {
+                    assertEquals("value: " + value + ", fromIndex: " + fromIndex,
+                            naiveIndexOf(bytes, fromIndex, value), buffer.indexOf(fromIndex, bytes.length, value));
+                }
+            }
+        }
+    }
+
+    private static int naiveIndexOf(byte[] bytes, int fromIndex, byte value) {
+        for (int i = fromIndex; i < bytes.length; ++i) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,10 +24,14 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 
+import java.nio.ByteOrder;
 import javax.annotation.Nullable;
 
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.util.internal.PlatformDependent.directBufferPreferred;
+import static io.servicetalk.buffer.api.SWARUtils.compilePattern;
+import static io.servicetalk.buffer.api.SWARUtils.findMatches;
+import static io.servicetalk.buffer.api.SWARUtils.firstMatchIndex;
 
 /**
  * Internal utilities for {@link Buffer}s.
@@ -90,7 +94,7 @@ public final class BufferUtils {
             return ((NettyBuffer) buffer).buffer;
         }
         if (buffer instanceof WrappedBuffer) {
-            return toByteBufNoThrow(((WrappedBuffer) buffer).buffer);
+            return toByteBufNoThrow(((WrappedBuffer) buffer).delegate());
         }
         if (buffer instanceof EmptyBuffer) {
             return EMPTY_BUFFER;
@@ -127,4 +131,46 @@ public final class BufferUtils {
     public static int maxUtf8Bytes(CharSequence data) {
         return ByteBufUtil.utf8MaxBytes(data);
     }
+
+    /**
+     * Find the first occurrence of {@code value} in {@code buffer} in {@code [fromIndex, toIndex)}, comparing 8 bytes
+     * at a time instead of one byte at a time like {@link ByteBuf#indexOf(int, int, byte)}.
+     * <p>
+     * If {@code fromIndex} is greater than {@code toIndex} the search is performed backwards, as
+     * {@link ByteBuf#indexOf(int, int, byte)} does.
+     *
+     * @param buffer the {@link ByteBuf} to search.
+     * @param fromIndex the start index (inclusive).
+     * @param toIndex the end index (exclusive).
+     * @param value the byte to find.
+     * @return the absolute index of the first occurrence, or {@code -1} if not found.
+     */
+    public static int indexOf(final ByteBuf buffer, int fromIndex, final int toIndex, final byte value) {
+        if (fromIndex > toIndex) {
+            return buffer.indexOf(fromIndex, toIndex, value);
+        }
+        fromIndex = Math.max(fromIndex, 0);
+        if (fromIndex >= toIndex || buffer.capacity() == 0) {
+            return -1;
+        }
+        // Compare 8 bytes at a time, see SWARUtils. A ByteBuf which wraps a ByteBuffer keeps its byte order, and
+        // getLong(int) reads in that order.
+        final long pattern = compilePattern(value);
+        @SuppressWarnings("deprecation")
+        final ByteOrder order = buffer.order();
+        final int longCount = (toIndex - fromIndex) >>> 3;
+        for (int i = 0; i < longCount; ++i) {
+            final long matches = findMatches(buffer.getLong(fromIndex), pattern);
+            if (matches != 0) {
+                return fromIndex + firstMatchIndex(matches, order);
+            }
+            fromIndex += Long.BYTES;
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (buffer.getByte(fromIndex) == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import javax.annotation.Nullable;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * A read-only {@link Buffer} whose content is a region of a {@link File}.
+ * <p>
+ * Transports which know about this type can send the region straight from the file, e.g. with {@code sendfile},
+ * without copying it through user space, in which case the file is never mapped. Everybody else sees a regular
+ * {@link Buffer} which is backed by a read-only memory mapping of the region, created on the first access to the
+ * content, so the content is paged in on demand rather than read into the heap.
+ * <p>
+ * The file must not be modified or truncated while the buffer is in use. Like any {@link java.nio.MappedByteBuffer}
+ * the mapping is released when the buffer is garbage collected.
+ */
+public final class FileBuffer extends WrappedBuffer {
+    private final File file;
+    private final long position;
+    private final int length;
+    @Nullable
+    private Buffer mapped;
+
+    private FileBuffer(final File file, final long position, final int length) {
+        // The wrapped buffer is unused, delegate() maps the region on first access.
+        super(EMPTY_BUFFER);
+        this.file = file;
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * Create a new {@link FileBuffer} for a region of a {@link File}.
+     *
+     * @param file the {@link File} to read.
+     * @param position the offset in the file at which the region starts.
+     * @param length the length of the region in bytes.
+     * @return a new {@link FileBuffer}.
+     * @throws IOException if the size of the file can not be read.
+     * @throws IllegalArgumentException if the region is not within the file.
+     */
+    public static FileBuffer newFileBuffer(final File file, final long position, final int length)
+            throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >= 0)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected >= 0)");
+        }
+        final long size = Files.size(file.toPath());
+        if (position + length > size) {
+            throw new IllegalArgumentException("position + length: " + (position + length) +
+                    " (expected <= file size " + size + ')');
+        }
+        return new FileBuffer(file, position, length);
+    }
+
+    /**
+     * Get the {@link File} which contains the content of this buffer.
+     *
+     * @return the {@link File} which contains the content of this buffer.
+     */
+    public File file() {
+        return file;
+    }
+
+    /**
+     * Get the offset in the {@link #file()} of the byte at {@link #readerIndex()}. Together with
+     * {@link #readableBytes()} it describes the region of the file which is readable from this buffer.
+     *
+     * @return the offset in the {@link #file()} of the byte at {@link #readerIndex()}.
+     */
+    public long readerFilePosition() {
+        return position + readerIndex();
+    }
+
+    @Override
+    Buffer delegate() {
+        Buffer mapped = this.mapped;
+        if (mapped == null) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                // The mapping stays valid after the channel is closed.
+                mapped = new ReadOnlyBuffer(new NettyBuffer<>(wrappedBuffer(
+                        raf.getChannel().map(READ_ONLY, position, length))));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.mapped = mapped;
+        }
+        return mapped;
+    }
+
+    // The indexes are known without mapping the region, so that sending the region from the file does not map it.
+
+    @Override
+    public int capacity() {
+        return length;
+    }
+
+    @Override
+    public int maxCapacity() {
+        return length;
+    }
+
+    @Override
+    public int readerIndex() {
+        final Buffer mapped = this.mapped;
+        return mapped == null ? 0 : mapped.readerIndex();
+    }
+
+    @Override
+    public int writerIndex() {
+        final Buffer mapped = this.mapped;
+        return mapped == null ? length : mapped.writerIndex();
+    }
+
+    @Override
+    public int readableBytes() {
+        final Buffer mapped = this.mapped;
+        return mapped == null ? length : mapped.readableBytes();
+    }
+
+    @Override
+    public int writableBytes() {
+        return 0;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FileBuffer(" + file + ", position: " + readerFilePosition() + ", length: " + readableBytes() + ')';
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -712,7 +712,7 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
 
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
-        return buffer.indexOf(fromIndex, toIndex, value);
+        return BufferUtils.indexOf(buffer, fromIndex, toIndex, value);
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,13 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * to handle the de-allocation of direct memory. All the returned {@link ByteBuf} are also unreleasable.
  */
 final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implements BufferAllocator {
+    /**
+     * Netty consolidates (copies) a {@link CompositeByteBuf} with more than 16 components by default. Use the usual
+     * {@code IOV_MAX} of Linux instead, so a {@link CompositeBuffer} of many small buffers stays a list of components
+     * which the transport can write with a single gathering write.
+     */
+    static final int DEFAULT_MAX_COMPONENTS = 1024;
+
     private final ByteBufAllocator forceHeapAllocator = new ForceTypeByteBufAllocator(this, false);
     private final ByteBufAllocator forceDirectAllocator = new ForceTypeByteBufAllocator(this, true);
 
@@ -145,7 +152,7 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
 
     @Override
     public CompositeBuffer newCompositeBuffer() {
-        return new NettyCompositeBuffer(compositeBuffer());
+        return new NettyCompositeBuffer(compositeBuffer(DEFAULT_MAX_COMPONENTS));
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,773 +33,782 @@ class WrappedBuffer implements Buffer {
         this.buffer = Objects.requireNonNull(buffer);
     }
 
+    /**
+     * Get the {@link Buffer} to which this buffer delegates, which subclasses may create lazily.
+     *
+     * @return the {@link Buffer} to which this buffer delegates.
+     */
+    Buffer delegate() {
+        return buffer;
+    }
+
     @Override
     public int capacity() {
-        return buffer.capacity();
+        return delegate().capacity();
     }
 
     @Override
     public Buffer capacity(int newCapacity) {
-        buffer.capacity(newCapacity);
+        delegate().capacity(newCapacity);
         return this;
     }
 
     @Override
     public int maxCapacity() {
-        return buffer.maxCapacity();
+        return delegate().maxCapacity();
     }
 
     @Override
     public int readerIndex() {
-        return buffer.readerIndex();
+        return delegate().readerIndex();
     }
 
     @Override
     public Buffer readerIndex(int readerIndex) {
-        buffer.readerIndex(readerIndex);
+        delegate().readerIndex(readerIndex);
         return this;
     }
 
     @Override
     public int writerIndex() {
-        return buffer.writerIndex();
+        return delegate().writerIndex();
     }
 
     @Override
     public Buffer writerIndex(int writerIndex) {
-        buffer.writerIndex(writerIndex);
+        delegate().writerIndex(writerIndex);
         return this;
     }
 
     @Override
     public int readableBytes() {
-        return buffer.readableBytes();
+        return delegate().readableBytes();
     }
 
     @Override
     public int writableBytes() {
-        return buffer.writableBytes();
+        return delegate().writableBytes();
     }
 
     @Override
     public int maxWritableBytes() {
-        return buffer.maxWritableBytes();
+        return delegate().maxWritableBytes();
     }
 
     @Override
     public Buffer ensureWritable(int minWritableBytes) {
-        buffer.ensureWritable(minWritableBytes);
+        delegate().ensureWritable(minWritableBytes);
         return this;
     }
 
     @Override
     public int ensureWritable(int minWritableBytes, boolean force) {
-        return buffer.ensureWritable(minWritableBytes, force);
+        return delegate().ensureWritable(minWritableBytes, force);
     }
 
     @Override
     public Buffer clear() {
-        buffer.clear();
+        delegate().clear();
         return this;
     }
 
     @Override
     public boolean getBoolean(int index) {
-        return buffer.getBoolean(index);
+        return delegate().getBoolean(index);
     }
 
     @Override
     public byte getByte(int index) {
-        return buffer.getByte(index);
+        return delegate().getByte(index);
     }
 
     @Override
     public short getUnsignedByte(int index) {
-        return buffer.getUnsignedByte(index);
+        return delegate().getUnsignedByte(index);
     }
 
     @Override
     public short getShort(int index) {
-        return buffer.getShort(index);
+        return delegate().getShort(index);
     }
 
     @Override
     public short getShortLE(int index) {
-        return buffer.getShortLE(index);
+        return delegate().getShortLE(index);
     }
 
     @Override
     public int getUnsignedShort(int index) {
-        return buffer.getUnsignedShort(index);
+        return delegate().getUnsignedShort(index);
     }
 
     @Override
     public int getUnsignedShortLE(int index) {
-        return buffer.getUnsignedShortLE(index);
+        return delegate().getUnsignedShortLE(index);
     }
 
     @Override
     public int getMedium(int index) {
-        return buffer.getMedium(index);
+        return delegate().getMedium(index);
     }
 
     @Override
     public int getMediumLE(int index) {
-        return buffer.getMediumLE(index);
+        return delegate().getMediumLE(index);
     }
 
     @Override
     public int getUnsignedMedium(int index) {
-        return buffer.getUnsignedMedium(index);
+        return delegate().getUnsignedMedium(index);
     }
 
     @Override
     public int getUnsignedMediumLE(int index) {
-        return buffer.getUnsignedMediumLE(index);
+        return delegate().getUnsignedMediumLE(index);
     }
 
     @Override
     public int getInt(int index) {
-        return buffer.getInt(index);
+        return delegate().getInt(index);
     }
 
     @Override
     public int getIntLE(int index) {
-        return buffer.getIntLE(index);
+        return delegate().getIntLE(index);
     }
 
     @Override
     public long getUnsignedInt(int index) {
-        return buffer.getUnsignedInt(index);
+        return delegate().getUnsignedInt(index);
     }
 
     @Override
     public long getUnsignedIntLE(int index) {
-        return buffer.getUnsignedIntLE(index);
+        return delegate().getUnsignedIntLE(index);
     }
 
     @Override
     public long getLong(int index) {
-        return buffer.getLong(index);
+        return delegate().getLong(index);
     }
 
     @Override
     public long getLongLE(int index) {
-        return buffer.getLongLE(index);
+        return delegate().getLongLE(index);
     }
 
     @Override
     public char getChar(int index) {
-        return buffer.getChar(index);
+        return delegate().getChar(index);
     }
 
     @Override
     public float getFloat(int index) {
-        return buffer.getFloat(index);
+        return delegate().getFloat(index);
     }
 
     @Override
     public double getDouble(int index) {
-        return buffer.getDouble(index);
+        return delegate().getDouble(index);
     }
 
     @Override
     public Buffer getBytes(int index, Buffer dst) {
-        buffer.getBytes(index, dst);
+        delegate().getBytes(index, dst);
         return this;
     }
 
     @Override
     public Buffer getBytes(int index, Buffer dst, int length) {
-        buffer.getBytes(index, dst, length);
+        delegate().getBytes(index, dst, length);
         return this;
     }
 
     @Override
     public Buffer getBytes(int index, Buffer dst, int dstIndex, int length) {
-        buffer.getBytes(index, dst, dstIndex, length);
+        delegate().getBytes(index, dst, dstIndex, length);
 
         return this;
     }
 
     @Override
     public Buffer getBytes(int index, byte[] dst) {
-        buffer.getBytes(index, dst);
+        delegate().getBytes(index, dst);
         return this;
     }
 
     @Override
     public Buffer getBytes(int index, byte[] dst, int dstIndex, int length) {
-        buffer.getBytes(index, dst, dstIndex, length);
+        delegate().getBytes(index, dst, dstIndex, length);
         return this;
     }
 
     @Override
     public Buffer getBytes(int index, ByteBuffer dst) {
-        buffer.getBytes(index, dst);
+        delegate().getBytes(index, dst);
         return this;
     }
 
     @Override
     public Buffer setBoolean(int index, boolean value) {
-        buffer.setBoolean(index, value);
+        delegate().setBoolean(index, value);
         return this;
     }
 
     @Override
     public Buffer setByte(int index, int value) {
-        buffer.setByte(index, value);
+        delegate().setByte(index, value);
         return this;
     }
 
     @Override
     public Buffer setShort(int index, int value) {
-        buffer.setShort(index, value);
+        delegate().setShort(index, value);
         return this;
     }
 
     @Override
     public Buffer setShortLE(int index, int value) {
-        buffer.setShortLE(index, value);
+        delegate().setShortLE(index, value);
         return this;
     }
 
     @Override
     public Buffer setMedium(int index, int value) {
-        buffer.setMedium(index, value);
+        delegate().setMedium(index, value);
         return this;
     }
 
     @Override
     public Buffer setMediumLE(int index, int value) {
-        buffer.setMediumLE(index, value);
+        delegate().setMediumLE(index, value);
         return this;
     }
 
     @Override
     public Buffer setInt(int index, int value) {
-        buffer.setInt(index, value);
+        delegate().setInt(index, value);
         return this;
     }
 
     @Override
     public Buffer setIntLE(int index, int value) {
-        buffer.setIntLE(index, value);
+        delegate().setIntLE(index, value);
         return this;
     }
 
     @Override
     public Buffer setLong(int index, long value) {
-        buffer.setLong(index, value);
+        delegate().setLong(index, value);
         return this;
     }
 
     @Override
     public Buffer setLongLE(int index, long value) {
-        buffer.setLongLE(index, value);
+        delegate().setLongLE(index, value);
         return this;
     }
 
     @Override
     public Buffer setChar(int index, int value) {
-        buffer.setChar(index, value);
+        delegate().setChar(index, value);
         return this;
     }
 
     @Override
     public Buffer setFloat(int index, float value) {
-        buffer.setFloat(index, value);
+        delegate().setFloat(index, value);
         return this;
     }
 
     @Override
     public Buffer setDouble(int index, double value) {
-        buffer.setDouble(index, value);
+        delegate().setDouble(index, value);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, Buffer src) {
-        buffer.setBytes(index, src);
+        delegate().setBytes(index, src);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, Buffer src, int length) {
-        buffer.setBytes(index, src, length);
+        delegate().setBytes(index, src, length);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, Buffer src, int srcIndex, int length) {
-        buffer.setBytes(index, src, srcIndex, length);
+        delegate().setBytes(index, src, srcIndex, length);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, byte[] src) {
-        buffer.setBytes(index, src);
+        delegate().setBytes(index, src);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, byte[] src, int srcIndex, int length) {
-        buffer.setBytes(index, src, srcIndex, length);
+        delegate().setBytes(index, src, srcIndex, length);
         return this;
     }
 
     @Override
     public Buffer setBytes(int index, ByteBuffer src) {
-        buffer.setBytes(index, src);
+        delegate().setBytes(index, src);
         return this;
     }
 
     @Override
     public int setBytes(int index, InputStream src, int length) throws IOException {
-        return buffer.setBytes(index, src, length);
+        return delegate().setBytes(index, src, length);
     }
 
     @Override
     public int setBytesUntilEndStream(int index, InputStream src, int chunkSize) throws IOException {
-        return buffer.setBytesUntilEndStream(index, src, chunkSize);
+        return delegate().setBytesUntilEndStream(index, src, chunkSize);
     }
 
     @Override
     public boolean readBoolean() {
-        return buffer.readBoolean();
+        return delegate().readBoolean();
     }
 
     @Override
     public byte readByte() {
-        return buffer.readByte();
+        return delegate().readByte();
     }
 
     @Override
     public short readUnsignedByte() {
-        return buffer.readUnsignedByte();
+        return delegate().readUnsignedByte();
     }
 
     @Override
     public short readShort() {
-        return buffer.readShort();
+        return delegate().readShort();
     }
 
     @Override
     public short readShortLE() {
-        return buffer.readShortLE();
+        return delegate().readShortLE();
     }
 
     @Override
     public int readUnsignedShort() {
-        return buffer.readUnsignedShort();
+        return delegate().readUnsignedShort();
     }
 
     @Override
     public int readUnsignedShortLE() {
-        return buffer.readUnsignedShortLE();
+        return delegate().readUnsignedShortLE();
     }
 
     @Override
     public int readMedium() {
-        return buffer.readMedium();
+        return delegate().readMedium();
     }
 
     @Override
     public int readMediumLE() {
-        return buffer.readMediumLE();
+        return delegate().readMediumLE();
     }
 
     @Override
     public int readUnsignedMedium() {
-        return buffer.readUnsignedMedium();
+        return delegate().readUnsignedMedium();
     }
 
     @Override
     public int readUnsignedMediumLE() {
-        return buffer.readUnsignedMediumLE();
+        return delegate().readUnsignedMediumLE();
     }
 
     @Override
     public int readInt() {
-        return buffer.readInt();
+        return delegate().readInt();
     }
 
     @Override
     public int readIntLE() {
-        return buffer.readIntLE();
+        return delegate().readIntLE();
     }
 
     @Override
     public long readUnsignedInt() {
-        return buffer.readUnsignedInt();
+        return delegate().readUnsignedInt();
     }
 
     @Override
     public long readUnsignedIntLE() {
-        return buffer.readUnsignedIntLE();
+        return delegate().readUnsignedIntLE();
     }
 
     @Override
     public long readLong() {
-        return buffer.readLong();
+        return delegate().readLong();
     }
 
     @Override
     public long readLongLE() {
-        return buffer.readLongLE();
+        return delegate().readLongLE();
     }
 
     @Override
     public char readChar() {
-        return buffer.readChar();
+        return delegate().readChar();
     }
 
     @Override
     public float readFloat() {
-        return buffer.readFloat();
+        return delegate().readFloat();
     }
 
     @Override
     public double readDouble() {
-        return buffer.readDouble();
+        return delegate().readDouble();
     }
 
     @Override
     public Buffer readSlice(int length) {
-        return buffer.readSlice(length);
+        return delegate().readSlice(length);
     }
 
     @Override
     public Buffer readBytes(int length) {
-        return buffer.readBytes(length);
+        return delegate().readBytes(length);
     }
 
     @Override
     public Buffer readBytes(Buffer dst) {
-        buffer.readBytes(dst);
+        delegate().readBytes(dst);
         return this;
     }
 
     @Override
     public Buffer readBytes(Buffer dst, int length) {
-        buffer.readBytes(dst, length);
+        delegate().readBytes(dst, length);
         return this;
     }
 
     @Override
     public Buffer readBytes(Buffer dst, int dstIndex, int length) {
-        buffer.readBytes(dst, dstIndex, length);
+        delegate().readBytes(dst, dstIndex, length);
         return this;
     }
 
     @Override
     public Buffer readBytes(byte[] dst) {
-        buffer.readBytes(dst);
+        delegate().readBytes(dst);
         return this;
     }
 
     @Override
     public Buffer readBytes(byte[] dst, int dstIndex, int length) {
-        buffer.readBytes(dst, dstIndex, length);
+        delegate().readBytes(dst, dstIndex, length);
         return this;
     }
 
     @Override
     public Buffer readBytes(ByteBuffer dst) {
-        buffer.readBytes(dst);
+        delegate().readBytes(dst);
         return this;
     }
 
     @Override
     public Buffer skipBytes(int length) {
-        buffer.skipBytes(length);
+        delegate().skipBytes(length);
         return this;
     }
 
     @Override
     public Buffer writeBoolean(boolean value) {
-        buffer.writeBoolean(value);
+        delegate().writeBoolean(value);
         return this;
     }
 
     @Override
     public Buffer writeByte(int value) {
-        buffer.writeByte(value);
+        delegate().writeByte(value);
         return this;
     }
 
     @Override
     public Buffer writeShort(int value) {
-        buffer.writeShort(value);
+        delegate().writeShort(value);
         return this;
     }
 
     @Override
     public Buffer writeShortLE(int value) {
-        buffer.writeShortLE(value);
+        delegate().writeShortLE(value);
         return this;
     }
 
     @Override
     public Buffer writeMedium(int value) {
-        buffer.writeMedium(value);
+        delegate().writeMedium(value);
         return this;
     }
 
     @Override
     public Buffer writeMediumLE(int value) {
-        buffer.writeMediumLE(value);
+        delegate().writeMediumLE(value);
         return this;
     }
 
     @Override
     public Buffer writeInt(int value) {
-        buffer.writeInt(value);
+        delegate().writeInt(value);
         return this;
     }
 
     @Override
     public Buffer writeIntLE(int value) {
-        buffer.writeIntLE(value);
+        delegate().writeIntLE(value);
         return this;
     }
 
     @Override
     public Buffer writeLong(long value) {
-        buffer.writeLong(value);
+        delegate().writeLong(value);
         return this;
     }
 
     @Override
     public Buffer writeLongLE(long value) {
-        buffer.writeLongLE(value);
+        delegate().writeLongLE(value);
         return this;
     }
 
     @Override
     public Buffer writeChar(int value) {
-        buffer.writeChar(value);
+        delegate().writeChar(value);
         return this;
     }
 
     @Override
     public Buffer writeFloat(float value) {
-        buffer.writeFloat(value);
+        delegate().writeFloat(value);
         return this;
     }
 
     @Override
     public Buffer writeDouble(double value) {
-        buffer.writeDouble(value);
+        delegate().writeDouble(value);
         return this;
     }
 
     @Override
     public Buffer writeBytes(Buffer src) {
-        buffer.writeBytes(src);
+        delegate().writeBytes(src);
         return this;
     }
 
     @Override
     public Buffer writeBytes(Buffer src, int length) {
-        buffer.writeBytes(src, length);
+        delegate().writeBytes(src, length);
         return this;
     }
 
     @Override
     public Buffer writeBytes(Buffer src, int srcIndex, int length) {
-        buffer.writeBytes(src, srcIndex, length);
+        delegate().writeBytes(src, srcIndex, length);
         return this;
     }
 
     @Override
     public Buffer writeBytes(byte[] src) {
-        buffer.writeBytes(src);
+        delegate().writeBytes(src);
         return this;
     }
 
     @Override
     public Buffer writeBytes(byte[] src, int srcIndex, int length) {
-        buffer.writeBytes(src, srcIndex, length);
+        delegate().writeBytes(src, srcIndex, length);
         return this;
     }
 
     @Override
     public Buffer writeBytes(ByteBuffer src) {
-        buffer.writeBytes(src);
+        delegate().writeBytes(src);
         return this;
     }
 
     @Override
     public int writeBytes(InputStream src, int length) throws IOException {
-        return buffer.writeBytes(src, length);
+        return delegate().writeBytes(src, length);
     }
 
     @Override
     public int writeBytesUntilEndStream(InputStream src, int chunkSize) throws IOException {
-        return buffer.writeBytesUntilEndStream(src, chunkSize);
+        return delegate().writeBytesUntilEndStream(src, chunkSize);
     }
 
     @Override
     public Buffer writeAscii(CharSequence seq) {
-        buffer.writeAscii(seq);
+        delegate().writeAscii(seq);
         return this;
     }
 
     @Override
     public Buffer writeUtf8(CharSequence seq) {
-        buffer.writeUtf8(seq);
+        delegate().writeUtf8(seq);
         return this;
     }
 
     @Override
     public Buffer writeUtf8(CharSequence seq, int ensureWritable) {
-        buffer.writeUtf8(seq, ensureWritable);
+        delegate().writeUtf8(seq, ensureWritable);
         return this;
     }
 
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
-        return buffer.indexOf(fromIndex, toIndex, value);
+        return delegate().indexOf(fromIndex, toIndex, value);
     }
 
     @Override
     public int bytesBefore(byte value) {
-        return buffer.bytesBefore(value);
+        return delegate().bytesBefore(value);
     }
 
     @Override
     public int bytesBefore(int length, byte value) {
-        return buffer.bytesBefore(length, value);
+        return delegate().bytesBefore(length, value);
     }
 
     @Override
     public int bytesBefore(int index, int length, byte value) {
-        return buffer.bytesBefore(index, length, value);
+        return delegate().bytesBefore(index, length, value);
     }
 
     @Override
     public Buffer copy() {
-        return buffer.copy();
+        return delegate().copy();
     }
 
     @Override
     public Buffer copy(int index, int length) {
-        return buffer.copy(index, length);
+        return delegate().copy(index, length);
     }
 
     @Override
     public Buffer slice() {
-        return buffer.slice();
+        return delegate().slice();
     }
 
     @Override
     public Buffer slice(int index, int length) {
-        return buffer.slice(index, length);
+        return delegate().slice(index, length);
     }
 
     @Override
     public Buffer duplicate() {
-        return buffer.duplicate();
+        return delegate().duplicate();
     }
 
     @Override
     public int nioBufferCount() {
-        return buffer.nioBufferCount();
+        return delegate().nioBufferCount();
     }
 
     @Override
     public ByteBuffer toNioBuffer() {
-        return buffer.toNioBuffer();
+        return delegate().toNioBuffer();
     }
 
     @Override
     public ByteBuffer toNioBuffer(int index, int length) {
-        return buffer.toNioBuffer(index, length);
+        return delegate().toNioBuffer(index, length);
     }
 
     @Override
     public ByteBuffer[] toNioBuffers() {
-        return buffer.toNioBuffers();
+        return delegate().toNioBuffers();
     }
 
     @Override
     public ByteBuffer[] toNioBuffers(int index, int length) {
-        return buffer.toNioBuffers(index, length);
+        return delegate().toNioBuffers(index, length);
     }
 
     @Override
     public boolean isReadOnly() {
-        return buffer.isReadOnly();
+        return delegate().isReadOnly();
     }
 
     @Override
     public Buffer asReadOnly() {
-        return buffer.asReadOnly();
+        return delegate().asReadOnly();
     }
 
     @Override
     public boolean isDirect() {
-        return buffer.isDirect();
+        return delegate().isDirect();
     }
 
     @Override
     public boolean hasArray() {
-        return buffer.hasArray();
+        return delegate().hasArray();
     }
 
     @Override
     public byte[] array() {
-        return buffer.array();
+        return delegate().array();
     }
 
     @Override
     public int arrayOffset() {
-        return buffer.arrayOffset();
+        return delegate().arrayOffset();
     }
 
     @Override
     public String toString(Charset charset) {
-        return buffer.toString(charset);
+        return delegate().toString(charset);
     }
 
     @Override
     public String toString(int index, int length, Charset charset) {
-        return buffer.toString(index, length, charset);
+        return delegate().toString(index, length, charset);
     }
 
     @Override
     public String toString() {
-        return StringUtil.simpleClassName(this) + '(' + buffer.toString() + ')';
+        return StringUtil.simpleClassName(this) + '(' + delegate().toString() + ')';
     }
 
     @Override
     public int forEachByte(ByteProcessor processor) {
-        return buffer.forEachByte(processor);
+        return delegate().forEachByte(processor);
     }
 
     @Override
     public int forEachByte(int index, int length, ByteProcessor processor) {
-        return buffer.forEachByte(index, length, processor);
+        return delegate().forEachByte(index, length, processor);
     }
 
     @Override
     public int forEachByteDesc(ByteProcessor processor) {
-        return buffer.forEachByteDesc(processor);
+        return delegate().forEachByteDesc(processor);
     }
 
     @Override
     public int forEachByteDesc(int index, int length, ByteProcessor processor) {
-        return buffer.forEachByteDesc(index, length, processor);
+        return delegate().forEachByteDesc(index, length, processor);
     }
 
     @Override
     public boolean equals(Object o) {
-        return buffer.equals(o);
+        return delegate().equals(o);
     }
 
     @Override
     public int hashCode() {
-        return buffer.hashCode();
+        return delegate().hashCode();
     }
 }
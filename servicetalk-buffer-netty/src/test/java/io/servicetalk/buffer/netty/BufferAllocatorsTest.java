@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,10 @@ package io.servicetalk.buffer.netty;
 
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.api.CompositeBuffer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -31,8 +33,10 @@ import java.util.Collection;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_DIRECT_ALLOCATOR;
 import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_HEAP_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtils.toByteBuf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -85,6 +89,15 @@ public class BufferAllocatorsTest {
                 .addBuffer(allocator.fromAscii("test3")));
     }
 
+    @Test
+    public void testNewCompositeBufferWithManyComponentsIsNotConsolidated() {
+        CompositeBuffer buffer = allocator.newCompositeBuffer();
+        for (int i = 0; i < 64; ++i) {
+            buffer.addBuffer(allocator.fromAscii("test" + i));
+        }
+        assertThat(((CompositeByteBuf) toByteBuf(buffer)).numComponents(), is(64));
+    }
+
     @Test
     public void testNewConsolidatedCompositeBufferWithMultipleComponents() {
         assertBufferIsUnreleasable(allocator.newCompositeBuffer()
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,17 @@ package io.servicetalk.buffer.netty;
 
 import io.servicetalk.buffer.api.Buffer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
+import static io.servicetalk.buffer.netty.BufferUtils.indexOf;
 import static io.servicetalk.buffer.netty.BufferUtils.toByteBufNoThrow;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
@@ -38,4 +45,38 @@ public class BufferUtilTest {
     public void emptyBufferCanBeConvertedToByteBuf() {
         assertNotNull(toByteBufNoThrow(EMPTY_BUFFER));
     }
+
+    @Test
+    public void indexOfMatchesByteBufIndexOf() {
+        byte[] bytes = {'a', 0x01, 0x00, 'b', (byte) 0x80, (byte) 0xFF, '\r', '\n', ':', 'c', 0x01, 0x00, (byte) 0xFF,
+                'd', '\n', 'e', 'f', 'g', 'h', 'i', ':', 'j'};
+        ByteBuf heap = Unpooled.wrappedBuffer(bytes);
+        ByteBuf direct = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        try {
+            for (byte value : new byte[] {0x00, 0x01, 'a', 'j', ':', '\n', (byte) 0x80, (byte) 0xFF, 'z'}) {
+                for (int fromIndex = 0; fromIndex < bytes.length; ++fromIndex) {
+                    for (int toIndex = fromIndex; toIndex <= bytes.length; ++toIndex) {
+                        int expected = heap.indexOf(fromIndex, toIndex, value);
+                        assertEquals(expected, indexOf(heap, fromIndex, toIndex, value));
+                        assertEquals(expected, indexOf(direct, fromIndex, toIndex, value));
+                    }
+                }
+            }
+        } finally {
+            direct.release();
+        }
+    }
+
+    @Test
+    public void indexOfLittleEndianByteBuf() {
+        // Each value is found more than once within the same long word.
+        byte[] bytes = {'a', ':', 'b', ':', '\r', '\n', 'c', '\n', ':', 'd', ':', 'e', '\r', '\n', 'f', 'g', ':'};
+        ByteBuf buffer = Unpooled.wrappedBuffer(ByteBuffer.wrap(bytes).order(LITTLE_ENDIAN));
+        for (byte value : new byte[] {':', '\r', '\n', 'a', 'g', 'z'}) {
+            for (int fromIndex = 0; fromIndex < bytes.length; ++fromIndex) {
+                assertEquals(buffer.indexOf(fromIndex, bytes.length, value),
+                        indexOf(buffer, fromIndex, bytes.length, value));
+            }
+        }
+    }
 }
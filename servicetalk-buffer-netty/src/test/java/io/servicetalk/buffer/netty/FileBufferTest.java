@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+
+import static io.servicetalk.buffer.netty.BufferUtils.toByteBufNoThrow;
+import static io.servicetalk.buffer.netty.FileBuffer.newFileBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class FileBufferTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void contentIsFileRegion() throws IOException {
+        File file = newFile("0123456789");
+        FileBuffer buffer = newFileBuffer(file, 2, 5);
+        assertThat(buffer.file(), is(file));
+        assertThat(buffer.readableBytes(), is(5));
+        assertThat(buffer.toString(US_ASCII), is("23456"));
+        assertThat(buffer.isReadOnly(), is(true));
+        assertThat(buffer.readerFilePosition(), is(2L));
+        buffer.skipBytes(3);
+        assertThat(buffer.readerFilePosition(), is(5L));
+        assertThat(buffer.toString(US_ASCII), is("56"));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void regionIsMappedOnFirstContentAccess() throws IOException {
+        File file = newFile("0123456789");
+        FileBuffer buffer = newFileBuffer(file, 2, 5);
+        assertThat(file.delete(), is(true));
+        // Sending the region from the file only needs its position and length.
+        assertThat(buffer.readerFilePosition(), is(2L));
+        assertThat(buffer.readableBytes(), is(5));
+        buffer.toString(US_ASCII);
+    }
+
+    @Test
+    public void convertsToByteBuf() throws IOException {
+        FileBuffer buffer = newFileBuffer(newFile("0123456789"), 0, 10);
+        assertThat(toByteBufNoThrow(buffer), is(notNullValue()));
+        assertThat(toByteBufNoThrow(buffer).toString(US_ASCII), is("0123456789"));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void writeThrows() throws IOException {
+        newFileBuffer(newFile("0123456789"), 0, 10).setByte(0, 'a');
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void regionOutsideOfFileThrows() throws IOException {
+        newFileBuffer(newFile("0123456789"), 6, 5);
+    }
+
+    private File newFile(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(US_ASCII));
+        return file;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api.internal;
+
+/**
+ * Listener of the outcome of the requests tracked by a {@link RequestTracker}, for example to detect resources which
+ * fail requests consistently.
+ */
+public interface RequestOutcomeListener {
+
+    /**
+     * Invoked when a request succeeded.
+     */
+    void onRequestSucceeded();
+
+    /**
+     * Invoked when a request failed. Cancelled requests are not reported.
+     */
+    void onRequestFailed();
+}
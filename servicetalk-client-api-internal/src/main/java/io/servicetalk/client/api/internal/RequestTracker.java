@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api.internal;
+
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ScoreSupplier;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.exp;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * Tracks the number of outstanding requests and a peak-sensitive exponentially weighted moving average (EWMA) of
+ * their latency, and exposes both as a {@link ScoreSupplier} that {@link LoadBalancer}s can use to prefer less loaded
+ * resources.
+ * <p>
+ * The score is inversely proportional to {@code latencyEwma * (outstandingRequests + 1)}, so a resource with no
+ * history and no outstanding requests has the maximum score. The EWMA decays towards {@code 0} while no samples are
+ * recorded, which allows a resource that was slow in the past to be explored again.
+ * <p>
+ * Updates of the EWMA are not atomic with respect to each other. Concurrent updates may drop a sample, which is
+ * acceptable for a load heuristic and avoids contention on the request path.
+ * <p>
+ * The outcome of each request, except cancellations, is also reported to the {@link RequestOutcomeListener} set via
+ * {@link #outcomeListener(RequestOutcomeListener)}, if any.
+ */
+public final class RequestTracker implements ScoreSupplier {
+    private static final AtomicIntegerFieldUpdater<RequestTracker> pendingUpdater =
+            newUpdater(RequestTracker.class, "pending");
+
+    /**
+     * Default decay window for the latency EWMA.
+     */
+    public static final long DEFAULT_DECAY_NANOS = SECONDS.toNanos(10);
+
+    /**
+     * Factor by which the current EWMA is multiplied when a request fails, so that resources which fail fast are not
+     * preferred over resources which are slow but healthy.
+     */
+    private static final int ERROR_PENALTY = 2;
+
+    private final LongSupplier currentTimeNanos;
+    private final double decayNanos;
+
+    private volatile int pending;
+    private volatile double ewmaNanos;
+    private volatile long lastUpdateNanos;
+    @Nullable
+    private volatile RequestOutcomeListener outcomeListener;
+
+    /**
+     * Creates a new instance using {@link #DEFAULT_DECAY_NANOS}.
+     */
+    public RequestTracker() {
+        this(DEFAULT_DECAY_NANOS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param decayNanos the time window, in nanoseconds, over which latency samples decay.
+     */
+    public RequestTracker(final long decayNanos) {
+        this(decayNanos, System::nanoTime);
+    }
+
+    RequestTracker(final long decayNanos, final LongSupplier currentTimeNanos) {
+        if (decayNanos <= 0) {
+            throw new IllegalArgumentException("decayNanos: " + decayNanos + " (expected > 0)");
+        }
+        this.decayNanos = decayNanos;
+        this.currentTimeNanos = currentTimeNanos;
+        lastUpdateNanos = currentTimeNanos.getAsLong();
+    }
+
+    /**
+     * Must be called before a request is started.
+     *
+     * @return the start time of the request that must be passed to {@link #onRequestSuccess(long)},
+     * {@link #onRequestError(long)} or {@link #onRequestCancel(long)}.
+     */
+    public long beforeRequestStart() {
+        pendingUpdater.incrementAndGet(this);
+        return currentTimeNanos.getAsLong();
+    }
+
+    /**
+     * Must be called when a request started via {@link #beforeRequestStart()} completes successfully.
+     *
+     * @param startTimeNanos the value returned by {@link #beforeRequestStart()}.
+     */
+    public void onRequestSuccess(final long startTimeNanos) {
+        final long now = currentTimeNanos.getAsLong();
+        pendingUpdater.decrementAndGet(this);
+        updateEwma(now, now - startTimeNanos);
+        final RequestOutcomeListener outcomeListener = this.outcomeListener;
+        if (outcomeListener != null) {
+            outcomeListener.onRequestSucceeded();
+        }
+    }
+
+    /**
+     * Must be called when a request started via {@link #beforeRequestStart()} fails.
+     *
+     * @param startTimeNanos the value returned by {@link #beforeRequestStart()}.
+     */
+    public void onRequestError(final long startTimeNanos) {
+        onRequestCancel(startTimeNanos);
+        final RequestOutcomeListener outcomeListener = this.outcomeListener;
+        if (outcomeListener != null) {
+            outcomeListener.onRequestFailed();
+        }
+    }
+
+    /**
+     * Must be called when a request started via {@link #beforeRequestStart()} is cancelled. The latency is accounted
+     * as for a failed request, but the cancellation is not reported to the {@link RequestOutcomeListener}.
+     *
+     * @param startTimeNanos the value returned by {@link #beforeRequestStart()}.
+     */
+    public void onRequestCancel(final long startTimeNanos) {
+        final long now = currentTimeNanos.getAsLong();
+        pendingUpdater.decrementAndGet(this);
+        updateEwma(now, max(now - startTimeNanos, (long) (decayedEwma(now) * ERROR_PENALTY)));
+    }
+
+    /**
+     * Sets the listener which is notified of the outcome of the requests tracked by this {@link RequestTracker},
+     * replacing the previous one.
+     *
+     * @param outcomeListener the listener to notify, or {@code null} to stop notifying.
+     */
+    public void outcomeListener(@Nullable final RequestOutcomeListener outcomeListener) {
+        this.outcomeListener = outcomeListener;
+    }
+
+    /**
+     * Returns the number of requests which have started but not yet finished.
+     *
+     * @return the number of requests which have started but not yet finished.
+     */
+    public int pendingRequests() {
+        return pending;
+    }
+
+    /**
+     * Returns the current latency EWMA, in nanoseconds.
+     *
+     * @return the current latency EWMA, in nanoseconds.
+     */
+    public long latencyEwmaNanos() {
+        return (long) decayedEwma(currentTimeNanos.getAsLong());
+    }
+
+    @Override
+    public int score() {
+        // Latency is accounted in microseconds to keep a useful resolution of the resulting integer score.
+        final double cost = (decayedEwma(currentTimeNanos.getAsLong()) / 1000 + 1) * (max(0, pending) + 1);
+        return (int) (Integer.MAX_VALUE / cost);
+    }
+
+    private void updateEwma(final long now, final long sampleNanos) {
+        final double decay = decay(now);
+        final double current = ewmaNanos * decay;
+        // Peak sensitive: latency spikes are reflected immediately, improvements are smoothed over the decay window.
+        ewmaNanos = sampleNanos > current ? sampleNanos : current + sampleNanos * (1 - decay);
+        lastUpdateNanos = now;
+    }
+
+    private double decayedEwma(final long now) {
+        return ewmaNanos * decay(now);
+    }
+
+    private double decay(final long now) {
+        final long elapsed = now - lastUpdateNanos;
+        return elapsed <= 0 ? 1 : exp(-elapsed / decayNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestTracker{" +
+                "pending=" + pending +
+                ", ewmaNanos=" + ewmaNanos +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * A resource, typically a connection, which tracks the requests it processes with a {@link RequestTracker}.
+ */
+public interface RequestTrackerSupplier {
+
+    /**
+     * Returns the {@link RequestTracker} of this resource.
+     *
+     * @return the {@link RequestTracker} of this resource, or {@code null} if its requests are not tracked.
+     */
+    @Nullable
+    RequestTracker requestTracker();
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api.internal;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RequestTrackerTest {
+
+    private final AtomicLong time = new AtomicLong();
+    private final RequestTracker tracker = new RequestTracker(SECONDS.toNanos(10), time::get);
+
+    @Test
+    public void noHistoryHasMaxScore() {
+        assertThat(tracker.score(), is(Integer.MAX_VALUE));
+        assertThat(tracker.pendingRequests(), is(0));
+    }
+
+    @Test
+    public void pendingRequestsLowerScore() {
+        recordSuccess(MILLISECONDS.toNanos(1));
+        final int idleScore = tracker.score();
+        tracker.beforeRequestStart();
+        assertThat(tracker.pendingRequests(), is(1));
+        assertThat(tracker.score(), is(lessThan(idleScore)));
+    }
+
+    @Test
+    public void higherLatencyLowersScore() {
+        final RequestTracker slow = new RequestTracker(SECONDS.toNanos(10), time::get);
+        recordSuccess(MILLISECONDS.toNanos(1));
+        final long start = slow.beforeRequestStart();
+        time.addAndGet(MILLISECONDS.toNanos(100));
+        slow.onRequestSuccess(start);
+        assertThat(slow.latencyEwmaNanos(), is(greaterThan(tracker.latencyEwmaNanos())));
+        assertThat(slow.score(), is(lessThan(tracker.score())));
+    }
+
+    @Test
+    public void latencySpikeIsObservedImmediately() {
+        recordSuccess(MILLISECONDS.toNanos(1));
+        recordSuccess(MILLISECONDS.toNanos(50));
+        assertThat(tracker.latencyEwmaNanos(), is(MILLISECONDS.toNanos(50)));
+    }
+
+    @Test
+    public void latencyDecaysWhenIdle() {
+        recordSuccess(MILLISECONDS.toNanos(50));
+        final int score = tracker.score();
+        time.addAndGet(SECONDS.toNanos(30));
+        assertThat(tracker.latencyEwmaNanos(), is(lessThan(MILLISECONDS.toNanos(50))));
+        assertThat(tracker.score(), is(greaterThan(score)));
+    }
+
+    @Test
+    public void errorPenalizesLatency() {
+        recordSuccess(MILLISECONDS.toNanos(10));
+        final long start = tracker.beforeRequestStart();
+        tracker.onRequestError(start);
+        assertThat(tracker.pendingRequests(), is(0));
+        assertThat(tracker.latencyEwmaNanos(), is(MILLISECONDS.toNanos(20)));
+    }
+
+    @Test
+    public void cancelPenalizesLatency() {
+        recordSuccess(MILLISECONDS.toNanos(10));
+        final long start = tracker.beforeRequestStart();
+        tracker.onRequestCancel(start);
+        assertThat(tracker.pendingRequests(), is(0));
+        assertThat(tracker.latencyEwmaNanos(), is(MILLISECONDS.toNanos(20)));
+    }
+
+    @Test
+    public void outcomesAreReportedExceptCancellations() {
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        tracker.outcomeListener(new RequestOutcomeListener() {
+            @Override
+            public void onRequestSucceeded() {
+                succeeded.incrementAndGet();
+            }
+
+            @Override
+            public void onRequestFailed() {
+                failed.incrementAndGet();
+            }
+        });
+        recordSuccess(MILLISECONDS.toNanos(1));
+        tracker.onRequestError(tracker.beforeRequestStart());
+        tracker.onRequestCancel(tracker.beforeRequestStart());
+        assertThat(succeeded.get(), is(1));
+        assertThat(failed.get(), is(1));
+
+        tracker.outcomeListener(null);
+        recordSuccess(MILLISECONDS.toNanos(1));
+        assertThat(succeeded.get(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDecay() {
+        new RequestTracker(0);
+    }
+
+    private void recordSuccess(final long latencyNanos) {
+        final long start = tracker.beforeRequestStart();
+        time.addAndGet(latencyNanos);
+        tracker.onRequestSuccess(start);
+    }
+}
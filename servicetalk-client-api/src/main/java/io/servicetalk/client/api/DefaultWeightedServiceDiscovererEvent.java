@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Default implementation of {@link WeightedServiceDiscovererEvent}.
+ * @param <T> The type of resolved address.
+ */
+public final class DefaultWeightedServiceDiscovererEvent<T> implements WeightedServiceDiscovererEvent<T> {
+    private final T address;
+    private final boolean available;
+    @Nullable
+    private final String locality;
+    private final int weight;
+    private final int priority;
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #isAvailable()}.
+     * @param locality Value returned by {@link #locality()}.
+     * @param weight Value returned by {@link #weight()}.
+     */
+    public DefaultWeightedServiceDiscovererEvent(T address, boolean available, @Nullable String locality, int weight) {
+        this(address, available, locality, weight, 0);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #isAvailable()}.
+     * @param locality Value returned by {@link #locality()}.
+     * @param weight Value returned by {@link #weight()}.
+     * @param priority Value returned by {@link #priority()}.
+     */
+    public DefaultWeightedServiceDiscovererEvent(T address, boolean available, @Nullable String locality, int weight,
+                                                 int priority) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight: " + weight + " (expected > 0)");
+        }
+        if (priority < 0) {
+            throw new IllegalArgumentException("priority: " + priority + " (expected >= 0)");
+        }
+        this.address = requireNonNull(address);
+        this.available = available;
+        this.locality = locality;
+        this.weight = weight;
+        this.priority = priority;
+    }
+
+    @Override
+    public T address() {
+        return address;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Nullable
+    @Override
+    public String locality() {
+        return locality;
+    }
+
+    @Override
+    public int weight() {
+        return weight;
+    }
+
+    @Override
+    public int priority() {
+        return priority;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final DefaultWeightedServiceDiscovererEvent<?> that = (DefaultWeightedServiceDiscovererEvent<?>) o;
+
+        return available == that.available && weight == that.weight && priority == that.priority &&
+                address.equals(that.address) && Objects.equals(locality, that.locality);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = address.hashCode();
+        result = 31 * result + (available ? 1 : 0);
+        result = 31 * result + Objects.hashCode(locality);
+        result = 31 * result + weight;
+        result = 31 * result + priority;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultWeightedServiceDiscovererEvent{" +
+                "address=" + address +
+                ", available=" + available +
+                ", locality=" + locality +
+                ", weight=" + weight +
+                ", priority=" + priority +
+                '}';
+    }
+}
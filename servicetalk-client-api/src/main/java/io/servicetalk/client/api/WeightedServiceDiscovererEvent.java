@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ServiceDiscovererEvent} which also carries the locality, the relative weight and the priority of
+ * {@link #address()}, that {@link LoadBalancer}s can use to prefer nearby addresses, to spread load proportionally to
+ * capacity, and to only use backup addresses when primary addresses are unavailable.
+ * @param <ResolvedAddress> the type of address after resolution.
+ */
+public interface WeightedServiceDiscovererEvent<ResolvedAddress> extends ServiceDiscovererEvent<ResolvedAddress> {
+    /**
+     * Get the locality of {@link #address()}, for example the zone or data center in which it runs.
+     * @return the locality of {@link #address()}, or {@code null} if unknown.
+     */
+    @Nullable
+    String locality();
+
+    /**
+     * Get the weight of {@link #address()} relative to other addresses, a higher weight means more capacity.
+     * @return the weight of {@link #address()} relative to other addresses, always {@code > 0}.
+     */
+    int weight();
+
+    /**
+     * Get the priority class of {@link #address()}, addresses with a lower value are preferred.
+     * @return the priority class of {@link #address()}, always {@code >= 0}.
+     */
+    int priority();
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,8 +35,10 @@ import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
 import static io.servicetalk.concurrent.internal.SignalOffloaders.defaultOffloaderFactory;
+import static java.lang.Boolean.getBoolean;
 import static java.lang.Thread.NORM_PRIORITY;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -54,6 +56,16 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
     private static final ScheduledExecutorService GLOBAL_SINGLE_THREADED_SCHEDULED_EXECUTOR =
             newSingleThreadScheduledExecutor(new DefaultThreadFactory("servicetalk-global-scheduler",
                     true, NORM_PRIORITY));
+    /**
+     * Opt-in alternative to {@link #GLOBAL_SINGLE_THREADED_SCHEDULED_EXECUTOR} for applications which schedule and
+     * cancel a large number of timers (e.g. a timeout per request): a {@link HashedWheelTimer} schedules and cancels
+     * in {@code O(1)} without contending on a shared heap, at the cost of {@code 10ms} timer precision.
+     */
+    @Nullable
+    private static final HashedWheelTimer GLOBAL_HASHED_WHEEL_TIMER =
+            getBoolean("io.servicetalk.concurrent.api.hashedWheelTimer") ?
+                    new HashedWheelTimer(new DefaultThreadFactory("servicetalk-global-timer", true, NORM_PRIORITY),
+                            10, MILLISECONDS, 512) : null;
     private static final RejectedExecutionHandler DEFAULT_REJECTION_HANDLER = new AbortPolicy();
 
     private final InternalExecutor executor;
@@ -227,6 +239,9 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
         public Cancellable apply(final Runnable task, final long delay, final TimeUnit unit) {
             // When using the global scheduler, offload timer ticks to the user specified Executor since user code
             // executed on the timer tick can block.
+            if (GLOBAL_HASHED_WHEEL_TIMER != null) {
+                return GLOBAL_HASHED_WHEEL_TIMER.schedule(() -> offloadExecutor.execute(task), delay, unit);
+            }
             ScheduledFuture<?> future = GLOBAL_SINGLE_THREADED_SCHEDULED_EXECUTOR.schedule(
                     () -> offloadExecutor.execute(task), delay, unit);
             // Schedulers are only used to generate a tick and do not execute any user code. This means they will never
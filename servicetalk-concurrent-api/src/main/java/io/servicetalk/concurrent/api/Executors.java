@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,9 +21,16 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import static io.servicetalk.concurrent.api.ImmediateExecutor.IMMEDIATE_EXECUTOR;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Utility methods to create various {@link Executor}s.
+ * <p>
+ * {@link Executor}s which are not created from a {@link ScheduledExecutorService} delegate
+ * {@link Executor#schedule(Runnable, long, TimeUnit)} to a global single threaded scheduler. Applications which
+ * schedule and cancel many timers (e.g. a timeout per request) can set the
+ * {@code io.servicetalk.concurrent.api.hashedWheelTimer} system property to {@code true} to use a global hashed wheel
+ * timer instead, which schedules and cancels in {@code O(1)} with {@code 10ms} precision.
  */
 public final class Executors {
     static final CopyOnWriteExecutorPluginSet EXECUTOR_PLUGINS = new CopyOnWriteExecutorPluginSet();
@@ -88,6 +95,44 @@ public final class Executors {
         return EXECUTOR_PLUGINS.wrapExecutor(new DefaultExecutor(1, Integer.MAX_VALUE, threadFactory));
     }
 
+    /**
+     * Returns {@code true} if the current JDK supports virtual threads, and
+     * {@link #newVirtualThreadExecutor()} can be used.
+     *
+     * @return {@code true} if the current JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isAvailable();
+    }
+
+    /**
+     * Creates a new {@link Executor} that runs each task on a new virtual thread.
+     * <p>
+     * Virtual threads are cheap to create and to block, which makes this {@link Executor} suited to run blocking code
+     * (e.g. blocking HTTP and gRPC services) without growing a pool of platform threads when a dependency is slow.
+     * Delayed task execution will be delegated to a global scheduler.
+     *
+     * @return A new {@link Executor} that runs each task on a new virtual thread.
+     * @throws UnsupportedOperationException if the current JDK does not support virtual threads.
+     * @see #isVirtualThreadSupported()
+     */
+    public static Executor newVirtualThreadExecutor() {
+        return newVirtualThreadExecutor("servicetalk-virtual-executor-");
+    }
+
+    /**
+     * Creates a new {@link Executor} that runs each task on a new virtual thread.
+     *
+     * @param namePrefix prefix of the names of the virtual threads, followed by an incrementing counter.
+     * @return A new {@link Executor} that runs each task on a new virtual thread.
+     * @throws UnsupportedOperationException if the current JDK does not support virtual threads.
+     * @see #newVirtualThreadExecutor()
+     */
+    public static Executor newVirtualThreadExecutor(String namePrefix) {
+        return EXECUTOR_PLUGINS.wrapExecutor(
+                new DefaultExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor(requireNonNull(namePrefix))));
+    }
+
     /**
      * Creates a new {@link Executor} from the provided {@code jdkExecutor}. <p>
      * Delayed task execution will be delegated to a global scheduler, unless passed
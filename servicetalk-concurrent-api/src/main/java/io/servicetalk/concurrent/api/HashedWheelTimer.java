@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.utils.internal.PlatformDependent.newUnboundedMpscQueue;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+
+/**
+ * A timer based on a <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf">hashed
+ * timing wheel</a>, which schedules and cancels tasks in {@code O(1)}.
+ * <p>
+ * Schedule and cancel only enqueue the timeout to lock-free queues, a single worker thread moves them in and out of
+ * the wheel and advances it every tick. Tasks are expected to be short (e.g. hand off to another executor) and run no
+ * earlier than their deadline, but up to one tick later.
+ */
+final class HashedWheelTimer implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private static final int ST_INIT = 0;
+    private static final int ST_STARTED = 1;
+    private static final int ST_STOPPED = 2;
+    private static final AtomicIntegerFieldUpdater<HashedWheelTimer> stateUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimer.class, "state");
+
+    private final Thread worker;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = newUnboundedMpscQueue();
+    private final Queue<Timeout> cancelledTimeouts = newUnboundedMpscQueue();
+    private final long startNanos;
+    private volatile int state;
+    private long tick;
+
+    HashedWheelTimer(final ThreadFactory threadFactory, final long tickDuration, final TimeUnit unit,
+                     final int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration + " (expected > 0)");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel: " + ticksPerWheel + " (expected [1, 2^30])");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+        // Round up to the next power of two, so the bucket index is a mask of the tick.
+        final int wheelSize = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; ++i) {
+            wheel[i] = new Bucket();
+        }
+        mask = wheelSize - 1;
+        startNanos = nanoTime();
+        worker = threadFactory.newThread(this);
+    }
+
+    /**
+     * Schedules a {@link Runnable} to run on the timer thread after the specified delay.
+     *
+     * @param task The task to run.
+     * @param delay The delay after which the task should run.
+     * @param unit {@link TimeUnit} of the {@code delay}.
+     * @return {@link Cancellable} to cancel the task.
+     */
+    Cancellable schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (state == ST_INIT && stateUpdater.compareAndSet(this, ST_INIT, ST_STARTED)) {
+            worker.start();
+        }
+        final long delayNanos = unit.toNanos(delay);
+        long deadline = nanoTime() - startNanos + delayNanos;
+        if (delayNanos > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;  // Guard against overflow.
+        }
+        final Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread, pending and scheduled tasks are not run.
+     */
+    void stop() {
+        if (stateUpdater.getAndSet(this, ST_STOPPED) == ST_STARTED) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (state == ST_STARTED) {
+            final long tickDeadline = waitForNextTick();
+            if (tickDeadline < 0) {
+                break;
+            }
+            removeCancelledTimeouts();
+            transferPendingTimeouts();
+            wheel[(int) (tick & mask)].expireTimeouts(tickDeadline);
+            ++tick;
+        }
+    }
+
+    private long waitForNextTick() {
+        final long tickDeadline = tickNanos * (tick + 1);
+        for (;;) {
+            final long sleepNanos = tickDeadline - (nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return tickDeadline;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+            if (state != ST_STARTED) {
+                return -1;
+            }
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            final Bucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.state != Timeout.ST_INIT) {
+                continue;
+            }
+            final long expireTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expireTick - tick) / wheel.length;
+            // Deadlines in the past are expired with the current tick.
+            wheel[(int) (max(expireTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A doubly-linked list of {@link Timeout}s, only accessed from the timer thread.
+     */
+    private static final class Bucket {
+        @Nullable
+        private Timeout head;
+        @Nullable
+        private Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                assert tail != null;
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts(final long tickDeadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= tickDeadline) {
+                        timeout.expire();
+                    }
+                } else if (timeout.state == Timeout.ST_CANCELLED) {
+                    remove(timeout);
+                } else {
+                    --timeout.remainingRounds;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;  // Already removed.
+            }
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private static final class Timeout implements Cancellable {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> stateUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state;
+
+        // Only accessed from the timer thread.
+        private long remainingRounds;
+        @Nullable
+        private Bucket bucket;
+        @Nullable
+        private Timeout prev;
+        @Nullable
+        private Timeout next;
+
+        Timeout(final HashedWheelTimer timer, final Runnable task, final long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void cancel() {
+            if (stateUpdater.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                timer.cancelledTimeouts.add(this);
+            }
+        }
+
+        void expire() {
+            if (stateUpdater.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                try {
+                    task.run();
+                } catch (Throwable cause) {
+                    LOGGER.warn("Unexpected exception from task {} run by {}.", task, timer, cause);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,4 +51,52 @@ final class MergedExecutors {
     static Executor mergeAndOffloadSubscribe(final Executor fallback, final Executor subscribeOnExecutor) {
         return new MergedOffloadSubscribeExecutor(subscribeOnExecutor, fallback);
     }
+
+    /**
+     * Determines if publish signals of a source that uses {@code current} {@link Executor} are already offloaded to
+     * {@code publishOnExecutor}, in which case offloading them to {@code publishOnExecutor} again is redundant.
+     *
+     * @param current {@link Executor} of the source.
+     * @param publishOnExecutor {@link Executor} that publish signals are to be offloaded to.
+     * @return {@code true} if publish signals of the source are already offloaded to {@code publishOnExecutor}.
+     */
+    static boolean publishesOn(Executor current, final Executor publishOnExecutor) {
+        for (;;) {
+            if (current == publishOnExecutor) {
+                return true;
+            }
+            if (current instanceof MergedOffloadPublishExecutor) {
+                return ((MergedOffloadPublishExecutor) current).delegate() == publishOnExecutor;
+            }
+            if (!(current instanceof MergedOffloadSubscribeExecutor)) {
+                return false;
+            }
+            // Publish signals are offloaded by the fallback.
+            current = ((MergedOffloadSubscribeExecutor) current).fallbackExecutor();
+        }
+    }
+
+    /**
+     * Determines if subscribe signals of a source that uses {@code current} {@link Executor} are already offloaded to
+     * {@code subscribeOnExecutor}, in which case offloading them to {@code subscribeOnExecutor} again is redundant.
+     *
+     * @param current {@link Executor} of the source.
+     * @param subscribeOnExecutor {@link Executor} that subscribe signals are to be offloaded to.
+     * @return {@code true} if subscribe signals of the source are already offloaded to {@code subscribeOnExecutor}.
+     */
+    static boolean subscribesOn(Executor current, final Executor subscribeOnExecutor) {
+        for (;;) {
+            if (current == subscribeOnExecutor) {
+                return true;
+            }
+            if (current instanceof MergedOffloadSubscribeExecutor) {
+                return ((MergedOffloadSubscribeExecutor) current).delegate() == subscribeOnExecutor;
+            }
+            if (!(current instanceof MergedOffloadPublishExecutor)) {
+                return false;
+            }
+            // Subscribe signals are offloaded by the fallback.
+            current = ((MergedOffloadPublishExecutor) current).fallbackExecutor();
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,10 @@ final class MergedOffloadPublishExecutor extends DelegatingExecutor implements S
         this.fallbackExecutor = fallbackExecutor;
     }
 
+    Executor fallbackExecutor() {
+        return fallbackExecutor;
+    }
+
     @Override
     public SignalOffloader newSignalOffloader(final io.servicetalk.concurrent.Executor executor) {
         // This method is weird since we want to keep SignalOffloader internal but it has to be associated with the
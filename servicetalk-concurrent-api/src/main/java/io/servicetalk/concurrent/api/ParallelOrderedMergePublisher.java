@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.api.ParallelPublisher.RailItem;
+import io.servicetalk.concurrent.internal.DelayedSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtils;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.releaseLock;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.tryAcquireLock;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.utils.internal.PlatformDependent.newSpscQueue;
+
+/**
+ * Merges the rails of a {@link ParallelPublisher} back into a single {@link Publisher}, in the order in which the items
+ * were emitted by the {@link Publisher} before it was split.
+ * <p>
+ * Items within a rail are ordered by their {@link RailItem#index}, so the next item to emit is the one with the lowest
+ * index among the heads of all rails. This requires an item (or completion) from every rail before emitting, up to
+ * {@code prefetch} items are requested from each rail and queued while waiting for slower rails.
+ */
+final class ParallelOrderedMergePublisher extends AbstractNoHandleSubscribePublisher<RailItem> {
+    private final Publisher<RailItem>[] rails;
+    private final int prefetch;
+
+    ParallelOrderedMergePublisher(final Publisher<RailItem>[] rails, final int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        this.rails = rails;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    void handleSubscribe(final Subscriber<? super RailItem> subscriber, final SignalOffloader signalOffloader,
+                         final AsyncContextMap contextMap, final AsyncContextProvider contextProvider) {
+        final MergeSubscription merge = new MergeSubscription(signalOffloader.offloadSubscriber(
+                contextProvider.wrapPublisherSubscriber(subscriber, contextMap)), rails.length, prefetch);
+        merge.target.onSubscribe(merge);
+        for (int i = 0; i < rails.length; ++i) {
+            rails[i].subscribeInternal(merge.railSubscribers[i]);
+        }
+    }
+
+    private static final class MergeSubscription implements Subscription {
+        private static final AtomicIntegerFieldUpdater<MergeSubscription> emittingLockUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(MergeSubscription.class, "emittingLock");
+        private static final AtomicLongFieldUpdater<MergeSubscription> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(MergeSubscription.class, "requested");
+        private static final AtomicReferenceFieldUpdater<MergeSubscription, Throwable> errorUpdater =
+                AtomicReferenceFieldUpdater.newUpdater(MergeSubscription.class, Throwable.class, "error");
+
+        final Subscriber<? super RailItem> target;
+        final RailSubscriber[] railSubscribers;
+        @SuppressWarnings("unused")
+        private volatile int emittingLock;
+        /**
+         * Outstanding downstream demand, or negative if cancelled.
+         */
+        private volatile long requested;
+        @Nullable
+        private volatile Throwable error;
+        // protected by emitting lock
+        private boolean terminated;
+
+        MergeSubscription(final Subscriber<? super RailItem> target, final int rails, final int prefetch) {
+            this.target = target;
+            railSubscribers = new RailSubscriber[rails];
+            for (int i = 0; i < rails; ++i) {
+                railSubscribers[i] = new RailSubscriber(this, prefetch);
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            if (isRequestNValid(n)) {
+                requestedUpdater.accumulateAndGet(this, n, FlowControlUtils::addWithOverflowProtectionIfNotNegative);
+            } else {
+                onRailError(newExceptionForInvalidRequestN(n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            requested = -1;
+            cancelRails();
+            drain();
+        }
+
+        void onRailError(final Throwable cause) {
+            if (errorUpdater.compareAndSet(this, null, cause)) {
+                cancelRails();
+            }
+            drain();
+        }
+
+        private void cancelRails() {
+            for (RailSubscriber railSubscriber : railSubscribers) {
+                railSubscriber.subscription.cancel();
+            }
+        }
+
+        void drain() {
+            boolean tryAcquire = true;
+            while (tryAcquire && tryAcquireLock(emittingLockUpdater, this)) {
+                try {
+                    drainUnderLock();
+                } finally {
+                    tryAcquire = !releaseLock(emittingLockUpdater, this);
+                }
+            }
+        }
+
+        private void drainUnderLock() {
+            if (terminated || requested < 0) {
+                clearQueues();
+                return;
+            }
+            final Throwable error = this.error;
+            if (error != null) {
+                terminated = true;
+                clearQueues();
+                target.onError(error);
+                return;
+            }
+            long requested = this.requested;
+            long emitted = 0;
+            try {
+                for (;;) {
+                    RailSubscriber min = null;
+                    RailItem minItem = null;
+                    for (RailSubscriber railSubscriber : railSubscribers) {
+                        // Read done before peeking, so an empty queue of a done rail really is empty.
+                        final boolean done = railSubscriber.done;
+                        final RailItem head = railSubscriber.queue.peek();
+                        if (head == null) {
+                            if (!done) {
+                                // The next item may come from this rail.
+                                return;
+                            }
+                        } else if (minItem == null || head.index < minItem.index) {
+                            min = railSubscriber;
+                            minItem = head;
+                        }
+                    }
+                    if (min == null) {
+                        terminated = true;
+                        target.onComplete();
+                        return;
+                    }
+                    if (emitted == requested) {
+                        requested = this.requested;
+                        if (emitted >= requested) {
+                            return;
+                        }
+                    }
+                    min.queue.poll();
+                    min.consumed();
+                    ++emitted;
+                    target.onNext(minItem);
+                }
+            } finally {
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    requestedUpdater.accumulateAndGet(this, -emitted,
+                            FlowControlUtils::addWithOverflowProtectionIfNotNegative);
+                }
+            }
+        }
+
+        private void clearQueues() {
+            for (RailSubscriber railSubscriber : railSubscribers) {
+                railSubscriber.queue.clear();
+            }
+        }
+    }
+
+    private static final class RailSubscriber implements Subscriber<RailItem> {
+        private final MergeSubscription parent;
+        private final int prefetch;
+        private final int limit;
+        final Queue<RailItem> queue;
+        final DelayedSubscription subscription = new DelayedSubscription();
+        volatile boolean done;
+        // only accessed under the emitting lock of the parent
+        private int consumed;
+
+        RailSubscriber(final MergeSubscription parent, final int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            // Replenish demand in batches, but before the queue runs dry.
+            limit = prefetch - (prefetch >> 2);
+            queue = newSpscQueue(prefetch);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            // A duplicate Subscription is cancelled, and so is a Subscription that arrives after cancel().
+            subscription.delayedSubscription(s);
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(@Nullable final RailItem item) {
+            assert item != null;
+            if (!queue.offer(item)) {
+                parent.onRailError(new QueueFullException("parallel-ordered-merge", prefetch));
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            done = true;
+            parent.onRailError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        void consumed() {
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.defer;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+
+/**
+ * A {@link Publisher} whose items are split across a fixed number of rails, which can process items concurrently.
+ * <p>
+ * Items are distributed to the rails as they are emitted, each item to a single rail which has demand. Within a rail
+ * items are processed in order, one at a time, and each rail requests items independently so a slow rail does not
+ * stall the others. Rails only run concurrently if they are offloaded via {@link #runOn(Executor)}, for example:
+ * <pre>{@code
+ *     Publisher<Result> results = requests.parallel(4)
+ *             .runOn(executor)
+ *             .map(this::decode)
+ *             .filter(Decoded::isValid)
+ *             .map(this::transform)
+ *             .sequentialOrdered();
+ * }</pre>
+ * A {@link ParallelPublisher} is converted back to a {@link Publisher} with {@link #sequential()}, which emits items
+ * as soon as any rail produces them, or {@link #sequentialOrdered()}, which preserves the order of the original
+ * {@link Publisher}. Each subscribe to these {@link Publisher}s subscribes to the original {@link Publisher} once.
+ *
+ * @param <T> Type of items emitted by this {@link ParallelPublisher}.
+ * @see Publisher#parallel(int)
+ */
+public final class ParallelPublisher<T> {
+    static final int DEFAULT_PREFETCH = 32;
+
+    private final Publisher<?> original;
+    private final int parallelism;
+    private final int prefetch;
+    private final RailOperator railOperator;
+
+    ParallelPublisher(final Publisher<T> original, final int parallelism, final int prefetch) {
+        this(original, parallelism, prefetch, (rail, publisher) -> publisher);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism: " + parallelism + " (expected > 0)");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+    }
+
+    private ParallelPublisher(final Publisher<?> original, final int parallelism, final int prefetch,
+                              final RailOperator railOperator) {
+        this.original = original;
+        this.parallelism = parallelism;
+        this.prefetch = prefetch;
+        this.railOperator = railOperator;
+    }
+
+    /**
+     * Returns the number of rails of this {@link ParallelPublisher}.
+     *
+     * @return the number of rails of this {@link ParallelPublisher}.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Offloads the items of each rail to the passed {@link Executor}, so that operators added after this one process
+     * different rails concurrently.
+     * <p>
+     * Each rail is offloaded separately as if by {@link Publisher#publishOn(Executor)}, hence the {@link Executor} must
+     * be able to run at least {@link #parallelism()} tasks concurrently for all rails to make progress concurrently.
+     *
+     * @param executor {@link Executor} to process the items of each rail.
+     * @return A new {@link ParallelPublisher} whose rails are offloaded to {@code executor}.
+     */
+    public ParallelPublisher<T> runOn(final Executor executor) {
+        requireNonNull(executor);
+        return transform((rail, publisher) -> publisher.publishOn(executor));
+    }
+
+    /**
+     * Transforms the items of each rail by applying the passed {@link Function}.
+     *
+     * @param mapper {@link Function} to transform each item.
+     * @param <R> Type of items emitted by the returned {@link ParallelPublisher}.
+     * @return A new {@link ParallelPublisher} with transformed items.
+     * @see Publisher#map(Function)
+     */
+    public <R> ParallelPublisher<R> map(final Function<? super T, ? extends R> mapper) {
+        requireNonNull(mapper);
+        return transform((rail, publisher) -> publisher.map(item -> {
+            item.value = mapper.apply(item.value());
+            return item;
+        }));
+    }
+
+    /**
+     * Filters the items of each rail using the passed {@link Predicate}.
+     *
+     * @param predicate for the filter, items for which it returns {@code false} are dropped.
+     * @return A new {@link ParallelPublisher} that only emits the items for which {@code predicate} returns
+     * {@code true}.
+     * @see Publisher#filter(Predicate)
+     */
+    public ParallelPublisher<T> filter(final Predicate<? super T> predicate) {
+        requireNonNull(predicate);
+        return transform((rail, publisher) -> publisher.filter(item -> predicate.test(item.value())));
+    }
+
+    /**
+     * Reduces the items of each rail to a single item.
+     * <p>
+     * The returned {@link ParallelPublisher} emits one item per rail, the items can be combined further after
+     * converting to a {@link Publisher}, for example:
+     * <pre>{@code
+     *     Single<Long> sum = numbers.parallel(4)
+     *             .runOn(executor)
+     *             .reduce(() -> 0L, (partialSum, number) -> partialSum + number)
+     *             .sequential()
+     *             .collect(() -> 0L, Long::sum);
+     * }</pre>
+     * {@link #sequentialOrdered()} emits the reduced items in the order of the rails.
+     *
+     * @param resultFactory Factory for the initial result of each rail.
+     * @param reducer Invoked for every item of a rail and returns the same or altered result.
+     * @param <R> Type of the reduced items.
+     * @return A new {@link ParallelPublisher} that emits the reduced item of each rail.
+     * @see Publisher#collect(Supplier, BiFunction)
+     */
+    public <R> ParallelPublisher<R> reduce(final Supplier<? extends R> resultFactory,
+                                           final BiFunction<? super R, ? super T, R> reducer) {
+        requireNonNull(resultFactory);
+        requireNonNull(reducer);
+        return transform((rail, publisher) -> publisher.<R>collect(resultFactory,
+                (result, item) -> reducer.apply(result, item.value()))
+                // The rail number orders the reduced items, as they are unrelated to the original order.
+                .map(result -> new RailItem(rail, result))
+                .toPublisher());
+    }
+
+    /**
+     * Merges the rails into a {@link Publisher}, which emits items as soon as they are emitted by any rail.
+     *
+     * @return A {@link Publisher} that emits the items of all rails.
+     */
+    public Publisher<T> sequential() {
+        return defer(() -> fromIterable(asList(newRails())).flatMapMerge(identity(), parallelism)
+                .map(RailItem::value));
+    }
+
+    /**
+     * Merges the rails into a {@link Publisher}, which emits items in the same order as the original
+     * {@link Publisher}.
+     * <p>
+     * Emitting an item requires that every other rail has emitted a later item or completed, so items of a slow rail
+     * delay the items of all rails. Up to the prefetch number of items are queued for each rail while waiting.
+     *
+     * @return A {@link Publisher} that emits the items of all rails in the original order.
+     */
+    public Publisher<T> sequentialOrdered() {
+        return defer(() -> new ParallelOrderedMergePublisher(newRails(), prefetch).map(RailItem::value));
+    }
+
+    private <R> ParallelPublisher<R> transform(final RailOperator operator) {
+        final RailOperator railOperator = this.railOperator;
+        return new ParallelPublisher<>(original, parallelism, prefetch,
+                (rail, publisher) -> operator.apply(rail, railOperator.apply(rail, publisher)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Publisher<RailItem>[] newRails() {
+        // Split and indexing state is per subscribe, hence rails are created for each subscribe.
+        final Indexer indexer = new Indexer();
+        final Publisher<RailItem> split = new ParallelSplitPublisher<>(original.map(indexer), parallelism, prefetch);
+        final Publisher<RailItem>[] rails = (Publisher<RailItem>[]) new Publisher[parallelism];
+        for (int i = 0; i < parallelism; ++i) {
+            rails[i] = railOperator.apply(i, split);
+        }
+        return rails;
+    }
+
+    /**
+     * Operator applied to each rail.
+     */
+    @FunctionalInterface
+    private interface RailOperator {
+        Publisher<RailItem> apply(int rail, Publisher<RailItem> publisher);
+    }
+
+    /**
+     * An item on a rail, and its index in the original {@link Publisher} which is used to restore the original order.
+     * <p>
+     * Instances are not shared between rails, so operators modify the {@link #value} instead of allocating.
+     */
+    static final class RailItem {
+        final long index;
+        @Nullable
+        private Object value;
+
+        RailItem(final long index, @Nullable final Object value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        <T> T value() {
+            return (T) value;
+        }
+    }
+
+    private static final class Indexer implements Function<Object, RailItem> {
+        private long nextIndex;
+
+        @Override
+        public RailItem apply(@Nullable final Object value) {
+            return new RailItem(nextIndex++, value);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.DelayedSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtils;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.RejectedSubscribeException;
+import io.servicetalk.concurrent.internal.SignalOffloader;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.concurrent.api.PublishAndSubscribeOnPublishers.deliverOnSubscribeAndOnError;
+import static io.servicetalk.concurrent.api.SubscriberApiUtils.unwrapNullUnchecked;
+import static io.servicetalk.concurrent.api.SubscriberApiUtils.wrapNull;
+import static io.servicetalk.concurrent.internal.ConcurrentSubscription.wrap;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.releaseLock;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.tryAcquireLock;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static io.servicetalk.concurrent.internal.TerminalNotification.error;
+import static io.servicetalk.utils.internal.PlatformDependent.newSpscQueue;
+
+/**
+ * Splits the items of a {@link Publisher} across exactly {@code rails} {@link Subscriber}s (the rails of a
+ * {@link ParallelPublisher}).
+ * <p>
+ * Each item is delivered to a single rail, picking rails which have demand in a round-robin fashion. At most
+ * {@code prefetch} items are requested from the original {@link Publisher} and queued until a rail has demand, so a
+ * slow rail does not hold back the others. The original {@link Publisher} is subscribed when all rails have
+ * subscribed, and is cancelled when all rails have cancelled.
+ *
+ * @param <T> Type of items emitted.
+ */
+final class ParallelSplitPublisher<T> extends AbstractNoHandleSubscribePublisher<T> implements Subscriber<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ParallelSplitPublisher> subscriberCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ParallelSplitPublisher.class, "subscriberCount");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ParallelSplitPublisher> cancelledCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ParallelSplitPublisher.class, "cancelledCount");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ParallelSplitPublisher> emittingLockUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ParallelSplitPublisher.class, "emittingLock");
+
+    private final Publisher<T> original;
+    private final int prefetch;
+    private final AtomicReferenceArray<Rail<T>> rails;
+    private final Queue<Object> queue;
+    private final DelayedSubscription delayedSubscription = new DelayedSubscription();
+    private final ConcurrentSubscription subscription = wrap(delayedSubscription);
+    @SuppressWarnings("unused")
+    private volatile int subscriberCount;
+    @SuppressWarnings("unused")
+    private volatile int cancelledCount;
+    @SuppressWarnings("unused")
+    private volatile int emittingLock;
+    @Nullable
+    private volatile TerminalNotification terminal;
+    private volatile boolean invalidRequestN;
+    // protected by emitting lock
+    private int nextRail;
+    private boolean terminated;
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The returned {@link Publisher} deliberately does not inherit the {@link Executor} of {@code original}.
+     * Rails are offloaded independently, and an inherited {@link Executor} would let an offload on a rail be fused with
+     * an earlier offload of {@code original}.
+     *
+     * @param original {@link Publisher} to split.
+     * @param rails The number of rails, i.e. subscribers that must subscribe to this {@link Publisher}.
+     * @param prefetch The maximum number of items requested from {@code original} and not yet delivered to a rail.
+     */
+    ParallelSplitPublisher(final Publisher<T> original, final int rails, final int prefetch) {
+        super(immediate());
+        if (rails <= 0) {
+            throw new IllegalArgumentException("rails: " + rails + " (expected > 0)");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        this.original = original;
+        this.prefetch = prefetch;
+        this.rails = new AtomicReferenceArray<>(rails);
+        queue = newSpscQueue(prefetch);
+    }
+
+    @Override
+    void handleSubscribe(final Subscriber<? super T> subscriber, final SignalOffloader signalOffloader,
+                         final AsyncContextMap contextMap, final AsyncContextProvider contextProvider) {
+        for (;;) {
+            final int subscriberCount = this.subscriberCount;
+            if (subscriberCount == rails.length()) {
+                deliverOnSubscribeAndOnError(subscriber, signalOffloader, contextMap, contextProvider,
+                        new RejectedSubscribeException("Only " + rails.length() + " rails are allowed!"));
+                break;
+            }
+            if (subscriberCountUpdater.compareAndSet(this, subscriberCount, subscriberCount + 1)) {
+                final Rail<T> rail = new Rail<>(this, signalOffloader.offloadSubscriber(
+                        contextProvider.wrapPublisherSubscriber(subscriber, contextMap)));
+                rails.set(subscriberCount, rail);
+                rail.subscriber.onSubscribe(rail);
+                if (subscriberCount == rails.length() - 1) {
+                    // Similar to multicast, the AsyncContext and signal offloader of the last rail are used.
+                    original.delegateSubscribe(this, signalOffloader, contextMap, contextProvider);
+                }
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void onSubscribe(final Subscription s) {
+        delayedSubscription.delayedSubscription(s);
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(@Nullable final T t) {
+        if (!queue.offer(wrapNull(t))) {
+            subscription.cancel();
+            onError(new QueueFullException("parallel-split", prefetch));
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        terminal = error(t);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        terminal = complete();
+        drain();
+    }
+
+    private void railCancelled() {
+        if (cancelledCountUpdater.incrementAndGet(this) == rails.length()) {
+            subscription.cancel();
+        }
+        drain();
+    }
+
+    private void drain() {
+        boolean tryAcquire = true;
+        while (tryAcquire && tryAcquireLock(emittingLockUpdater, this)) {
+            try {
+                drainUnderLock();
+            } finally {
+                tryAcquire = !releaseLock(emittingLockUpdater, this);
+            }
+        }
+    }
+
+    private void drainUnderLock() {
+        if (terminated) {
+            queue.clear();
+            return;
+        }
+        if (invalidRequestN) {
+            invalidRequestN = false;
+            for (int i = 0; i < rails.length(); ++i) {
+                final Rail<T> rail = rails.get(i);
+                if (rail != null) {
+                    rail.deliverInvalidRequestN();
+                }
+            }
+        }
+        final int railCount = rails.length();
+        int emitted = 0;
+        try {
+            for (;;) {
+                final TerminalNotification terminal = this.terminal;
+                if (terminal != null && terminal.cause() != null) {
+                    // Errors are delivered without waiting for queued items to be consumed.
+                    queue.clear();
+                    terminateRails(terminal);
+                    return;
+                }
+                final Object next = queue.peek();
+                if (next == null) {
+                    if (terminal != null) {
+                        terminateRails(terminal);
+                    }
+                    return;
+                }
+                if (cancelledCount == railCount) {
+                    queue.clear();
+                    return;
+                }
+                Rail<T> rail = null;
+                int r = nextRail;
+                for (int i = 0; i < railCount; ++i) {
+                    final Rail<T> candidate = rails.get(r);
+                    r = r == railCount - 1 ? 0 : r + 1;
+                    if (candidate != null && candidate.tryConsumeDemand()) {
+                        rail = candidate;
+                        break;
+                    }
+                }
+                if (rail == null) {
+                    return;
+                }
+                nextRail = r;
+                queue.poll();
+                ++emitted;
+                rail.subscriber.onNext(unwrapNullUnchecked(next));
+            }
+        } finally {
+            if (emitted > 0) {
+                subscription.request(emitted);
+            }
+        }
+    }
+
+    private void terminateRails(final TerminalNotification terminal) {
+        terminated = true;
+        for (int i = 0; i < rails.length(); ++i) {
+            final Rail<T> rail = rails.get(i);
+            if (rail != null && !rail.deliverInvalidRequestN() && !rail.isCancelled()) {
+                terminal.terminate(rail.subscriber);
+            }
+        }
+    }
+
+    private static final class Rail<T> implements Subscription {
+        private static final long CANCELLED = -1;
+        private static final long INVALID_REQUEST_N = -2;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<Rail> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(Rail.class, "requested");
+
+        private final ParallelSplitPublisher<T> parent;
+        private final Subscriber<? super T> subscriber;
+        /**
+         * Outstanding demand, {@link #CANCELLED} if cancelled, or {@link #INVALID_REQUEST_N} if an invalid request-n
+         * has not yet been delivered to the {@link #subscriber}.
+         */
+        private volatile long requested;
+        private long invalidRequestN;
+
+        Rail(final ParallelSplitPublisher<T> parent, final Subscriber<? super T> subscriber) {
+            this.parent = parent;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (isRequestNValid(n)) {
+                if (requestedUpdater.accumulateAndGet(this, n,
+                        FlowControlUtils::addWithOverflowProtectionIfNotNegative) > 0) {
+                    parent.drain();
+                }
+            } else {
+                for (;;) {
+                    final long requested = this.requested;
+                    if (requested < 0) {
+                        break;
+                    }
+                    invalidRequestN = n;
+                    if (requestedUpdater.compareAndSet(this, requested, INVALID_REQUEST_N)) {
+                        parent.invalidRequestN = true;
+                        parent.railCancelled();
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (requestedUpdater.getAndSet(this, CANCELLED) >= 0) {
+                parent.railCancelled();
+            }
+        }
+
+        boolean isCancelled() {
+            return requested < 0;
+        }
+
+        boolean tryConsumeDemand() {
+            for (;;) {
+                final long requested = this.requested;
+                if (requested <= 0) {
+                    return false;
+                }
+                if (requested == Long.MAX_VALUE ||
+                        requestedUpdater.compareAndSet(this, requested, requested - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean deliverInvalidRequestN() {
+            if (requested == INVALID_REQUEST_N && requestedUpdater.compareAndSet(this, INVALID_REQUEST_N, CANCELLED)) {
+                subscriber.onError(newExceptionForInvalidRequestN(invalidRequestN));
+                return true;
+            }
+            return false;
+        }
+    }
+}
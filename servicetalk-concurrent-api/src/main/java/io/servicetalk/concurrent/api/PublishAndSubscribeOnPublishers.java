@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import io.servicetalk.concurrent.internal.SignalOffloader;
 
 import static io.servicetalk.concurrent.api.MergedExecutors.mergeAndOffloadPublish;
 import static io.servicetalk.concurrent.api.MergedExecutors.mergeAndOffloadSubscribe;
+import static io.servicetalk.concurrent.api.MergedExecutors.publishesOn;
+import static io.servicetalk.concurrent.api.MergedExecutors.subscribesOn;
 import static io.servicetalk.concurrent.internal.SubscriberUtils.deliverErrorFromSource;
 
 /**
@@ -49,7 +51,7 @@ final class PublishAndSubscribeOnPublishers {
     }
 
     static <T> Publisher<T> publishOn(Publisher<T> original, Executor executor) {
-        return original.executor() == executor ? original : new PublishOn<>(executor, original);
+        return publishesOn(original.executor(), executor) ? original : new PublishOn<>(executor, original);
     }
 
     static <T> Publisher<T> publishOnOverride(Publisher<T> original, Executor executor) {
@@ -57,7 +59,7 @@ final class PublishAndSubscribeOnPublishers {
     }
 
     static <T> Publisher<T> subscribeOn(Publisher<T> original, Executor executor) {
-        return original.executor() == executor ? original : new SubscribeOn<>(executor, original);
+        return subscribesOn(original.executor(), executor) ? original : new SubscribeOn<>(executor, original);
     }
 
     static <T> Publisher<T> subscribeOnOverride(Publisher<T> original, Executor executor) {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1794,6 +1794,60 @@ public abstract class Publisher<T> {
         return new MulticastPublisher<>(this, expectedSubscribers, maxQueueSize, executor);
     }
 
+    /**
+     * Create a {@link ParallelPublisher} that splits the items emitted by this {@link Publisher} across
+     * {@code parallelism} rails, which can process items concurrently.
+     * <p>
+     * Rails process items concurrently if they are offloaded via {@link ParallelPublisher#runOn(Executor)}, and are
+     * merged back with {@link ParallelPublisher#sequential()} or {@link ParallelPublisher#sequentialOrdered()}.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     List<T> results = resultOfThisPublisher();
+     *     List<List<T>> rails = ...;
+     *     for (int i = 0; i < results.size(); ++i) {
+     *         // Items are given to rails which have demand, this is the case when all rails have demand.
+     *         rails.get(i % parallelism).add(results.get(i));
+     *     }
+     *     return rails;
+     * }</pre>
+     *
+     * @param parallelism The number of rails.
+     * @return A {@link ParallelPublisher} that splits the items of this {@link Publisher} across
+     * {@code parallelism} rails.
+     */
+    public final ParallelPublisher<T> parallel(int parallelism) {
+        return parallel(parallelism, ParallelPublisher.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Create a {@link ParallelPublisher} that splits the items emitted by this {@link Publisher} across
+     * {@code parallelism} rails, which can process items concurrently.
+     * <p>
+     * Rails process items concurrently if they are offloaded via {@link ParallelPublisher#runOn(Executor)}, and are
+     * merged back with {@link ParallelPublisher#sequential()} or {@link ParallelPublisher#sequentialOrdered()}.
+     * <p>
+     * In sequential programming this is similar to the following:
+     * <pre>{@code
+     *     List<T> results = resultOfThisPublisher();
+     *     List<List<T>> rails = ...;
+     *     for (int i = 0; i < results.size(); ++i) {
+     *         // Items are given to rails which have demand, this is the case when all rails have demand.
+     *         rails.get(i % parallelism).add(results.get(i));
+     *     }
+     *     return rails;
+     * }</pre>
+     *
+     * @param parallelism The number of rails.
+     * @param prefetch The maximum number of items requested from this {@link Publisher} which are not yet delivered to
+     * a rail, and the maximum number of items queued per rail by {@link ParallelPublisher#sequentialOrdered()}.
+     * @return A {@link ParallelPublisher} that splits the items of this {@link Publisher} across
+     * {@code parallelism} rails.
+     */
+    public final ParallelPublisher<T> parallel(int parallelism, int prefetch) {
+        return new ParallelPublisher<>(this, parallelism, prefetch);
+    }
+
     /**
      * Create a {@link Publisher} that buffers items from this {@link Publisher} and emit those buffers instead of the
      * individual items.
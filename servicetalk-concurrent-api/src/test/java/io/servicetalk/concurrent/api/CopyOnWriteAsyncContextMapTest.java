@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.api.AsyncContextMap.Key;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThrows;
+
+public class CopyOnWriteAsyncContextMapTest {
+    private static final Key<String> K1 = Key.newKey("k1");
+    private static final Key<String> K2 = Key.newKey("k2");
+    private static final Key<String> K3 = Key.newKey("k3");
+    private static final Key<String> K4 = Key.newKey("k4");
+
+    private final AsyncContextMap map = new CopyOnWriteAsyncContextMap();
+
+    @Test
+    public void putGetRemove() {
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.put(K1, "v1"), is(nullValue()));
+        assertThat(map.put(K2, "v2"), is(nullValue()));
+        assertThat(map.put(K1, "v1b"), is("v1"));
+        assertThat(map.size(), is(2));
+        assertThat(map.get(K1), is("v1b"));
+        assertThat(map.get(K2), is("v2"));
+        assertThat(map.get(K3), is(nullValue()));
+        assertThat(map.containsKey(K2), is(true));
+        assertThat(map.containsKey(K3), is(false));
+
+        assertThat(map.remove(K3), is(nullValue()));
+        assertThat(map.remove(K1), is("v1b"));
+        assertThat(map.size(), is(1));
+        assertThat(map.get(K1), is(nullValue()));
+        assertThat(map.remove(K2), is("v2"));
+        assertThat(map.isEmpty(), is(true));
+    }
+
+    @Test
+    public void nullKeyIsRejected() {
+        assertThrows(NullPointerException.class, () -> map.put(null, "v"));
+    }
+
+    @Test
+    public void putAllAddsAndReplaces() {
+        map.put(K1, "v1");
+        Map<Key<?>, Object> entries = new HashMap<>();
+        entries.put(K1, "v1b");
+        entries.put(K2, "v2");
+        entries.put(K3, "v3");
+        map.putAll(entries);
+        assertThat(map.size(), is(3));
+        assertThat(map.get(K1), is("v1b"));
+        assertThat(map.get(K2), is("v2"));
+        assertThat(map.get(K3), is("v3"));
+    }
+
+    @Test
+    public void removeAllKeepsOtherEntriesInOrder() {
+        map.put(K1, "v1");
+        map.put(K2, "v2");
+        map.put(K3, "v3");
+        map.put(K4, "v4");
+        assertThat(map.removeAll(asList(K4, K2, K2)), is(true));
+        assertThat(map.removeAll(asList(K2, K4)), is(false));
+        List<Key<?>> keys = new ArrayList<>();
+        map.forEach((key, value) -> keys.add(key));
+        assertThat(keys, contains(K1, K3));
+        assertThat(map.removeAll(asList(K1, K3)), is(true));
+        assertThat(map.isEmpty(), is(true));
+    }
+
+    @Test
+    public void forEachStopsAtKey() {
+        map.put(K1, "v1");
+        map.put(K2, "v2");
+        map.put(K3, "v3");
+        assertThat(map.forEach((key, value) -> key != K2), is(sameInstance(K2)));
+        assertThat(map.forEach((key, value) -> true), is(nullValue()));
+    }
+
+    @Test
+    public void copyIsIsolated() {
+        map.put(K1, "v1");
+        AsyncContextMap copy = map.copy();
+        copy.put(K1, "copy");
+        copy.put(K2, "v2");
+        map.remove(K1);
+        assertThat(map.isEmpty(), is(true));
+        assertThat(copy.get(K1), is("copy"));
+        assertThat(copy.get(K2), is("v2"));
+        copy.clear();
+        assertThat(copy.isEmpty(), is(true));
+    }
+}
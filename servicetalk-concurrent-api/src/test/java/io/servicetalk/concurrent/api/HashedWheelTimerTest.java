@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThrows;
+
+public class HashedWheelTimerTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    // A small wheel, so that delays span multiple rounds.
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("wheel-timer"),
+            1, MILLISECONDS, 4);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void taskRunsOnTimerThreadAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        String[] threadName = new String[1];
+        long startNanos = nanoTime();
+        timer.schedule(() -> {
+            threadName[0] = Thread.currentThread().getName();
+            latch.countDown();
+        }, 20, MILLISECONDS);
+        latch.await();
+        assertThat(NANOSECONDS.toMillis(nanoTime() - startNanos), greaterThanOrEqualTo(20L));
+        assertThat(threadName[0], startsWith("wheel-timer"));
+    }
+
+    @Test
+    public void nonPositiveDelayRuns() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        timer.schedule(latch::countDown, 0, MILLISECONDS);
+        timer.schedule(latch::countDown, -1, MILLISECONDS);
+        latch.await();
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws InterruptedException {
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        Cancellable cancelled = timer.schedule(cancelledRuns::incrementAndGet, 10, MILLISECONDS);
+        Cancellable cancelledLater = timer.schedule(cancelledRuns::incrementAndGet, 10, MILLISECONDS);
+        cancelled.cancel();
+        Thread.sleep(2);
+        cancelledLater.cancel();
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 30, MILLISECONDS);
+        latch.await();
+        assertThat(cancelledRuns.get(), is(0));
+    }
+
+    @Test
+    public void manyTasksAllRun() throws InterruptedException {
+        final int tasks = 10_000;
+        CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; ++i) {
+            timer.schedule(latch::countDown, i % 50, MILLISECONDS);
+        }
+        latch.await();
+    }
+
+    @Test
+    public void exceptionDoesNotStopTimer() throws InterruptedException {
+        timer.schedule(() -> {
+            throw DELIBERATE_EXCEPTION;
+        }, 1, MILLISECONDS);
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 5, MILLISECONDS);
+        latch.await();
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HashedWheelTimer(new DefaultThreadFactory(), 0, MILLISECONDS, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HashedWheelTimer(new DefaultThreadFactory(), 1, MILLISECONDS, 0));
+    }
+}
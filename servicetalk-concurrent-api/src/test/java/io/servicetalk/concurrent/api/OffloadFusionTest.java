@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+public class OffloadFusionTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final Executor executor1 = newCachedThreadExecutor(new DefaultThreadFactory("executor1"));
+    private final Executor executor2 = newCachedThreadExecutor(new DefaultThreadFactory("executor2"));
+
+    @After
+    public void tearDown() throws Exception {
+        executor1.closeAsync().toFuture().get();
+        executor2.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void publisherPublishOnSameExecutorIsFused() {
+        Publisher<Integer> publishOn = range(0, 10).publishOn(executor1);
+        assertThat(publishOn.publishOn(executor1), is(sameInstance(publishOn)));
+        Publisher<Integer> mapped = publishOn.map(i -> i + 1);
+        assertThat(mapped.publishOn(executor1), is(sameInstance(mapped)));
+        Publisher<Integer> subscribeOn = mapped.subscribeOn(executor2);
+        assertThat(subscribeOn.publishOn(executor1), is(sameInstance(subscribeOn)));
+        assertThat(mapped.publishOn(executor2), is(not(sameInstance(mapped))));
+    }
+
+    @Test
+    public void publisherSubscribeOnSameExecutorIsFused() {
+        Publisher<Integer> subscribeOn = range(0, 10).subscribeOn(executor1);
+        assertThat(subscribeOn.subscribeOn(executor1), is(sameInstance(subscribeOn)));
+        Publisher<Integer> publishOn = subscribeOn.publishOn(executor2);
+        assertThat(publishOn.subscribeOn(executor1), is(sameInstance(publishOn)));
+        assertThat(publishOn.subscribeOn(executor2), is(not(sameInstance(publishOn))));
+    }
+
+    @Test
+    public void publishOnAndSubscribeOnDoNotFuse() {
+        Publisher<Integer> publishOn = range(0, 10).publishOn(executor1);
+        assertThat(publishOn.subscribeOn(executor1), is(not(sameInstance(publishOn))));
+        Publisher<Integer> subscribeOn = range(0, 10).subscribeOn(executor1);
+        assertThat(subscribeOn.publishOn(executor1), is(not(sameInstance(subscribeOn))));
+    }
+
+    @Test
+    public void singlePublishOnAndSubscribeOnSameExecutorAreFused() {
+        Single<Integer> publishOn = Single.succeeded(1).publishOn(executor1).map(i -> i + 1);
+        assertThat(publishOn.publishOn(executor1), is(sameInstance(publishOn)));
+        Single<Integer> subscribeOn = publishOn.subscribeOn(executor2);
+        assertThat(subscribeOn.subscribeOn(executor2), is(sameInstance(subscribeOn)));
+        assertThat(subscribeOn.publishOn(executor1), is(sameInstance(subscribeOn)));
+    }
+
+    @Test
+    public void completablePublishOnAndSubscribeOnSameExecutorAreFused() {
+        Completable publishOn = Completable.completed().publishOn(executor1);
+        assertThat(publishOn.publishOn(executor1), is(sameInstance(publishOn)));
+        Completable subscribeOn = publishOn.subscribeOn(executor2);
+        assertThat(subscribeOn.subscribeOn(executor2), is(sameInstance(subscribeOn)));
+        assertThat(subscribeOn.publishOn(executor1), is(sameInstance(subscribeOn)));
+    }
+
+    @Test
+    public void fusedPublisherStillOffloads() throws Exception {
+        List<String> threads = range(0, 10).publishOn(executor1)
+                .map(i -> Thread.currentThread().getName())
+                .publishOn(executor1)
+                .toFuture().get();
+        assertThat(threads.size(), is(10));
+        assertThat(threads, everyItem(startsWith("executor1")));
+        assertThat(range(0, 2).publishOn(executor1).publishOn(executor1).toFuture().get(), contains(0, 1));
+    }
+}
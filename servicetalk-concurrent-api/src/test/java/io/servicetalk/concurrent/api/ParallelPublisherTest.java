@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.RejectedSubscribeException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.concurrent.test.internal.TestPublisherSubscriber;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.range;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+public class ParallelPublisherTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final Executor executor = newCachedThreadExecutor(new DefaultThreadFactory("rail"));
+    private final TestPublisher<Integer> publisher = new TestPublisher<>();
+    private final TestSubscription subscription = new TestSubscription();
+
+    @After
+    public void tearDown() throws Exception {
+        executor.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void splitDeliversToRailsWithDemand() {
+        ParallelSplitPublisher<Integer> split = new ParallelSplitPublisher<>(publisher, 2, 4);
+        TestPublisherSubscriber<Integer> rail1 = new TestPublisherSubscriber<>();
+        TestPublisherSubscriber<Integer> rail2 = new TestPublisherSubscriber<>();
+        toSource(split).subscribe(rail1);
+        assertThat(publisher.isSubscribed(), is(false));
+        toSource(split).subscribe(rail2);
+        publisher.onSubscribe(subscription);
+        assertThat(subscription.requested(), is(4L));
+
+        rail1.awaitSubscription().request(2);
+        publisher.onNext(1, 2, 3);
+        assertThat(rail1.takeOnNext(2), contains(1, 2));
+        // The third item is queued until a rail has demand.
+        assertThat(rail2.pollAllOnNext(), is(empty()));
+        assertThat(subscription.requested(), is(6L));
+
+        rail2.awaitSubscription().request(1);
+        assertThat(rail2.takeOnNext(), is(3));
+        assertThat(subscription.requested(), is(7L));
+
+        publisher.onComplete();
+        rail1.awaitOnComplete();
+        rail2.awaitOnComplete();
+    }
+
+    @Test
+    public void splitRejectsExtraSubscribers() {
+        ParallelSplitPublisher<Integer> split = new ParallelSplitPublisher<>(publisher, 1, 4);
+        toSource(split).subscribe(new TestPublisherSubscriber<>());
+        TestPublisherSubscriber<Integer> extra = new TestPublisherSubscriber<>();
+        toSource(split).subscribe(extra);
+        assertThat(extra.awaitOnError(), instanceOf(RejectedSubscribeException.class));
+    }
+
+    @Test
+    public void splitCancelsWhenAllRailsCancel() {
+        ParallelSplitPublisher<Integer> split = new ParallelSplitPublisher<>(publisher, 2, 4);
+        TestPublisherSubscriber<Integer> rail1 = new TestPublisherSubscriber<>();
+        TestPublisherSubscriber<Integer> rail2 = new TestPublisherSubscriber<>();
+        toSource(split).subscribe(rail1);
+        toSource(split).subscribe(rail2);
+        publisher.onSubscribe(subscription);
+        rail1.awaitSubscription().cancel();
+        assertThat(subscription.isCancelled(), is(false));
+        rail2.awaitSubscription().request(1);
+        publisher.onNext(1);
+        assertThat(rail2.takeOnNext(), is(1));
+        rail2.awaitSubscription().cancel();
+        assertThat(subscription.isCancelled(), is(true));
+    }
+
+    @Test
+    public void sequentialOrderedPreservesOrder() {
+        TestPublisherSubscriber<Integer> subscriber = new TestPublisherSubscriber<>();
+        toSource(publisher.parallel(3, 4).map(i -> i * 10).sequentialOrdered()).subscribe(subscriber);
+        publisher.onSubscribe(subscription);
+        subscriber.awaitSubscription().request(4);
+        publisher.onNext(1, 2, 3, 4);
+        assertThat(subscriber.takeOnNext(2), contains(10, 20));
+        // The next item may come from the rail of item 2, until it completes.
+        assertThat(subscriber.pollAllOnNext(), is(empty()));
+        publisher.onComplete();
+        assertThat(subscriber.takeOnNext(2), contains(30, 40));
+        subscriber.awaitOnComplete();
+    }
+
+    @Test
+    public void sequentialOrderedWithFilterAndExecutor() throws Exception {
+        Collection<Integer> result = range(0, 1000).parallel(4, 8)
+                .runOn(executor)
+                .filter(i -> i % 3 == 0)
+                .map(i -> i + 1)
+                .sequentialOrdered()
+                .toFuture().get();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 3) {
+            expected.add(i + 1);
+        }
+        assertThat(new ArrayList<>(result), is(expected));
+    }
+
+    @Test
+    public void sequentialProcessesRailsConcurrently() throws Exception {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Collection<Integer> result = range(0, 1000).parallel(4)
+                .runOn(executor)
+                .map(i -> {
+                    threads.add(Thread.currentThread());
+                    return i;
+                })
+                .sequential()
+                .toFuture().get();
+        Integer[] expected = new Integer[1000];
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = i;
+        }
+        assertThat(result, containsInAnyOrder(expected));
+        assertThat(threads.size(), greaterThan(1));
+    }
+
+    @Test
+    public void reducePerRail() throws Exception {
+        long sum = range(0, 1000).parallel(3)
+                .runOn(executor)
+                .reduce(() -> 0L, (partialSum, i) -> partialSum + i)
+                .sequential()
+                .collect(() -> 0L, Long::sum)
+                .toFuture().get();
+        assertThat(sum, is(499500L));
+        Collection<Integer> counts = range(0, 9).parallel(3)
+                .reduce(() -> 0, (count, i) -> count + 1)
+                .sequentialOrdered()
+                .toFuture().get();
+        assertThat(new ArrayList<>(counts), contains(3, 3, 3));
+    }
+
+    @Test
+    public void errorIsPropagated() {
+        TestPublisherSubscriber<Integer> subscriber = new TestPublisherSubscriber<>();
+        toSource(publisher.parallel(2).sequentialOrdered()).subscribe(subscriber);
+        publisher.onSubscribe(subscription);
+        subscriber.awaitSubscription().request(1);
+        publisher.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.awaitOnError(), is(DELIBERATE_EXCEPTION));
+    }
+
+    @Test
+    public void cancelCancelsSource() throws InterruptedException {
+        TestPublisherSubscriber<Integer> subscriber = new TestPublisherSubscriber<>();
+        toSource(publisher.parallel(2).runOn(executor).sequential()).subscribe(subscriber);
+        publisher.onSubscribe(subscription);
+        subscriber.awaitSubscription().cancel();
+        subscription.awaitCancelled();
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.parallel(0));
+        assertThrows(IllegalArgumentException.class, () -> publisher.parallel(2, 0));
+    }
+}
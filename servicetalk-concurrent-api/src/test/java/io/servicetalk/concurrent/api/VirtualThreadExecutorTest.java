@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.api.AsyncContextMap.Key;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Executors.isVirtualThreadSupported;
+import static io.servicetalk.concurrent.api.Executors.newVirtualThreadExecutor;
+import static io.servicetalk.concurrent.internal.SignalOffloaders.hasThreadAffinity;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadExecutorTest {
+
+    private static final Key<String> KEY = Key.newKey("virtual-thread-key");
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Nullable
+    private Executor executor;
+
+    @After
+    public void tearDown() throws Exception {
+        if (executor != null) {
+            executor.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void unsupportedJdkThrows() {
+        assumeFalse(isVirtualThreadSupported());
+        assertThrows(UnsupportedOperationException.class, Executors::newVirtualThreadExecutor);
+    }
+
+    @Test
+    public void tasksRunOnVirtualThreads() throws Exception {
+        assumeTrue(isVirtualThreadSupported());
+        executor = newVirtualThreadExecutor("virtual-test-");
+        Thread thread = executor.submit(Thread::currentThread).toFuture().get();
+        assertThat(thread.getName(), startsWith("virtual-test-"));
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread), is(true));
+        assertThat(executor.timer(1, MILLISECONDS).concat(executor.submit(Thread::currentThread)).toFuture().get(),
+                is(not(thread)));
+    }
+
+    @Test
+    public void asyncContextIsPropagated() throws Exception {
+        assumeTrue(isVirtualThreadSupported());
+        executor = newVirtualThreadExecutor();
+        AsyncContext.put(KEY, "value");
+        try {
+            assertThat(executor.submit(() -> AsyncContext.get(KEY)).toFuture().get(), is("value"));
+        } finally {
+            AsyncContext.remove(KEY);
+        }
+    }
+
+    @Test
+    public void noThreadAffinity() {
+        assumeTrue(isVirtualThreadSupported());
+        executor = newVirtualThreadExecutor();
+        assertThat(hasThreadAffinity(executor), is(false));
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.dns.discovery.netty;
 
 import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.DefaultWeightedServiceDiscovererEvent;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
 import io.servicetalk.concurrent.Cancellable;
 import io.servicetalk.concurrent.PublisherSource.Subscriber;
@@ -42,7 +43,6 @@ import io.netty.handler.codec.dns.DefaultDnsQuestion;
 import io.netty.handler.codec.dns.DnsRawRecord;
 import io.netty.handler.codec.dns.DnsRecord;
 import io.netty.resolver.ResolvedAddressTypes;
-import io.netty.resolver.dns.DefaultDnsCache;
 import io.netty.resolver.dns.DnsNameResolver;
 import io.netty.resolver.dns.DnsNameResolverBuilder;
 import io.netty.util.ReferenceCountUtil;
@@ -83,10 +83,10 @@ import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid
 import static io.servicetalk.concurrent.internal.SubscriberUtils.newExceptionForInvalidRequestN;
 import static io.servicetalk.concurrent.internal.SubscriberUtils.safeOnError;
 import static io.servicetalk.concurrent.internal.ThrowableUtils.unknownStackTrace;
-import static io.servicetalk.dns.discovery.netty.DnsClients.mapEventList;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.datagramChannel;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.socketChannel;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static java.lang.Math.max;
 import static java.lang.System.nanoTime;
 import static java.nio.ByteBuffer.wrap;
 import static java.util.Collections.emptyList;
@@ -108,6 +108,8 @@ final class DefaultDnsClient implements DnsClient {
     private final EventLoopAwareNettyIoExecutor nettyIoExecutor;
     private final DnsNameResolver resolver;
     private final MinTtlCache ttlCache;
+    private final DnsQueryCoalescer<DnsAnswer<InetAddress>> aQueries;
+    private final DnsQueryCoalescer<DnsAnswer<HostAndPort>> srvQueries;
     private final ListenableAsyncCloseable asyncCloseable;
     @Nullable
     private final DnsServiceDiscovererObserver observer;
@@ -124,6 +126,7 @@ final class DefaultDnsClient implements DnsClient {
                      @Nullable final Boolean optResourceEnabled, @Nullable final Duration queryTimeout,
                      @Nullable final DnsResolverAddressTypes dnsResolverAddressTypes,
                      @Nullable final DnsServerAddressStreamProvider dnsServerAddressStreamProvider,
+                     @Nullable final SharedDnsCache sharedCache,
                      @Nullable final DnsServiceDiscovererObserver observer) {
         if (srvConcurrency <= 0) {
             throw new IllegalArgumentException("srvConcurrency: " + srvConcurrency + " (expected >0)");
@@ -136,7 +139,11 @@ final class DefaultDnsClient implements DnsClient {
         // We must use nettyIoExecutor for the repeater for thread safety!
         srvHostNameRepeater = repeatWithConstantBackoffDeltaJitter(
                 srvHostNameRepeatInitialDelay, srvHostNameRepeatJitter, nettyIoExecutor.asExecutor());
-        this.ttlCache = new MinTtlCache(new DefaultDnsCache(minTTL, Integer.MAX_VALUE, minTTL), minTTL);
+        this.ttlCache = sharedCache == null ?
+                new MinTtlCache(SharedDnsCache.newPrivateCache(minTTL), false, minTTL, observer) :
+                new MinTtlCache(sharedCache, true, minTTL, observer);
+        aQueries = new DnsQueryCoalescer<>(nettyIoExecutor.asExecutor());
+        srvQueries = new DnsQueryCoalescer<>(nettyIoExecutor.asExecutor());
         this.observer = observer;
         asyncCloseable = toAsyncCloseable(graceful -> {
             if (nettyIoExecutor.isCurrentThreadEventLoop()) {
@@ -231,10 +238,10 @@ final class DefaultDnsClient implements DnsClient {
 
                         Publisher<? extends Collection<ServiceDiscovererEvent<InetAddress>>> returnPub =
                                 recoverWithInactiveEvents(aPublisher, false);
+                        final SrvRecord srvRecord = (SrvRecord) srvEvent.address();
                         return srvFilterDuplicateEvents ?
-                                srvFilterDups(returnPub, availableAddresses, srvEvent.address().port()) :
-                                returnPub.map(events -> mapEventList(events, inetAddress ->
-                                        new InetSocketAddress(inetAddress, srvEvent.address().port())));
+                                srvFilterDups(returnPub, availableAddresses, srvRecord) :
+                                returnPub.map(events -> mapSrvEventList(events, srvRecord));
                     }).retryWhen((i, cause) -> {
                         assertInEventloop();
                         // If this error is because the SRV entry was detected as inactive, then propagate the error and
@@ -290,7 +297,7 @@ final class DefaultDnsClient implements DnsClient {
 
     private final class SrvRecordPublisher extends AbstractDnsPublisher<HostAndPort> {
         private SrvRecordPublisher(final String serviceName, @Nullable final DnsDiscoveryObserver discoveryObserver) {
-            super(serviceName, discoveryObserver);
+            super(serviceName, srvQueries, discoveryObserver);
         }
 
         @Override
@@ -330,9 +337,11 @@ final class DefaultDnsClient implements DnsClient {
                                             ByteBuf content = ((DnsRawRecord) dnsRecord).content();
                                             // https://tools.ietf.org/html/rfc2782
                                             // Priority(16u) Weight(16u) Port(16u) Target(varstring)
-                                            content.skipBytes(4); // ignore Priority and Weight for now
+                                            final int priority = content.readUnsignedShort();
+                                            final int weight = content.readUnsignedShort();
                                             final int port = content.readUnsignedShort();
-                                            hostAndPorts.add(HostAndPort.of(decodeName(content), port));
+                                            hostAndPorts.add(new SrvRecord(decodeName(content), port, priority,
+                                                    weight));
                                         }
                                         dnsAnswer = new DnsAnswer<>(hostAndPorts, SECONDS.toNanos(minTTLSeconds));
                                     } catch (Throwable cause2) {
@@ -361,7 +370,7 @@ final class DefaultDnsClient implements DnsClient {
 
     private class ARecordPublisher extends AbstractDnsPublisher<InetAddress> {
         ARecordPublisher(final String inetHost, @Nullable final DnsDiscoveryObserver discoveryObserver) {
-            super(inetHost, discoveryObserver);
+            super(inetHost, aQueries, discoveryObserver);
         }
 
         @Override
@@ -375,7 +384,6 @@ final class DefaultDnsClient implements DnsClient {
             return new AbstractDnsSubscription(subscriber) {
                 @Override
                 protected Future<DnsAnswer<InetAddress>> doDnsQuery() {
-                    ttlCache.prepareForResolution(name);
                     Promise<DnsAnswer<InetAddress>> dnsAnswerPromise = ImmediateEventExecutor.INSTANCE.newPromise();
                     resolver.resolveAll(name).addListener(completedFuture -> {
                         Throwable cause = completedFuture.cause();
@@ -429,6 +437,10 @@ final class DefaultDnsClient implements DnsClient {
          * Name of the DNS record to query.
          */
         protected final String name;
+        /**
+         * Merges the queries and the schedules of the subscriptions of all publishers querying the same records.
+         */
+        private final DnsQueryCoalescer<DnsAnswer<T>> coalescer;
         /**
          * A {@link DnsDiscoveryObserver} for this publisher that provides visibility into individual DNS resolutions.
          */
@@ -437,8 +449,10 @@ final class DefaultDnsClient implements DnsClient {
         @Nullable
         AbstractDnsSubscription subscription;
 
-        AbstractDnsPublisher(final String name, @Nullable final DnsDiscoveryObserver discoveryObserver) {
+        AbstractDnsPublisher(final String name, final DnsQueryCoalescer<DnsAnswer<T>> coalescer,
+                             @Nullable final DnsDiscoveryObserver discoveryObserver) {
             this.name = name;
+            this.coalescer = coalescer;
             this.discoveryObserver = discoveryObserver;
         }
 
@@ -569,7 +583,9 @@ final class DefaultDnsClient implements DnsClient {
                 } else {
                     final DnsResolutionObserver resolutionObserver = newResolutionObserver();
                     LOGGER.trace("DnsClient {}, querying DNS for {}", DefaultDnsClient.this, AbstractDnsPublisher.this);
-                    final Future<DnsAnswer<T>> addressFuture = doDnsQuery();
+                    // Subscriptions for the same name share the in flight query and its answer. The answer list is
+                    // sorted in place by calculateDifference, which is harmless as they all use the same comparator.
+                    final Future<DnsAnswer<T>> addressFuture = coalescer.query(name, this::doDnsQuery);
                     cancellableForQuery = () -> addressFuture.cancel(true);
                     if (addressFuture.isDone()) {
                         handleResolveDone0(addressFuture, resolutionObserver);
@@ -619,9 +635,8 @@ final class DefaultDnsClient implements DnsClient {
                         DefaultDnsClient.this, AbstractDnsPublisher.this, nanos);
 
                 // This value is coming from DNS TTL for which the unit is seconds and the minimum value we accept
-                // in the builder is 1 second.
-                cancellableForQuery = nettyIoExecutor.asExecutor().schedule(
-                        this::doQuery0, nanos, NANOSECONDS);
+                // in the builder is 1 second. Subscriptions for the same name which got the same answer share a timer.
+                cancellableForQuery = coalescer.schedule(name, this::doQuery0, nanos);
             }
 
             private void handleResolveDone0(final Future<DnsAnswer<T>> addressFuture,
@@ -723,15 +738,17 @@ final class DefaultDnsClient implements DnsClient {
 
     private static Publisher<? extends Collection<ServiceDiscovererEvent<InetSocketAddress>>> srvFilterDups(
             Publisher<? extends Collection<ServiceDiscovererEvent<InetAddress>>> returnPub,
-            Map<InetSocketAddress, Integer> availableAddresses, int port) {
+            Map<InetSocketAddress, Integer> availableAddresses, SrvRecord srvRecord) {
         return returnPub.map(events -> {
             ArrayList<ServiceDiscovererEvent<InetSocketAddress>> mappedEvents = new ArrayList<>(events.size());
             for (ServiceDiscovererEvent<InetAddress> event : events) {
-                InetSocketAddress addr = new InetSocketAddress(event.address(), port);
+                InetSocketAddress addr = new InetSocketAddress(event.address(), srvRecord.port());
                 if (event.isAvailable()) {
                     Integer count = availableAddresses.get(addr);
                     if (count == null) {
-                        mappedEvents.add(new DefaultServiceDiscovererEvent<>(addr, true));
+                        // If the same address is the target of multiple SRV records the first record's priority and
+                        // weight are used.
+                        mappedEvents.add(srvRecord.newEvent(addr, true));
                         availableAddresses.put(addr, 1);
                     } else {
                         availableAddresses.put(addr, count + 1);
@@ -742,7 +759,7 @@ final class DefaultDnsClient implements DnsClient {
                         throw new IllegalStateException("null count for: " + addr);
                     }
                     if (count == 1) {
-                        mappedEvents.add(new DefaultServiceDiscovererEvent<>(addr, false));
+                        mappedEvents.add(srvRecord.newEvent(addr, false));
                         availableAddresses.remove(addr);
                     } else {
                         availableAddresses.put(addr, count - 1);
@@ -753,6 +770,15 @@ final class DefaultDnsClient implements DnsClient {
         }).filter(events -> !events.isEmpty());
     }
 
+    private static List<ServiceDiscovererEvent<InetSocketAddress>> mapSrvEventList(
+            final Collection<ServiceDiscovererEvent<InetAddress>> original, final SrvRecord srvRecord) {
+        List<ServiceDiscovererEvent<InetSocketAddress>> result = new ArrayList<>(original.size());
+        for (ServiceDiscovererEvent<InetAddress> evt : original) {
+            result.add(srvRecord.newEvent(new InetSocketAddress(evt.address(), srvRecord.port()), evt.isAvailable()));
+        }
+        return result;
+    }
+
     private static <T, A> Publisher<? extends Collection<ServiceDiscovererEvent<T>>> recoverWithInactiveEvents(
             AbstractDnsPublisher<T> pub, boolean generateAggregateEvent) {
         return pub.recoverWith(cause -> {
@@ -873,6 +899,62 @@ final class DefaultDnsClient implements DnsClient {
         private static final long serialVersionUID = -6105010311426084245L;
     }
 
+    /**
+     * The target of an SRV record, compared by {@link #hostName()} and {@link #port()} only so that a change of
+     * priority or weight alone does not restart the resolution of the target.
+     */
+    private static final class SrvRecord implements HostAndPort {
+        private final String hostName;
+        private final int port;
+        private final int priority;
+        private final int weight;
+
+        SrvRecord(final String hostName, final int port, final int priority, final int weight) {
+            this.hostName = hostName;
+            this.port = port;
+            this.priority = priority;
+            // RFC 2782 allows a weight of 0 for targets which should only get a very small share of the selections,
+            // which is approximated with the smallest weight accepted by WeightedServiceDiscovererEvent.
+            this.weight = max(1, weight);
+        }
+
+        @Override
+        public String hostName() {
+            return hostName;
+        }
+
+        @Override
+        public int port() {
+            return port;
+        }
+
+        ServiceDiscovererEvent<InetSocketAddress> newEvent(final InetSocketAddress address, final boolean available) {
+            return new DefaultWeightedServiceDiscovererEvent<>(address, available, null, weight, priority);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SrvRecord)) {
+                return false;
+            }
+            final SrvRecord that = (SrvRecord) o;
+            return port == that.port && hostName.equals(that.hostName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hostName.hashCode() + port;
+        }
+
+        @Override
+        public String toString() {
+            return hostName + ':' + port + " (priority=" + priority + ", weight=" + weight + ')';
+        }
+    }
+
     private static final class ServiceTalkToNettyDnsServerAddressStream
             implements io.netty.resolver.dns.DnsServerAddressStream {
         private final DnsServerAddressStream stream;
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -60,6 +60,8 @@ public final class DefaultDnsServiceDiscovererBuilder {
     private DnsClientFilterFactory filterFactory;
     @Nullable
     private DnsServiceDiscovererObserver observer;
+    @Nullable
+    private SharedDnsCache sharedCache;
 
     /**
      * The minimum allowed TTL. This will be the minimum poll interval.
@@ -175,6 +177,22 @@ public final class DefaultDnsServiceDiscovererBuilder {
         return this;
     }
 
+    /**
+     * Sets a {@link SharedDnsCache} to cache host address resolutions in, instead of a cache private to the
+     * {@link ServiceDiscoverer} built by this builder. The same {@link SharedDnsCache} can be set on multiple builders
+     * so that host names discovered by multiple {@link ServiceDiscoverer}s are only resolved once.
+     * <p>
+     * The TTLs configured on the {@link SharedDnsCache} take precedence over {@link #minTTL(int)} for cached
+     * resolutions.
+     *
+     * @param sharedCache a {@link SharedDnsCache} to cache host address resolutions in.
+     * @return {@code this}.
+     */
+    public DefaultDnsServiceDiscovererBuilder sharedCache(final SharedDnsCache sharedCache) {
+        this.sharedCache = requireNonNull(sharedCache);
+        return this;
+    }
+
     /**
      * Build a new {@link ServiceDiscoverer} which queries
      * <a href="https://tools.ietf.org/html/rfc2782">SRV Resource Records</a> corresponding to {@code serviceName}. For
@@ -266,7 +284,7 @@ public final class DefaultDnsServiceDiscovererBuilder {
                 ioExecutor == null ? globalExecutionContext().ioExecutor() : ioExecutor, minTTLSeconds, srvConcurrency,
                 inactiveEventsOnError, completeOncePreferredResolved, srvFilterDuplicateEvents,
                 srvHostNameRepeatInitialDelay, srvHostNameRepeatJitter, maxUdpPayloadSize, ndots, optResourceEnabled,
-                queryTimeout, dnsResolverAddressTypes, dnsServerAddressStreamProvider, observer);
+                queryTimeout, dnsResolverAddressTypes, dnsServerAddressStreamProvider, sharedCache, observer);
         return filterFactory == null ? rawClient : filterFactory.create(rawClient);
     }
 }
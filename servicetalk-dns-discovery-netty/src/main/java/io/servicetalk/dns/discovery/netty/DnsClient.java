@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,7 +38,8 @@ interface DnsClient extends ListenableAsyncCloseable {
     /**
      * Query for <a href="https://tools.ietf.org/html/rfc2782">SRV Resource Records</a> corresponding to
      * {@code serviceName}. For each SRV answer capture the <strong>Port</strong> and resolve the
-     * <strong>Target</strong>.
+     * <strong>Target</strong>. Events are {@link io.servicetalk.client.api.WeightedServiceDiscovererEvent}s which carry
+     * the <strong>Priority</strong> and <strong>Weight</strong> of the SRV answer.
      * @param serviceName The domain name of the service to lookup.
      * @return A {@link Publisher} which provides notification when resolved addresses for the {@code serviceName}
      * change.
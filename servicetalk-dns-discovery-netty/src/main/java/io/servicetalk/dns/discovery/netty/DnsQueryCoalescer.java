@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.dns.discovery.netty;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Merges identical DNS queries of a {@link DefaultDnsClient}:
+ * <ul>
+ * <li>A query for a name which already has a query in flight waits for the in flight query instead of sending a new
+ * one.</li>
+ * <li>Queries for the same name scheduled around the same time, typically because they were answered by the same
+ * query and hence share the same TTL, share a single timer.</li>
+ * </ul>
+ * This class is not thread-safe, it must only be used from the event loop of its {@link DefaultDnsClient}.
+ *
+ * @param <T> The type of answer.
+ */
+final class DnsQueryCoalescer<T> {
+    /**
+     * A scheduled query joins a timer which fires at most this much earlier than requested. TTLs have a granularity of
+     * one second, so queries answered by the same response are scheduled within a second of each other.
+     */
+    private static final long SCHEDULE_TOLERANCE_NANOS = SECONDS.toNanos(1);
+
+    private final Executor executor;
+    private final Map<String, InFlightQuery> inFlightQueries = new HashMap<>();
+    private final Map<String, SharedSchedule> schedules = new HashMap<>();
+
+    DnsQueryCoalescer(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queries {@code name}, or waits for the in flight query of {@code name} if any.
+     * <p>
+     * Cancelling the returned {@link Future} only cancels the query once all the callers waiting for it cancelled.
+     * Callers waiting for the same query are notified with the same answer, which must not be modified.
+     *
+     * @param name the name to query.
+     * @param query sends a new query for {@code name}.
+     * @return a {@link Future} notified with the answer.
+     */
+    Future<T> query(final String name, final Supplier<Future<T>> query) {
+        InFlightQuery inFlightQuery = inFlightQueries.get(name);
+        if (inFlightQuery == null) {
+            final Future<T> future = query.get();
+            if (future.isDone()) {
+                return future;
+            }
+            final InFlightQuery newQuery = new InFlightQuery(future);
+            inFlightQueries.put(name, newQuery);
+            future.addListener(f -> inFlightQueries.remove(name, newQuery));
+            inFlightQuery = newQuery;
+        }
+        return inFlightQuery.newParticipant();
+    }
+
+    /**
+     * Schedules {@code task} to run after {@code delayNanos}, sharing a timer with other tasks scheduled for
+     * {@code name} around the same time.
+     *
+     * @param name the name for which {@code task} queries.
+     * @param task the task to run.
+     * @param delayNanos the delay after which {@code task} must run.
+     * @return a {@link Cancellable} which prevents {@code task} from running.
+     */
+    Cancellable schedule(final String name, final Runnable task, final long delayNanos) {
+        final long deadlineNanos = nanoTime() + delayNanos;
+        SharedSchedule schedule = schedules.get(name);
+        if (schedule == null || schedule.deadlineNanos - deadlineNanos > 0 ||
+                deadlineNanos - schedule.deadlineNanos > SCHEDULE_TOLERANCE_NANOS) {
+            final boolean shared = schedule == null;
+            schedule = new SharedSchedule(name, deadlineNanos, shared);
+            schedule.timer = executor.schedule(schedule::run, delayNanos, NANOSECONDS);
+            if (shared) {
+                schedules.put(name, schedule);
+            }
+        }
+        return schedule.add(task);
+    }
+
+    private final class InFlightQuery {
+        private final Future<T> future;
+        private int participants;
+
+        InFlightQuery(final Future<T> future) {
+            this.future = future;
+        }
+
+        Future<T> newParticipant() {
+            ++participants;
+            final Promise<T> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            future.addListener((FutureListener<T>) f -> {
+                if (f.isSuccess()) {
+                    promise.trySuccess(f.getNow());
+                } else {
+                    promise.tryFailure(f.cause());
+                }
+            });
+            promise.addListener(p -> {
+                if (p.isCancelled() && --participants == 0) {
+                    future.cancel(true);
+                }
+            });
+            return promise;
+        }
+    }
+
+    private final class SharedSchedule {
+        private final String name;
+        final long deadlineNanos;
+        private final boolean shared;
+        private final List<Runnable> tasks = new ArrayList<>(2);
+        Cancellable timer = Cancellable.IGNORE_CANCEL;
+
+        SharedSchedule(final String name, final long deadlineNanos, final boolean shared) {
+            this.name = name;
+            this.deadlineNanos = deadlineNanos;
+            this.shared = shared;
+        }
+
+        Cancellable add(final Runnable task) {
+            tasks.add(task);
+            return () -> {
+                if (tasks.remove(task) && tasks.isEmpty()) {
+                    timer.cancel();
+                    removeFromSchedules();
+                }
+            };
+        }
+
+        void run() {
+            removeFromSchedules();
+            final Runnable[] toRun = tasks.toArray(new Runnable[0]);
+            tasks.clear();
+            for (Runnable task : toRun) {
+                task.run();
+            }
+        }
+
+        private void removeFromSchedules() {
+            if (shared) {
+                schedules.remove(name, this);
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,24 @@ public interface DnsServiceDiscovererObserver {
      */
     DnsDiscoveryObserver onNewDiscovery(String name);
 
+    /**
+     * Notifies that the resolution of a host name was answered from the cache of resolved addresses, without querying
+     * DNS servers.
+     *
+     * @param name the resolved host name
+     */
+    default void cacheHit(String name) {
+    }
+
+    /**
+     * Notifies that the resolution of a host name was not answered from the cache of resolved addresses, either
+     * because it was not cached or because its cached addresses are about to expire and are being refreshed.
+     *
+     * @param name the resolved host name
+     */
+    default void cacheMiss(String name) {
+    }
+
     /**
      * An observer that provides visibility into individual DNS resolutions.
      */
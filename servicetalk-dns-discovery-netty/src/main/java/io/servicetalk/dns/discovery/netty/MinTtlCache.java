@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,50 +24,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.annotation.Nullable;
 
-import static java.lang.Math.max;
-import static java.util.concurrent.TimeUnit.NANOSECONDS;
-
 /**
+ * Adapts a {@link SharedDnsCache} to netty's {@link DnsCache} for a single {@link DefaultDnsClient}, and tracks the
+ * minimum TTL of the cached resolutions to schedule the next resolution.
+ * <p>
  * While netty's {@link DnsCache} can be called by any thread calling the {@link DnsNameResolver}, we ensure, in
- * {@link DefaultDnsClient} that the resolver is only ever called on the event loop. This allows us to not worry about
- * multithreaded access in this class.
+ * {@link DefaultDnsClient} that the resolver is only ever called on the event loop. The {@link SharedDnsCache} may
+ * however be used by multiple {@link DefaultDnsClient}s, and is thread-safe.
  */
 final class MinTtlCache implements DnsCache {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MinTtlCache.class);
 
-    private final DnsCache cache;
+    private final SharedDnsCache cache;
+    private final boolean sharedCache;
     private final long initialTtl;
-    private final Map<String, Long> minExpiryMap = new HashMap<>();
+    @Nullable
+    private final DnsServiceDiscovererObserver observer;
 
-    MinTtlCache(final DnsCache cache, final long initialTtl) {
+    MinTtlCache(final SharedDnsCache cache, final boolean sharedCache, final long initialTtl,
+                @Nullable final DnsServiceDiscovererObserver observer) {
         this.cache = cache;
+        this.sharedCache = sharedCache;
         this.initialTtl = initialTtl;
-    }
-
-    void prepareForResolution(final String hostname) {
-        minExpiryMap.remove(hostname);
+        this.observer = observer;
     }
 
     long minTtl(final String hostname) {
-        final Long minExpiry = minExpiryMap.get(hostname);
-        if (minExpiry == null) {
-            return initialTtl;
-        } else {
-            final long minTtl = minExpiry - NANOSECONDS.toSeconds(System.nanoTime());
-            return minTtl >= 0 ? minTtl : initialTtl;
-        }
+        final long refreshDelay = cache.refreshDelaySeconds(hostname);
+        return refreshDelay >= 0 ? refreshDelay : initialTtl;
     }
 
     @Override
     public void clear() {
-        cache.clear();
-        minExpiryMap.clear();
+        // The resolver clears its cache when it is closed, a shared cache outlives each of the resolvers using it.
+        if (!sharedCache) {
+            cache.clear();
+        }
     }
 
     @Override
@@ -81,10 +77,14 @@ final class MinTtlCache implements DnsCache {
         final List<? extends DnsCacheEntry> entries = cache.get(hostname, additionals);
         if (entries != null) {
             // This means that either:
-            //  1. there were multiple `discover` calls for the same hostname (on `DefaultDnsClient`), or
-            //  2. the scheduled lookup happened before the cache expired the entries.
-            // #1 is ok. #2 means that stale results will be returned until the next TTL scheduled lookup.
+            //  1. there were multiple `discover` calls for the same hostname (on `DefaultDnsClient`),
+            //  2. the scheduled lookup happened before the cache expired the entries, or
+            //  3. another `DefaultDnsClient` sharing the cache resolved the hostname.
+            // #2 means that stale results will be returned until the next TTL scheduled lookup.
             LOGGER.debug("Found cached entries for {}: {}", hostname, entries);
+            reportCacheHit(hostname);
+        } else {
+            reportCacheMiss(hostname);
         }
         return entries;
     }
@@ -92,14 +92,36 @@ final class MinTtlCache implements DnsCache {
     @Override
     public DnsCacheEntry cache(final String hostname, final DnsRecord[] additionals, final InetAddress address,
                                final long originalTtl, final EventLoop loop) {
-        final long currentTime = NANOSECONDS.toSeconds(System.nanoTime());
-        minExpiryMap.merge(hostname, currentTime + max(initialTtl, originalTtl), Math::min);
-        return cache.cache(hostname, additionals, address, originalTtl, loop);
+        return cache.cache(hostname, additionals, address, originalTtl);
     }
 
     @Override
     public DnsCacheEntry cache(final String hostname, final DnsRecord[] additionals, final Throwable cause,
                                final EventLoop loop) {
-        return cache.cache(hostname, additionals, cause, loop);
+        return cache.cache(hostname, additionals, cause);
+    }
+
+    private void reportCacheHit(final String hostname) {
+        if (observer == null) {
+            return;
+        }
+        try {
+            observer.cacheHit(hostname);
+        } catch (Throwable unexpected) {
+            LOGGER.warn("Unexpected exception from {} while reporting DNS cache hit for {}",
+                    observer, hostname, unexpected);
+        }
+    }
+
+    private void reportCacheMiss(final String hostname) {
+        if (observer == null) {
+            return;
+        }
+        try {
+            observer.cacheMiss(hostname);
+        } catch (Throwable unexpected) {
+            LOGGER.warn("Unexpected exception from {} while reporting DNS cache miss for {}",
+                    observer, hostname, unexpected);
+        }
     }
 }
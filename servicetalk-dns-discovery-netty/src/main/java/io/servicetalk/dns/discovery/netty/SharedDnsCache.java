@@ -0,0 +1,380 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.dns.discovery.netty;
+
+import io.servicetalk.client.api.ServiceDiscoverer;
+
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.resolver.dns.DnsCacheEntry;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A size bounded cache of <a href="https://tools.ietf.org/html/rfc1035">DNS</a> host address resolutions which can be
+ * shared by multiple {@link ServiceDiscoverer}s built by {@link DefaultDnsServiceDiscovererBuilder}, so that a host
+ * name discovered by several of them is only resolved once.
+ * <p>
+ * Failed resolutions are cached for the {@link Builder#negativeTtl(int) negative TTL}. Once the remaining TTL of an
+ * entry drops below a {@link Builder#prefetchThreshold(float) threshold}, the next lookup of the entry resolves it
+ * again while other lookups keep using the cached addresses until they expire, so that lookups of frequently used host
+ * names do not wait for a DNS query.
+ * <p>
+ * When the number of cached host names exceeds the {@link Builder#maxEntries(int) maximum} the least recently used
+ * host name is evicted.
+ */
+public final class SharedDnsCache {
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final int maxEntries;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final long negativeTtlNanos;
+    private final float prefetchThreshold;
+    // Guarded by "entries".
+    private final LinkedHashMap<String, Entry> entries;
+
+    private SharedDnsCache(final int maxEntries, final int minTtlSeconds, final int maxTtlSeconds,
+                           final int negativeTtlSeconds, final float prefetchThreshold) {
+        this.maxEntries = maxEntries;
+        this.minTtlNanos = SECONDS.toNanos(minTtlSeconds);
+        this.maxTtlNanos = SECONDS.toNanos(maxTtlSeconds);
+        this.negativeTtlNanos = SECONDS.toNanos(negativeTtlSeconds);
+        this.prefetchThreshold = prefetchThreshold;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = -3785329634216347014L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > SharedDnsCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache private to a single {@link DefaultDnsClient}, which behaves like netty's default cache but holds
+     * at most as many host names as a shared cache with the default {@link Builder#maxEntries(int) maximum}.
+     *
+     * @param minTtlSeconds the minimum TTL of cached entries, also used as negative TTL.
+     * @return a cache private to a single {@link DefaultDnsClient}.
+     */
+    static SharedDnsCache newPrivateCache(final int minTtlSeconds) {
+        return new SharedDnsCache(DEFAULT_MAX_ENTRIES, minTtlSeconds, Integer.MAX_VALUE, minTtlSeconds, 0);
+    }
+
+    /**
+     * Returns the cached entries for {@code hostname}.
+     *
+     * @param hostname the host name to lookup.
+     * @param additionals the additional records of the DNS query.
+     * @return the cached entries, or {@code null} if {@code hostname} needs to be resolved.
+     */
+    @Nullable
+    List<? extends DnsCacheEntry> get(final String hostname, final DnsRecord[] additionals) {
+        if (additionals.length != 0) {
+            return null;
+        }
+        final long nowNanos = nanoTime();
+        synchronized (entries) {
+            final Entry entry = entries.get(hostname);
+            if (entry == null) {
+                return null;
+            }
+            final long remainingNanos = entry.expirationNanos - nowNanos;
+            if (remainingNanos <= 0) {
+                entries.remove(hostname);
+                return null;
+            }
+            if (!entry.refreshing && entry.cause == null && remainingNanos < prefetchWindowNanos(entry)) {
+                // Let this lookup refresh the entry, others keep using it until it expires.
+                entry.refreshing = true;
+                return null;
+            }
+            return entry.resolved;
+        }
+    }
+
+    /**
+     * Caches an address resolved for {@code hostname}.
+     *
+     * @param hostname the resolved host name.
+     * @param additionals the additional records of the DNS query.
+     * @param address the resolved address.
+     * @param originalTtl the TTL of the DNS record, in seconds.
+     * @return the cached entry.
+     */
+    DnsCacheEntry cache(final String hostname, final DnsRecord[] additionals, final InetAddress address,
+                        final long originalTtl) {
+        final CacheEntry cacheEntry = new CacheEntry(address, null);
+        if (additionals.length != 0) {
+            return cacheEntry;
+        }
+        final long nowNanos = nanoTime();
+        final long ttlNanos = max(minTtlNanos, min(maxTtlNanos, SECONDS.toNanos(originalTtl)));
+        synchronized (entries) {
+            final Entry entry = entries.get(hostname);
+            if (entry == null || entry.cause != null || entry.refreshing || entry.expirationNanos - nowNanos <= 0) {
+                // First address of a new resolution.
+                entries.put(hostname, new Entry(singletonList(cacheEntry), null, nowNanos, ttlNanos));
+            } else {
+                entry.add(cacheEntry, nowNanos, ttlNanos);
+            }
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Caches a failed resolution of {@code hostname}.
+     *
+     * @param hostname the host name which failed to resolve.
+     * @param additionals the additional records of the DNS query.
+     * @param cause the cause of the failure.
+     * @return the cached entry.
+     */
+    DnsCacheEntry cache(final String hostname, final DnsRecord[] additionals, final Throwable cause) {
+        final CacheEntry cacheEntry = new CacheEntry(null, cause);
+        if (additionals.length != 0 || negativeTtlNanos == 0) {
+            return cacheEntry;
+        }
+        final long nowNanos = nanoTime();
+        synchronized (entries) {
+            final Entry entry = entries.get(hostname);
+            // A failed refresh keeps using the previously resolved addresses until they expire.
+            if (entry == null || entry.cause != null || entry.expirationNanos - nowNanos <= 0) {
+                entries.put(hostname, new Entry(singletonList(cacheEntry), cause, nowNanos, negativeTtlNanos));
+            }
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Returns the delay after which {@code hostname} should be resolved again to observe changes: the remaining TTL of
+     * its entry, or the time until the entry becomes eligible for prefetch.
+     *
+     * @param hostname the host name.
+     * @return the delay in seconds, rounded up, or {@code -1} if {@code hostname} is not cached.
+     */
+    long refreshDelaySeconds(final String hostname) {
+        final long nowNanos = nanoTime();
+        final long delayNanos;
+        synchronized (entries) {
+            final Entry entry = entries.get(hostname);
+            if (entry == null) {
+                return -1;
+            }
+            final long remainingNanos = entry.expirationNanos - nowNanos;
+            if (remainingNanos <= 0) {
+                return -1;
+            }
+            final long prefetchWindowNanos = entry.refreshing || entry.cause != null ? 0 : prefetchWindowNanos(entry);
+            delayNanos = remainingNanos > prefetchWindowNanos ? remainingNanos - prefetchWindowNanos : remainingNanos;
+        }
+        return NANOSECONDS.toSeconds(delayNanos + SECONDS.toNanos(1) - 1);
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    boolean clear(final String hostname) {
+        synchronized (entries) {
+            return entries.remove(hostname) != null;
+        }
+    }
+
+    private long prefetchWindowNanos(final Entry entry) {
+        return (long) (entry.ttlNanos * prefetchThreshold);
+    }
+
+    @Override
+    public String toString() {
+        return SharedDnsCache.class.getSimpleName() +
+                "{maxEntries=" + maxEntries +
+                ", minTtlNanos=" + minTtlNanos +
+                ", maxTtlNanos=" + maxTtlNanos +
+                ", negativeTtlNanos=" + negativeTtlNanos +
+                ", prefetchThreshold=" + prefetchThreshold +
+                '}';
+    }
+
+    /**
+     * The cached resolution of a host name, guarded by the lock of {@link #entries}.
+     */
+    private static final class Entry {
+        List<CacheEntry> resolved;
+        @Nullable
+        final Throwable cause;
+        long expirationNanos;
+        long ttlNanos;
+        boolean refreshing;
+
+        Entry(final List<CacheEntry> resolved, @Nullable final Throwable cause, final long nowNanos,
+              final long ttlNanos) {
+            this.resolved = resolved;
+            this.cause = cause;
+            this.expirationNanos = nowNanos + ttlNanos;
+            this.ttlNanos = ttlNanos;
+        }
+
+        void add(final CacheEntry cacheEntry, final long nowNanos, final long ttlNanos) {
+            // Lists are copied on write, lookups return them without copying.
+            final List<CacheEntry> newResolved = new ArrayList<>(resolved.size() + 1);
+            for (CacheEntry existing : resolved) {
+                if (!cacheEntry.sameAddress(existing)) {
+                    newResolved.add(existing);
+                }
+            }
+            newResolved.add(cacheEntry);
+            resolved = newResolved;
+            if (nowNanos + ttlNanos < expirationNanos) {
+                expirationNanos = nowNanos + ttlNanos;
+                this.ttlNanos = ttlNanos;
+            }
+        }
+    }
+
+    private static final class CacheEntry implements DnsCacheEntry {
+        @Nullable
+        private final InetAddress address;
+        @Nullable
+        private final Throwable cause;
+
+        CacheEntry(@Nullable final InetAddress address, @Nullable final Throwable cause) {
+            this.address = address;
+            this.cause = cause;
+        }
+
+        @Nullable
+        @Override
+        public InetAddress address() {
+            return address;
+        }
+
+        @Nullable
+        @Override
+        public Throwable cause() {
+            return cause;
+        }
+
+        boolean sameAddress(final CacheEntry other) {
+            return address != null && address.equals(other.address);
+        }
+
+        @Override
+        public String toString() {
+            return cause != null ? cause.toString() : String.valueOf(address);
+        }
+    }
+
+    /**
+     * A builder of {@link SharedDnsCache}.
+     */
+    public static final class Builder {
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private int minTtlSeconds = 10;
+        private int maxTtlSeconds = Integer.MAX_VALUE;
+        private int negativeTtlSeconds = 10;
+        private float prefetchThreshold = 0.1f;
+
+        /**
+         * Sets the maximum number of cached host names, the least recently used host name is evicted beyond it.
+         *
+         * @param maxEntries the maximum number of cached host names.
+         * @return {@code this}.
+         */
+        public Builder maxEntries(final int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries: " + maxEntries + " (expected > 0)");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the minimum and maximum TTLs of cached resolutions, TTLs of DNS records are clamped to this range.
+         *
+         * @param minTtlSeconds the minimum TTL of cached resolutions, in seconds.
+         * @param maxTtlSeconds the maximum TTL of cached resolutions, in seconds.
+         * @return {@code this}.
+         */
+        public Builder ttl(final int minTtlSeconds, final int maxTtlSeconds) {
+            if (minTtlSeconds <= 0) {
+                throw new IllegalArgumentException("minTtlSeconds: " + minTtlSeconds + " (expected > 0)");
+            }
+            if (maxTtlSeconds < minTtlSeconds) {
+                throw new IllegalArgumentException("maxTtlSeconds: " + maxTtlSeconds + " (expected >= " +
+                        minTtlSeconds + ')');
+            }
+            this.minTtlSeconds = minTtlSeconds;
+            this.maxTtlSeconds = maxTtlSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the TTL of failed resolutions.
+         *
+         * @param negativeTtlSeconds the TTL of failed resolutions in seconds, {@code 0} disables negative caching.
+         * @return {@code this}.
+         */
+        public Builder negativeTtl(final int negativeTtlSeconds) {
+            if (negativeTtlSeconds < 0) {
+                throw new IllegalArgumentException("negativeTtlSeconds: " + negativeTtlSeconds + " (expected >= 0)");
+            }
+            this.negativeTtlSeconds = negativeTtlSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the share of the TTL of an entry, before its expiration, from which the next lookup of the entry
+         * resolves it again.
+         *
+         * @param prefetchThreshold the share of the TTL, between {@code 0} and {@code 1}. {@code 0} disables
+         * prefetching.
+         * @return {@code this}.
+         */
+        public Builder prefetchThreshold(final float prefetchThreshold) {
+            if (prefetchThreshold < 0 || prefetchThreshold >= 1) {
+                throw new IllegalArgumentException("prefetchThreshold: " + prefetchThreshold +
+                        " (expected >= 0 and < 1)");
+            }
+            this.prefetchThreshold = prefetchThreshold;
+            return this;
+        }
+
+        /**
+         * Builds a {@link SharedDnsCache} using the properties configured on this builder.
+         *
+         * @return a {@link SharedDnsCache}.
+         */
+        public SharedDnsCache build() {
+            return new SharedDnsCache(maxEntries, minTtlSeconds, maxTtlSeconds, negativeTtlSeconds,
+                    prefetchThreshold);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.dns.discovery.netty;
 
 import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.DefaultWeightedServiceDiscovererEvent;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
 import io.servicetalk.concurrent.PublisherSource.Subscriber;
 import io.servicetalk.concurrent.PublisherSource.Subscription;
@@ -24,6 +25,7 @@ import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
 import io.servicetalk.concurrent.test.internal.TestPublisherSubscriber;
+import io.servicetalk.dns.discovery.netty.DnsServiceDiscovererObserver.DnsDiscoveryObserver;
 import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
 
 import org.junit.After;
@@ -41,6 +43,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
@@ -54,6 +57,8 @@ import static io.servicetalk.dns.discovery.netty.DnsResolverAddressTypes.IPV6_ON
 import static io.servicetalk.dns.discovery.netty.DnsTestUtils.nextIp;
 import static io.servicetalk.dns.discovery.netty.DnsTestUtils.nextIp6;
 import static io.servicetalk.dns.discovery.netty.TestRecordStore.createCnameRecord;
+import static io.servicetalk.dns.discovery.netty.TestRecordStore.SRV_DEFAULT_PRIORITY;
+import static io.servicetalk.dns.discovery.netty.TestRecordStore.SRV_DEFAULT_WEIGHT;
 import static io.servicetalk.dns.discovery.netty.TestRecordStore.createSrvRecord;
 import static io.servicetalk.transport.netty.NettyIoExecutors.createIoExecutor;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
@@ -131,6 +136,34 @@ public class DefaultDnsClientTest {
         assertEvent(subscriber.takeOnNext(), ip, targetPort, true);
     }
 
+    @Test
+    public void srvPriorityAndWeightAreEmitted() throws Exception {
+        final String domain = "mysvc.apple.com";
+        final String targetDomain1 = "target1.mysvc.apple.com";
+        final String targetDomain2 = "target2.mysvc.apple.com";
+        final int targetPort = 9876;
+        final String ip1 = nextIp();
+        final String ip2 = nextIp();
+        recordStore.addSrv(domain, targetDomain1, targetPort, DEFAULT_TTL, 30, 1);
+        recordStore.addSrv(domain, targetDomain2, targetPort, DEFAULT_TTL, 0, 2);
+        recordStore.addIPv4Address(targetDomain1, DEFAULT_TTL, ip1);
+        recordStore.addIPv4Address(targetDomain2, DEFAULT_TTL, ip2);
+
+        TestPublisherSubscriber<ServiceDiscovererEvent<InetSocketAddress>> subscriber = dnsSrvQuery(domain);
+        Subscription subscription = subscriber.awaitSubscription();
+        subscription.request(2);
+
+        List<ServiceDiscovererEvent<InetSocketAddress>> signals = subscriber.takeOnNext(2);
+        for (ServiceDiscovererEvent<InetSocketAddress> signal : signals) {
+            if (signal.address().getAddress().equals(getByName(ip1))) {
+                assertEvent(signal, ip1, targetPort, true, 30, 1);
+            } else {
+                // A weight of 0 is mapped to the smallest weight.
+                assertEvent(signal, ip2, targetPort, true, 1, 2);
+            }
+        }
+    }
+
     @Test
     public void singleSrvMultipleADiscover() throws Exception {
         final String domain = "mysvc.apple.com";
@@ -527,6 +560,40 @@ public class DefaultDnsClientTest {
         assertThat(subscriber.awaitOnError(), instanceOf(UnknownHostException.class));
     }
 
+    @Test
+    public void sharedCacheAnswersOtherClients() throws Exception {
+        final String ip = nextIp();
+        final String domain = "servicetalk.io";
+        recordStore.addIPv4Address(domain, 60, ip);
+        final SharedDnsCache sharedCache = new SharedDnsCache.Builder().build();
+        final List<String> cacheHits = new CopyOnWriteArrayList<>();
+        final DnsServiceDiscovererObserver observer = new DnsServiceDiscovererObserver() {
+            @Override
+            public DnsDiscoveryObserver onNewDiscovery(final String name) {
+                return __ -> null;
+            }
+
+            @Override
+            public void cacheHit(final String name) {
+                cacheHits.add(name);
+            }
+        };
+        final DnsClient client1 = dnsClientBuilder().sharedCache(sharedCache).build();
+        final DnsClient client2 = dnsClientBuilder().sharedCache(sharedCache).observer(observer).build();
+        try {
+            assertEvent(client1.dnsQuery(domain).flatMapConcatIterable(identity()).firstOrElse(() -> null)
+                    .toFuture().get(), ip, true);
+            // The second client is answered from the cache even though the record is gone.
+            recordStore.removeIPv4Address(domain, 60, ip);
+            assertEvent(client2.dnsQuery(domain).flatMapConcatIterable(identity()).firstOrElse(() -> null)
+                    .toFuture().get(), ip, true);
+            assertThat(cacheHits.isEmpty(), is(false));
+        } finally {
+            client1.closeAsync().toFuture().get();
+            client2.closeAsync().toFuture().get();
+        }
+    }
+
     @Test
     public void singleADiscover() throws Exception {
         final String ip = nextIp();
@@ -835,8 +902,14 @@ public class DefaultDnsClientTest {
 
     private static void assertEvent(@Nullable ServiceDiscovererEvent<InetSocketAddress> event,
                                     String ip, int port, boolean available) throws UnknownHostException {
-        assertThat(event, is(new DefaultServiceDiscovererEvent<>(
-                new InetSocketAddress(getByName(ip), port), available)));
+        assertEvent(event, ip, port, available, SRV_DEFAULT_WEIGHT, SRV_DEFAULT_PRIORITY);
+    }
+
+    private static void assertEvent(@Nullable ServiceDiscovererEvent<InetSocketAddress> event,
+                                    String ip, int port, boolean available, int weight, int priority)
+            throws UnknownHostException {
+        assertThat(event, is(new DefaultWeightedServiceDiscovererEvent<>(
+                new InetSocketAddress(getByName(ip), port), available, null, weight, priority)));
     }
 
     private static void assertEvent(@Nullable ServiceDiscovererEvent<InetAddress> event,
@@ -853,7 +926,8 @@ public class DefaultDnsClientTest {
     @SuppressWarnings("unchecked")
     private static void assertHasEvent(Collection<ServiceDiscovererEvent<InetSocketAddress>> events,
                                        String ip, int port, boolean available) throws UnknownHostException {
-        assertThat(events, hasItems(new DefaultServiceDiscovererEvent<>(
-                new InetSocketAddress(getByName(ip), port), available)));
+        assertThat(events, hasItems(new DefaultWeightedServiceDiscovererEvent<>(
+                new InetSocketAddress(getByName(ip), port), available, null, SRV_DEFAULT_WEIGHT,
+                SRV_DEFAULT_PRIORITY)));
     }
 }
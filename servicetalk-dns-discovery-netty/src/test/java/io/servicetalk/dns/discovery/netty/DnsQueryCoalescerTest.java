@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.dns.discovery.netty;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.TestExecutor;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class DnsQueryCoalescerTest {
+    private final TestExecutor executor = new TestExecutor();
+    private final DnsQueryCoalescer<String> coalescer = new DnsQueryCoalescer<>(executor);
+    private final List<Promise<String>> queries = new ArrayList<>();
+    private final Supplier<Future<String>> querier = () -> {
+        Promise<String> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        queries.add(promise);
+        return promise;
+    };
+
+    @Test
+    public void inFlightQueryIsShared() {
+        Future<String> first = coalescer.query("servicetalk.io", querier);
+        Future<String> second = coalescer.query("servicetalk.io", querier);
+        assertThat(queries.size(), is(1));
+
+        queries.get(0).setSuccess("answer");
+        assertThat(first.getNow(), is("answer"));
+        assertThat(second.getNow(), is("answer"));
+
+        // The completed query is not reused.
+        coalescer.query("servicetalk.io", querier);
+        assertThat(queries.size(), is(2));
+    }
+
+    @Test
+    public void differentNamesAreNotShared() {
+        coalescer.query("servicetalk.io", querier);
+        coalescer.query("apple.com", querier);
+        assertThat(queries.size(), is(2));
+    }
+
+    @Test
+    public void failureIsPropagatedToAllCallers() {
+        Future<String> first = coalescer.query("servicetalk.io", querier);
+        Future<String> second = coalescer.query("servicetalk.io", querier);
+        IllegalStateException cause = new IllegalStateException("deliberate exception");
+        queries.get(0).setFailure(cause);
+        assertThat(first.cause(), is(cause));
+        assertThat(second.cause(), is(cause));
+    }
+
+    @Test
+    public void queryIsCancelledOnlyOnceAllCallersCancelled() {
+        Future<String> first = coalescer.query("servicetalk.io", querier);
+        Future<String> second = coalescer.query("servicetalk.io", querier);
+
+        first.cancel(true);
+        assertThat(queries.get(0).isCancelled(), is(false));
+        queries.get(0).setSuccess("answer");
+        assertThat(second.getNow(), is("answer"));
+
+        first = coalescer.query("servicetalk.io", querier);
+        second = coalescer.query("servicetalk.io", querier);
+        first.cancel(true);
+        second.cancel(true);
+        assertThat(queries.get(1).isCancelled(), is(true));
+
+        // A cancelled query is not reused.
+        coalescer.query("servicetalk.io", querier);
+        assertThat(queries.size(), is(3));
+    }
+
+    @Test
+    public void schedulesForTheSameNameShareATimer() {
+        AtomicInteger runs = new AtomicInteger();
+        coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+        coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+        coalescer.schedule("apple.com", runs::incrementAndGet, SECONDS.toNanos(5));
+        assertThat(executor.scheduledTasksPending(), is(2));
+
+        executor.advanceTimeBy(5, SECONDS);
+        assertThat(runs.get(), is(3));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void scheduleWithEarlierDeadlineGetsItsOwnTimer() {
+        AtomicInteger runs = new AtomicInteger();
+        coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(10));
+        coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+        assertThat(executor.scheduledTasksPending(), is(2));
+
+        executor.advanceTimeBy(5, SECONDS);
+        assertThat(runs.get(), is(1));
+        executor.advanceTimeBy(5, SECONDS);
+        assertThat(runs.get(), is(2));
+    }
+
+    @Test
+    public void cancellingAllTasksCancelsTheTimer() {
+        AtomicInteger runs = new AtomicInteger();
+        Cancellable first = coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+        Cancellable second = coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+
+        first.cancel();
+        assertThat(executor.scheduledTasksPending(), is(1));
+        second.cancel();
+        assertThat(executor.scheduledTasksPending(), is(0));
+
+        // A new schedule after cancellation gets a new timer.
+        coalescer.schedule("servicetalk.io", runs::incrementAndGet, SECONDS.toNanos(5));
+        executor.advanceTimeBy(5, SECONDS);
+        assertThat(runs.get(), is(1));
+    }
+}
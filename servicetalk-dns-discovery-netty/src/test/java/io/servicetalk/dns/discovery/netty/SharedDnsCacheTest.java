@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.dns.discovery.netty;
+
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.resolver.dns.DnsCacheEntry;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static java.net.InetAddress.getByName;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SharedDnsCacheTest {
+    private static final DnsRecord[] NO_ADDITIONALS = new DnsRecord[0];
+
+    @Test
+    public void cachesResolvedAddresses() throws Exception {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().prefetchThreshold(0).build();
+        final InetAddress address1 = getByName("10.0.0.1");
+        final InetAddress address2 = getByName("10.0.0.2");
+        assertThat(cache.get("servicetalk.io", NO_ADDITIONALS), is(nullValue()));
+
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address1, 60);
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address2, 60);
+        assertThat(addresses(cache.get("servicetalk.io", NO_ADDITIONALS)), contains(address1, address2));
+        assertThat(cache.refreshDelaySeconds("servicetalk.io"), is(lessThanOrEqualTo(60L)));
+    }
+
+    @Test
+    public void duplicateAddressIsCachedOnce() throws Exception {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().build();
+        final InetAddress address = getByName("10.0.0.1");
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address, 60);
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address, 60);
+        assertThat(cache.get("servicetalk.io", NO_ADDITIONALS), hasSize(1));
+    }
+
+    @Test
+    public void failedResolutionIsCached() {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().negativeTtl(60).build();
+        final UnknownHostException cause = new UnknownHostException("servicetalk.io");
+        cache.cache("servicetalk.io", NO_ADDITIONALS, cause);
+
+        final List<? extends DnsCacheEntry> entries = cache.get("servicetalk.io", NO_ADDITIONALS);
+        assertThat(entries, hasSize(1));
+        assertThat(entries.get(0).cause(), is(sameInstance(cause)));
+    }
+
+    @Test
+    public void failedResolutionIsNotCachedWhenNegativeTtlIsZero() {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().negativeTtl(0).build();
+        cache.cache("servicetalk.io", NO_ADDITIONALS, new UnknownHostException("servicetalk.io"));
+        assertThat(cache.get("servicetalk.io", NO_ADDITIONALS), is(nullValue()));
+    }
+
+    @Test
+    public void failedRefreshKeepsResolvedAddresses() throws Exception {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().negativeTtl(60).build();
+        final InetAddress address = getByName("10.0.0.1");
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address, 60);
+        cache.cache("servicetalk.io", NO_ADDITIONALS, new UnknownHostException("servicetalk.io"));
+        assertThat(addresses(cache.get("servicetalk.io", NO_ADDITIONALS)), contains(address));
+    }
+
+    @Test
+    public void entryIsPrefetchedOnceBeforeExpiry() throws Exception {
+        // With a threshold close to 1 the entry is eligible for prefetch right after it is cached.
+        final SharedDnsCache cache = new SharedDnsCache.Builder().prefetchThreshold(0.99f).build();
+        final InetAddress address = getByName("10.0.0.1");
+        cache.cache("servicetalk.io", NO_ADDITIONALS, address, 60);
+
+        // The first lookup refreshes the entry, the following ones keep using it.
+        assertThat(cache.get("servicetalk.io", NO_ADDITIONALS), is(nullValue()));
+        assertThat(addresses(cache.get("servicetalk.io", NO_ADDITIONALS)), contains(address));
+
+        // The refresh replaces the cached addresses.
+        final InetAddress newAddress = getByName("10.0.0.2");
+        cache.cache("servicetalk.io", NO_ADDITIONALS, newAddress, 60);
+        assertThat(cache.get("servicetalk.io", NO_ADDITIONALS), is(nullValue()));
+        assertThat(addresses(cache.get("servicetalk.io", NO_ADDITIONALS)), contains(newAddress));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws Exception {
+        final SharedDnsCache cache = new SharedDnsCache.Builder().maxEntries(2).prefetchThreshold(0).build();
+        final InetAddress address = getByName("10.0.0.1");
+        cache.cache("host1", NO_ADDITIONALS, address, 60);
+        cache.cache("host2", NO_ADDITIONALS, address, 60);
+        assertThat(cache.get("host1", NO_ADDITIONALS), is(notNullValue()));
+        cache.cache("host3", NO_ADDITIONALS, address, 60);
+
+        assertThat(cache.get("host1", NO_ADDITIONALS), is(notNullValue()));
+        assertThat(cache.get("host2", NO_ADDITIONALS), is(nullValue()));
+        assertThat(cache.get("host3", NO_ADDITIONALS), is(notNullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefetchThresholdIsRejected() {
+        new SharedDnsCache.Builder().prefetchThreshold(1);
+    }
+
+    private static List<InetAddress> addresses(@Nullable final List<? extends DnsCacheEntry> entries) {
+        assertThat(entries, is(notNullValue()));
+        final List<InetAddress> addresses = new ArrayList<>(entries.size());
+        for (DnsCacheEntry entry : entries) {
+            addresses.add(entry.address());
+        }
+        return addresses;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,8 +39,8 @@ import static org.apache.directory.server.dns.messages.RecordType.CNAME;
 
 final class TestRecordStore implements RecordStore {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRecordStore.class);
-    private static final int SRV_DEFAULT_WEIGHT = 10;
-    private static final int SRV_DEFAULT_PRIORITY = 10;
+    static final int SRV_DEFAULT_WEIGHT = 10;
+    static final int SRV_DEFAULT_PRIORITY = 10;
     private final Map<String, Map<RecordType, List<ResourceRecord>>> recordsToReturnByDomain =
             new ConcurrentHashMap<>();
 
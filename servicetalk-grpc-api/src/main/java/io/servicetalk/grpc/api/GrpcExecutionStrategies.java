@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -50,6 +50,19 @@ public final class GrpcExecutionStrategies {
         return new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.defaultStrategy(executor));
     }
 
+    /**
+     * The default {@link GrpcExecutionStrategy} using a shared {@link Executor} that runs each task on a new virtual
+     * thread. Blocking services are offloaded to virtual threads, so a slow dependency does not grow a pool of platform
+     * threads.
+     *
+     * @return Default {@link GrpcExecutionStrategy} using virtual threads.
+     * @throws UnsupportedOperationException if the current JDK does not support virtual threads.
+     * @see HttpExecutionStrategies#virtualThreadStrategy()
+     */
+    public static GrpcExecutionStrategy virtualThreadStrategy() {
+        return new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.virtualThreadStrategy());
+    }
+
     /**
      * A {@link GrpcExecutionStrategy} that disables all offloads.
      *
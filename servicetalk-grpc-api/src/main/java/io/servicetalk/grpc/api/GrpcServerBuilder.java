@@ -74,6 +74,20 @@ public abstract class GrpcServerBuilder {
      */
     public abstract GrpcServerBuilder backlog(int backlog);
 
+    /**
+     * Binds one listening socket per {@link io.servicetalk.transport.api.IoExecutor} thread with {@code SO_REUSEPORT},
+     * so the kernel distributes incoming connections between them instead of accepting all of them on a single thread.
+     * Connections accepted by a listening socket are served by the same thread.
+     * <p>
+     * This is only honored by transports which support {@code SO_REUSEPORT} (epoll) when binding to an IP address,
+     * otherwise a single listening socket is used.
+     *
+     * @param reusePortAcceptors {@code true} to bind one listening socket per
+     * {@link io.servicetalk.transport.api.IoExecutor} thread.
+     * @return {@code this}.
+     */
+    public abstract GrpcServerBuilder reusePortAcceptors(boolean reusePortAcceptors);
+
     /**
      * Initiate security configuration for this server. Calling any {@code commit} method on the returned
      * {@link GrpcServerSecurityConfigurator} will commit the configuration.
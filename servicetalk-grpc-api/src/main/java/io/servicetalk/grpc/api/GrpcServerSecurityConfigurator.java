@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,9 +15,11 @@
  */
 package io.servicetalk.grpc.api;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.ServerSecurityConfigurator;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.function.Supplier;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
@@ -50,6 +52,9 @@ public interface GrpcServerSecurityConfigurator extends ServerSecurityConfigurat
     @Override
     GrpcServerSecurityConfigurator clientAuth(ClientAuth clientAuth);
 
+    @Override
+    GrpcServerSecurityConfigurator sessionTicketKeys(Publisher<? extends List<byte[]>> sessionTicketKeys);
+
     /**
      * Commit configuring server security.
      *
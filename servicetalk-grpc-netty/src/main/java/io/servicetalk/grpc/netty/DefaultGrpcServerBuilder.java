@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -69,6 +69,12 @@ final class DefaultGrpcServerBuilder extends GrpcServerBuilder implements Server
         return this;
     }
 
+    @Override
+    public GrpcServerBuilder reusePortAcceptors(final boolean reusePortAcceptors) {
+        httpServerBuilder.reusePortAcceptors(reusePortAcceptors);
+        return this;
+    }
+
     @Override
     public GrpcServerSecurityConfigurator secure() {
         HttpServerSecurityConfigurator secure = httpServerBuilder.secure();
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,11 +15,13 @@
  */
 package io.servicetalk.grpc.netty;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.grpc.api.GrpcServerBuilder;
 import io.servicetalk.grpc.api.GrpcServerSecurityConfigurator;
 import io.servicetalk.http.api.HttpServerSecurityConfigurator;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.function.Supplier;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
@@ -82,6 +84,12 @@ final class DefaultGrpcServerSecurityConfigurator implements GrpcServerSecurityC
         return this;
     }
 
+    @Override
+    public GrpcServerSecurityConfigurator sessionTicketKeys(final Publisher<? extends List<byte[]>> sessionTicketKeys) {
+        delegate.sessionTicketKeys(sessionTicketKeys);
+        return this;
+    }
+
     @Override
     public GrpcServerBuilder commit(final KeyManagerFactory keyManagerFactory) {
         delegate.commit(keyManagerFactory);
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.http.api;
 
 import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Executors;
 
 import javax.annotation.Nullable;
 
@@ -69,6 +70,22 @@ public final class HttpExecutionStrategies {
         return customStrategyBuilder().offloadAll().executor(executor).mergeStrategy(ReturnOther).build();
     }
 
+    /**
+     * The default {@link HttpExecutionStrategy} using a shared {@link Executor} that runs each task on a new virtual
+     * thread. Blocking handlers (e.g. {@link BlockingHttpService}) are offloaded to virtual threads, so a slow
+     * dependency does not grow a pool of platform threads.
+     *
+     * @return Default {@link HttpExecutionStrategy} using virtual threads.
+     * @throws UnsupportedOperationException if the current JDK does not support virtual threads.
+     * @see Executors#newVirtualThreadExecutor()
+     */
+    public static HttpExecutionStrategy virtualThreadStrategy() {
+        if (!Executors.isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JDK");
+        }
+        return VirtualThreadStrategyHolder.STRATEGY;
+    }
+
     /**
      * A {@link HttpExecutionStrategy} that disables all offloads.
      *
@@ -150,6 +167,15 @@ public final class HttpExecutionStrategies {
         return !es.isMetadataReceiveOffloaded() && !es.isDataReceiveOffloaded() && !es.isSendOffloaded();
     }
 
+    private static final class VirtualThreadStrategyHolder {
+        // Lazily created on first use, so the Executor is only created when virtual threads are used.
+        static final HttpExecutionStrategy STRATEGY = defaultStrategy(Executors.newVirtualThreadExecutor());
+
+        private VirtualThreadStrategyHolder() {
+            // No instances.
+        }
+    }
+
     /**
      * A builder to build an {@link HttpExecutionStrategy}.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,20 @@ public abstract class HttpServerBuilder {
      */
     public abstract HttpServerBuilder backlog(int backlog);
 
+    /**
+     * Binds one listening socket per {@link io.servicetalk.transport.api.IoExecutor} thread with {@code SO_REUSEPORT},
+     * so the kernel distributes incoming connections between them instead of accepting all of them on a single thread.
+     * Connections accepted by a listening socket are served by the same thread.
+     * <p>
+     * This is only honored by transports which support {@code SO_REUSEPORT} (epoll) when binding to an IP address,
+     * otherwise a single listening socket is used.
+     *
+     * @param reusePortAcceptors {@code true} to bind one listening socket per
+     * {@link io.servicetalk.transport.api.IoExecutor} thread.
+     * @return {@code this}.
+     */
+    public abstract HttpServerBuilder reusePortAcceptors(boolean reusePortAcceptors);
+
     /**
      * Initiates security configuration for this server. Calling any {@code commit} method on the returned
      * {@link HttpServerSecurityConfigurator} will commit the configuration.
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,12 @@ import io.servicetalk.client.api.ConnectionFactory;
 import io.servicetalk.client.api.LoadBalancer;
 import io.servicetalk.client.api.LoadBalancerFactory;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.client.api.internal.RequestTracker;
+import io.servicetalk.client.api.internal.RequestTrackerSupplier;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
 import io.servicetalk.http.api.FilterableStreamingHttpConnection;
 import io.servicetalk.http.api.FilterableStreamingHttpLoadBalancedConnection;
 import io.servicetalk.http.api.HttpConnectionContext;
@@ -34,11 +37,16 @@ import io.servicetalk.http.api.HttpRequestMethod;
 import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.utils.BeforeFinallyHttpOperator;
+import io.servicetalk.loadbalancer.ApertureLoadBalancer.ApertureLoadBalancerFactory;
+import io.servicetalk.loadbalancer.LocalityAwareLoadBalancer.LocalityAwareLoadBalancerFactory;
+import io.servicetalk.loadbalancer.P2CLoadBalancer.P2CLoadBalancerFactory;
 import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.RoundRobinLoadBalancerFactory;
+import io.servicetalk.loadbalancer.WeightedPriorityLoadBalancer.WeightedPriorityLoadBalancerFactory;
 
 import static io.servicetalk.http.api.HttpExecutionStrategyInfluencer.defaultStreamingInfluencer;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
 import static io.servicetalk.loadbalancer.RoundRobinLoadBalancer.newRoundRobinFactory;
-import static java.lang.Integer.MAX_VALUE;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -127,8 +135,13 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
             final HttpExecutionStrategyInfluencer strategyInfluencer;
             if (rawFactory instanceof HttpExecutionStrategyInfluencer) {
                 strategyInfluencer = (HttpExecutionStrategyInfluencer) rawFactory;
-            } else if (rawFactory instanceof RoundRobinLoadBalancerFactory) {
-                strategyInfluencer = strategy -> strategy; // RoundRobinLoadBalancer is non-blocking.
+            } else if (rawFactory instanceof RoundRobinLoadBalancerFactory ||
+                    rawFactory instanceof P2CLoadBalancerFactory ||
+                    rawFactory instanceof ApertureLoadBalancerFactory ||
+                    rawFactory instanceof LocalityAwareLoadBalancerFactory ||
+                    rawFactory instanceof WeightedPriorityLoadBalancerFactory) {
+                // All load balancers of servicetalk-loadbalancer are non-blocking.
+                strategyInfluencer = strategy -> strategy;
             } else {
                 // user provided load balancer assumed to be blocking unless it implements
                 // HttpExecutionStrategyInfluencer
@@ -139,9 +152,10 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
     }
 
     private static final class DefaultFilterableStreamingHttpLoadBalancedConnection
-            implements FilterableStreamingHttpLoadBalancedConnection {
+            implements FilterableStreamingHttpLoadBalancedConnection, RequestTrackerSupplier {
 
         private final FilterableStreamingHttpConnection delegate;
+        private final RequestTracker requestTracker = new RequestTracker();
 
         DefaultFilterableStreamingHttpLoadBalancedConnection(final FilterableStreamingHttpConnection delegate) {
             this.delegate = requireNonNull(delegate);
@@ -149,7 +163,12 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
 
         @Override
         public int score() {
-            return MAX_VALUE;
+            return requestTracker.score();
+        }
+
+        @Override
+        public RequestTracker requestTracker() {
+            return requestTracker;
         }
 
         @Override
@@ -165,7 +184,18 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
         @Override
         public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
                                                      final StreamingHttpRequest request) {
-            return delegate.request(strategy, request);
+            return Single.defer(() -> {
+                final long startTime = requestTracker.beforeRequestStart();
+                final RequestOutcome outcome = new RequestOutcome(startTime);
+                return delegate.request(strategy, request)
+                        .map(response -> {
+                            // Server errors are failures for the health of the host, even if the exchange completes.
+                            outcome.serverError = response.status().statusClass() == SERVER_ERROR_5XX;
+                            return response;
+                        })
+                        .liftSync(new BeforeFinallyHttpOperator(outcome))
+                        .subscribeShareContext();
+            });
         }
 
         @Override
@@ -197,5 +227,34 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
         public StreamingHttpRequest newRequest(final HttpRequestMethod method, final String requestTarget) {
             return delegate.newRequest(method, requestTarget);
         }
+
+        private final class RequestOutcome implements TerminalSignalConsumer {
+            private final long startTime;
+            // Written before the response is emitted, hence visible when the exchange terminates.
+            boolean serverError;
+
+            RequestOutcome(final long startTime) {
+                this.startTime = startTime;
+            }
+
+            @Override
+            public void onComplete() {
+                if (serverError) {
+                    requestTracker.onRequestError(startTime);
+                } else {
+                    requestTracker.onRequestSuccess(startTime);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                requestTracker.onRequestError(startTime);
+            }
+
+            @Override
+            public void cancel() {
+                requestTracker.onRequestCancel(startTime);
+            }
+        }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,12 +15,14 @@
  */
 package io.servicetalk.http.netty;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.http.api.HttpServerBuilder;
 import io.servicetalk.http.api.HttpServerSecurityConfigurator;
 import io.servicetalk.transport.netty.internal.ReadOnlyServerSecurityConfig;
 import io.servicetalk.transport.netty.internal.ServerSecurityConfig;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.net.ssl.KeyManagerFactory;
@@ -83,6 +85,12 @@ final class DefaultHttpServerSecurityConfigurator implements HttpServerSecurityC
         return this;
     }
 
+    @Override
+    public HttpServerSecurityConfigurator sessionTicketKeys(final Publisher<? extends List<byte[]>> sessionTicketKeys) {
+        securityConfig.sessionTicketKeys(sessionTicketKeys);
+        return this;
+    }
+
     @Override
     public HttpServerBuilder commit(final KeyManagerFactory keyManagerFactory) {
         securityConfig.keyManager(keyManagerFactory);
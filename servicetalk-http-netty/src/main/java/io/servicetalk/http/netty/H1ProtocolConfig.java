@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,4 +94,16 @@ public interface H1ProtocolConfig extends HttpProtocolConfig {
      * @return exceptions for <a href="https://tools.ietf.org/html/rfc7230">HTTP/1.1</a> specification
      */
     H1SpecExceptions specExceptions();
+
+    /**
+     * Whether a server adds a <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.2">date</a> header to
+     * responses which do not have one. The value is cached and refreshed once per second for each I/O thread.
+     * <p>
+     * This setting has no effect on clients.
+     *
+     * @return {@code true} if a server adds a {@code date} header to responses which do not have one
+     */
+    default boolean addDateHeader() {
+        return false;
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,7 @@ public final class H1ProtocolConfigBuilder {
     private int headersEncodedSizeEstimate = 256;
     private int trailersEncodedSizeEstimate = 256;
     private H1SpecExceptions specExceptions = DEFAULT_H1_SPEC_EXCEPTIONS;
+    private boolean addDateHeader;
 
     H1ProtocolConfigBuilder() {
     }
@@ -144,6 +145,20 @@ public final class H1ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets whether a server adds a <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.2">date</a> header to
+     * responses which do not have one. The value is cached and refreshed once per second for each I/O thread.
+     * <p>
+     * This setting has no effect on clients.
+     *
+     * @param addDateHeader {@code true} if a server adds a {@code date} header to responses which do not have one
+     * @return {@code this}
+     */
+    public H1ProtocolConfigBuilder addDateHeader(final boolean addDateHeader) {
+        this.addDateHeader = addDateHeader;
+        return this;
+    }
+
     /**
      * Builds {@link H1ProtocolConfig}.
      *
@@ -151,7 +166,8 @@ public final class H1ProtocolConfigBuilder {
      */
     public H1ProtocolConfig build() {
         return new DefaultH1ProtocolConfig(headersFactory, maxPipelinedRequests, maxStartLineLength,
-                maxHeaderFieldLength, headersEncodedSizeEstimate, trailersEncodedSizeEstimate, specExceptions);
+                maxHeaderFieldLength, headersEncodedSizeEstimate, trailersEncodedSizeEstimate, specExceptions,
+                addDateHeader);
     }
 
     private static final class DefaultH1ProtocolConfig implements H1ProtocolConfig {
@@ -163,11 +179,12 @@ public final class H1ProtocolConfigBuilder {
         private final int headersEncodedSizeEstimate;
         private final int trailersEncodedSizeEstimate;
         private final H1SpecExceptions specExceptions;
+        private final boolean addDateHeader;
 
         DefaultH1ProtocolConfig(final HttpHeadersFactory headersFactory, final int maxPipelinedRequests,
                                 final int maxStartLineLength, final int maxHeaderFieldLength,
                                 final int headersEncodedSizeEstimate, final int trailersEncodedSizeEstimate,
-                                final H1SpecExceptions specExceptions) {
+                                final H1SpecExceptions specExceptions, final boolean addDateHeader) {
             this.headersFactory = headersFactory;
             this.maxPipelinedRequests = maxPipelinedRequests;
             this.maxStartLineLength = maxStartLineLength;
@@ -175,6 +192,7 @@ public final class H1ProtocolConfigBuilder {
             this.headersEncodedSizeEstimate = headersEncodedSizeEstimate;
             this.trailersEncodedSizeEstimate = trailersEncodedSizeEstimate;
             this.specExceptions = specExceptions;
+            this.addDateHeader = addDateHeader;
         }
 
         @Override
@@ -211,5 +229,10 @@ public final class H1ProtocolConfigBuilder {
         public H1SpecExceptions specExceptions() {
             return specExceptions;
         }
+
+        @Override
+        public boolean addDateHeader() {
+            return addDateHeader;
+        }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,9 @@ import java.util.function.BiPredicate;
 
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forClient;
+import static io.servicetalk.http.netty.H2ServerParentChannelInitializer.addCodecAndMultiplexHandlers;
 import static io.servicetalk.http.netty.H2ServerParentChannelInitializer.initFrameLogger;
+import static io.servicetalk.http.netty.H2ServerParentChannelInitializer.initSettings;
 
 final class H2ClientParentChannelInitializer implements ChannelInitializer {
 
@@ -54,6 +56,7 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
 
         // Notify server that this client does not support server push and request it to be disabled.
         multiplexCodecBuilder.initialSettings().pushEnabled(false).maxConcurrentStreams(0L);
+        initSettings(multiplexCodecBuilder.initialSettings(), config);
 
         final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector =
                 config.headersSensitivityDetector();
@@ -63,7 +66,7 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
 
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(),
+        addCodecAndMultiplexHandlers(channel.pipeline(), multiplexCodecBuilder, config,
                 new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
     }
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2Settings;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Sits between the {@link io.netty.handler.codec.http2.Http2FrameCodec} and the
+ * {@link io.netty.handler.codec.http2.Http2MultiplexHandler} of a parent channel to grow the connection flow-control
+ * window to {@link H2ProtocolConfig#connectionWindowSize()}, and to auto-tune the flow-control windows if
+ * {@link H2ProtocolConfig#flowControlAutoTuning()} is enabled.
+ * <p>
+ * Auto-tuning follows the approach of grpc-java: when DATA is received and no probe is outstanding, a PING is sent and
+ * the amount of DATA received until its ACK approximates the bandwidth-delay product (BDP). If twice the BDP exceeds
+ * the current windows and the measured bandwidth grew, both windows are grown to twice the BDP.
+ */
+final class H2FlowControlHandler extends ChannelInboundHandlerAdapter {
+    static final int MAX_AUTO_TUNED_WINDOW_SIZE = 8 * 1024 * 1024;
+    private static final long BDP_PING_CONTENT = ThreadLocalRandom.current().nextLong();
+
+    private final boolean autoTuning;
+    private int connectionWindowSize;
+    private int streamWindowSize;
+    private boolean initialized;
+    private boolean pinging;
+    private long pingStartNanos;
+    private long dataSincePing;
+    private long lastBandwidth;
+
+    H2FlowControlHandler(final H2ProtocolConfig config) {
+        autoTuning = config.flowControlAutoTuning();
+        connectionWindowSize = config.connectionWindowSize();
+        streamWindowSize = config.initialStreamWindowSize();
+    }
+
+    static boolean isRequired(final H2ProtocolConfig config) {
+        return config.flowControlAutoTuning() || config.connectionWindowSize() > DEFAULT_WINDOW_SIZE;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive()) {
+            initConnectionWindow(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        initConnectionWindow(ctx);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (autoTuning) {
+            if (msg instanceof Http2DataFrame) {
+                dataRead(ctx, ((Http2DataFrame) msg).initialFlowControlledBytes());
+            } else if (msg instanceof Http2PingFrame) {
+                final Http2PingFrame pingFrame = (Http2PingFrame) msg;
+                if (pingFrame.ack() && pingFrame.content() == BDP_PING_CONTENT) {
+                    bdpPingAckRead(ctx);
+                    return;
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void initConnectionWindow(final ChannelHandlerContext ctx) {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        if (connectionWindowSize > DEFAULT_WINDOW_SIZE) {
+            // A WINDOW_UPDATE frame without a stream applies to the connection.
+            ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(connectionWindowSize - DEFAULT_WINDOW_SIZE));
+        }
+    }
+
+    private void dataRead(final ChannelHandlerContext ctx, final int bytes) {
+        if (!pinging) {
+            pinging = true;
+            dataSincePing = 0;
+            pingStartNanos = nanoTime();
+            ctx.writeAndFlush(new DefaultHttp2PingFrame(BDP_PING_CONTENT));
+        }
+        dataSincePing += bytes;
+    }
+
+    private void bdpPingAckRead(final ChannelHandlerContext ctx) {
+        pinging = false;
+        final long elapsedNanos = max(1, nanoTime() - pingStartNanos);
+        final long bandwidth = dataSincePing * SECONDS.toNanos(1) / elapsedNanos;
+        final int targetWindowSize = (int) min(dataSincePing * 2, MAX_AUTO_TUNED_WINDOW_SIZE);
+        if (bandwidth <= lastBandwidth ||
+                (targetWindowSize <= connectionWindowSize && targetWindowSize <= streamWindowSize)) {
+            return;
+        }
+        lastBandwidth = bandwidth;
+        if (targetWindowSize > connectionWindowSize) {
+            ctx.write(new DefaultHttp2WindowUpdateFrame(targetWindowSize - connectionWindowSize));
+            connectionWindowSize = targetWindowSize;
+        }
+        if (targetWindowSize > streamWindowSize) {
+            // The new initial window size is applied to all streams once the peer acknowledges the SETTINGS.
+            ctx.write(new DefaultHttp2SettingsFrame(new Http2Settings().initialWindowSize(targetWindowSize)));
+            streamWindowSize = targetWindowSize;
+        }
+        ctx.flush();
+    }
+}
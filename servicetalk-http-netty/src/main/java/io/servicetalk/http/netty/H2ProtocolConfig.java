@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,11 @@ import java.time.Duration;
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
+
 /**
  * Configuration for <a href="https://tools.ietf.org/html/rfc7540">HTTP/2</a> protocol.
  *
@@ -60,6 +65,72 @@ public interface H2ProtocolConfig extends HttpProtocolConfig {
     @Nullable
     KeepAlivePolicy keepAlivePolicy();
 
+    /**
+     * Initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window</a> size for new streams,
+     * advertised to the peer as
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_INITIAL_WINDOW_SIZE</a>.
+     *
+     * @return initial flow-control window size in bytes for new streams.
+     */
+    default int initialStreamWindowSize() {
+        return DEFAULT_WINDOW_SIZE;
+    }
+
+    /**
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.9.1">Flow-control window</a> size for the connection,
+     * which limits the total amount of data the peer can send across all streams before it receives a
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.9">WINDOW_UPDATE</a>.
+     *
+     * @return flow-control window size in bytes for the connection.
+     */
+    default int connectionWindowSize() {
+        return DEFAULT_WINDOW_SIZE;
+    }
+
+    /**
+     * Maximum number of concurrent streams the peer is allowed to open, advertised to the peer as
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_CONCURRENT_STREAMS</a>.
+     * <p>
+     * Only applies to servers, clients do not support server push and always advertise {@code 0}.
+     *
+     * @return maximum number of concurrent streams the peer is allowed to open.
+     */
+    default long maxConcurrentStreams() {
+        return MAX_CONCURRENT_STREAMS;
+    }
+
+    /**
+     * Largest frame payload size the peer is allowed to send, advertised to the peer as
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_FRAME_SIZE</a>.
+     *
+     * @return largest frame payload size in bytes the peer is allowed to send.
+     */
+    default int maxFrameSize() {
+        return DEFAULT_MAX_FRAME_SIZE;
+    }
+
+    /**
+     * Size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to decode
+     * headers, advertised to the peer as
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_HEADER_TABLE_SIZE</a>.
+     *
+     * @return size in bytes of the HPACK dynamic table used to decode headers.
+     */
+    default long headerTableSize() {
+        return DEFAULT_HEADER_TABLE_SIZE;
+    }
+
+    /**
+     * Whether the flow-control windows are automatically grown based on the measured
+     * <a href="https://en.wikipedia.org/wiki/Bandwidth-delay_product">bandwidth-delay product</a> of the connection.
+     *
+     * @return {@code true} if the flow-control windows are automatically grown based on the measured
+     * bandwidth-delay product of the connection.
+     */
+    default boolean flowControlAutoTuning() {
+        return false;
+    }
+
     /**
      * A policy for sending <a href="https://tools.ietf.org/html/rfc7540#section-6.7">PING frames</a> to the peer.
      */
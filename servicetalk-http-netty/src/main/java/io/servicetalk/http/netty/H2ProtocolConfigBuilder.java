@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,12 @@ import java.util.function.BiPredicate;
 import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
 import static io.servicetalk.http.netty.H2HeadersFactory.DEFAULT_SENSITIVITY_DETECTOR;
 import static io.servicetalk.http.netty.H2KeepAlivePolicies.DISABLE_KEEP_ALIVE;
 import static io.servicetalk.logging.api.LogLevel.TRACE;
@@ -44,6 +50,12 @@ public final class H2ProtocolConfigBuilder {
     private UserDataLoggerConfig frameLoggerConfig;
     @Nullable
     private KeepAlivePolicy keepAlivePolicy;
+    private int initialStreamWindowSize = DEFAULT_WINDOW_SIZE;
+    private int connectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private long maxConcurrentStreams = MAX_CONCURRENT_STREAMS;
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private long headerTableSize = DEFAULT_HEADER_TABLE_SIZE;
+    private boolean flowControlAutoTuning;
 
     H2ProtocolConfigBuilder() {
     }
@@ -115,6 +127,99 @@ public final class H2ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window</a> size for
+     * new streams.
+     *
+     * @param initialStreamWindowSize initial flow-control window size in bytes for new streams.
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder initialStreamWindowSize(final int initialStreamWindowSize) {
+        if (initialStreamWindowSize < 0) {
+            throw new IllegalArgumentException("initialStreamWindowSize: " + initialStreamWindowSize +
+                    " (expected >= 0)");
+        }
+        this.initialStreamWindowSize = initialStreamWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.9.1">flow-control window</a> size for the
+     * connection. The connection window can only be grown beyond the default size of {@code 65535} bytes.
+     *
+     * @param connectionWindowSize flow-control window size in bytes for the connection.
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder connectionWindowSize(final int connectionWindowSize) {
+        if (connectionWindowSize < DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("connectionWindowSize: " + connectionWindowSize +
+                    " (expected >= " + DEFAULT_WINDOW_SIZE + ')');
+        }
+        this.connectionWindowSize = connectionWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams the peer is allowed to open. Only applies to servers.
+     *
+     * @param maxConcurrentStreams maximum number of concurrent streams the peer is allowed to open.
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxConcurrentStreams(final long maxConcurrentStreams) {
+        if (maxConcurrentStreams < 0 || maxConcurrentStreams > MAX_CONCURRENT_STREAMS) {
+            throw new IllegalArgumentException("maxConcurrentStreams: " + maxConcurrentStreams +
+                    " (expected [0, " + MAX_CONCURRENT_STREAMS + "])");
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Sets the largest frame payload size the peer is allowed to send.
+     *
+     * @param maxFrameSize largest frame payload size in bytes the peer is allowed to send.
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxFrameSize(final int maxFrameSize) {
+        if (maxFrameSize < DEFAULT_MAX_FRAME_SIZE || maxFrameSize > MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException("maxFrameSize: " + maxFrameSize +
+                    " (expected [" + DEFAULT_MAX_FRAME_SIZE + ", " + MAX_FRAME_SIZE_UPPER_BOUND + "])");
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to
+     * decode headers.
+     *
+     * @param headerTableSize size in bytes of the HPACK dynamic table used to decode headers.
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder headerTableSize(final long headerTableSize) {
+        if (headerTableSize < 0 || headerTableSize > MAX_HEADER_TABLE_SIZE) {
+            throw new IllegalArgumentException("headerTableSize: " + headerTableSize +
+                    " (expected [0, " + MAX_HEADER_TABLE_SIZE + "])");
+        }
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
+    /**
+     * Enables automatic tuning of the flow-control windows. The connection periodically measures its
+     * <a href="https://en.wikipedia.org/wiki/Bandwidth-delay_product">bandwidth-delay product</a> with
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.7">PING frames</a> while receiving data, and grows the
+     * stream and connection windows (up to {@code 8 MiB}) when the window limits the observed throughput. Windows are
+     * never shrunk below the configured {@link #initialStreamWindowSize(int)} and
+     * {@link #connectionWindowSize(int)}.
+     *
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder enableFlowControlAutoTuning() {
+        flowControlAutoTuning = true;
+        return this;
+    }
+
     /**
      * Builds {@link H2ProtocolConfig}.
      *
@@ -122,7 +227,8 @@ public final class H2ProtocolConfigBuilder {
      */
     public H2ProtocolConfig build() {
         return new DefaultH2ProtocolConfig(headersFactory, headersSensitivityDetector, frameLoggerConfig,
-                keepAlivePolicy);
+                keepAlivePolicy, initialStreamWindowSize, connectionWindowSize, maxConcurrentStreams, maxFrameSize,
+                headerTableSize, flowControlAutoTuning);
     }
 
     private static final class DefaultH2ProtocolConfig implements H2ProtocolConfig {
@@ -133,15 +239,33 @@ public final class H2ProtocolConfigBuilder {
         private final UserDataLoggerConfig frameLoggerConfig;
         @Nullable
         private final KeepAlivePolicy keepAlivePolicy;
+        private final int initialStreamWindowSize;
+        private final int connectionWindowSize;
+        private final long maxConcurrentStreams;
+        private final int maxFrameSize;
+        private final long headerTableSize;
+        private final boolean flowControlAutoTuning;
 
         DefaultH2ProtocolConfig(final HttpHeadersFactory headersFactory,
                                 final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector,
                                 @Nullable final UserDataLoggerConfig frameLoggerConfig,
-                                @Nullable final KeepAlivePolicy keepAlivePolicy) {
+                                @Nullable final KeepAlivePolicy keepAlivePolicy,
+                                final int initialStreamWindowSize,
+                                final int connectionWindowSize,
+                                final long maxConcurrentStreams,
+                                final int maxFrameSize,
+                                final long headerTableSize,
+                                final boolean flowControlAutoTuning) {
             this.headersFactory = headersFactory;
             this.headersSensitivityDetector = headersSensitivityDetector;
             this.frameLoggerConfig = frameLoggerConfig;
             this.keepAlivePolicy = keepAlivePolicy;
+            this.initialStreamWindowSize = initialStreamWindowSize;
+            this.connectionWindowSize = connectionWindowSize;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.maxFrameSize = maxFrameSize;
+            this.headerTableSize = headerTableSize;
+            this.flowControlAutoTuning = flowControlAutoTuning;
         }
 
         @Override
@@ -165,5 +289,35 @@ public final class H2ProtocolConfigBuilder {
         public KeepAlivePolicy keepAlivePolicy() {
             return keepAlivePolicy;
         }
+
+        @Override
+        public int initialStreamWindowSize() {
+            return initialStreamWindowSize;
+        }
+
+        @Override
+        public int connectionWindowSize() {
+            return connectionWindowSize;
+        }
+
+        @Override
+        public long maxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        @Override
+        public int maxFrameSize() {
+            return maxFrameSize;
+        }
+
+        @Override
+        public long headerTableSize() {
+            return headerTableSize;
+        }
+
+        @Override
+        public boolean flowControlAutoTuning() {
+            return flowControlAutoTuning;
+        }
     }
 }
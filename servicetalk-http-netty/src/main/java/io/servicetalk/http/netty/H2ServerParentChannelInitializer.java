@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,13 +19,20 @@ import io.servicetalk.logging.api.UserDataLoggerConfig;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.Http2StreamChannel;
 
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forServer;
 import static io.servicetalk.logging.slf4j.internal.Slf4jFixedLevelLoggers.newLogger;
 
@@ -56,9 +63,41 @@ final class H2ServerParentChannelInitializer implements ChannelInitializer {
 
         initFrameLogger(multiplexCodecBuilder, config.frameLoggerConfig());
 
+        final Http2Settings initialSettings = multiplexCodecBuilder.initialSettings();
+        initSettings(initialSettings, config);
+        if (config.maxConcurrentStreams() != MAX_CONCURRENT_STREAMS) {
+            initialSettings.maxConcurrentStreams(config.maxConcurrentStreams());
+        }
+
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(), new Http2MultiplexHandler(streamChannelInitializer));
+        addCodecAndMultiplexHandlers(channel.pipeline(), multiplexCodecBuilder, config,
+                new Http2MultiplexHandler(streamChannelInitializer));
+    }
+
+    static void initSettings(final Http2Settings initialSettings, final H2ProtocolConfig config) {
+        // Only settings that differ from the protocol defaults are sent to the peer.
+        if (config.initialStreamWindowSize() != DEFAULT_WINDOW_SIZE) {
+            initialSettings.initialWindowSize(config.initialStreamWindowSize());
+        }
+        if (config.maxFrameSize() != DEFAULT_MAX_FRAME_SIZE) {
+            initialSettings.maxFrameSize(config.maxFrameSize());
+        }
+        if (config.headerTableSize() != DEFAULT_HEADER_TABLE_SIZE) {
+            initialSettings.headerTableSize(config.headerTableSize());
+        }
+    }
+
+    static void addCodecAndMultiplexHandlers(final ChannelPipeline pipeline,
+                                             final Http2FrameCodecBuilder multiplexCodecBuilder,
+                                             final H2ProtocolConfig config,
+                                             final ChannelHandler multiplexHandler) {
+        pipeline.addLast(multiplexCodecBuilder.build());
+        if (H2FlowControlHandler.isRequired(config)) {
+            // Must see DATA and PING frames before the multiplex handler dispatches them.
+            pipeline.addLast(new H2FlowControlHandler(config));
+        }
+        pipeline.addLast(multiplexHandler);
     }
 
     static void initFrameLogger(final Http2FrameCodecBuilder multiplexCodecBuilder,
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ import io.servicetalk.tcp.netty.internal.TcpClientConfig;
 
 import javax.annotation.Nullable;
 
+import static io.servicetalk.transport.netty.internal.FlushStrategies.adaptiveFlush;
+
 final class HttpClientConfig {
 
     private final TcpClientConfig tcpConfig;
@@ -28,6 +30,8 @@ final class HttpClientConfig {
 
     HttpClientConfig() {
         tcpConfig = new TcpClientConfig();
+        // Coalesce flushes of pipelined requests/responses and concurrent streams, but flush immediately when idle.
+        tcpConfig.flushStrategy(adaptiveFlush());
         protocolConfigs = new HttpConfig();
     }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.handler.codec.DateFormatter;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.Date;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.DATE;
+
+/**
+ * Provides the value for the <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.2">date</a> header.
+ * <p>
+ * The value is formatted and {@link PreEncodedHeaderValue pre-encoded} at most once per second for each thread. Headers
+ * are encoded on the event loop, so in practice each {@link io.servicetalk.transport.api.IoExecutor} thread shares one
+ * value between all of its connections.
+ */
+final class HttpDateHeader {
+    private static final FastThreadLocal<HttpDateHeader> CACHE = new FastThreadLocal<HttpDateHeader>() {
+        @Override
+        protected HttpDateHeader initialValue() {
+            return new HttpDateHeader();
+        }
+    };
+
+    private long second = Long.MIN_VALUE;
+    @Nullable
+    private PreEncodedHeaderValue value;
+
+    HttpDateHeader() {
+    }
+
+    /**
+     * Get the value of the {@code date} header for the current time.
+     *
+     * @return the value of the {@code date} header for the current time.
+     */
+    static CharSequence currentDate() {
+        return CACHE.get().value(System.currentTimeMillis());
+    }
+
+    PreEncodedHeaderValue value(final long currentTimeMillis) {
+        final long currentSecond = currentTimeMillis / 1000;
+        PreEncodedHeaderValue value = this.value;
+        if (value == null || currentSecond != second) {
+            value = new PreEncodedHeaderValue(DATE,
+                    newAsciiString(DateFormatter.format(new Date(currentSecond * 1000))));
+            this.value = value;
+            second = currentSecond;
+        }
+        return value;
+    }
+}
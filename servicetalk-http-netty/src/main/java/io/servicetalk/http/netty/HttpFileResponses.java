@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.netty.FileBuffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.FileBuffer.newFileBuffer;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_RANGES;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_RANGE;
+import static io.servicetalk.http.api.HttpHeaderNames.IF_RANGE;
+import static io.servicetalk.http.api.HttpHeaderNames.RANGE;
+import static io.servicetalk.http.api.HttpHeaderValues.BYTES;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static java.lang.Math.min;
+
+/**
+ * Factory methods for {@link StreamingHttpResponse}s whose payload body is the content of a {@link File}.
+ * <p>
+ * The payload body is made of {@link FileBuffer}s. Over plaintext HTTP/1.x connections they are sent with a
+ * {@link io.netty.channel.FileRegion}, which lets the transport use {@code sendfile}, so the content never enters the
+ * heap. Otherwise, e.g. with TLS or HTTP/2, the content is read from a memory mapping of the file.
+ * <p>
+ * Single <a href="https://tools.ietf.org/html/rfc7233">range requests</a> are supported.
+ */
+public final class HttpFileResponses {
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private HttpFileResponses() {
+        // no instances
+    }
+
+    /**
+     * Create a new {@link StreamingHttpResponse} for the content of a {@link File}.
+     *
+     * @param request the {@link HttpRequestMetaData} of the request to respond to.
+     * @param responseFactory the {@link StreamingHttpResponseFactory} to create the response.
+     * @param file the {@link File} to send.
+     * @return a new {@link StreamingHttpResponse} for the content of {@code file}.
+     * @throws FileNotFoundException if {@code file} is not a readable file.
+     * @see #newFileResponse(HttpRequestMetaData, StreamingHttpResponseFactory, File, int)
+     */
+    public static StreamingHttpResponse newFileResponse(final HttpRequestMetaData request,
+                                                        final StreamingHttpResponseFactory responseFactory,
+                                                        final File file) throws FileNotFoundException {
+        return newFileResponse(request, responseFactory, file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a new {@link StreamingHttpResponse} for the content of a {@link File}.
+     * <p>
+     * If {@code request} is a {@code GET} with a single satisfiable byte range, the response is a
+     * {@code 206 Partial Content} with the requested range. If the range is not satisfiable, the response is a
+     * {@code 416 Range Not Satisfiable} without payload body. Otherwise, including requests with multiple ranges or an
+     * {@code if-range} header, the response is a {@code 200 OK} with the whole file.
+     * <p>
+     * The {@code content-type} header is not set.
+     *
+     * @param request the {@link HttpRequestMetaData} of the request to respond to.
+     * @param responseFactory the {@link StreamingHttpResponseFactory} to create the response.
+     * @param file the {@link File} to send.
+     * @param chunkSize the maximum size of each {@link FileBuffer} of the payload body.
+     * @return a new {@link StreamingHttpResponse} for the content of {@code file}.
+     * @throws FileNotFoundException if {@code file} is not a readable file.
+     */
+    public static StreamingHttpResponse newFileResponse(final HttpRequestMetaData request,
+                                                        final StreamingHttpResponseFactory responseFactory,
+                                                        final File file, final int chunkSize)
+            throws FileNotFoundException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected > 0)");
+        }
+        if (!file.isFile() || !file.canRead()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        final long length = file.length();
+        final long[] range = GET.equals(request.method()) && !request.headers().contains(IF_RANGE) ?
+                parseRange(request.headers().get(RANGE), length) : null;
+        final StreamingHttpResponse response;
+        if (range == null) {
+            response = responseFactory.ok();
+            response.headers().set(CONTENT_LENGTH, Long.toString(length));
+            if (length > 0) {
+                response.payloadBody(fileContent(file, 0, length, chunkSize));
+            }
+        } else if (range == UNSATISFIABLE) {
+            response = responseFactory.rangeNotSatisfiable();
+            response.headers().set(CONTENT_RANGE, "bytes */" + length).set(CONTENT_LENGTH, ZERO);
+        } else {
+            final long start = range[0];
+            final long end = range[1];
+            response = responseFactory.partialContent();
+            response.headers()
+                    .set(CONTENT_RANGE, "bytes " + start + '-' + end + '/' + length)
+                    .set(CONTENT_LENGTH, Long.toString(end - start + 1));
+            response.payloadBody(fileContent(file, start, end - start + 1, chunkSize));
+        }
+        response.headers().set(ACCEPT_RANGES, BYTES);
+        return response;
+    }
+
+    /**
+     * Parse a <a href="https://tools.ietf.org/html/rfc7233#section-3.1">range</a> header value.
+     *
+     * @param value the value of the {@code range} header.
+     * @param length the length of the representation.
+     * @return {@code null} if the header should be ignored, {@link #UNSATISFIABLE} if the range is not satisfiable,
+     * or the first and last byte positions (inclusive) of the range.
+     */
+    @Nullable
+    static long[] parseRange(@Nullable final CharSequence value, final long length) {
+        if (value == null) {
+            return null;
+        }
+        final String range = value.toString().trim();
+        if (!range.regionMatches(true, 0, "bytes=", 0, 6) || range.indexOf(',') >= 0) {
+            // Other units are not supported, and multiple ranges would need a multipart/byteranges response.
+            return null;
+        }
+        final int dash = range.indexOf('-', 6);
+        if (dash < 0) {
+            return null;
+        }
+        final String first = range.substring(6, dash).trim();
+        final String last = range.substring(dash + 1).trim();
+        final long start;
+        final long end;
+        try {
+            if (first.isEmpty()) {
+                // suffix-byte-range-spec: the last N bytes.
+                final long suffixLength = parseDigits(last);
+                if (suffixLength == 0) {
+                    return UNSATISFIABLE;
+                }
+                start = length - min(suffixLength, length);
+                end = length - 1;
+            } else {
+                start = parseDigits(first);
+                if (last.isEmpty()) {
+                    end = length - 1;
+                } else {
+                    final long lastPosition = parseDigits(last);
+                    if (lastPosition < start) {
+                        // Syntactically invalid, which has to be ignored.
+                        return null;
+                    }
+                    end = min(lastPosition, length - 1);
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return start >= length ? UNSATISFIABLE : new long[] {start, end};
+    }
+
+    private static long parseDigits(final String digits) {
+        // Long.parseLong allows a sign, which is not allowed by the grammar.
+        if (digits.isEmpty() || digits.charAt(0) < '0' || digits.charAt(0) > '9') {
+            throw new NumberFormatException(digits);
+        }
+        return Long.parseLong(digits);
+    }
+
+    private static Publisher<Buffer> fileContent(final File file, final long position, final long length,
+                                                 final int chunkSize) {
+        return fromIterable(() -> new Iterator<Buffer>() {
+            private long offset = position;
+            private final long end = position + length;
+
+            @Override
+            public boolean hasNext() {
+                return offset < end;
+            }
+
+            @Override
+            public Buffer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int chunk = (int) min(chunkSize, end - offset);
+                final FileBuffer buffer;
+                try {
+                    buffer = newFileBuffer(file, offset, chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                offset += chunk;
+                return buffer;
+            }
+        });
+    }
+}
@@ -62,9 +62,9 @@ import static io.netty.handler.codec.http.HttpConstants.CR;
 import static io.netty.handler.codec.http.HttpConstants.HT;
 import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.handler.codec.http.HttpConstants.SP;
-import static io.netty.util.ByteProcessor.FIND_LF;
 import static io.servicetalk.buffer.api.CharSequences.emptyAsciiString;
 import static io.servicetalk.buffer.api.CharSequences.newAsciiString;
+import static io.servicetalk.buffer.netty.BufferUtils.indexOf;
 import static io.servicetalk.buffer.netty.BufferUtils.newBufferFrom;
 import static io.servicetalk.http.api.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
@@ -79,9 +79,6 @@ import static io.servicetalk.http.api.HttpRequestMethod.GET;
 import static io.servicetalk.http.api.HttpResponseStatus.SWITCHING_PROTOCOLS;
 import static io.servicetalk.http.netty.HeaderUtils.removeTransferEncodingChunked;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
-import static java.lang.Character.isISOControl;
-import static java.lang.Character.isWhitespace;
-import static java.lang.Long.parseUnsignedLong;
 import static java.lang.Math.min;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Objects.requireNonNull;
@@ -109,7 +106,6 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         }
         throw new IllegalCharacterException(value, "VCHAR (0x21-0x7e)");
     };
-    private static final ByteProcessor FIND_COLON = value -> value != COLON;
     private static final ByteProcessor FIND_FIELD_VALUE = value -> {
         // Skip preceded and/or followed OWS
         if (isWS(value)) {
@@ -615,15 +611,17 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
 
         final int nonControlIndex = lfIndex - 2;
         final int nameStart = buffer.readerIndex();
-        final int nameEnd = buffer.forEachByte(nameStart, nonControlIndex - nameStart + 1, FIND_COLON);
+        final int nameEnd = indexOf(buffer, nameStart, nonControlIndex + 1, COLON);
         if (nameEnd < 0) {
             throw newDecoderExceptionAtLine("Unable to find end of a header name in line ", parsingLine);
         }
         if (nameEnd == nameStart) {
             throw newDecoderExceptionAtLine("Empty header name in line ", parsingLine);
         }
+        final CharSequence knownName = KnownHttpHeaders.name(buffer, nameStart, nameEnd - nameStart);
         // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-        final CharSequence name = newAsciiString(newBufferFrom(buffer.retainedSlice(nameStart, nameEnd - nameStart)));
+        final CharSequence name = knownName != null ? knownName :
+                newAsciiString(newBufferFrom(buffer.retainedSlice(nameStart, nameEnd - nameStart)));
         final CharSequence value;
         try {
             final int valueStart;
@@ -633,8 +631,10 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
             } else {
                 final int valueEnd =
                         buffer.forEachByteDesc(valueStart, nonControlIndex - valueStart + 1, FIND_FIELD_VALUE);
+                final CharSequence knownValue = KnownHttpHeaders.value(buffer, valueStart, valueEnd - valueStart + 1);
                 // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-                value = newAsciiString(newBufferFrom(buffer.retainedSlice(valueStart, valueEnd - valueStart + 1)));
+                value = knownValue != null ? knownValue :
+                        newAsciiString(newBufferFrom(buffer.retainedSlice(valueStart, valueEnd - valueStart + 1)));
             }
         } catch (IllegalCharacterException cause) {
             throw invalidHeaderValue(name, parsingLine, cause);
@@ -756,28 +756,51 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
     }
 
     private static long getChunkSize(final ByteBuf buffer, final int lfIndex) {
-        if (lfIndex - 2 < buffer.readerIndex()) {
+        final int crIndex = lfIndex - 1;
+        int i = buffer.readerIndex();
+        if (crIndex - 1 < i) {
             throw new DecoderException("Chunked encoding specified but chunk-size not found");
         }
-        return getChunkSize(buffer.toString(buffer.readerIndex(),
-                lfIndex - 1 - buffer.readerIndex(), US_ASCII));
-    }
-
-    private static long getChunkSize(String hex) {
-        hex = hex.trim();
-        for (int i = 0; i < hex.length(); ++i) {
-            char c = hex.charAt(i);
-            if (c == ';' || isWhitespace(c) || isISOControl(c)) {
-                hex = hex.substring(0, i);
+        // Parse the bytes directly instead of allocating a String. Leading whitespace is skipped, and the chunk-size
+        // ends at the first chunk-ext (';'), whitespace or control character.
+        while (i < crIndex && (buffer.getByte(i) & 0xFF) <= SP) {
+            ++i;
+        }
+        final int hexStart = i;
+        long chunkSize = 0;
+        for (; i < crIndex; ++i) {
+            final int b = buffer.getByte(i) & 0xFF;
+            if (b == ';' || b <= SP || b == 0x7F) {
                 break;
             }
+            final int digit = hexDigit(b);
+            if (digit < 0 || i - hexStart == MAX_HEX_CHARS_FOR_LONG) {
+                throw invalidChunkSize(buffer, hexStart, crIndex);
+            }
+            chunkSize = (chunkSize << 4) | digit;
+        }
+        if (i == hexStart) {
+            throw invalidChunkSize(buffer, hexStart, crIndex);
         }
+        return chunkSize;
+    }
 
-        try {
-            return parseUnsignedLong(hex, 16);
-        } catch (NumberFormatException cause) {
-            throw invalidChunkSize(hex, cause);
+    private static int hexDigit(final int b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
         }
+        return -1;
+    }
+
+    private static DecoderException invalidChunkSize(final ByteBuf buffer, final int hexStart, final int crIndex) {
+        final String hex = buffer.toString(hexStart, crIndex - hexStart, US_ASCII).trim();
+        return invalidChunkSize(hex, new NumberFormatException("For input string: \"" + hex + "\" under radix 16"));
     }
 
     private static DecoderException invalidChunkSize(final String hex, final NumberFormatException cause) {
@@ -849,7 +872,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         if (fromIndex >= toIndex) {
             return -1;
         }
-        return buffer.forEachByte(fromIndex, toIndex - fromIndex, FIND_LF);
+        return indexOf(buffer, fromIndex, toIndex, LF);
     }
 
     private DecoderException newStartLineError(final String place) {
@@ -31,15 +31,19 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.netty.FileBuffer;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpMetaData;
 import io.servicetalk.transport.netty.internal.CloseHandler;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.PromiseCombiner;
 
 import java.util.Map;
@@ -62,6 +66,8 @@ import static io.servicetalk.http.api.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useIoUring;
+import static java.lang.Integer.MAX_VALUE;
 import static java.lang.Long.toHexString;
 import static java.lang.Math.max;
 import static java.nio.charset.StandardCharsets.US_ASCII;
@@ -162,7 +168,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                     case ST_CONTENT_NON_CHUNK:
                         final long contentLength = stBuffer.readableBytes();
                         if (contentLength > 0) {
-                            ctx.write(encodeAndRetain(stBuffer), promise);
+                            ctx.write(encodeAndRetain(ctx, stBuffer), promise);
                             break;
                         }
 
@@ -176,9 +182,16 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                         ctx.write(EMPTY_BUFFER, promise);
                         break;
                     case ST_CONTENT_CHUNK:
-                        PromiseCombiner promiseCombiner = new PromiseCombiner();
-                        encodeChunkedContent(ctx, stBuffer, stBuffer.readableBytes(), promiseCombiner);
-                        promiseCombiner.finish(promise);
+                        final Object content = encodeAndRetain(ctx, stBuffer);
+                        if (content instanceof ByteBuf) {
+                            // A single write of a composite lets the transport gather the chunk header, the
+                            // content components and the CRLF with one writev, without copies or extra promises.
+                            ctx.write(encodeChunk(ctx, (ByteBuf) content), promise);
+                        } else {
+                            PromiseCombiner promiseCombiner = new PromiseCombiner();
+                            encodeChunkedContent(ctx, content, stBuffer.readableBytes(), promiseCombiner);
+                            promiseCombiner.finish(promise);
+                        }
                         break;
                     default:
                         throw new Error();
@@ -249,26 +262,43 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
      */
     private static void encodeHeaders(HttpHeaders headers, ByteBuf byteBuf, Buffer buffer) {
         for (Map.Entry<CharSequence, CharSequence> header : headers) {
-            encodeHeader(header.getKey(), header.getValue(), byteBuf, buffer);
+            final CharSequence name = header.getKey();
+            CharSequence value = header.getValue();
+            if (value instanceof PreEncodedHeaderValue) {
+                final PreEncodedHeaderValue preEncoded = (PreEncodedHeaderValue) value;
+                // The pre-encoded bytes contain the name, so they can only be used if the name is the same one.
+                if (preEncoded.name() == name) {
+                    byteBuf.writeBytes(preEncoded.encoded());
+                    continue;
+                }
+                value = preEncoded.value();
+            }
+            encodeHeader(name, value, byteBuf, buffer);
         }
     }
 
-    private static void encodeChunkedContent(ChannelHandlerContext ctx, Buffer msg, long contentLength,
+    private static ByteBuf encodeChunk(ChannelHandlerContext ctx, ByteBuf content) {
+        final CompositeByteBuf chunk = ctx.alloc().compositeDirectBuffer(MAX_VALUE);
+        chunk.addComponent(true, encodeChunkHeader(ctx, content.readableBytes()));
+        // Flatten the components of a CompositeBuffer payload, so they are gathered as they are.
+        chunk.addFlattenedComponents(true, content);
+        chunk.addComponent(true, CRLF_BUF.duplicate());
+        return chunk;
+    }
+
+    private static void encodeChunkedContent(ChannelHandlerContext ctx, Object content, long contentLength,
                                              PromiseCombiner promiseCombiner) {
-        if (contentLength > 0) {
-            String lengthHex = toHexString(contentLength);
-            ByteBuf buf = ctx.alloc().directBuffer(lengthHex.length() + 2);
-            buf.writeCharSequence(lengthHex, US_ASCII);
-            writeShortBE(buf, CRLF_SHORT);
-            promiseCombiner.add(ctx.write(buf));
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
-            promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
-        } else {
-            assert contentLength == 0;
-            // Need to produce some output otherwise an
-            // IllegalStateException will be thrown
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
-        }
+        promiseCombiner.add(ctx.write(encodeChunkHeader(ctx, contentLength)));
+        promiseCombiner.add(ctx.write(content));
+        promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
+    }
+
+    private static ByteBuf encodeChunkHeader(ChannelHandlerContext ctx, long contentLength) {
+        String lengthHex = toHexString(contentLength);
+        ByteBuf buf = ctx.alloc().directBuffer(lengthHex.length() + 2);
+        buf.writeCharSequence(lengthHex, US_ASCII);
+        writeShortBE(buf, CRLF_SHORT);
+        return buf;
     }
 
     private void encodeAndWriteTrailers(ChannelHandlerContext ctx, HttpHeaders headers, ChannelPromise promise) {
@@ -338,10 +368,25 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     static ByteBuf encodeAndRetain(Buffer msg) {
         // We still want to retain the objects we encode because otherwise folks may hold on to references of objects
         // with a 0 reference count and get an IllegalReferenceCountException.
-        // TODO(scott): add support for file region
         return toByteBuf(msg).retain();
     }
 
+    private static Object encodeAndRetain(ChannelHandlerContext ctx, Buffer msg) {
+        if (msg instanceof FileBuffer && supportsFileRegion(ctx)) {
+            // Let the transport send the file content directly (e.g. sendfile), instead of copying it from the mapping.
+            final FileBuffer fileBuffer = (FileBuffer) msg;
+            return new DefaultFileRegion(fileBuffer.file(), fileBuffer.readerFilePosition(),
+                    fileBuffer.readableBytes());
+        }
+        return encodeAndRetain(msg);
+    }
+
+    private static boolean supportsFileRegion(ChannelHandlerContext ctx) {
+        // TLS has to encrypt the content in user space, and the io_uring transport only writes ByteBufs. Both fall back
+        // to the memory mapped content of the FileBuffer.
+        return ctx.pipeline().get(SslHandler.class) == null && !useIoUring(ctx.channel().eventLoop());
+    }
+
     private static ByteBuf toByteBuf(Buffer buffer) {
         ByteBuf byteBuf = toByteBufNoThrow(buffer);
         return byteBuf != null ? byteBuf : wrappedBuffer(buffer.toNioBuffer());
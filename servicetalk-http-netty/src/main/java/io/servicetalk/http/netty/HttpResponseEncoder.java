@@ -41,6 +41,7 @@ import java.util.Queue;
 
 import static io.netty.handler.codec.http.HttpConstants.SP;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.DATE;
 import static io.servicetalk.http.api.HttpHeaderNames.SEC_WEBSOCKET_VERSION;
 import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
 import static io.servicetalk.http.api.HttpRequestMethod.CONNECT;
@@ -49,11 +50,13 @@ import static io.servicetalk.http.api.HttpResponseStatus.NO_CONTENT;
 import static io.servicetalk.http.api.HttpResponseStatus.SWITCHING_PROTOCOLS;
 import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.INFORMATIONAL_1XX;
 import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SUCCESSFUL_2XX;
+import static io.servicetalk.http.netty.HttpDateHeader.currentDate;
 import static io.servicetalk.transport.netty.internal.CloseHandler.UNSUPPORTED_PROTOCOL_CLOSE_HANDLER;
 import static java.util.Objects.requireNonNull;
 
 final class HttpResponseEncoder extends HttpObjectEncoder<HttpResponseMetaData> {
     private final Queue<HttpRequestMethod> methodQueue;
+    private final boolean addDateHeader;
 
     /**
      * Create a new instance.
@@ -63,11 +66,14 @@ final class HttpResponseEncoder extends HttpObjectEncoder<HttpResponseMetaData>
      * @param trailersEncodedSizeAccumulator  Used to calculate an exponential moving average of the encoded size of
      * the trailers for a guess for future buffer allocations.
      * @param closeHandler the {@link CloseHandler}
+     * @param addDateHeader {@code true} to add a {@code date} header to responses which do not have one.
      */
     HttpResponseEncoder(Queue<HttpRequestMethod> methodQueue, int headersEncodedSizeAccumulator,
-                        int trailersEncodedSizeAccumulator, final CloseHandler closeHandler) {
+                        int trailersEncodedSizeAccumulator, final CloseHandler closeHandler,
+                        final boolean addDateHeader) {
         super(headersEncodedSizeAccumulator, trailersEncodedSizeAccumulator, closeHandler);
         this.methodQueue = requireNonNull(methodQueue);
+        this.addDateHeader = addDateHeader;
     }
 
     /**
@@ -81,7 +87,7 @@ final class HttpResponseEncoder extends HttpObjectEncoder<HttpResponseMetaData>
     HttpResponseEncoder(Queue<HttpRequestMethod> methodQueue,
                         int headersEncodedSizeAccumulator, int trailersEncodedSizeAccumulator) {
         this(methodQueue, headersEncodedSizeAccumulator, trailersEncodedSizeAccumulator,
-                UNSUPPORTED_PROTOCOL_CLOSE_HANDLER);
+                UNSUPPORTED_PROTOCOL_CLOSE_HANDLER, false);
     }
 
     @Override
@@ -111,6 +117,10 @@ final class HttpResponseEncoder extends HttpObjectEncoder<HttpResponseMetaData>
         HttpRequestMethod method = methodQueue.poll();
 
         HttpHeaders headers = msg.headers();
+        if (addDateHeader && !headers.contains(DATE)) {
+            // See https://tools.ietf.org/html/rfc7231#section-7.1.1.2
+            headers.set(DATE, currentDate());
+        }
         if (isAlwaysEmpty) {
             final HttpResponseStatus status = msg.status();
             if (status.statusClass() == INFORMATIONAL_1XX || status.code() == NO_CONTENT.code()) {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.tcp.netty.internal.TcpServerConfig;
 
+import static io.servicetalk.transport.netty.internal.FlushStrategies.adaptiveFlush;
+
 final class HttpServerConfig {
 
     private final TcpServerConfig tcpConfig;
@@ -24,6 +26,8 @@ final class HttpServerConfig {
 
     HttpServerConfig() {
         tcpConfig = new TcpServerConfig();
+        // Coalesce flushes of pipelined requests/responses and concurrent streams, but flush immediately when idle.
+        tcpConfig.flushStrategy(adaptiveFlush());
         httpConfig = new HttpConfig();
     }
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaderNames;
+import io.servicetalk.http.api.HttpHeaderValues;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.CharSequences.newAsciiString;
+import static java.lang.Character.toUpperCase;
+import static java.lang.Math.max;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Lookup tables which map the bytes of well-known header names and values to shared immutable {@link CharSequence}s,
+ * so that decoding them does not allocate.
+ * <p>
+ * Matching is exact: a header name matches either the lower case constant from {@link HttpHeaderNames} or its
+ * capitalized form (e.g. {@code Content-Type}), and a header value matches a constant from {@link HttpHeaderValues}.
+ * This way the decoded headers look the same as if they were sliced from the received bytes.
+ */
+final class KnownHttpHeaders {
+    private static final Table NAMES = new Table(constants(HttpHeaderNames.class), true);
+    private static final Table VALUES = new Table(constants(HttpHeaderValues.class), false);
+
+    private KnownHttpHeaders() {
+        // no instances
+    }
+
+    /**
+     * Find a well-known header name.
+     *
+     * @param buffer the {@link ByteBuf} which contains the header name.
+     * @param index the index of the first byte of the header name.
+     * @param length the length of the header name.
+     * @return a shared {@link CharSequence} equal to the header name, or {@code null} if it is not well-known.
+     */
+    @Nullable
+    static CharSequence name(final ByteBuf buffer, final int index, final int length) {
+        return NAMES.find(buffer, index, length);
+    }
+
+    /**
+     * Find a well-known header value.
+     *
+     * @param buffer the {@link ByteBuf} which contains the header value.
+     * @param index the index of the first byte of the header value.
+     * @param length the length of the header value.
+     * @return a shared {@link CharSequence} equal to the header value, or {@code null} if it is not well-known.
+     */
+    @Nullable
+    static CharSequence value(final ByteBuf buffer, final int index, final int length) {
+        return VALUES.find(buffer, index, length);
+    }
+
+    private static List<CharSequence> constants(final Class<?> clazz) {
+        final List<CharSequence> constants = new ArrayList<>();
+        for (Field field : clazz.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == CharSequence.class) {
+                try {
+                    constants.add((CharSequence) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read " + field, e);
+                }
+            }
+        }
+        return constants;
+    }
+
+    private static String capitalize(final String name) {
+        final char[] chars = name.toCharArray();
+        boolean upper = true;
+        for (int i = 0; i < chars.length; ++i) {
+            if (upper) {
+                chars[i] = toUpperCase(chars[i]);
+            }
+            upper = chars[i] == '-';
+        }
+        return new String(chars);
+    }
+
+    private static final class Table {
+        private static final int BUCKETS = 256;
+        private static final int MASK = BUCKETS - 1;
+
+        private final Entry[][] buckets = new Entry[BUCKETS][];
+        private final int maxLength;
+
+        Table(final List<CharSequence> constants, final boolean addCapitalized) {
+            int maxLength = 0;
+            for (CharSequence constant : constants) {
+                maxLength = max(maxLength, constant.length());
+                add(constant);
+                if (addCapitalized) {
+                    final String capitalized = capitalize(constant.toString());
+                    if (!capitalized.contentEquals(constant)) {
+                        add(newAsciiString(capitalized));
+                    }
+                }
+            }
+            this.maxLength = maxLength;
+        }
+
+        private void add(final CharSequence constant) {
+            final byte[] bytes = constant.toString().getBytes(US_ASCII);
+            final int bucket = hash(bytes[0], bytes[bytes.length - 1], bytes.length) & MASK;
+            final Entry[] entries = buckets[bucket];
+            final Entry entry = new Entry(bytes, constant);
+            if (entries == null) {
+                buckets[bucket] = new Entry[] {entry};
+            } else {
+                for (Entry existing : entries) {
+                    if (Arrays.equals(existing.bytes, bytes)) {
+                        return;
+                    }
+                }
+                final Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+                newEntries[entries.length] = entry;
+                buckets[bucket] = newEntries;
+            }
+        }
+
+        @Nullable
+        CharSequence find(final ByteBuf buffer, final int index, final int length) {
+            if (length <= 0 || length > maxLength) {
+                return null;
+            }
+            final Entry[] entries = buckets[hash(buffer.getByte(index), buffer.getByte(index + length - 1), length) &
+                    MASK];
+            if (entries == null) {
+                return null;
+            }
+            for (Entry entry : entries) {
+                if (entry.matches(buffer, index, length)) {
+                    return entry.value;
+                }
+            }
+            return null;
+        }
+
+        private static int hash(final byte first, final byte last, final int length) {
+            return (length * 31 + first) * 31 + last;
+        }
+    }
+
+    private static final class Entry {
+        final byte[] bytes;
+        final CharSequence value;
+
+        Entry(final byte[] bytes, final CharSequence value) {
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(final ByteBuf buffer, final int index, final int length) {
+            if (bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; ++i) {
+                if (bytes[i] != buffer.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
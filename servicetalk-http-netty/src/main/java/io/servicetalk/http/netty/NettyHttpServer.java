@@ -176,7 +176,7 @@ final class NettyHttpServer {
                     config.maxStartLineLength(), config.maxHeaderFieldLength(),
                     config.specExceptions().allowPrematureClosureBeforePayloadBody(), closeHandler));
             pipeline.addLast(new HttpResponseEncoder(methodQueue, config.headersEncodedSizeEstimate(),
-                    config.trailersEncodedSizeEstimate(), closeHandler));
+                    config.trailersEncodedSizeEstimate(), closeHandler, config.addDateHeader()));
         });
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import static java.lang.System.arraycopy;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A header value which also carries the HTTP/1.x encoding of the whole header field ({@code name: value\r\n}).
+ * <p>
+ * It behaves like the wrapped value for all other purposes, so filters and the HTTP/2 codec do not need to know
+ * about it. {@link HttpObjectEncoder} copies the pre-encoded bytes if the value is stored under the same name instance
+ * it was encoded with, and falls back to regular encoding otherwise.
+ */
+final class PreEncodedHeaderValue implements CharSequence {
+    private final CharSequence name;
+    private final CharSequence value;
+    private final byte[] encoded;
+
+    PreEncodedHeaderValue(final CharSequence name, final CharSequence value) {
+        this.name = requireNonNull(name);
+        this.value = requireNonNull(value);
+        final byte[] nameBytes = name.toString().getBytes(US_ASCII);
+        final byte[] valueBytes = value.toString().getBytes(US_ASCII);
+        encoded = new byte[nameBytes.length + valueBytes.length + 4];
+        arraycopy(nameBytes, 0, encoded, 0, nameBytes.length);
+        int offset = nameBytes.length;
+        encoded[offset++] = ':';
+        encoded[offset++] = ' ';
+        arraycopy(valueBytes, 0, encoded, offset, valueBytes.length);
+        offset += valueBytes.length;
+        encoded[offset++] = '\r';
+        encoded[offset] = '\n';
+    }
+
+    /**
+     * Get the header name this value was encoded with.
+     *
+     * @return the header name this value was encoded with.
+     */
+    CharSequence name() {
+        return name;
+    }
+
+    /**
+     * Get the wrapped header value.
+     *
+     * @return the wrapped header value.
+     */
+    CharSequence value() {
+        return value;
+    }
+
+    /**
+     * Get the encoded header field, including the trailing {@code CRLF}. The returned array must not be modified.
+     *
+     * @return the encoded header field.
+     */
+    byte[] encoded() {
+        return encoded;
+    }
+
+    @Override
+    public int length() {
+        return value.length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return value.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return value.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return value.toString();
+    }
+}
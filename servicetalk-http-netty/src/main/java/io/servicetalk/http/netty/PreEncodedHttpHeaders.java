@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpMetaData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.api.CharSequences.contentEqualsIgnoreCase;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+
+/**
+ * An immutable block of <a href="https://tools.ietf.org/html/rfc7230#section-3.2">header fields</a> which are
+ * encoded once, when the block is built.
+ * <p>
+ * This is intended for header fields which are the same for many messages, like {@code server} or
+ * {@code content-type: application/json}. After the block is {@link #applyTo(HttpHeaders) applied} to the headers of a
+ * message, the HTTP/1.x encoder copies the pre-encoded bytes of each field instead of encoding its name and value.
+ * The fields behave like any other header field otherwise, they can be read, replaced or removed, and they are
+ * encoded as usual by HTTP/2.
+ * <pre>{@code
+ * private static final PreEncodedHttpHeaders STATIC_HEADERS = PreEncodedHttpHeaders.builder()
+ *         .add(SERVER, "my-server")
+ *         .add(CONTENT_TYPE, APPLICATION_JSON)
+ *         .build();
+ * ...
+ * return STATIC_HEADERS.applyTo(responseFactory.ok());
+ * }</pre>
+ */
+public final class PreEncodedHttpHeaders {
+    private final PreEncodedHeaderValue[] values;
+    private final boolean[] firstForName;
+
+    private PreEncodedHttpHeaders(final PreEncodedHeaderValue[] values, final boolean[] firstForName) {
+        this.values = values;
+        this.firstForName = firstForName;
+    }
+
+    /**
+     * Create a new {@link Builder}.
+     *
+     * @return a new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Set the header fields of this block on {@code headers}. Existing values for the same header names are replaced.
+     *
+     * @param headers the {@link HttpHeaders} to modify.
+     * @param <T> the type of {@link HttpHeaders}.
+     * @return {@code headers}.
+     */
+    public <T extends HttpHeaders> T applyTo(final T headers) {
+        for (int i = 0; i < values.length; ++i) {
+            final PreEncodedHeaderValue value = values[i];
+            if (firstForName[i]) {
+                headers.set(value.name(), value);
+            } else {
+                headers.add(value.name(), value);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Set the header fields of this block on the {@link HttpMetaData#headers() headers} of {@code metaData}. Existing
+     * values for the same header names are replaced.
+     *
+     * @param metaData the {@link HttpMetaData} to modify.
+     * @param <T> the type of {@link HttpMetaData}.
+     * @return {@code metaData}.
+     */
+    public <T extends HttpMetaData> T applyTo(final T metaData) {
+        applyTo(metaData.headers());
+        return metaData;
+    }
+
+    /**
+     * Builder for {@link PreEncodedHttpHeaders}.
+     */
+    public static final class Builder {
+        private final List<CharSequence> names = new ArrayList<>();
+        private final List<CharSequence> values = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a header field to the block.
+         *
+         * @param name the header name.
+         * @param value the header value.
+         * @return {@code this}.
+         * @throws IllegalArgumentException if {@code name} or {@code value} is not a valid header name or value.
+         */
+        public Builder add(final CharSequence name, final CharSequence value) {
+            // Use the default headers validation, so the block is held to the same rules as regular headers.
+            INSTANCE.newHeaders().add(name, value);
+            names.add(name);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Build a new {@link PreEncodedHttpHeaders}.
+         *
+         * @return a new {@link PreEncodedHttpHeaders}.
+         */
+        public PreEncodedHttpHeaders build() {
+            final PreEncodedHeaderValue[] encoded = new PreEncodedHeaderValue[names.size()];
+            final boolean[] firstForName = new boolean[encoded.length];
+            for (int i = 0; i < encoded.length; ++i) {
+                final CharSequence name = names.get(i);
+                encoded[i] = new PreEncodedHeaderValue(name, values.get(i));
+                firstForName[i] = true;
+                for (int j = 0; j < i; ++j) {
+                    if (contentEqualsIgnoreCase(name, names.get(j))) {
+                        firstForName[i] = false;
+                        break;
+                    }
+                }
+            }
+            return new PreEncodedHttpHeaders(encoded, firstForName);
+        }
+    }
+}
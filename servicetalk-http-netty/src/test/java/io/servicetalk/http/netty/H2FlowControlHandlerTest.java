@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2WindowUpdateFrame;
+import org.junit.After;
+import org.junit.Test;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.servicetalk.http.netty.H2FlowControlHandler.MAX_AUTO_TUNED_WINDOW_SIZE;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThrows;
+
+public class H2FlowControlHandlerTest {
+
+    private EmbeddedChannel channel;
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void defaultConfigDoesNotRequireHandler() {
+        assertThat(H2FlowControlHandler.isRequired(h2().build()), is(false));
+    }
+
+    @Test
+    public void connectionWindowIsGrownWhenActive() {
+        channel = new EmbeddedChannel(new H2FlowControlHandler(h2().connectionWindowSize(1 << 20).build()));
+        Http2WindowUpdateFrame windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.stream(), is(nullValue()));
+        assertThat(windowUpdate.windowSizeIncrement(), is((1 << 20) - DEFAULT_WINDOW_SIZE));
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void dataWithoutAutoTuningDoesNotPing() {
+        channel = new EmbeddedChannel(new H2FlowControlHandler(h2().connectionWindowSize(1 << 20).build()));
+        channel.<Http2WindowUpdateFrame>readOutbound();
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(new byte[1024])));
+        assertThat(channel.readOutbound(), is(nullValue()));
+        assertThat(channel.readInbound(), instanceOf(Http2DataFrame.class));
+    }
+
+    @Test
+    public void bdpPingAckGrowsWindows() {
+        channel = new EmbeddedChannel(new H2FlowControlHandler(h2().enableFlowControlAutoTuning().build()));
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(new byte[40_000])));
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(new byte[60_000])));
+        Http2PingFrame ping = channel.readOutbound();
+        assertThat(ping.ack(), is(false));
+        // Only one probe is outstanding at a time.
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        channel.writeInbound(new DefaultHttp2PingFrame(ping.content(), true));
+        Http2WindowUpdateFrame windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement(), is(200_000 - DEFAULT_WINDOW_SIZE));
+        Http2SettingsFrame settings = channel.readOutbound();
+        assertThat(settings.settings().initialWindowSize(), is(200_000));
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        // The BDP PING(ACK) is consumed, DATA frames are forwarded.
+        assertThat(channel.readInbound(), instanceOf(Http2DataFrame.class));
+        assertThat(channel.readInbound(), instanceOf(Http2DataFrame.class));
+        assertThat(channel.readInbound(), is(nullValue()));
+    }
+
+    @Test
+    public void autoTunedWindowIsCapped() {
+        channel = new EmbeddedChannel(new H2FlowControlHandler(h2().enableFlowControlAutoTuning().build()));
+        for (int i = 0; i < 5; ++i) {
+            channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(new byte[1 << 20])));
+        }
+        Http2PingFrame ping = channel.readOutbound();
+        channel.writeInbound(new DefaultHttp2PingFrame(ping.content(), true));
+        Http2WindowUpdateFrame windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement(), is(MAX_AUTO_TUNED_WINDOW_SIZE - DEFAULT_WINDOW_SIZE));
+        Http2SettingsFrame settings = channel.readOutbound();
+        assertThat(settings.settings().initialWindowSize(), is(MAX_AUTO_TUNED_WINDOW_SIZE));
+    }
+
+    @Test
+    public void otherPingAcksAreForwarded() {
+        channel = new EmbeddedChannel(new H2FlowControlHandler(h2().enableFlowControlAutoTuning().build()));
+        channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(new byte[16])));
+        Http2PingFrame ping = channel.readOutbound();
+        channel.writeInbound(new DefaultHttp2PingFrame(~ping.content(), true));
+        assertThat(channel.readInbound(), instanceOf(Http2DataFrame.class));
+        assertThat(channel.readInbound(), instanceOf(Http2PingFrame.class));
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> h2().initialStreamWindowSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> h2().connectionWindowSize(DEFAULT_WINDOW_SIZE - 1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreams(-1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxFrameSize(1024));
+        assertThrows(IllegalArgumentException.class, () -> h2().headerTableSize(-1));
+    }
+}
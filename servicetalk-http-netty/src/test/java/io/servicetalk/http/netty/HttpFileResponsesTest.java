@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.HttpServerBuilder;
+import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
+import io.servicetalk.test.resources.DefaultTestCerts;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_RANGES;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_RANGE;
+import static io.servicetalk.http.api.HttpHeaderNames.RANGE;
+import static io.servicetalk.http.api.HttpHeaderValues.BYTES;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpResponseStatus.PARTIAL_CONTENT;
+import static io.servicetalk.http.api.HttpResponseStatus.RANGE_NOT_SATISFIABLE;
+import static io.servicetalk.http.netty.HttpFileResponses.newFileResponse;
+import static io.servicetalk.http.netty.HttpFileResponses.parseRange;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(Parameterized.class)
+public class HttpFileResponsesTest {
+    private static final int FILE_SIZE = 100_000;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final boolean secure;
+    private final byte[] content = new byte[FILE_SIZE];
+    @Nullable
+    private ServerContext serverContext;
+    @Nullable
+    private BlockingHttpClient client;
+
+    public HttpFileResponsesTest(boolean secure) {
+        this.secure = secure;
+    }
+
+    @Parameterized.Parameters(name = "secure = {0}")
+    public static Object[] data() {
+        return new Object[] {false, true};
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        ThreadLocalRandom.current().nextBytes(content);
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content);
+        HttpServerBuilder serverBuilder = HttpServers.forAddress(localAddress(0));
+        if (secure) {
+            serverBuilder.secure().commit(DefaultTestCerts::loadServerPem, DefaultTestCerts::loadServerKey);
+        }
+        // Use a small chunk size to have more than one FileBuffer per response.
+        serverContext = serverBuilder.listenStreamingAndAwait((ctx, request, responseFactory) ->
+                succeeded(newFileResponse(request, responseFactory, file, 16 * 1024)));
+        SingleAddressHttpClientBuilder<?, ?> clientBuilder = HttpClients.forSingleAddress(
+                serverHostAndPort(serverContext));
+        if (secure) {
+            clientBuilder.secure().disableHostnameVerification().trustManager(DefaultTestCerts::loadServerCAPem)
+                    .commit();
+        }
+        client = clientBuilder.buildBlocking();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (serverContext != null) {
+            serverContext.close();
+        }
+    }
+
+    @Test
+    public void wholeFile() throws Exception {
+        assert client != null;
+        HttpResponse response = client.request(client.get("/"));
+        assertThat(response.status(), is(OK));
+        assertThat(response.headers().contains(ACCEPT_RANGES, BYTES), is(true));
+        assertThat(bytes(response.payloadBody()), is(content));
+    }
+
+    @Test
+    public void range() throws Exception {
+        assert client != null;
+        HttpResponse response = client.request(client.get("/").setHeader(RANGE, "bytes=20000-69999"));
+        assertThat(response.status(), is(PARTIAL_CONTENT));
+        assertThat(response.headers().get(CONTENT_RANGE).toString(), is("bytes 20000-69999/" + FILE_SIZE));
+        assertThat(bytes(response.payloadBody()), is(Arrays.copyOfRange(content, 20000, 70000)));
+    }
+
+    @Test
+    public void suffixRange() throws Exception {
+        assert client != null;
+        HttpResponse response = client.request(client.get("/").setHeader(RANGE, "bytes=-10"));
+        assertThat(response.status(), is(PARTIAL_CONTENT));
+        assertThat(response.headers().get(CONTENT_RANGE).toString(),
+                is("bytes " + (FILE_SIZE - 10) + '-' + (FILE_SIZE - 1) + '/' + FILE_SIZE));
+        assertThat(bytes(response.payloadBody()), is(Arrays.copyOfRange(content, FILE_SIZE - 10, FILE_SIZE)));
+    }
+
+    @Test
+    public void unsatisfiableRange() throws Exception {
+        assert client != null;
+        HttpResponse response = client.request(client.get("/").setHeader(RANGE, "bytes=" + FILE_SIZE + '-'));
+        assertThat(response.status(), is(RANGE_NOT_SATISFIABLE));
+        assertThat(response.headers().get(CONTENT_RANGE).toString(), is("bytes */" + FILE_SIZE));
+        assertThat(response.payloadBody().readableBytes(), is(0));
+    }
+
+    @Test
+    public void parseRanges() {
+        assertThat(parseRange(null, 100), is(nullValue()));
+        assertThat(parseRange("bytes=0-9", 100), is(new long[] {0, 9}));
+        assertThat(parseRange("bytes=90-", 100), is(new long[] {90, 99}));
+        assertThat(parseRange("bytes=90-1000", 100), is(new long[] {90, 99}));
+        assertThat(parseRange("bytes=-10", 100), is(new long[] {90, 99}));
+        assertThat(parseRange("bytes=-1000", 100), is(new long[] {0, 99}));
+        assertThat(parseRange("bytes=100-", 100).length, is(0));
+        assertThat(parseRange("bytes=-0", 100).length, is(0));
+        assertThat(parseRange("bytes=9-0", 100), is(nullValue()));
+        assertThat(parseRange("bytes=0-1,5-6", 100), is(nullValue()));
+        assertThat(parseRange("bytes=+1-2", 100), is(nullValue()));
+        assertThat(parseRange("items=0-9", 100), is(nullValue()));
+    }
+
+    private static byte[] bytes(Buffer buffer) {
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+        return bytes;
+    }
+}
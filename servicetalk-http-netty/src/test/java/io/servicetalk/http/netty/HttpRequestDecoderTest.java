@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,20 +28,27 @@ import org.junit.Test;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.buffer.netty.BufferUtils.getByteBufAllocator;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
+import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpRequestMethod.GET;
 import static io.servicetalk.http.api.HttpRequestMethod.POST;
 import static io.servicetalk.http.api.HttpRequestMethod.Properties.NONE;
 import static java.lang.Integer.toHexString;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
@@ -195,6 +202,28 @@ public class HttpRequestDecoderTest extends HttpObjectDecoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void wellKnownHeadersAreShared() {
+        writeMsg("GET / HTTP/1.1" + "\r\n" +
+                "Content-Type: application/json" + "\r\n" +
+                "connection: keep-alive" + "\r\n" +
+                "X-Custom: Keep-Alive" + "\r\n" + "\r\n");
+        HttpRequestMetaData request = channel.readInbound();
+        assertThat(request.headers().get(CONTENT_TYPE), is(sameInstance(APPLICATION_JSON)));
+        assertThat(request.headers().get(CONNECTION), is(sameInstance(KEEP_ALIVE)));
+        assertThat(request.headers().get("x-custom").toString(), is("Keep-Alive"));
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<CharSequence, CharSequence> header : request.headers()) {
+            names.add(header.getKey().toString());
+            if ("connection".equals(header.getKey().toString())) {
+                assertThat(header.getKey(), is(sameInstance(CONNECTION)));
+            }
+        }
+        assertThat(names, containsInAnyOrder("Content-Type", "connection", "X-Custom"));
+        assertEmptyTrailers(channel);
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     @Test
     public void chunkedWithTrailersSplitOnNetwork() {
         int chunkSize = 128;
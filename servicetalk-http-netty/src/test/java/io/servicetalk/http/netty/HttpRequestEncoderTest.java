@@ -352,15 +352,7 @@ public class HttpRequestEncoderTest {
                         TRANSFER_ENCODING + ": " + CHUNKED + "\r\n"));
                 if (buffer.readableBytes() != 0) {
                     byteBuf = channel.readOutbound();
-                    assertEquals(toHexString(buffer.readableBytes()) + "\r\n", byteBuf.toString(US_ASCII));
-                    byteBuf.release();
-
-                    byteBuf = channel.readOutbound();
-                    assertEquals(buffer.toNioBuffer(), byteBuf.nioBuffer());
-                    byteBuf.release();
-
-                    byteBuf = channel.readOutbound();
-                    assertEquals("\r\n", byteBuf.toString(US_ASCII));
+                    verifyChunk(byteBuf, buffer);
                     byteBuf.release();
                 } else {
                     byteBuf = channel.readOutbound();
@@ -397,6 +389,15 @@ public class HttpRequestEncoderTest {
         return actualMetaData;
     }
 
+    private static void verifyChunk(ByteBuf chunk, Buffer buffer) {
+        // The chunk header, content and CRLF are written together, so the transport can gather them.
+        final String chunkHeader = toHexString(buffer.readableBytes()) + "\r\n";
+        assertEquals(chunkHeader, chunk.toString(chunk.readerIndex(), chunkHeader.length(), US_ASCII));
+        assertEquals(buffer.toNioBuffer(),
+                chunk.nioBuffer(chunk.readerIndex() + chunkHeader.length(), buffer.readableBytes()));
+        assertEquals("\r\n", chunk.toString(chunk.writerIndex() - 2, 2, US_ASCII));
+    }
+
     private static void consumeEmptyBufferFromTrailers(EmbeddedChannel channel) {
         // Empty buffer is written when trailers are seen to indicate the end of the request
         ByteBuf byteBuf = channel.readOutbound();
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,14 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.CompositeBuffer;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.EmptyHttpHeaders;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpResponseMetaData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
@@ -33,16 +35,25 @@ import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
 import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.DATE;
 import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
 import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
 import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
+import static io.servicetalk.http.api.HttpResponseStatus.NO_CONTENT;
 import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.transport.netty.internal.CloseHandler.UNSUPPORTED_PROTOCOL_CLOSE_HANDLER;
 import static java.lang.Integer.toHexString;
 import static java.lang.String.valueOf;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -246,6 +257,36 @@ public class HttpResponseEncoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void chunkedCompositeBufferIsGatheredWithoutCopy() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        CompositeBuffer buffer = DEFAULT_ALLOCATOR.newCompositeBuffer()
+                .addBuffer(DEFAULT_ALLOCATOR.fromAscii("Hello"))
+                .addBuffer(DEFAULT_ALLOCATOR.fromAscii("World"));
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.headers()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(TRANSFER_ENCODING, CHUNKED);
+        channel.writeOutbound(response);
+        channel.writeOutbound(buffer);
+        channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+
+        ByteBuf byteBuf = channel.readOutbound();
+        byteBuf.release();
+        CompositeByteBuf chunk = channel.readOutbound();
+        verifyChunk(chunk, buffer);
+        // chunk header, the two components of the payload and CRLF
+        assertThat(chunk.numComponents(), is(4));
+        assertThat(chunk.internalComponent(1).toString(US_ASCII), is("Hello"));
+        assertThat(chunk.internalComponent(2).toString(US_ASCII), is("World"));
+        chunk.release();
+        byteBuf = channel.readOutbound();
+        assertEquals("0\r\n\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     @Test
     public void withContentLengthAndChunked() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -283,15 +324,7 @@ public class HttpResponseEncoderTest {
                         actualMetaData.contains(TRANSFER_ENCODING + ": " + CHUNKED + "\r\n"));
                 if (buffer.readableBytes() != 0) {
                     byteBuf = channel.readOutbound();
-                    assertEquals(toHexString(buffer.readableBytes()) + "\r\n", byteBuf.toString(US_ASCII));
-                    byteBuf.release();
-
-                    byteBuf = channel.readOutbound();
-                    assertEquals(buffer.toNioBuffer(), byteBuf.nioBuffer());
-                    byteBuf.release();
-
-                    byteBuf = channel.readOutbound();
-                    assertEquals("\r\n", byteBuf.toString(US_ASCII));
+                    verifyChunk(byteBuf, buffer);
                     byteBuf.release();
                 } else {
                     byteBuf = channel.readOutbound();
@@ -328,6 +361,73 @@ public class HttpResponseEncoderTest {
         return actualMetaData;
     }
 
+    @Test
+    public void preEncodedHeaders() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        PreEncodedHttpHeaders preEncoded = PreEncodedHttpHeaders.builder()
+                .add(SERVER, "unit-test")
+                .add(CONTENT_TYPE, APPLICATION_JSON)
+                .build();
+        HttpResponseMetaData response = preEncoded.applyTo(newResponseMetaData(HTTP_1_1, NO_CONTENT,
+                INSTANCE.newHeaders().add(SERVER, "replaced")));
+        assertThat(response.headers().size(), is(2));
+        assertTrue(response.headers().contains(SERVER, "unit-test"));
+        assertTrue(response.headers().contains(CONTENT_TYPE, APPLICATION_JSON));
+        // A pre-encoded value which is stored under another name must be encoded with that name.
+        response.headers().set("x-copy", response.headers().get(SERVER));
+
+        String actualMetaData = writeMetaData(channel, response);
+        assertTrue("unexpected metadata: " + actualMetaData, actualMetaData.contains(SERVER + ": unit-test\r\n"));
+        assertTrue("unexpected metadata: " + actualMetaData,
+                actualMetaData.contains(CONTENT_TYPE + ": " + APPLICATION_JSON + "\r\n"));
+        assertTrue("unexpected metadata: " + actualMetaData, actualMetaData.contains("x-copy: unit-test\r\n"));
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void dateHeaderAddedWhenMissing() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(new ArrayDeque<>(), 256, 256,
+                UNSUPPORTED_PROTOCOL_CLOSE_HANDLER, true));
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, NO_CONTENT, INSTANCE.newHeaders());
+        String actualMetaData = writeMetaData(channel, response);
+        CharSequence date = response.headers().get(DATE);
+        assertThat(date, is(notNullValue()));
+        assertTrue("unexpected metadata: " + actualMetaData, actualMetaData.contains(DATE + ": " + date + "\r\n"));
+
+        response = newResponseMetaData(HTTP_1_1, NO_CONTENT, INSTANCE.newHeaders().add(DATE, "custom"));
+        actualMetaData = writeMetaData(channel, response);
+        assertTrue("unexpected metadata: " + actualMetaData, actualMetaData.contains(DATE + ": custom\r\n"));
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void dateHeaderIsCachedForOneSecond() {
+        HttpDateHeader dateHeader = new HttpDateHeader();
+        PreEncodedHeaderValue value = dateHeader.value(784111777000L);
+        assertThat(value.toString(), is("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertThat(dateHeader.value(784111777999L), is(sameInstance(value)));
+        assertThat(dateHeader.value(784111778000L).toString(), is("Sun, 06 Nov 1994 08:49:38 GMT"));
+    }
+
+    private static String writeMetaData(EmbeddedChannel channel, HttpResponseMetaData response) {
+        channel.writeOutbound(response);
+        channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+        ByteBuf byteBuf = channel.readOutbound();
+        String actualMetaData = byteBuf.toString(US_ASCII);
+        byteBuf.release();
+        consumeEmptyBufferFromTrailers(channel);
+        return actualMetaData;
+    }
+
+    private static void verifyChunk(ByteBuf chunk, Buffer buffer) {
+        // The chunk header, content and CRLF are written together, so the transport can gather them.
+        final String chunkHeader = toHexString(buffer.readableBytes()) + "\r\n";
+        assertEquals(chunkHeader, chunk.toString(chunk.readerIndex(), chunkHeader.length(), US_ASCII));
+        assertEquals(buffer.toNioBuffer(),
+                chunk.nioBuffer(chunk.readerIndex() + chunkHeader.length(), buffer.readableBytes()));
+        assertEquals("\r\n", chunk.toString(chunk.writerIndex() - 2, 2, US_ASCII));
+    }
+
     private static void consumeEmptyBufferFromTrailers(EmbeddedChannel channel) {
         // Empty buffer is written when trailers are seen to indicate the end of the request
         ByteBuf byteBuf = channel.readOutbound();
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
+import io.servicetalk.transport.netty.internal.IoThreadFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useEpoll;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class HttpReusePortAcceptorsTest {
+    private static final int IO_THREADS = 4;
+
+    private static EventLoopAwareNettyIoExecutor ioExecutor;
+
+    @BeforeClass
+    public static void beforeClass() {
+        ioExecutor = createIoExecutor(IO_THREADS, new IoThreadFactory("io-executor"));
+    }
+
+    @AfterClass
+    public static void afterClass() throws ExecutionException, InterruptedException {
+        ioExecutor.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void connectionsAreSpreadAcrossListeners() throws Exception {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .ioExecutor(ioExecutor)
+                .executionStrategy(noOffloadsStrategy())
+                .reusePortAcceptors(true)
+                .listenBlockingAndAwait((ctx, request, responseFactory) -> {
+                    threads.add(Thread.currentThread().getName());
+                    return responseFactory.ok();
+                })) {
+            for (int i = 0; i < IO_THREADS * 4; ++i) {
+                // A new client for each request, to make sure every request opens a new connection.
+                try (BlockingHttpClient client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                        .ioExecutor(ioExecutor).buildBlocking()) {
+                    assertThat(client.request(client.get("/")).status(), is(OK));
+                }
+            }
+        }
+        if (useEpoll(ioExecutor.eventLoopGroup())) {
+            assertThat("Connections were all accepted by a single listener", threads.size(), is(greaterThan(1)));
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,6 +59,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -181,10 +182,10 @@ public class SecurityHandshakeObserverTest {
             assertThat(response.payloadBody(textDeserializer()), equalTo(content));
 
             verify(clientConnectionObserver).onSecurityHandshake();
-            verify(clientSecurityHandshakeObserver).handshakeComplete(any(SSLSession.class));
+            verify(clientSecurityHandshakeObserver).handshakeComplete(any(SSLSession.class), eq(false));
 
             verify(serverConnectionObserver).onSecurityHandshake();
-            verify(serverSecurityHandshakeObserver).handshakeComplete(any(SSLSession.class));
+            verify(serverSecurityHandshakeObserver).handshakeComplete(any(SSLSession.class), eq(false));
         }
     }
 }
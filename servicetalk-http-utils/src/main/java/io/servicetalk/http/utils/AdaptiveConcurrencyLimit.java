@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Configuration of a concurrency limit which adapts to the observed round trip times of requests, used by
+ * {@link AdaptiveConcurrencyLimitHttpServiceFilter} and {@link AdaptiveConcurrencyLimitHttpRequesterFilter}.
+ * <p>
+ * Two algorithms are available:
+ * <ul>
+ * <li>{@link #vegas()} estimates the number of queued requests from the difference between the latest round trip time
+ * and the minimum observed round trip time, as <a href="https://en.wikipedia.org/wiki/TCP_Vegas">TCP Vegas</a> does
+ * for congestion windows.</li>
+ * <li>{@link #gradient()} compares the latest round trip time with a long term average of round trip times, and
+ * shrinks the limit when requests get slower than the average.</li>
+ * </ul>
+ * Both algorithms reduce the limit by a {@link Builder#backoffRatio(float) backoff ratio} when a request fails because
+ * of overload.
+ */
+public final class AdaptiveConcurrencyLimit {
+    private enum Algorithm {
+        VEGAS, GRADIENT
+    }
+
+    private final Algorithm algorithm;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final float backoffRatio;
+    private final float rttTolerance;
+
+    private AdaptiveConcurrencyLimit(final Algorithm algorithm, final int initialLimit, final int minLimit,
+                                     final int maxLimit, final float backoffRatio, final float rttTolerance) {
+        this.algorithm = algorithm;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+    }
+
+    /**
+     * Creates a {@link Builder} for a limit using the TCP Vegas algorithm.
+     *
+     * @return a {@link Builder} for a limit using the TCP Vegas algorithm.
+     */
+    public static Builder vegas() {
+        return new Builder(Algorithm.VEGAS);
+    }
+
+    /**
+     * Creates a {@link Builder} for a limit using the gradient algorithm.
+     *
+     * @return a {@link Builder} for a limit using the gradient algorithm.
+     */
+    public static Builder gradient() {
+        return new Builder(Algorithm.GRADIENT);
+    }
+
+    ConcurrencyLimiter newLimiter() {
+        return algorithm == Algorithm.VEGAS ?
+                new ConcurrencyLimiter.Vegas(initialLimit, minLimit, maxLimit, backoffRatio) :
+                new ConcurrencyLimiter.Gradient(initialLimit, minLimit, maxLimit, backoffRatio, rttTolerance);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "{algorithm=" + algorithm +
+                ", initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", backoffRatio=" + backoffRatio +
+                (algorithm == Algorithm.GRADIENT ? ", rttTolerance=" + rttTolerance : "") +
+                '}';
+    }
+
+    /**
+     * A builder of {@link AdaptiveConcurrencyLimit}.
+     */
+    public static final class Builder {
+        private final Algorithm algorithm;
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 1000;
+        private float backoffRatio = 0.9f;
+        private float rttTolerance = 1.5f;
+
+        private Builder(final Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        /**
+         * Sets the limit used until enough requests have been observed to adapt it.
+         *
+         * @param initialLimit the initial limit.
+         * @return {@code this}.
+         */
+        public Builder initialLimit(final int initialLimit) {
+            if (initialLimit <= 0) {
+                throw new IllegalArgumentException("initialLimit: " + initialLimit + " (expected > 0)");
+            }
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Sets the bounds within which the limit adapts.
+         *
+         * @param minLimit the lowest value of the limit.
+         * @param maxLimit the highest value of the limit.
+         * @return {@code this}.
+         */
+        public Builder limits(final int minLimit, final int maxLimit) {
+            if (minLimit <= 0) {
+                throw new IllegalArgumentException("minLimit: " + minLimit + " (expected > 0)");
+            }
+            if (maxLimit < minLimit) {
+                throw new IllegalArgumentException("maxLimit: " + maxLimit + " (expected >= minLimit " + minLimit +
+                        ")");
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets the ratio by which the limit is multiplied when a request fails because of overload.
+         *
+         * @param backoffRatio the ratio by which the limit is multiplied when a request fails because of overload.
+         * @return {@code this}.
+         */
+        public Builder backoffRatio(final float backoffRatio) {
+            if (backoffRatio < 0.5f || backoffRatio >= 1f) {
+                throw new IllegalArgumentException("backoffRatio: " + backoffRatio + " (expected [0.5, 1))");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets how much slower than the long term average a request may be before the limit shrinks, only used by
+         * the {@link AdaptiveConcurrencyLimit#gradient()} algorithm.
+         *
+         * @param rttTolerance the ratio of the latest round trip time over the long term average above which the limit
+         * shrinks.
+         * @return {@code this}.
+         */
+        public Builder rttTolerance(final float rttTolerance) {
+            if (rttTolerance < 1f) {
+                throw new IllegalArgumentException("rttTolerance: " + rttTolerance + " (expected >= 1)");
+            }
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        /**
+         * Builds an {@link AdaptiveConcurrencyLimit} using the properties configured on this builder.
+         *
+         * @return an {@link AdaptiveConcurrencyLimit}.
+         */
+        public AdaptiveConcurrencyLimit build() {
+            return new AdaptiveConcurrencyLimit(algorithm, min(max(initialLimit, minLimit), maxLimit), minLimit,
+                    maxLimit, backoffRatio, rttTolerance);
+        }
+    }
+}
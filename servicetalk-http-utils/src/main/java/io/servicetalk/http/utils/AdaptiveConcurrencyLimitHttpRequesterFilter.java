@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.MaxRequestLimitExceededException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.http.utils.AdaptiveConcurrencyLimitHttpServiceFilter.markDroppedIfOverloaded;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits the number of requests a client or connection has in flight with an {@link AdaptiveConcurrencyLimit}, and
+ * fails the excess requests fast with a {@link MaxRequestLimitExceededException} instead of letting them queue.
+ * <p>
+ * The round trip time of a request is measured from the time it is admitted until its response is fully read.
+ * Requests which fail, or whose response is a {@link io.servicetalk.http.api.HttpResponseStatus#SERVICE_UNAVAILABLE
+ * 503} or carries the {@code UNAVAILABLE} or {@code RESOURCE_EXHAUSTED} gRPC status in its headers or trailers, reduce
+ * the limit. Each client or connection created by this factory gets its own limit.
+ */
+public final class AdaptiveConcurrencyLimitHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                                          StreamingHttpConnectionFilterFactory,
+                                                                          HttpExecutionStrategyInfluencer {
+    private final AdaptiveConcurrencyLimit limit;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param limit the configuration of the concurrency limit.
+     */
+    public AdaptiveConcurrencyLimitHttpRequesterFilter(final AdaptiveConcurrencyLimit limit) {
+        this.limit = requireNonNull(limit);
+    }
+
+    private static Single<StreamingHttpResponse> request(final ConcurrencyLimiter limiter,
+                                                         final StreamingHttpRequester delegate,
+                                                         final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+        return defer(() -> {
+            final ConcurrencyLimiter.Permit permit = limiter.tryAcquirePermit();
+            if (permit == null) {
+                return failed(new MaxRequestLimitExceededException("Concurrency limit reached: " + limiter.limit()));
+            }
+            return delegate.request(strategy, request)
+                    .map(response -> markDroppedIfOverloaded(response, permit))
+                    .liftSync(new BeforeFinallyHttpOperator(permit))
+                    .subscribeShareContext();
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        final ConcurrencyLimiter limiter = limit.newLimiter();
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return AdaptiveConcurrencyLimitHttpRequesterFilter.request(limiter, delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        final ConcurrencyLimiter limiter = limit.newLimiter();
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return AdaptiveConcurrencyLimitHttpRequesterFilter.request(limiter, delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.api.CharSequences.contentEquals;
+import static io.servicetalk.buffer.api.CharSequences.newAsciiString;
+import static io.servicetalk.buffer.api.CharSequences.regionMatches;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits the number of requests a service processes concurrently with an {@link AdaptiveConcurrencyLimit}, and
+ * rejects the excess requests with {@link io.servicetalk.http.api.HttpResponseStatus#SERVICE_UNAVAILABLE 503}
+ * responses instead of letting them queue. gRPC requests are rejected with the {@code UNAVAILABLE} gRPC status.
+ * <p>
+ * The round trip time of a request is measured from the time it is admitted until its response is fully written.
+ * Requests which fail, or whose response is a {@code 503} or carries the {@code UNAVAILABLE} or
+ * {@code RESOURCE_EXHAUSTED} gRPC status in its headers or trailers, reduce the limit. Each service created by this
+ * factory gets its own limit.
+ */
+public final class AdaptiveConcurrencyLimitHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                                        HttpExecutionStrategyInfluencer {
+    static final CharSequence GRPC_CONTENT_TYPE_PREFIX = newAsciiString("application/grpc");
+    static final CharSequence GRPC_STATUS = newAsciiString("grpc-status");
+    static final CharSequence GRPC_STATUS_UNAVAILABLE = newAsciiString("14");
+    private static final CharSequence GRPC_STATUS_RESOURCE_EXHAUSTED = newAsciiString("8");
+    private static final CharSequence GRPC_MESSAGE = newAsciiString("grpc-message");
+    private static final CharSequence GRPC_MESSAGE_REJECTED = newAsciiString("Concurrency limit reached");
+
+    private final AdaptiveConcurrencyLimit limit;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param limit the configuration of the concurrency limit.
+     */
+    public AdaptiveConcurrencyLimitHttpServiceFilter(final AdaptiveConcurrencyLimit limit) {
+        this.limit = requireNonNull(limit);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        final ConcurrencyLimiter limiter = limit.newLimiter();
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                return defer(() -> {
+                    final ConcurrencyLimiter.Permit permit = limiter.tryAcquirePermit();
+                    if (permit == null) {
+                        return succeeded(rejectedResponse(request, responseFactory));
+                    }
+                    return delegate().handle(ctx, request, responseFactory)
+                            .map(response -> markDroppedIfOverloaded(response, permit))
+                            .liftSync(new BeforeFinallyHttpOperator(permit))
+                            .subscribeShareContext();
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * Marks the {@link ConcurrencyLimiter.Permit permit} of a request as dropped if its response is a {@code 503}, or
+     * carries the {@code UNAVAILABLE} or {@code RESOURCE_EXHAUSTED} gRPC status in its headers or trailers.
+     *
+     * @param response the response of the request.
+     * @param permit the permit of the request.
+     * @return the response, which marks the permit once its trailers are read if it is a gRPC response.
+     */
+    static StreamingHttpResponse markDroppedIfOverloaded(final StreamingHttpResponse response,
+                                                         final ConcurrencyLimiter.Permit permit) {
+        if (response.status().code() == SERVICE_UNAVAILABLE.code() || isOverloaded(response.headers())) {
+            permit.markDropped();
+            return response;
+        }
+        if (!isGrpc(response.headers().get(CONTENT_TYPE))) {
+            return response;
+        }
+        // Unless the response is trailers-only the gRPC status is in the trailers, which are read before the permit is
+        // released.
+        return response.transformMessageBody(messageBody -> messageBody.beforeOnNext(item -> {
+            if (item instanceof HttpHeaders && isOverloaded((HttpHeaders) item)) {
+                permit.markDropped();
+            }
+        }));
+    }
+
+    private static boolean isOverloaded(final HttpHeaders headers) {
+        final CharSequence grpcStatus = headers.get(GRPC_STATUS);
+        return grpcStatus != null && (contentEquals(grpcStatus, GRPC_STATUS_UNAVAILABLE) ||
+                contentEquals(grpcStatus, GRPC_STATUS_RESOURCE_EXHAUSTED));
+    }
+
+    private static StreamingHttpResponse rejectedResponse(final StreamingHttpRequest request,
+                                                          final StreamingHttpResponseFactory responseFactory) {
+        if (isGrpc(request.headers().get(CONTENT_TYPE))) {
+            // A trailers-only gRPC response, gRPC clients expect a 200 carrying the gRPC status.
+            final StreamingHttpResponse response = responseFactory.ok();
+            final HttpHeaders headers = response.headers();
+            headers.set(CONTENT_TYPE, GRPC_CONTENT_TYPE_PREFIX);
+            headers.set(GRPC_STATUS, GRPC_STATUS_UNAVAILABLE);
+            headers.set(GRPC_MESSAGE, GRPC_MESSAGE_REJECTED);
+            return response;
+        }
+        final StreamingHttpResponse response = responseFactory.serviceUnavailable();
+        response.headers().set(CONTENT_LENGTH, ZERO);
+        return response;
+    }
+
+    private static boolean isGrpc(@Nullable final CharSequence contentType) {
+        return contentType != null && regionMatches(contentType, true, 0, GRPC_CONTENT_TYPE_PREFIX, 0,
+                GRPC_CONTENT_TYPE_PREFIX.length());
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.log10;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * Limits the number of concurrent requests to a limit which adapts to the observed round trip times.
+ * <p>
+ * Admission is lock-free, only the limit updates which follow the completion of a request are serialized.
+ */
+abstract class ConcurrencyLimiter {
+    private static final AtomicIntegerFieldUpdater<ConcurrencyLimiter> inFlightUpdater =
+            newUpdater(ConcurrencyLimiter.class, "inFlight");
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final float backoffRatio;
+    private volatile int inFlight;
+    private volatile int limit;
+    // Guarded by "this".
+    private double estimatedLimit;
+
+    ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final float backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        estimatedLimit = initialLimit;
+        limit = initialLimit;
+    }
+
+    /**
+     * Acquires a {@link Permit} for a new request.
+     *
+     * @return a {@link Permit} which must be released once the request terminates, or {@code null} if the limit is
+     * reached.
+     */
+    @Nullable
+    final Permit tryAcquirePermit() {
+        final int inFlight = tryAcquire();
+        return inFlight < 0 ? null : new Permit(this, inFlight);
+    }
+
+    /**
+     * Acquires a permit for a new request.
+     *
+     * @return the number of requests in flight including the new one, or {@code -1} if the limit is reached.
+     */
+    private int tryAcquire() {
+        for (;;) {
+            final int current = inFlight;
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlightUpdater.compareAndSet(this, current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a request which completed normally and samples its round trip time.
+     *
+     * @param rttNanos the round trip time of the request.
+     * @param inFlightAtStart the number of requests in flight when the request started.
+     */
+    final void onSuccess(final long rttNanos, final int inFlightAtStart) {
+        inFlightUpdater.decrementAndGet(this);
+        synchronized (this) {
+            updateLimit(nextLimit(estimatedLimit, max(1, rttNanos), inFlightAtStart));
+        }
+    }
+
+    /**
+     * Releases the permit of a request which was dropped because of overload, which reduces the limit.
+     */
+    final void onDropped() {
+        inFlightUpdater.decrementAndGet(this);
+        synchronized (this) {
+            updateLimit(estimatedLimit * backoffRatio);
+        }
+    }
+
+    /**
+     * Releases the permit of a request without affecting the limit, typically because it was cancelled.
+     */
+    final void onIgnored() {
+        inFlightUpdater.decrementAndGet(this);
+    }
+
+    final int limit() {
+        return limit;
+    }
+
+    final int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Computes the next limit after a successful request, called while holding the lock on {@code this}.
+     *
+     * @param limit the current limit.
+     * @param rttNanos the round trip time of the request.
+     * @param inFlight the number of requests in flight when the request started.
+     * @return the next limit.
+     */
+    abstract double nextLimit(double limit, long rttNanos, int inFlight);
+
+    private void updateLimit(final double newLimit) {
+        estimatedLimit = min(maxLimit, max(minLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * The permit of a request, released when the request and its response terminate. Requests which complete are
+     * sampled unless they were {@link #markDropped() dropped}, failed requests reduce the limit and cancelled requests
+     * are ignored.
+     */
+    static final class Permit implements TerminalSignalConsumer {
+        private final ConcurrencyLimiter limiter;
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private volatile boolean dropped;
+
+        Permit(final ConcurrencyLimiter limiter, final int inFlightAtStart) {
+            this.limiter = limiter;
+            this.inFlightAtStart = inFlightAtStart;
+            startNanos = nanoTime();
+        }
+
+        /**
+         * Marks the request as dropped because of overload, even if it completes.
+         */
+        void markDropped() {
+            dropped = true;
+        }
+
+        @Override
+        public void onComplete() {
+            if (dropped) {
+                limiter.onDropped();
+            } else {
+                limiter.onSuccess(nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            limiter.onDropped();
+        }
+
+        @Override
+        public void cancel() {
+            limiter.onIgnored();
+        }
+    }
+
+    /**
+     * Estimates the queue size from the difference between the round trip time of a request and the minimum observed
+     * round trip time, as <a href="https://en.wikipedia.org/wiki/TCP_Vegas">TCP Vegas</a> does. The limit grows while
+     * the queue is small and shrinks once the queue grows.
+     */
+    static final class Vegas extends ConcurrencyLimiter {
+        /**
+         * The minimum round trip time is re-probed after this many samples per unit of limit, so that it adapts when
+         * the latency of the service increases for good.
+         */
+        private static final int PROBE_MULTIPLIER = 30;
+
+        private long rttNoLoadNanos;
+        private long samplesSinceProbe;
+
+        Vegas(final int initialLimit, final int minLimit, final int maxLimit, final float backoffRatio) {
+            super(initialLimit, minLimit, maxLimit, backoffRatio);
+        }
+
+        @Override
+        double nextLimit(final double limit, final long rttNanos, final int inFlight) {
+            if (++samplesSinceProbe >= PROBE_MULTIPLIER * (long) limit) {
+                samplesSinceProbe = 0;
+                rttNoLoadNanos = rttNanos;
+                return limit;
+            }
+            if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+                rttNoLoadNanos = rttNanos;
+                return limit;
+            }
+            if (inFlight * 2 < limit) {
+                // The limit is not what bounds the load, there is nothing to learn.
+                return limit;
+            }
+            final double queueSize = ceil(limit * (1 - (double) rttNoLoadNanos / rttNanos));
+            final double log = max(1, log10(limit));
+            if (queueSize <= log) {
+                return limit + 6 * log;
+            }
+            if (queueSize < 3 * log) {
+                return limit + log;
+            }
+            if (queueSize > 6 * log) {
+                return limit - log;
+            }
+            return limit;
+        }
+    }
+
+    /**
+     * Adjusts the limit by the gradient between a long term average of the round trip time and the latest round trip
+     * time. The limit shrinks when requests get slower than the long term average, with some tolerance, and otherwise
+     * grows by the square root of the limit.
+     */
+    static final class Gradient extends ConcurrencyLimiter {
+        private static final int LONG_WINDOW = 600;
+        private static final double SMOOTHING = 0.2;
+
+        private final float rttTolerance;
+        private double longRttNanos;
+
+        Gradient(final int initialLimit, final int minLimit, final int maxLimit, final float backoffRatio,
+                 final float rttTolerance) {
+            super(initialLimit, minLimit, maxLimit, backoffRatio);
+            this.rttTolerance = rttTolerance;
+        }
+
+        @Override
+        double nextLimit(final double limit, final long rttNanos, final int inFlight) {
+            if (longRttNanos == 0) {
+                longRttNanos = rttNanos;
+            } else {
+                longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            }
+            if (longRttNanos > 2 * rttNanos) {
+                // Load dropped, let the long term average catch up faster.
+                longRttNanos *= 0.95;
+            }
+            if (inFlight * 2 < limit) {
+                // The limit is not what bounds the load, there is nothing to learn.
+                return limit;
+            }
+            final double gradient = max(0.5, min(1.0, rttTolerance * longRttNanos / rttNanos));
+            final double newLimit = limit * gradient + sqrt(limit);
+            return limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StatelessTrailersTransformer;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.TestHttpServiceContext;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.Future;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.utils.AdaptiveConcurrencyLimitHttpServiceFilter.markDroppedIfOverloaded;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveConcurrencyLimitHttpServiceFilterTest {
+    private final StreamingHttpService mockService = mock(StreamingHttpService.class);
+    private final HttpExecutionContext mockExecutionCtx = mock(HttpExecutionContext.class);
+    private final StreamingHttpRequestResponseFactory reqRespFactory = new DefaultStreamingHttpRequestResponseFactory(
+            DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE, HTTP_1_1);
+    private final HttpServiceContext mockCtx = new TestHttpServiceContext(DefaultHttpHeadersFactory.INSTANCE,
+            reqRespFactory, mockExecutionCtx);
+    private final TestPublisher<Buffer> payload = new TestPublisher<>();
+    private final StreamingHttpServiceFilter filter = new AdaptiveConcurrencyLimitHttpServiceFilter(
+            AdaptiveConcurrencyLimit.vegas().initialLimit(1).limits(1, 1).build()).create(mockService);
+
+    @Before
+    public void setup() {
+        doAnswer((Answer<Single<StreamingHttpResponse>>) invocation ->
+                Single.succeeded(reqRespFactory.ok().payloadBody(payload)))
+                .when(mockService).handle(any(), any(), any());
+    }
+
+    @Test
+    public void excessRequestIsRejectedUntilResponseCompletes() throws Exception {
+        StreamingHttpResponse first = handle(reqRespFactory.get("/"));
+        assertThat(first.status(), is(OK));
+        Future<Void> firstPayload = first.payloadBody().ignoreElements().toFuture();
+
+        assertThat(handle(reqRespFactory.get("/")).status(), is(SERVICE_UNAVAILABLE));
+
+        payload.onComplete();
+        firstPayload.get();
+        assertThat(handle(reqRespFactory.get("/")).status(), is(OK));
+    }
+
+    @Test
+    public void grpcRequestIsRejectedWithGrpcStatus() throws Exception {
+        handle(reqRespFactory.get("/")).payloadBody().ignoreElements().toFuture();
+
+        StreamingHttpRequest grpcRequest = reqRespFactory.post("/service/method");
+        grpcRequest.headers().set(CONTENT_TYPE, "application/grpc+proto");
+        StreamingHttpResponse rejected = handle(grpcRequest);
+        assertThat(rejected.status(), is(OK));
+        assertThat(rejected.headers().get("grpc-status").toString(), is("14"));
+    }
+
+    @Test
+    public void grpcOverloadInTrailersReducesLimit() throws Exception {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.vegas().initialLimit(10).limits(1, 10).build()
+                .newLimiter();
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquirePermit();
+        assertThat(permit, is(notNullValue()));
+
+        StreamingHttpResponse response = reqRespFactory.ok().transform(new StatelessTrailersTransformer<Buffer>() {
+            @Override
+            protected HttpHeaders payloadComplete(final HttpHeaders trailers) {
+                return trailers.set("grpc-status", "8");
+            }
+        });
+        response.headers().set(CONTENT_TYPE, "application/grpc+proto");
+        markDroppedIfOverloaded(response, permit).messageBody().ignoreElements().toFuture().get();
+        permit.onComplete();
+        assertThat(limiter.limit(), is(lessThan(10)));
+    }
+
+    private StreamingHttpResponse handle(StreamingHttpRequest request) throws Exception {
+        return filter.handle(mockCtx, request, reqRespFactory).toFuture().get();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void permitsAreBoundedByLimit() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.vegas().initialLimit(2).build().newLimiter();
+        ConcurrencyLimiter.Permit first = limiter.tryAcquirePermit();
+        assertThat(first, is(notNullValue()));
+        assertThat(limiter.tryAcquirePermit(), is(notNullValue()));
+        assertThat(limiter.tryAcquirePermit(), is(nullValue()));
+
+        first.cancel();
+        assertThat(limiter.inFlight(), is(1));
+        assertThat(limiter.tryAcquirePermit(), is(notNullValue()));
+    }
+
+    @Test
+    public void droppedRequestReducesLimit() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.gradient().initialLimit(100).backoffRatio(0.5f)
+                .build().newLimiter();
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquirePermit();
+        assertThat(permit, is(notNullValue()));
+        permit.markDropped();
+        permit.onComplete();
+        assertThat(limiter.limit(), is(50));
+        assertThat(limiter.inFlight(), is(0));
+    }
+
+    @Test
+    public void vegasGrowsWithoutQueueing() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.vegas().initialLimit(10).build().newLimiter();
+        for (int i = 0; i < 10; ++i) {
+            sample(limiter, 10, 10);
+        }
+        assertThat(limiter.limit(), is(greaterThan(10)));
+    }
+
+    @Test
+    public void vegasShrinksWhenQueueing() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.vegas().initialLimit(100).build().newLimiter();
+        sample(limiter, 10, 100);
+        for (int i = 0; i < 10; ++i) {
+            sample(limiter, 100, 100);
+        }
+        assertThat(limiter.limit(), is(lessThan(100)));
+    }
+
+    @Test
+    public void gradientShrinksWhenRttIncreases() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.gradient().initialLimit(100).build().newLimiter();
+        sample(limiter, 10, 100);
+        for (int i = 0; i < 10; ++i) {
+            sample(limiter, 100, 100);
+        }
+        assertThat(limiter.limit(), is(lessThan(100)));
+    }
+
+    @Test
+    public void limitIsNotLearnedWhenUnderused() {
+        ConcurrencyLimiter limiter = AdaptiveConcurrencyLimit.gradient().initialLimit(100).build().newLimiter();
+        sample(limiter, 10, 1);
+        for (int i = 0; i < 10; ++i) {
+            sample(limiter, 100, 1);
+        }
+        assertThat(limiter.limit(), is(100));
+    }
+
+    private static void sample(ConcurrencyLimiter limiter, long rttMillis, int inFlight) {
+        assertThat(limiter.tryAcquirePermit(), is(notNullValue()));
+        limiter.onSuccess(MILLISECONDS.toNanos(rttMillis), inFlight);
+    }
+}
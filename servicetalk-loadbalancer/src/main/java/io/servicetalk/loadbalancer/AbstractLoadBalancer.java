@@ -0,0 +1,467 @@
+/*
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionRejectedException;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.client.api.WeightedServiceDiscovererEvent;
+import io.servicetalk.concurrent.PublisherSource.Processor;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.PublisherSource.Subscription;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompositeCloseable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+import io.servicetalk.concurrent.internal.ThrowableUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Processors.newPublisherProcessorDropHeadOnOverflow;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Base class for {@link LoadBalancer}s which maintain a list of active {@link Host}s from a stream of
+ * {@link ServiceDiscovererEvent}s and leave the choice of the {@link Host} for each selection to sub-classes.
+ * <ul>
+ * <li>Connections are created lazily. Unless a {@link ConnectionPoolConfig} bounds the number of concurrent
+ * connection attempts per host, there is no concurrency control on their creation. This can lead to over-provisioning
+ * connections when dealing with a requests surge.</li>
+ * <li>When a {@link ConnectionPoolConfig} is provided, a minimum number of connections can be opened to each host as
+ * soon as it becomes available.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.
+ * This can lead to situations where connections will be used to their maximum capacity (for example in the context of
+ * pipelining) before new connections are created.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>Adding or removing a host or a connection costs {@code O(1)}, regardless of the number of hosts and connections,
+ * and selections never block on these updates.</li>
+ * <li>When a {@link HealthCheckConfig} is provided, hosts are ejected from the selection after connection failures,
+ * or request failures reported by their connections, until they are readmitted.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+abstract class AbstractLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection> implements LoadBalancer<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractLoadBalancer.class);
+
+    /**
+     * With a relatively small number of connections we can minimize connection creation under moderate concurrency by
+     * exhausting the full search space without sacrificing too much latency caused by the cost of a CAS operation per
+     * selection attempt.
+     */
+    private static final int MIN_SEARCH_SPACE = 64;
+
+    /**
+     * For larger search spaces, due to the cost of a CAS operation per selection attempt we see diminishing returns for
+     * trying to locate an available connection when most connections are in use. This increases tail latencies, thus
+     * after some number of failed attempts it appears to be more beneficial to open a new connection instead.
+     * <p>
+     * The current heuristics were chosen based on a set of benchmarks under various circumstances, low connection
+     * counts, larger connection counts, low connection churn, high connection churn.
+     */
+    private static final float SEARCH_FACTOR = 0.75f;
+
+    private final HostTable<ResolvedAddress, C> activeHosts = new HostTable<>();
+
+    private final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher;
+    private final Processor<Object, Object> eventStreamProcessor;
+    private final Publisher<Object> eventStream;
+    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    @Nullable
+    private final HealthCheckConfig healthCheckConfig;
+    private final int maxConcurrentConnectsPerHost;
+    private final int minConnectionsPerHost;
+    private final ListenableAsyncCloseable asyncCloseable;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param healthCheckConfig configuration of the health checking of hosts, or {@code null} to disable it.
+     * @param connectionPoolConfig configuration of the connections to each host, or {@code null} to use the defaults.
+     */
+    AbstractLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                         final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                         @Nullable final HealthCheckConfig healthCheckConfig,
+                         @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+        this.eventPublisher = requireNonNull(eventPublisher);
+        final Processor<Object, Object> eventStreamProcessor = newPublisherProcessorDropHeadOnOverflow(32);
+        this.eventStreamProcessor = eventStreamProcessor;
+        this.eventStream = fromSource(eventStreamProcessor);
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.healthCheckConfig = healthCheckConfig;
+        if (connectionPoolConfig == null) {
+            maxConcurrentConnectsPerHost = ConnectionPoolConfig.DEFAULT_MAX_CONCURRENT_CONNECTS_PER_HOST;
+            minConnectionsPerHost = ConnectionPoolConfig.DEFAULT_MIN_CONNECTIONS_PER_HOST;
+        } else {
+            maxConcurrentConnectsPerHost = connectionPoolConfig.maxConcurrentConnectsPerHost();
+            minConnectionsPerHost = connectionPoolConfig.minConnectionsPerHost();
+        }
+        asyncCloseable = toAsyncCloseable(graceful -> {
+            final List<Host<ResolvedAddress, C>> currentList = activeHosts.close();
+            discoveryCancellable.cancel();
+            eventStreamProcessor.onComplete();
+            CompositeCloseable cc = newCompositeCloseable().appendAll(currentList).appendAll(connectionFactory);
+            return graceful ? cc.closeAsyncGracefully() : cc.closeAsync();
+        });
+    }
+
+    /**
+     * Subscribes to the stream of {@link ServiceDiscovererEvent}s. Must be called once, at the end of the constructor
+     * of sub-classes, because events may be delivered synchronously and sub-classes are notified of them via
+     * {@link #onHostAdded(Host)} and {@link #onHostRemoved(Host)}.
+     */
+    final void start() {
+        toSource(eventPublisher).subscribe(new Subscriber<ServiceDiscovererEvent<ResolvedAddress>>() {
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                // We request max value here to make sure we do not access Subscription concurrently
+                // (requestN here and cancel from discoveryCancellable). If we request-1 in onNext we would have to wrap
+                // the Subscription in a ConcurrentSubscription which is costly.
+                // Since, we synchronously process onNexts we do not really care about flow control.
+                s.request(Long.MAX_VALUE);
+                discoveryCancellable.nextCancellable(s);
+            }
+
+            @Override
+            public void onNext(final ServiceDiscovererEvent<ResolvedAddress> event) {
+                LOGGER.debug("Load balancer {}, received new ServiceDiscoverer event {}.", AbstractLoadBalancer.this,
+                        event);
+                final ResolvedAddress addr = requireNonNull(event.address());
+                if (event.isAvailable()) {
+                    final Host<ResolvedAddress, C> host = newHost(event);
+                    final int size = activeHosts.add(host);
+                    if (size < 0) {
+                        // The load balancer is closed.
+                        return;
+                    }
+                    onHostAdded(host);
+                    logActiveHosts(size);
+                    if (size == 1) {
+                        eventStreamProcessor.onNext(LOAD_BALANCER_READY_EVENT);
+                    }
+                    if (minConnectionsPerHost > 0 && shouldWarmUp(host)) {
+                        warmUp(host, minConnectionsPerHost).beforeOnError(t -> LOGGER.debug(
+                                "Load balancer {}, failed to warm up connections to host {}.",
+                                AbstractLoadBalancer.this, host.address, t)).subscribe();
+                    }
+                } else {
+                    final Host<ResolvedAddress, C> host = activeHosts.remove(addr);
+                    if (host != null) {
+                        host.markInactive();
+                        onHostRemoved(host);
+                    }
+                    final int size = activeHosts.size();
+                    logActiveHosts(size);
+                    if (size == 0) {
+                        eventStreamProcessor.onNext(LOAD_BALANCER_NOT_READY_EVENT);
+                    }
+                }
+            }
+
+            private void logActiveHosts(final int size) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Load balancer {} now using {} addresses: {}", AbstractLoadBalancer.this, size,
+                            activeHosts);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                final List<Host<ResolvedAddress, C>> hosts = activeHosts.toList();
+                eventStreamProcessor.onError(t);
+                LOGGER.error(
+                        "Load balancer {}. Service discoverer {} emitted an error. Last seen addresses (size {}) {}",
+                        AbstractLoadBalancer.this, eventPublisher, hosts.size(), hosts, t);
+            }
+
+            @Override
+            public void onComplete() {
+                final List<Host<ResolvedAddress, C>> hosts = activeHosts.toList();
+                eventStreamProcessor.onComplete();
+                LOGGER.error("Load balancer {}. Service discoverer {} completed. Last seen addresses (size {}) {}",
+                        AbstractLoadBalancer.this, eventPublisher, hosts.size(), hosts);
+            }
+        });
+    }
+
+    @Override
+    public Single<C> selectConnection(Predicate<C> selector) {
+        return defer(() -> selectConnection0(selector).subscribeShareContext());
+    }
+
+    @Override
+    public Publisher<Object> eventStream() {
+        return eventStream;
+    }
+
+    private Single<C> selectConnection0(Predicate<C> selector) {
+        if (activeHosts.size() == 0) {
+            return activeHosts.isClosed() ? failedLBClosed() :
+                // This is the case when SD has emitted some items but none of the hosts are active.
+                failed(StacklessNoAvailableHostException.newInstance(
+                    "No hosts are available to connect.", AbstractLoadBalancer.class, "selectConnection0(...)"));
+        }
+
+        final Host<ResolvedAddress, C> host = selectHost(activeHosts);
+        if (host == null) {
+            return failed(StacklessNoAvailableHostException.newInstance(
+                    "No healthy hosts are available to connect.", AbstractLoadBalancer.class,
+                    "selectConnection0(...)"));
+        }
+        return selectConnection(host, selector);
+    }
+
+    private Single<C> selectConnection(final Host<ResolvedAddress, C> host, final Predicate<C> selector) {
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+
+        // Try first to see if an existing connection can be used
+        final IndexedArray<C> connections = host.connections();
+        final int size = connections.size();
+        // With small enough search space, attempt all connections.
+        // Back off after exploring most of the search space, it gives diminishing returns.
+        final int attempts = size < MIN_SEARCH_SPACE ? size : (int) (size * SEARCH_FACTOR);
+        for (int i = 0; i < attempts; i++) {
+            final C connection = connections.get(rnd.nextInt(size));
+            // The connection may have been concurrently removed.
+            if (connection != null && selector.test(connection)) {
+                return succeeded(connection);
+            }
+        }
+
+        // No connection was selected: create a new one.
+        if (maxConcurrentConnectsPerHost == ConnectionPoolConfig.DEFAULT_MAX_CONCURRENT_CONNECTS_PER_HOST) {
+            return newConnection(host, selector);
+        }
+        // Grab the waiters before trying to acquire, otherwise the completion of a concurrent attempt may be missed.
+        final Completable connectWaiters = fromSource(host.connectWaiters());
+        if (host.tryAcquireConnect(maxConcurrentConnectsPerHost)) {
+            // Release after the new connection has been added to the host, so that waiters can select it.
+            return newConnection(host, selector).beforeFinally(host::releaseConnect);
+        }
+        // Too many connection attempts are in flight to this host, wait for one of them to finish and try again. The
+        // newly created connection may be usable, otherwise a new attempt can be started.
+        return connectWaiters.concat(defer(() -> selectConnection(host, selector).subscribeShareContext()));
+    }
+
+    private Single<C> newConnection(final Host<ResolvedAddress, C> host, final Predicate<C> selector) {
+        // This LB implementation does not automatically provide TransportObserver. Therefore, we pass "null" here.
+        // Users can apply a ConnectionFactoryFilter if they need to override this "null" value with TransportObserver.
+        return connectionFactory.newConnection(host.address, null)
+                .beforeOnError(host::onConnectFailure)
+                .flatMap(newCnx -> {
+                    host.onConnectSuccess();
+                    // Invoke the selector before adding the connection to the pool, otherwise, connection can be used
+                    // concurrently and hence a new connection can be rejected by the selector.
+                    if (!selector.test(newCnx)) {
+                        // Failure in selection could be temporary, hence add it to the queue and be consistent with the
+                        // fact that select failure does not close a connection.
+                        return newCnx.closeAsync().concat(failed(new ConnectionRejectedException(
+                                "Newly created connection " + newCnx + " rejected by the selection filter.")));
+                    }
+                    if (host.addConnection(newCnx)) {
+                        return succeeded(newCnx);
+                    }
+                    return newCnx.closeAsync().concat(activeHosts.isClosed() ? failedLBClosed() :
+                            failed(new ConnectionRejectedException("Failed to add newly created connection for host: " +
+                                    host.address + ", host inactive? " + host.isInactive())));
+                });
+    }
+
+    /**
+     * Opens up to {@code remaining} connections to a newly available {@link Host}, one after the other. Warm-up stops
+     * on the first failure or when the host is no longer active or healthy, selections open further connections
+     * lazily.
+     *
+     * @param host the newly available {@link Host}.
+     * @param remaining the number of connections left to open.
+     * @return a {@link Completable} which completes when the warm-up is done.
+     */
+    private Completable warmUp(final Host<ResolvedAddress, C> host, final int remaining) {
+        return remaining <= 0 ? completed() : Completable.defer(() -> {
+            if (host.isInactive() || !host.isHealthy()) {
+                return completed();
+            }
+            // Warm-up attempts count towards the in-flight connection attempts, so that concurrent selections wait for
+            // them rather than racing them.
+            host.acquireConnect();
+            return connectionFactory.newConnection(host.address, null)
+                    .beforeOnError(host::onConnectFailure)
+                    .flatMapCompletable(newCnx -> {
+                        host.onConnectSuccess();
+                        return host.addConnection(newCnx) ? completed() : newCnx.closeAsync();
+                    })
+                    .beforeFinally(host::releaseConnect)
+                    .concat(warmUp(host, remaining - 1))
+                    .subscribeShareContext();
+        });
+    }
+
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return asyncCloseable.closeAsyncGracefully();
+    }
+
+    /**
+     * Selects the {@link Host} to use for a connection selection. Implementations must not select hosts which are not
+     * {@link Host#isHealthy() healthy}.
+     *
+     * @param activeHosts the currently active hosts, which may be concurrently modified.
+     * @return the {@link Host} to use from {@code activeHosts}, or {@code null} if none of them is healthy.
+     */
+    @Nullable
+    abstract Host<ResolvedAddress, C> selectHost(HostTable<ResolvedAddress, C> activeHosts);
+
+    /**
+     * Invoked when a {@link Host} is added to the active hosts. Invocations are not concurrent with each other nor with
+     * {@link #onHostRemoved(Host)}.
+     *
+     * @param host the added {@link Host}.
+     */
+    void onHostAdded(Host<ResolvedAddress, C> host) {
+    }
+
+    /**
+     * Invoked when a {@link Host} is removed from the active hosts. Invocations are not concurrent with each other nor
+     * with {@link #onHostAdded(Host)}.
+     *
+     * @param host the removed {@link Host}.
+     */
+    void onHostRemoved(Host<ResolvedAddress, C> host) {
+    }
+
+    /**
+     * Whether {@link ConnectionPoolConfig#minConnectionsPerHost()} connections should be opened to a newly added
+     * {@link Host}. Invoked after {@link #onHostAdded(Host)}.
+     *
+     * @param host the added {@link Host}.
+     * @return {@code true} if connections should be opened to {@code host}.
+     */
+    boolean shouldWarmUp(Host<ResolvedAddress, C> host) {
+        return true;
+    }
+
+    /**
+     * Finds the first {@link Host#isHealthy() healthy} host, starting from {@code startIndex} and wrapping around.
+     *
+     * @param activeHosts the currently active hosts, which may be concurrently modified.
+     * @param startIndex the index to start from.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return the first healthy host, or {@code null} if none of {@code activeHosts} is healthy.
+     */
+    @Nullable
+    static <ResolvedAddress, C extends LoadBalancedConnection> Host<ResolvedAddress, C> nextHealthyHost(
+            final HostTable<ResolvedAddress, C> activeHosts, final int startIndex) {
+        final int size = activeHosts.size();
+        for (int i = 0; i < size; ++i) {
+            final Host<ResolvedAddress, C> host = activeHosts.get((startIndex + i) % size);
+            if (host != null && host.isHealthy()) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a {@link Host#isHealthy() healthy} host, starting from a random index so that repeated fallbacks spread
+     * over all healthy hosts.
+     *
+     * @param activeHosts the currently active hosts, which may be concurrently modified.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a healthy host, or {@code null} if none of {@code activeHosts} is healthy.
+     */
+    @Nullable
+    static <ResolvedAddress, C extends LoadBalancedConnection> Host<ResolvedAddress, C> randomHealthyHost(
+            final HostTable<ResolvedAddress, C> activeHosts) {
+        final int size = activeHosts.size();
+        return size == 0 ? null : nextHealthyHost(activeHosts, ThreadLocalRandom.current().nextInt(size));
+    }
+
+    private Host<ResolvedAddress, C> newHost(final ServiceDiscovererEvent<ResolvedAddress> event) {
+        if (event instanceof WeightedServiceDiscovererEvent) {
+            final WeightedServiceDiscovererEvent<ResolvedAddress> weightedEvent =
+                    (WeightedServiceDiscovererEvent<ResolvedAddress>) event;
+            return new Host<>(event.address(), weightedEvent.locality(), weightedEvent.weight(),
+                    weightedEvent.priority(), connectionFactory, healthCheckConfig);
+        }
+        return new Host<>(event.address(), null, 1, 0, connectionFactory, healthCheckConfig);
+    }
+
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> activeAddresses() {
+        return activeHosts.toList().stream().map(Host::asEntry).collect(toList());
+    }
+
+    private static final class StacklessNoAvailableHostException extends NoAvailableHostException {
+        private StacklessNoAvailableHostException(final String message) {
+            super(message);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+
+        public static StacklessNoAvailableHostException newInstance(String message, Class<?> clazz, String method) {
+            return ThrowableUtils.unknownStackTrace(new StacklessNoAvailableHostException(message), clazz, method);
+        }
+    }
+
+    private static <T> Single<T> failedLBClosed() {
+        return failed(new IllegalStateException("LoadBalancer has closed"));
+    }
+}
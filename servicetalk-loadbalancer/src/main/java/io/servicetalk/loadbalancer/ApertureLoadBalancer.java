@@ -0,0 +1,522 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * A {@link LoadBalancer} that only uses a deterministic subset, the <em>aperture</em>, of the available addresses.
+ * It has the following behaviour:
+ * <ul>
+ * <li>Addresses are placed on a ring, ordered by a hash of the address which is the same for all clients. Each client
+ * has a coordinate on the same ring, derived from its {@link ApertureLoadBalancerFactory.Builder#peerCoordinate(int,
+ * int) index among its peers}, and uses the addresses which follow its coordinate. Hence clients with distinct
+ * coordinates spread evenly over all addresses, while each client only connects to a few of them.</li>
+ * <li>When addresses are added or removed the ring rotates: the aperture of each client moves by at most the number
+ * of changed addresses, and connections to addresses which leave the aperture are closed gracefully.</li>
+ * <li>The aperture grows when the average number of connections per address in the aperture exceeds a high watermark,
+ * and shrinks when it falls below a low watermark, within configurable bounds.</li>
+ * <li>Within the aperture, the power of two choices strategy is used: two distinct addresses are picked at random and
+ * the one with the higher {@link ScoreSupplier#score() score} is used.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>When a {@link HealthCheckConfig} is configured on the {@link ApertureLoadBalancerFactory.Builder}, unhealthy
+ * addresses are skipped. If no address in the aperture is healthy, any healthy address is used.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class ApertureLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        extends AbstractLoadBalancer<ResolvedAddress, C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApertureLoadBalancer.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ApertureLoadBalancer> selectionsUpdater =
+            newUpdater(ApertureLoadBalancer.class, "selections");
+
+    static final int DEFAULT_MIN_APERTURE = 10;
+    static final float DEFAULT_LOW_LOAD = 0.5f;
+    static final float DEFAULT_HIGH_LOAD = 2f;
+
+    /**
+     * Number of selections between two evaluations of the load of the aperture, must be a power of 2.
+     */
+    private static final int LOAD_EVALUATION_INTERVAL = 64;
+
+    /**
+     * Coordinate of this client on the ring, in {@code [0, 1)}.
+     */
+    private final double coordinate;
+    private final int minAperture;
+    private final int maxAperture;
+    private final float lowLoad;
+    private final float highLoad;
+
+    // The ring and the aperture size are guarded by ringLock, mutations happen on SD events and load evaluations.
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private final List<Host<ResolvedAddress, C>> ring = new ArrayList<>();
+    private int apertureSize;
+    private volatile List<Host<ResolvedAddress, C>> aperture = emptyList();
+    @SuppressWarnings("unused")
+    private volatile int selections;
+
+    /**
+     * Creates a new instance, with a random coordinate and default aperture bounds.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     */
+    public ApertureLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                                final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory) {
+        this(eventPublisher, connectionFactory, null, null, ThreadLocalRandom.current().nextDouble(),
+                DEFAULT_MIN_APERTURE, Integer.MAX_VALUE, DEFAULT_LOW_LOAD, DEFAULT_HIGH_LOAD);
+    }
+
+    ApertureLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                         final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                         @Nullable final HealthCheckConfig healthCheckConfig,
+                         @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                         final double coordinate, final int minAperture, final int maxAperture,
+                         final float lowLoad, final float highLoad) {
+        super(eventPublisher, connectionFactory, healthCheckConfig, connectionPoolConfig);
+        this.coordinate = coordinate;
+        this.minAperture = minAperture;
+        this.maxAperture = maxAperture;
+        this.lowLoad = lowLoad;
+        this.highLoad = highLoad;
+        apertureSize = minAperture;
+        start();
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link ApertureLoadBalancer} with a random
+     * coordinate and default aperture bounds.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link ApertureLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    ApertureLoadBalancerFactory<ResolvedAddress, C> newApertureFactory() {
+        return new ApertureLoadBalancerFactory.Builder<ResolvedAddress, C>().build();
+    }
+
+    @Override
+    void onHostAdded(final Host<ResolvedAddress, C> host) {
+        final List<Host<ResolvedAddress, C>> evicted;
+        ringLock.lock();
+        try {
+            final long position = ringPosition(host.address);
+            int low = 0;
+            int high = ring.size();
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (ringPosition(ring.get(mid).address) <= position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            ring.add(low, host);
+            evicted = updateAperture();
+        } finally {
+            ringLock.unlock();
+        }
+        closeConnectionsGracefully(evicted);
+    }
+
+    @Override
+    void onHostRemoved(final Host<ResolvedAddress, C> host) {
+        List<Host<ResolvedAddress, C>> evicted = emptyList();
+        ringLock.lock();
+        try {
+            for (int i = 0; i < ring.size(); ++i) {
+                if (ring.get(i) == host) {
+                    ring.remove(i);
+                    evicted = updateAperture();
+                    break;
+                }
+            }
+        } finally {
+            ringLock.unlock();
+        }
+        closeConnectionsGracefully(evicted);
+    }
+
+    @Override
+    boolean shouldWarmUp(final Host<ResolvedAddress, C> host) {
+        // Only warm up hosts which are in the aperture, others may never be used.
+        return aperture.contains(host);
+    }
+
+    @Nullable
+    @Override
+    Host<ResolvedAddress, C> selectHost(final HostTable<ResolvedAddress, C> activeHosts) {
+        if ((selectionsUpdater.incrementAndGet(this) & (LOAD_EVALUATION_INTERVAL - 1)) == 0) {
+            evaluateLoad();
+        }
+        final List<Host<ResolvedAddress, C>> aperture = this.aperture;
+        final int size = aperture.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            final Host<ResolvedAddress, C> host = aperture.get(0);
+            return isSelectable(host) ? host : randomHealthyHost(activeHosts);
+        }
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final int first = rnd.nextInt(size);
+        int second = rnd.nextInt(size - 1);
+        if (second >= first) {
+            ++second;
+        }
+        final Host<ResolvedAddress, C> firstHost = aperture.get(first);
+        final Host<ResolvedAddress, C> secondHost = aperture.get(second);
+        if (!isSelectable(firstHost)) {
+            return isSelectable(secondHost) ? secondHost : nextHealthyHost(aperture, activeHosts, first + 1);
+        } else if (!isSelectable(secondHost)) {
+            return firstHost;
+        }
+        return firstHost.score() >= secondHost.score() ? firstHost : secondHost;
+    }
+
+    // Visible for testing
+    List<ResolvedAddress> apertureAddresses() {
+        final List<Host<ResolvedAddress, C>> aperture = this.aperture;
+        final List<ResolvedAddress> addresses = new ArrayList<>(aperture.size());
+        for (Host<ResolvedAddress, C> host : aperture) {
+            addresses.add(host.address);
+        }
+        return addresses;
+    }
+
+    private static boolean isSelectable(final Host<?, ?> host) {
+        // A host may have been removed after the aperture was read.
+        return host.isHealthy() && !host.isInactive();
+    }
+
+    @Nullable
+    private static <ResolvedAddress, C extends LoadBalancedConnection> Host<ResolvedAddress, C> nextHealthyHost(
+            final List<Host<ResolvedAddress, C>> aperture, final HostTable<ResolvedAddress, C> activeHosts,
+            final int startIndex) {
+        final int size = aperture.size();
+        for (int i = 0; i < size; ++i) {
+            final Host<ResolvedAddress, C> host = aperture.get((startIndex + i) % size);
+            if (isSelectable(host)) {
+                return host;
+            }
+        }
+        // No host in the aperture is healthy, fall back to any healthy host.
+        return randomHealthyHost(activeHosts);
+    }
+
+    /**
+     * Grows or shrinks the aperture based on its load. This runs on the selection path, so it does not wait for
+     * {@link #ringLock} and the connections of hosts which leave the aperture are closed after releasing it.
+     */
+    private void evaluateLoad() {
+        final List<Host<ResolvedAddress, C>> aperture = this.aperture;
+        if (aperture.isEmpty()) {
+            return;
+        }
+        long connections = 0;
+        for (Host<ResolvedAddress, C> host : aperture) {
+            connections += host.connections().size();
+        }
+        final float load = (float) connections / aperture.size();
+        if (load <= highLoad && load >= lowLoad) {
+            return;
+        }
+        if (!ringLock.tryLock()) {
+            // The ring is being updated, the load is evaluated again after the next interval.
+            return;
+        }
+        final List<Host<ResolvedAddress, C>> evicted;
+        try {
+            if (aperture != this.aperture) {
+                // The load was computed for a stale aperture.
+                return;
+            }
+            if (load > highLoad && apertureSize < min(maxAperture, ring.size())) {
+                ++apertureSize;
+                LOGGER.debug("Load balancer {}, load {} is above {}, growing aperture to {}.", this, load, highLoad,
+                        apertureSize);
+                evicted = updateAperture();
+            } else if (load < lowLoad && apertureSize > minAperture && aperture.size() > minAperture) {
+                apertureSize = aperture.size() - 1;
+                LOGGER.debug("Load balancer {}, load {} is below {}, shrinking aperture to {}.", this, load, lowLoad,
+                        apertureSize);
+                evicted = updateAperture();
+            } else {
+                return;
+            }
+        } finally {
+            ringLock.unlock();
+        }
+        closeConnectionsGracefully(evicted);
+    }
+
+    private void closeConnectionsGracefully(final List<Host<ResolvedAddress, C>> hosts) {
+        for (Host<ResolvedAddress, C> host : hosts) {
+            host.closeConnectionsGracefully();
+        }
+    }
+
+    /**
+     * Recomputes the aperture from the ring, must be called while holding {@link #ringLock}.
+     *
+     * @return the hosts which left the aperture, their connections should be closed after releasing
+     * {@link #ringLock}.
+     */
+    private List<Host<ResolvedAddress, C>> updateAperture() {
+        final int ringSize = ring.size();
+        final int size = min(ringSize, max(minAperture, min(apertureSize, maxAperture)));
+        final List<Host<ResolvedAddress, C>> newAperture;
+        if (size == 0) {
+            newAperture = emptyList();
+        } else {
+            newAperture = new ArrayList<>(size);
+            final int start = (int) (coordinate * ringSize);
+            for (int i = 0; i < size; ++i) {
+                newAperture.add(ring.get((start + i) % ringSize));
+            }
+        }
+        final List<Host<ResolvedAddress, C>> oldAperture = aperture;
+        aperture = newAperture;
+        if (oldAperture.isEmpty()) {
+            return emptyList();
+        }
+        final Set<Host<ResolvedAddress, C>> retained = newSetFromMap(new IdentityHashMap<>(size));
+        retained.addAll(newAperture);
+        List<Host<ResolvedAddress, C>> evicted = emptyList();
+        for (Host<ResolvedAddress, C> host : oldAperture) {
+            if (!retained.contains(host)) {
+                if (evicted.isEmpty()) {
+                    evicted = new ArrayList<>(2);
+                }
+                evicted.add(host);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Position of an address on the ring, identical for all clients which resolve the same address.
+     *
+     * @param address the address.
+     * @return position of the address on the ring, in {@code [0, 2^32)}.
+     */
+    private static long ringPosition(final Object address) {
+        // Finalization step of MurmurHash3, to spread addresses with similar hash codes over the whole ring.
+        int h = address.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & 0xFFFFFFFFL;
+    }
+
+    /**
+     * {@link LoadBalancerFactory} for {@link ApertureLoadBalancer}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class ApertureLoadBalancerFactory<ResolvedAddress, C extends LoadBalancedConnection>
+            implements LoadBalancerFactory<ResolvedAddress, C> {
+
+        @Nullable
+        private final HealthCheckConfig healthCheckConfig;
+        @Nullable
+        private final ConnectionPoolConfig connectionPoolConfig;
+        private final int peerIndex;
+        private final int peerCount;
+        private final int minAperture;
+        private final int maxAperture;
+        private final float lowLoad;
+        private final float highLoad;
+
+        private ApertureLoadBalancerFactory(@Nullable final HealthCheckConfig healthCheckConfig,
+                                            @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                                            final int peerIndex, final int peerCount,
+                                            final int minAperture, final int maxAperture,
+                                            final float lowLoad, final float highLoad) {
+            this.healthCheckConfig = healthCheckConfig;
+            this.connectionPoolConfig = connectionPoolConfig;
+            this.peerIndex = peerIndex;
+            this.peerCount = peerCount;
+            this.minAperture = minAperture;
+            this.maxAperture = maxAperture;
+            this.lowLoad = lowLoad;
+            this.highLoad = highLoad;
+        }
+
+        @Override
+        public <T extends C> LoadBalancer<T> newLoadBalancer(
+                final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
+            final double coordinate = peerCount == 0 ? ThreadLocalRandom.current().nextDouble() :
+                    (double) peerIndex / peerCount;
+            return new ApertureLoadBalancer<>(eventPublisher, connectionFactory, healthCheckConfig,
+                    connectionPoolConfig, coordinate, minAperture, maxAperture, lowLoad, highLoad);
+        }
+
+        /**
+         * A builder of {@link ApertureLoadBalancerFactory}.
+         *
+         * @param <ResolvedAddress> The resolved address type.
+         * @param <C> The type of connection.
+         */
+        public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+            @Nullable
+            private HealthCheckConfig healthCheckConfig;
+            @Nullable
+            private ConnectionPoolConfig connectionPoolConfig;
+            private int peerIndex;
+            private int peerCount;
+            private int minAperture = DEFAULT_MIN_APERTURE;
+            private int maxAperture = Integer.MAX_VALUE;
+            private float lowLoad = DEFAULT_LOW_LOAD;
+            private float highLoad = DEFAULT_HIGH_LOAD;
+
+            /**
+             * Sets the coordinate of the client on the ring, from its index among all clients of the same addresses.
+             * Clients should use distinct indexes, for example the ordinal of their instance in a cluster, for the
+             * load to spread evenly over all addresses. If not set, a random coordinate is used.
+             *
+             * @param peerIndex the index of the client, in {@code [0, peerCount)}.
+             * @param peerCount the total number of clients.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> peerCoordinate(final int peerIndex, final int peerCount) {
+                if (peerCount <= 0) {
+                    throw new IllegalArgumentException("peerCount: " + peerCount + " (expected > 0)");
+                }
+                if (peerIndex < 0 || peerIndex >= peerCount) {
+                    throw new IllegalArgumentException("peerIndex: " + peerIndex + " (expected >= 0 and < " +
+                            peerCount + ")");
+                }
+                this.peerIndex = peerIndex;
+                this.peerCount = peerCount;
+                return this;
+            }
+
+            /**
+             * Sets the bounds of the number of addresses in the aperture.
+             *
+             * @param minAperture minimum number of addresses in the aperture, unless fewer are available.
+             * @param maxAperture maximum number of addresses in the aperture.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> aperture(final int minAperture, final int maxAperture) {
+                if (minAperture <= 0) {
+                    throw new IllegalArgumentException("minAperture: " + minAperture + " (expected > 0)");
+                }
+                if (maxAperture < minAperture) {
+                    throw new IllegalArgumentException("maxAperture: " + maxAperture + " (expected >= " +
+                            minAperture + ")");
+                }
+                this.minAperture = minAperture;
+                this.maxAperture = maxAperture;
+                return this;
+            }
+
+            /**
+             * Sets the watermarks of the average number of connections per address in the aperture, below which the
+             * aperture shrinks and above which it grows.
+             *
+             * @param lowLoad the average number of connections per address below which the aperture shrinks.
+             * @param highLoad the average number of connections per address above which the aperture grows.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> loadWatermarks(final float lowLoad, final float highLoad) {
+                if (lowLoad < 0) {
+                    throw new IllegalArgumentException("lowLoad: " + lowLoad + " (expected >= 0)");
+                }
+                if (highLoad <= lowLoad) {
+                    throw new IllegalArgumentException("highLoad: " + highLoad + " (expected > " + lowLoad + ")");
+                }
+                this.lowLoad = lowLoad;
+                this.highLoad = highLoad;
+                return this;
+            }
+
+            /**
+             * Configures health checking of hosts.
+             *
+             * @param healthCheckConfig configuration of the health checking of hosts, or {@code null} to disable it.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> healthCheckConfig(@Nullable final HealthCheckConfig healthCheckConfig) {
+                this.healthCheckConfig = healthCheckConfig;
+                return this;
+            }
+
+            /**
+             * Configures the connections to each host, such as the maximum number of concurrent connection attempts and
+             * the number of connections to open as soon as a host becomes available.
+             *
+             * @param connectionPoolConfig configuration of the connections to each host, or {@code null} to use the
+             * defaults.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> connectionPoolConfig(
+                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+                this.connectionPoolConfig = connectionPoolConfig;
+                return this;
+            }
+
+            /**
+             * Builds a {@link ApertureLoadBalancerFactory} using the properties configured on this builder.
+             *
+             * @return a {@link ApertureLoadBalancerFactory}.
+             */
+            public ApertureLoadBalancerFactory<ResolvedAddress, C> build() {
+                return new ApertureLoadBalancerFactory<>(healthCheckConfig, connectionPoolConfig, peerIndex,
+                        peerCount, minAperture, maxAperture, lowLoad, highLoad);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+
+import static java.lang.Integer.MAX_VALUE;
+
+/**
+ * Configuration of the connections that a {@link LoadBalancer} maintains for each host.
+ * <p>
+ * At most {@link #maxConcurrentConnectsPerHost()} connection attempts are in flight to the same host at any time.
+ * Selections which would need a new connection while this limit is reached wait for one of the pending attempts to
+ * finish and then try again to select a connection, instead of racing on
+ * {@link ConnectionFactory#newConnection(Object, io.servicetalk.transport.api.TransportObserver)}.
+ * <p>
+ * When a {@link ServiceDiscovererEvent} marks a host as available, {@link #minConnectionsPerHost()} connections are
+ * opened to it in the background, one after the other, before any selection needs them.
+ */
+public final class ConnectionPoolConfig {
+    static final int DEFAULT_MAX_CONCURRENT_CONNECTS_PER_HOST = MAX_VALUE;
+    static final int DEFAULT_MIN_CONNECTIONS_PER_HOST = 0;
+
+    private final int maxConcurrentConnectsPerHost;
+    private final int minConnectionsPerHost;
+
+    private ConnectionPoolConfig(final int maxConcurrentConnectsPerHost, final int minConnectionsPerHost) {
+        this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+        this.minConnectionsPerHost = minConnectionsPerHost;
+    }
+
+    /**
+     * Maximum number of connection attempts in flight to the same host.
+     *
+     * @return maximum number of connection attempts in flight to the same host, {@link Integer#MAX_VALUE} if
+     * unbounded.
+     */
+    public int maxConcurrentConnectsPerHost() {
+        return maxConcurrentConnectsPerHost;
+    }
+
+    /**
+     * Number of connections opened to a host as soon as it becomes available.
+     *
+     * @return number of connections opened to a host as soon as it becomes available.
+     */
+    public int minConnectionsPerHost() {
+        return minConnectionsPerHost;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig{" +
+                "maxConcurrentConnectsPerHost=" + maxConcurrentConnectsPerHost +
+                ", minConnectionsPerHost=" + minConnectionsPerHost +
+                '}';
+    }
+
+    /**
+     * A builder of {@link ConnectionPoolConfig}.
+     */
+    public static final class Builder {
+        private int maxConcurrentConnectsPerHost = DEFAULT_MAX_CONCURRENT_CONNECTS_PER_HOST;
+        private int minConnectionsPerHost = DEFAULT_MIN_CONNECTIONS_PER_HOST;
+
+        /**
+         * Sets the maximum number of connection attempts in flight to the same host.
+         *
+         * @param maxConcurrentConnectsPerHost maximum number of connection attempts in flight to the same host.
+         * @return {@code this}.
+         */
+        public Builder maxConcurrentConnectsPerHost(final int maxConcurrentConnectsPerHost) {
+            if (maxConcurrentConnectsPerHost <= 0) {
+                throw new IllegalArgumentException("maxConcurrentConnectsPerHost: " + maxConcurrentConnectsPerHost +
+                        " (expected > 0)");
+            }
+            this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the number of connections opened to a host as soon as it becomes available.
+         *
+         * @param minConnectionsPerHost number of connections opened to a host as soon as it becomes available.
+         * @return {@code this}.
+         */
+        public Builder minConnectionsPerHost(final int minConnectionsPerHost) {
+            if (minConnectionsPerHost < 0) {
+                throw new IllegalArgumentException("minConnectionsPerHost: " + minConnectionsPerHost +
+                        " (expected >= 0)");
+            }
+            this.minConnectionsPerHost = minConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link ConnectionPoolConfig}.
+         *
+         * @return a new {@link ConnectionPoolConfig}.
+         */
+        public ConnectionPoolConfig build() {
+            return new ConnectionPoolConfig(maxConcurrentConnectsPerHost, minConnectionsPerHost);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscoverer;
+import io.servicetalk.concurrent.api.Executor;
+
+import java.time.Duration;
+
+import static java.time.Duration.ofSeconds;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the health checking of hosts in a {@link LoadBalancer}.
+ * <p>
+ * A host is considered unhealthy after {@link #failedConnectionsThreshold()} consecutive failed connection attempts,
+ * after {@link #failedRequestsThreshold()} consecutive failed requests, or when more than {@link #maxFailureRate()} of
+ * its last {@link #failureRateRequestVolume()} requests failed. It is then ejected from the selection until it is
+ * considered healthy again, without waiting for the {@link ServiceDiscoverer} to report it as unavailable. Ejection
+ * ends either when a background probe connection created through the {@link ConnectionFactory} succeeds, or, if
+ * {@link #probeConnections() probing} is disabled, when the ejection interval elapses. Consecutive probe failures or
+ * ejections back off exponentially, starting at {@link #interval()} and up to {@link #maxInterval()}.
+ * <p>
+ * The outcome of requests is only known for connections which track their requests, such as HTTP connections for
+ * which errors and {@code 5xx} responses are failures. Cancelled requests are neither successes nor failures.
+ */
+public final class HealthCheckConfig {
+    static final int DEFAULT_FAILED_CONNECTIONS_THRESHOLD = 5;
+    static final int DEFAULT_FAILED_REQUESTS_THRESHOLD = 5;
+    static final float DEFAULT_MAX_FAILURE_RATE = 1f;
+    static final int DEFAULT_FAILURE_RATE_REQUEST_VOLUME = 100;
+    static final Duration DEFAULT_INTERVAL = ofSeconds(1);
+    static final Duration DEFAULT_JITTER = Duration.ofMillis(200);
+    static final Duration DEFAULT_MAX_INTERVAL = ofSeconds(30);
+
+    private final Executor executor;
+    private final int failedConnectionsThreshold;
+    private final int failedRequestsThreshold;
+    private final float maxFailureRate;
+    private final int failureRateRequestVolume;
+    private final Duration interval;
+    private final Duration jitter;
+    private final Duration maxInterval;
+    private final boolean probeConnections;
+
+    private HealthCheckConfig(final Executor executor, final int failedConnectionsThreshold,
+                              final int failedRequestsThreshold, final float maxFailureRate,
+                              final int failureRateRequestVolume, final Duration interval, final Duration jitter,
+                              final Duration maxInterval, final boolean probeConnections) {
+        this.executor = executor;
+        this.failedConnectionsThreshold = failedConnectionsThreshold;
+        this.failedRequestsThreshold = failedRequestsThreshold;
+        this.maxFailureRate = maxFailureRate;
+        this.failureRateRequestVolume = failureRateRequestVolume;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.maxInterval = maxInterval;
+        this.probeConnections = probeConnections;
+    }
+
+    /**
+     * {@link Executor} used to schedule ejection timers and background probes.
+     *
+     * @return {@link Executor} used to schedule ejection timers and background probes.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Number of consecutive failed connection attempts after which a host is considered unhealthy.
+     *
+     * @return number of consecutive failed connection attempts after which a host is considered unhealthy.
+     */
+    public int failedConnectionsThreshold() {
+        return failedConnectionsThreshold;
+    }
+
+    /**
+     * Number of consecutive failed requests after which a host is considered unhealthy.
+     *
+     * @return number of consecutive failed requests after which a host is considered unhealthy.
+     */
+    public int failedRequestsThreshold() {
+        return failedRequestsThreshold;
+    }
+
+    /**
+     * Share of failed requests, among the last {@link #failureRateRequestVolume()} requests, above which a host is
+     * considered unhealthy. A value of {@code 1} disables the failure rate check.
+     *
+     * @return share of failed requests above which a host is considered unhealthy, in {@code [0, 1]}.
+     */
+    public float maxFailureRate() {
+        return maxFailureRate;
+    }
+
+    /**
+     * Number of requests over which the failure rate of a host is computed.
+     *
+     * @return number of requests over which the failure rate of a host is computed.
+     */
+    public int failureRateRequestVolume() {
+        return failureRateRequestVolume;
+    }
+
+    /**
+     * Initial interval between the ejection of a host and the first attempt to readmit it.
+     *
+     * @return initial interval between the ejection of a host and the first attempt to readmit it.
+     */
+    public Duration interval() {
+        return interval;
+    }
+
+    /**
+     * Jitter applied to each interval.
+     *
+     * @return jitter applied to each interval.
+     */
+    public Duration jitter() {
+        return jitter;
+    }
+
+    /**
+     * Maximum interval between attempts to readmit a host.
+     *
+     * @return maximum interval between attempts to readmit a host.
+     */
+    public Duration maxInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * Whether a host is readmitted only after a successful background probe connection.
+     *
+     * @return {@code true} if a host is readmitted only after a successful background probe connection,
+     * {@code false} if it is readmitted when the ejection interval elapses.
+     */
+    public boolean probeConnections() {
+        return probeConnections;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthCheckConfig{" +
+                "executor=" + executor +
+                ", failedConnectionsThreshold=" + failedConnectionsThreshold +
+                ", failedRequestsThreshold=" + failedRequestsThreshold +
+                ", maxFailureRate=" + maxFailureRate +
+                ", failureRateRequestVolume=" + failureRateRequestVolume +
+                ", interval=" + interval +
+                ", jitter=" + jitter +
+                ", maxInterval=" + maxInterval +
+                ", probeConnections=" + probeConnections +
+                '}';
+    }
+
+    /**
+     * A builder of {@link HealthCheckConfig}.
+     */
+    public static final class Builder {
+        private final Executor executor;
+        private int failedConnectionsThreshold = DEFAULT_FAILED_CONNECTIONS_THRESHOLD;
+        private int failedRequestsThreshold = DEFAULT_FAILED_REQUESTS_THRESHOLD;
+        private float maxFailureRate = DEFAULT_MAX_FAILURE_RATE;
+        private int failureRateRequestVolume = DEFAULT_FAILURE_RATE_REQUEST_VOLUME;
+        private Duration interval = DEFAULT_INTERVAL;
+        private Duration jitter = DEFAULT_JITTER;
+        private Duration maxInterval = DEFAULT_MAX_INTERVAL;
+        private boolean probeConnections = true;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param executor {@link Executor} used to schedule ejection timers and background probes.
+         */
+        public Builder(final Executor executor) {
+            this.executor = requireNonNull(executor);
+        }
+
+        /**
+         * Sets the number of consecutive failed connection attempts after which a host is considered unhealthy.
+         *
+         * @param failedConnectionsThreshold number of consecutive failed connection attempts after which a host is
+         * considered unhealthy.
+         * @return {@code this}.
+         */
+        public Builder failedConnectionsThreshold(final int failedConnectionsThreshold) {
+            if (failedConnectionsThreshold <= 0) {
+                throw new IllegalArgumentException("failedConnectionsThreshold: " + failedConnectionsThreshold +
+                        " (expected > 0)");
+            }
+            this.failedConnectionsThreshold = failedConnectionsThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive failed requests after which a host is considered unhealthy.
+         *
+         * @param failedRequestsThreshold number of consecutive failed requests after which a host is considered
+         * unhealthy.
+         * @return {@code this}.
+         */
+        public Builder failedRequestsThreshold(final int failedRequestsThreshold) {
+            if (failedRequestsThreshold <= 0) {
+                throw new IllegalArgumentException("failedRequestsThreshold: " + failedRequestsThreshold +
+                        " (expected > 0)");
+            }
+            this.failedRequestsThreshold = failedRequestsThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the share of failed requests above which a host is considered unhealthy, and the number of requests
+         * over which it is computed. By default the failure rate is not checked.
+         *
+         * @param maxFailureRate share of failed requests above which a host is considered unhealthy, {@code 1}
+         * disables the failure rate check.
+         * @param requestVolume number of requests over which the failure rate of a host is computed.
+         * @return {@code this}.
+         */
+        public Builder failureRate(final float maxFailureRate, final int requestVolume) {
+            if (maxFailureRate < 0 || maxFailureRate > 1) {
+                throw new IllegalArgumentException("maxFailureRate: " + maxFailureRate +
+                        " (expected >= 0 and <= 1)");
+            }
+            if (requestVolume <= 0) {
+                throw new IllegalArgumentException("requestVolume: " + requestVolume + " (expected > 0)");
+            }
+            this.maxFailureRate = maxFailureRate;
+            this.failureRateRequestVolume = requestVolume;
+            return this;
+        }
+
+        /**
+         * Sets the initial interval between the ejection of a host and the first attempt to readmit it, and the jitter
+         * applied to each interval.
+         *
+         * @param interval initial interval between the ejection of a host and the first attempt to readmit it.
+         * @param jitter jitter applied to each interval.
+         * @return {@code this}.
+         */
+        public Builder interval(final Duration interval, final Duration jitter) {
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval: " + interval + " (expected > 0)");
+            }
+            if (jitter.isNegative() || jitter.compareTo(interval) > 0) {
+                throw new IllegalArgumentException("jitter: " + jitter + " (expected >= 0 and <= interval)");
+            }
+            this.interval = interval;
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the maximum interval between attempts to readmit a host.
+         *
+         * @param maxInterval maximum interval between attempts to readmit a host.
+         * @return {@code this}.
+         */
+        public Builder maxInterval(final Duration maxInterval) {
+            if (maxInterval.isNegative() || maxInterval.isZero()) {
+                throw new IllegalArgumentException("maxInterval: " + maxInterval + " (expected > 0)");
+            }
+            this.maxInterval = maxInterval;
+            return this;
+        }
+
+        /**
+         * Sets whether a host is readmitted only after a successful background probe connection, or as soon as the
+         * ejection interval elapses.
+         *
+         * @param probeConnections {@code true} to readmit a host only after a successful background probe connection.
+         * @return {@code this}.
+         */
+        public Builder probeConnections(final boolean probeConnections) {
+            this.probeConnections = probeConnections;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link HealthCheckConfig}.
+         *
+         * @return a new {@link HealthCheckConfig}.
+         */
+        public HealthCheckConfig build() {
+            if (maxInterval.compareTo(interval) < 0) {
+                throw new IllegalArgumentException("maxInterval: " + maxInterval + " (expected >= interval " +
+                        interval + ")");
+            }
+            return new HealthCheckConfig(executor, failedConnectionsThreshold, failedRequestsThreshold,
+                    maxFailureRate, failureRateRequestVolume, interval, jitter, maxInterval, probeConnections);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.WeightedServiceDiscovererEvent;
+import io.servicetalk.client.api.internal.RequestOutcomeListener;
+import io.servicetalk.client.api.internal.RequestTracker;
+import io.servicetalk.client.api.internal.RequestTrackerSupplier;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.CompletableSource;
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Completable.failed;
+import static io.servicetalk.concurrent.api.Completable.mergeAllDelayError;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.ThreadLocalRandom.current;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A resolved address and the connections that a {@link AbstractLoadBalancer} opened to it.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class Host<Addr, C extends LoadBalancedConnection>
+        implements AsyncCloseable, ScoreSupplier, RequestOutcomeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Host.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Host> failedConnectionsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "failedConnections");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Host> failedRequestsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "failedRequests");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Host> windowRequestsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "windowRequests");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Host> windowFailedRequestsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "windowFailedRequests");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Host, HealthCheck> healthCheckUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, HealthCheck.class, "healthCheck");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Host> pendingConnectsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "pendingConnects");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Host, CompletableSource.Processor> connectWaitersUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, CompletableSource.Processor.class, "connectWaiters");
+
+    final Addr address;
+    /**
+     * Locality of the address, as reported by a {@link WeightedServiceDiscovererEvent}, or {@code null} if unknown.
+     */
+    @Nullable
+    final String locality;
+    /**
+     * Weight of the address relative to other addresses, {@code 1} unless reported by a
+     * {@link WeightedServiceDiscovererEvent}.
+     */
+    final int weight;
+    /**
+     * Priority class of the address, lower values are preferred. {@code 0} unless reported by a
+     * {@link WeightedServiceDiscovererEvent}.
+     */
+    final int priority;
+    private final ConnectionFactory<Addr, ? extends C> connectionFactory;
+    @Nullable
+    private final HealthCheckConfig healthCheckConfig;
+    // Mutations are synchronized on "this".
+    private final IndexedArray<C> connections = new IndexedArray<>();
+    private volatile boolean inactive;
+    private volatile int failedConnections;
+    private volatile int failedRequests;
+    /**
+     * Number of requests, and of failed requests, in the current window of
+     * {@link HealthCheckConfig#failureRateRequestVolume()} requests.
+     */
+    private volatile int windowRequests;
+    private volatile int windowFailedRequests;
+    /**
+     * Number of consecutive ejections without a successful connection in between, used to back off ejections when
+     * {@link HealthCheckConfig#probeConnections()} is disabled.
+     */
+    private volatile int ejections;
+    @Nullable
+    private volatile HealthCheck<Addr, C> healthCheck;
+    private volatile int pendingConnects;
+    /**
+     * Completed, and replaced, every time a connection attempt finishes. Selections which are not allowed to start a
+     * new connection attempt subscribe to it to try again once one of the pending attempts has finished.
+     */
+    private volatile CompletableSource.Processor connectWaiters = newCompletableProcessor();
+    /**
+     * The next host with the same address in a {@link HostTable}, only accessed while holding its lock.
+     */
+    @Nullable
+    Host<Addr, C> nextDuplicate;
+
+    Host(Addr address, @Nullable String locality, int weight, int priority,
+         ConnectionFactory<Addr, ? extends C> connectionFactory, @Nullable HealthCheckConfig healthCheckConfig) {
+        this.address = requireNonNull(address);
+        this.locality = locality;
+        this.weight = weight;
+        this.priority = priority;
+        this.connectionFactory = connectionFactory;
+        this.healthCheckConfig = healthCheckConfig;
+    }
+
+    /**
+     * Returns the connections to this host. Reads are lock-free and may observe concurrently removed connections as
+     * {@code null}, see {@link IndexedArray}.
+     *
+     * @return the connections to this host.
+     */
+    IndexedArray<C> connections() {
+        return connections;
+    }
+
+    void markInactive() {
+        final List<C> toRemove = deactivate();
+        cancelHealthCheck();
+        notifyConnectWaiters();
+        LOGGER.debug("Closing {} connection(s) gracefully to inactive address: {}", toRemove.size(), address);
+        for (C conn : toRemove) {
+            conn.closeAsyncGracefully().subscribe();
+        }
+    }
+
+    boolean isInactive() {
+        return inactive;
+    }
+
+    /**
+     * Gracefully closes all current connections to this host, while keeping it active.
+     */
+    void closeConnectionsGracefully() {
+        final List<C> toClose;
+        synchronized (this) {
+            if (inactive) {
+                return;
+            }
+            toClose = connections.clear();
+        }
+        LOGGER.debug("Closing {} connection(s) gracefully to address: {}", toClose.size(), address);
+        for (C conn : toClose) {
+            conn.closeAsyncGracefully().subscribe();
+        }
+    }
+
+    private synchronized List<C> deactivate() {
+        if (inactive) {
+            return emptyList();
+        }
+        inactive = true;
+        return connections.clear();
+    }
+
+    /**
+     * Whether this host can be selected, that is it has not been ejected after connection or request failures.
+     *
+     * @return {@code true} if this host can be selected.
+     */
+    boolean isHealthy() {
+        return healthCheck == null;
+    }
+
+    /**
+     * Must be called when a connection to this host was successfully established.
+     */
+    void onConnectSuccess() {
+        if (failedConnections != 0) {
+            failedConnections = 0;
+        }
+        if (ejections != 0) {
+            ejections = 0;
+        }
+    }
+
+    /**
+     * Must be called when establishing a connection to this host failed.
+     *
+     * @param cause the cause of the failure.
+     */
+    void onConnectFailure(final Throwable cause) {
+        final HealthCheckConfig config = healthCheckConfig;
+        if (config == null ||
+                failedConnectionsUpdater.incrementAndGet(this) < config.failedConnectionsThreshold()) {
+            return;
+        }
+        if (eject(config)) {
+            LOGGER.info("Host {} is unhealthy after {} consecutive connection failures, ejecting it.", address,
+                    failedConnections, cause);
+        }
+    }
+
+    @Override
+    public void onRequestSucceeded() {
+        final HealthCheckConfig config = healthCheckConfig;
+        if (config == null) {
+            return;
+        }
+        if (failedRequests != 0) {
+            failedRequests = 0;
+        }
+        updateFailureRate(config, false);
+    }
+
+    @Override
+    public void onRequestFailed() {
+        final HealthCheckConfig config = healthCheckConfig;
+        if (config == null) {
+            return;
+        }
+        final int failed = failedRequestsUpdater.incrementAndGet(this);
+        if (failed >= config.failedRequestsThreshold() && eject(config)) {
+            LOGGER.info("Host {} is unhealthy after {} consecutive request failures, ejecting it.", address, failed);
+        }
+        updateFailureRate(config, true);
+    }
+
+    private void updateFailureRate(final HealthCheckConfig config, final boolean failed) {
+        if (config.maxFailureRate() >= 1) {
+            return;
+        }
+        if (failed) {
+            windowFailedRequestsUpdater.incrementAndGet(this);
+        }
+        final int volume = config.failureRateRequestVolume();
+        if (windowRequestsUpdater.incrementAndGet(this) != volume) {
+            return;
+        }
+        // Counters are not updated atomically together, concurrent requests may be accounted in the next window
+        // instead of this one, which is acceptable for outlier detection.
+        windowRequestsUpdater.addAndGet(this, -volume);
+        final int windowFailed = windowFailedRequestsUpdater.getAndSet(this, 0);
+        if (windowFailed > config.maxFailureRate() * volume && eject(config)) {
+            LOGGER.info("Host {} is unhealthy after {} of its last {} requests failed, ejecting it.", address,
+                    windowFailed, volume);
+        }
+    }
+
+    /**
+     * Ejects this host, unless it is already ejected.
+     *
+     * @param config configuration of the health check which readmits this host.
+     * @return {@code true} if this host was ejected by this call.
+     */
+    private boolean eject(final HealthCheckConfig config) {
+        if (healthCheck != null) {
+            return false;
+        }
+        final HealthCheck<Addr, C> newHealthCheck = new HealthCheck<>(this, config);
+        if (!healthCheckUpdater.compareAndSet(this, null, newHealthCheck)) {
+            return false;
+        }
+        newHealthCheck.start();
+        if (isInactive()) {
+            // Raced with markInactive() or close, make sure the health check does not outlive this host.
+            cancelHealthCheck();
+        }
+        return true;
+    }
+
+    /**
+     * Returns a source which completes when one of the connection attempts to this host, pending at the time of this
+     * call, finishes. Must be called <strong>before</strong> {@link #tryAcquireConnect(int)} to not miss the
+     * completion of an attempt which finishes concurrently.
+     *
+     * @return a source which completes when one of the pending connection attempts finishes.
+     */
+    CompletableSource connectWaiters() {
+        return connectWaiters;
+    }
+
+    /**
+     * Tries to start a new connection attempt to this host. If successful, {@link #releaseConnect()} must be called
+     * when the attempt finishes.
+     *
+     * @param maxConcurrentConnects maximum number of connection attempts in flight to this host.
+     * @return {@code true} if a new connection attempt can be started.
+     */
+    boolean tryAcquireConnect(final int maxConcurrentConnects) {
+        for (;;) {
+            final int pending = pendingConnects;
+            if (pending >= maxConcurrentConnects) {
+                return false;
+            }
+            if (pendingConnectsUpdater.compareAndSet(this, pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Starts a new connection attempt to this host regardless of the number of attempts already in flight.
+     * {@link #releaseConnect()} must be called when the attempt finishes.
+     */
+    void acquireConnect() {
+        pendingConnectsUpdater.incrementAndGet(this);
+    }
+
+    /**
+     * Must be called when a connection attempt started by {@link #tryAcquireConnect(int)} or {@link #acquireConnect()}
+     * finishes, regardless of its outcome.
+     */
+    void releaseConnect() {
+        pendingConnectsUpdater.decrementAndGet(this);
+        notifyConnectWaiters();
+    }
+
+    private void notifyConnectWaiters() {
+        connectWaitersUpdater.getAndSet(this, newCompletableProcessor()).onComplete();
+    }
+
+    private void cancelHealthCheck() {
+        final HealthCheck<?, ?> current = healthCheckUpdater.getAndSet(this, null);
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    boolean addConnection(C connection) {
+        synchronized (this) {
+            if (inactive) {
+                return false;
+            }
+            connections.add(connection);
+        }
+        if (healthCheckConfig != null && connection instanceof RequestTrackerSupplier) {
+            final RequestTracker requestTracker = ((RequestTrackerSupplier) connection).requestTracker();
+            if (requestTracker != null) {
+                requestTracker.outcomeListener(this);
+            }
+        }
+
+        // Instrument the new connection so we prune it on close
+        connection.onClose().beforeFinally(() -> {
+            synchronized (this) {
+                if (!inactive) {
+                    connections.remove(connection);
+                }
+            }
+        }).subscribe();
+        return true;
+    }
+
+    /**
+     * The score of a host is the average {@link LoadBalancedConnection#score() score} of its connections. A host
+     * without connections has the maximum score, as nothing is known about its load yet.
+     *
+     * @return the average score of the connections to this host.
+     */
+    @Override
+    public int score() {
+        final int size = connections.size();
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < size; ++i) {
+            final C connection = connections.get(i);
+            if (connection != null) {
+                sum += connection.score();
+                ++count;
+            }
+        }
+        return count == 0 ? MAX_VALUE : (int) (sum / count);
+    }
+
+    // Used for testing only
+    Entry<Addr, List<C>> asEntry() {
+        return new SimpleImmutableEntry<>(address, connections.toList());
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return doClose(AsyncCloseable::closeAsync);
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return doClose(AsyncCloseable::closeAsyncGracefully);
+    }
+
+    private Completable doClose(final Function<? super C, Completable> closeFunction) {
+        return defer(() -> {
+            final List<C> toClose = deactivate();
+            cancelHealthCheck();
+            notifyConnectWaiters();
+            return succeeded(toClose);
+        }).flatMapCompletable(list -> mergeAllDelayError(list.stream().map(closeFunction)::iterator));
+    }
+
+    @Override
+    public String toString() {
+        return "Host{" +
+                "address=" + address +
+                (locality == null ? "" : ", locality=" + locality) +
+                (weight == 1 ? "" : ", weight=" + weight) +
+                (priority == 0 ? "" : ", priority=" + priority) +
+                ", removed=" + inactive +
+                ", healthy=" + (healthCheck == null) +
+                '}';
+    }
+
+    /**
+     * Keeps a {@link Host} ejected until it is readmitted, either by a successful probe connection or after a back-off
+     * interval.
+     *
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    private static final class HealthCheck<Addr, C extends LoadBalancedConnection> implements Cancellable {
+        private final Host<Addr, C> host;
+        private final HealthCheckConfig config;
+        private final SequentialCancellable cancellable = new SequentialCancellable();
+
+        HealthCheck(final Host<Addr, C> host, final HealthCheckConfig config) {
+            this.host = host;
+            this.config = config;
+        }
+
+        void start() {
+            final Completable readmit;
+            if (config.probeConnections()) {
+                // This LB implementation does not automatically provide TransportObserver. Therefore, we pass "null"
+                // here, consistently with the connections created for selection.
+                readmit = config.executor().timer(backoffNanos(0), NANOSECONDS)
+                        .concat(defer(() -> host.connectionFactory.newConnection(host.address, null))
+                                .flatMapCompletable(newCnx -> host.addConnection(newCnx) ? completed() :
+                                        newCnx.closeAsync())
+                                .retryWhen((count, cause) -> host.isInactive() ? failed(cause) :
+                                        config.executor().timer(backoffNanos(count), NANOSECONDS)));
+            } else {
+                // Only the thread which won the race to start a HealthCheck updates the number of ejections.
+                final int ejections = host.ejections;
+                host.ejections = ejections + 1;
+                readmit = config.executor().timer(backoffNanos(ejections), NANOSECONDS);
+            }
+            cancellable.nextCancellable(readmit.subscribe(this::readmit));
+        }
+
+        private long backoffNanos(final int attempt) {
+            final long intervalNanos = config.interval().toNanos();
+            final long delayNanos = min(config.maxInterval().toNanos(),
+                    intervalNanos << min(attempt, Long.numberOfLeadingZeros(intervalNanos) - 1));
+            final long jitterNanos = config.jitter().toNanos();
+            return jitterNanos == 0 ? delayNanos :
+                    current().nextLong(max(0, delayNanos - jitterNanos), delayNanos + jitterNanos);
+        }
+
+        private void readmit() {
+            host.failedConnections = 0;
+            host.failedRequests = 0;
+            host.windowRequests = 0;
+            host.windowFailedRequests = 0;
+            if (healthCheckUpdater.compareAndSet(host, this, null)) {
+                LOGGER.info("Host {} is healthy again, readmitting it.", host.address);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancellable.cancel();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The active {@link Host}s of a {@link AbstractLoadBalancer}, indexed by address.
+ * <p>
+ * Reads are lock-free and follow the semantics of {@link IndexedArray}. Mutations cost {@code O(1)} regardless of the
+ * number of hosts, and are synchronized on this table so that they are atomic with respect to {@link #close()}.
+ * <p>
+ * The same address can be added multiple times, each time as a distinct {@link Host}. Removing an address removes the
+ * {@link Host} which was added first.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class HostTable<Addr, C extends LoadBalancedConnection> {
+    private final IndexedArray<Host<Addr, C>> hosts = new IndexedArray<>();
+    // Guarded by "this". The value is the first host added for an address, followed by its duplicates.
+    private final Map<Addr, Host<Addr, C>> hostsByAddress = new HashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Returns the number of hosts.
+     *
+     * @return the number of hosts.
+     */
+    int size() {
+        return hosts.size();
+    }
+
+    /**
+     * Returns the host at {@code index}.
+     *
+     * @param index the index of the host, expected to be less than a previously read {@link #size()}.
+     * @return the host at {@code index}, or {@code null} if it has been concurrently removed.
+     */
+    @Nullable
+    Host<Addr, C> get(final int index) {
+        return hosts.get(index);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Adds a host.
+     *
+     * @param host the host to add.
+     * @return the number of hosts after the addition, or {@code -1} if this table is closed.
+     */
+    synchronized int add(final Host<Addr, C> host) {
+        if (closed) {
+            return -1;
+        }
+        final Host<Addr, C> first = hostsByAddress.putIfAbsent(host.address, host);
+        if (first != null) {
+            Host<Addr, C> last = first;
+            while (last.nextDuplicate != null) {
+                last = last.nextDuplicate;
+            }
+            last.nextDuplicate = host;
+        }
+        hosts.add(host);
+        return hosts.size();
+    }
+
+    /**
+     * Removes the host which was added first for {@code address}.
+     *
+     * @param address the address to remove.
+     * @return the removed host, or {@code null} if there is no host for {@code address}.
+     */
+    @Nullable
+    synchronized Host<Addr, C> remove(final Addr address) {
+        final Host<Addr, C> host = hostsByAddress.get(address);
+        if (host == null) {
+            return null;
+        }
+        final Host<Addr, C> next = host.nextDuplicate;
+        if (next == null) {
+            hostsByAddress.remove(address);
+        } else {
+            hostsByAddress.put(address, next);
+            host.nextDuplicate = null;
+        }
+        hosts.remove(host);
+        return host;
+    }
+
+    /**
+     * Closes this table, no host can be added afterwards.
+     *
+     * @return the hosts which were active when this table was closed.
+     */
+    synchronized List<Host<Addr, C>> close() {
+        closed = true;
+        hostsByAddress.clear();
+        return hosts.clear();
+    }
+
+    /**
+     * Returns a snapshot of the hosts.
+     *
+     * @return a snapshot of the hosts.
+     */
+    synchronized List<Host<Addr, C>> toList() {
+        return hosts.toList();
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.max;
+
+/**
+ * An unordered array of elements which supports lock-free random access reads and {@code O(1)} additions and
+ * removals.
+ * <p>
+ * Mutations are not thread-safe and must be externally synchronized. Reads may be performed concurrently with
+ * mutations, in which case they observe the array either before or after each individual mutation. In particular,
+ * {@link #get(int)} may return {@code null} for an index below a previously read {@link #size()} if an element has been
+ * removed in the meantime, and an element moved by a concurrent removal may be observed at two indexes.
+ * <p>
+ * Removal swaps the removed element with the last one, hence the order of the elements is only preserved as long as no
+ * element is removed.
+ *
+ * @param <T> The type of elements.
+ */
+final class IndexedArray<T> {
+    private static final int MIN_CAPACITY = 4;
+
+    // Positions are only accessed by the thread which holds the external lock.
+    private final IdentityHashMap<T, Integer> positions = new IdentityHashMap<>();
+    private volatile AtomicReferenceArray<T> elements = new AtomicReferenceArray<>(MIN_CAPACITY);
+    private volatile int size;
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the element at {@code index}.
+     *
+     * @param index the index of the element, expected to be less than a previously read {@link #size()}.
+     * @return the element at {@code index}, or {@code null} if it has been concurrently removed.
+     */
+    @Nullable
+    T get(final int index) {
+        final AtomicReferenceArray<T> elements = this.elements;
+        return index < elements.length() ? elements.get(index) : null;
+    }
+
+    /**
+     * Adds an element. Must be externally synchronized.
+     *
+     * @param element the element to add.
+     * @return {@code false} if {@code element} was already present.
+     */
+    boolean add(final T element) {
+        final int size = this.size;
+        if (positions.putIfAbsent(element, size) != null) {
+            return false;
+        }
+        AtomicReferenceArray<T> elements = this.elements;
+        if (size == elements.length()) {
+            elements = resize(elements, size, size << 1);
+        }
+        elements.set(size, element);
+        this.size = size + 1;
+        return true;
+    }
+
+    /**
+     * Removes an element. Must be externally synchronized.
+     *
+     * @param element the element to remove.
+     * @return {@code false} if {@code element} was not present.
+     */
+    boolean remove(final T element) {
+        final Integer position = positions.remove(element);
+        if (position == null) {
+            return false;
+        }
+        final int last = size - 1;
+        AtomicReferenceArray<T> elements = this.elements;
+        if (position != last) {
+            final T moved = elements.get(last);
+            assert moved != null;
+            // Write the moved element first, concurrent readers may observe it twice but never miss it.
+            elements.set(position, moved);
+            positions.put(moved, position);
+        }
+        elements.set(last, null);
+        size = last;
+        if (last <= elements.length() >>> 2 && elements.length() > MIN_CAPACITY) {
+            resize(elements, last, max(MIN_CAPACITY, elements.length() >>> 1));
+        }
+        return true;
+    }
+
+    /**
+     * Removes all elements. Must be externally synchronized.
+     *
+     * @return the removed elements.
+     */
+    List<T> clear() {
+        final List<T> removed = toList();
+        positions.clear();
+        size = 0;
+        elements = new AtomicReferenceArray<>(MIN_CAPACITY);
+        return removed;
+    }
+
+    /**
+     * Returns a snapshot of the elements. Must be externally synchronized to get a consistent snapshot.
+     *
+     * @return a snapshot of the elements.
+     */
+    List<T> toList() {
+        final AtomicReferenceArray<T> elements = this.elements;
+        final int size = this.size;
+        final List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            final T element = elements.get(i);
+            if (element != null) {
+                list.add(element);
+            }
+        }
+        return list;
+    }
+
+    private AtomicReferenceArray<T> resize(final AtomicReferenceArray<T> elements, final int size,
+                                           final int capacity) {
+        final AtomicReferenceArray<T> resized = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < size; ++i) {
+            resized.lazySet(i, elements.get(i));
+        }
+        // The volatile write publishes the copied elements to readers.
+        this.elements = resized;
+        return resized;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
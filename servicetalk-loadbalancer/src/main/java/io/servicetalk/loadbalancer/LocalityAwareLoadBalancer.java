@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.client.api.WeightedServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.loadbalancer.WeightedHosts.isSelectable;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * A {@link LoadBalancer} that prefers addresses in the same locality as the client, as reported by
+ * {@link WeightedServiceDiscovererEvent#locality()}. It has the following behaviour:
+ * <ul>
+ * <li>As long as enough local addresses are healthy, all selections use local addresses. Local addresses are selected
+ * with the power of two choices strategy: two distinct local addresses are picked at random and the one with the
+ * higher {@link ScoreSupplier#score() score} is used.</li>
+ * <li>The share of selections which use local addresses is the healthy share of the local
+ * {@link WeightedServiceDiscovererEvent#weight() weight}, multiplied by an over-provisioning factor and capped to
+ * {@code 1}. Remaining selections spill over to the addresses of other localities, picked at random proportionally to
+ * their weight.</li>
+ * <li>A local address with at least a configured number of connections is considered overloaded, in which case the
+ * selection also spills over to other localities.</li>
+ * <li>Addresses discovered with a plain {@link ServiceDiscovererEvent} have an unknown locality and a weight of
+ * {@code 1}.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>Health checking of hosts is configured with a {@link HealthCheckConfig} on the
+ * {@link LocalityAwareLoadBalancerFactory.Builder}, without it addresses are only considered unhealthy once the
+ * {@link io.servicetalk.client.api.ServiceDiscoverer} reports them as unavailable.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class LocalityAwareLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        extends AbstractLoadBalancer<ResolvedAddress, C> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<LocalityAwareLoadBalancer> selectionsUpdater =
+            newUpdater(LocalityAwareLoadBalancer.class, "selections");
+
+    static final float DEFAULT_OVERPROVISIONING_FACTOR = 1.4f;
+
+    /**
+     * Number of selections between two evaluations of the share of healthy local weight, must be a power of 2.
+     */
+    private static final int LOCAL_SHARE_EVALUATION_INTERVAL = 64;
+
+    private final String locality;
+    private final float overprovisioningFactor;
+    private final int overloadedConnectionsPerHost;
+
+    // Mutations are guarded by "localHosts" and only happen on SD events.
+    private final IndexedArray<Host<ResolvedAddress, C>> localHosts = new IndexedArray<>();
+    private final WeightedHosts<ResolvedAddress, C> remoteHosts = new WeightedHosts<>();
+    private volatile float localShare = 1;
+    @SuppressWarnings("unused")
+    private volatile int selections;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher Stream of {@link ServiceDiscovererEvent}s with which this balancer is updated.
+     * @param connectionFactory {@link ConnectionFactory} that creates connections to the resolved addresses.
+     * @param locality the locality of the client, compared to {@link WeightedServiceDiscovererEvent#locality()}.
+     */
+    public LocalityAwareLoadBalancer(
+            final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+            final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory, final String locality) {
+        this(eventPublisher, connectionFactory, null, null, requireNonNull(locality), DEFAULT_OVERPROVISIONING_FACTOR,
+                Integer.MAX_VALUE);
+    }
+
+    LocalityAwareLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                              final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                              @Nullable final HealthCheckConfig healthCheckConfig,
+                              @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                              final String locality, final float overprovisioningFactor,
+                              final int overloadedConnectionsPerHost) {
+        super(eventPublisher, connectionFactory, healthCheckConfig, connectionPoolConfig);
+        this.locality = locality;
+        this.overprovisioningFactor = overprovisioningFactor;
+        this.overloadedConnectionsPerHost = overloadedConnectionsPerHost;
+        start();
+    }
+
+    @Override
+    void onHostAdded(final Host<ResolvedAddress, C> host) {
+        if (locality.equals(host.locality)) {
+            synchronized (localHosts) {
+                localHosts.add(host);
+            }
+            evaluateLocalShare();
+        } else {
+            remoteHosts.add(host);
+        }
+    }
+
+    @Override
+    void onHostRemoved(final Host<ResolvedAddress, C> host) {
+        if (locality.equals(host.locality)) {
+            synchronized (localHosts) {
+                localHosts.remove(host);
+            }
+            evaluateLocalShare();
+        } else {
+            remoteHosts.remove(host);
+        }
+    }
+
+    @Nullable
+    @Override
+    Host<ResolvedAddress, C> selectHost(final HostTable<ResolvedAddress, C> activeHosts) {
+        if ((selectionsUpdater.incrementAndGet(this) & (LOCAL_SHARE_EVALUATION_INTERVAL - 1)) == 0) {
+            evaluateLocalShare();
+        }
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Host<ResolvedAddress, C> localHost = null;
+        if (localHosts.size() != 0) {
+            final float localShare = this.localShare;
+            if (localShare >= 1 || rnd.nextFloat() < localShare) {
+                localHost = selectLocal(localHosts, rnd);
+                if (localHost != null && localHost.connections().size() < overloadedConnectionsPerHost) {
+                    return localHost;
+                }
+            }
+        }
+        final Host<ResolvedAddress, C> remoteHost = remoteHosts.select(rnd);
+        if (remoteHost != null) {
+            return remoteHost;
+        }
+        // Nothing to spill over to, prefer an overloaded local host to failing the selection.
+        return localHost != null ? localHost : randomHealthyHost(activeHosts);
+    }
+
+    // Visible for testing
+    float localShare() {
+        return localShare;
+    }
+
+    @Nullable
+    private static <ResolvedAddress, C extends LoadBalancedConnection> Host<ResolvedAddress, C> selectLocal(
+            final IndexedArray<Host<ResolvedAddress, C>> local, final ThreadLocalRandom rnd) {
+        final int size = local.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            final Host<ResolvedAddress, C> host = local.get(0);
+            return host != null && isSelectable(host) ? host : null;
+        }
+        final int first = rnd.nextInt(size);
+        int second = rnd.nextInt(size - 1);
+        if (second >= first) {
+            ++second;
+        }
+        // Hosts may be concurrently removed, in which case they are treated as not selectable.
+        final Host<ResolvedAddress, C> firstHost = local.get(first);
+        final Host<ResolvedAddress, C> secondHost = local.get(second);
+        if (firstHost == null || !isSelectable(firstHost)) {
+            return secondHost != null && isSelectable(secondHost) ? secondHost :
+                    nextSelectableHost(local, first + 1);
+        } else if (secondHost == null || !isSelectable(secondHost)) {
+            return firstHost;
+        }
+        return firstHost.score() >= secondHost.score() ? firstHost : secondHost;
+    }
+
+    /**
+     * Computes the share of selections which use local hosts from the healthy share of the local weight. Costs
+     * {@code O(n)} in the number of local hosts, hence it only runs on SD events and periodically on selections.
+     */
+    private void evaluateLocalShare() {
+        long localWeight = 0;
+        long healthyWeight = 0;
+        final int size = localHosts.size();
+        for (int i = 0; i < size; ++i) {
+            final Host<ResolvedAddress, C> host = localHosts.get(i);
+            if (host != null) {
+                localWeight += host.weight;
+                if (isSelectable(host)) {
+                    healthyWeight += host.weight;
+                }
+            }
+        }
+        localShare = localWeight == 0 ? 1 : min(1f, overprovisioningFactor * healthyWeight / localWeight);
+    }
+
+    @Nullable
+    private static <ResolvedAddress, C extends LoadBalancedConnection> Host<ResolvedAddress, C> nextSelectableHost(
+            final IndexedArray<Host<ResolvedAddress, C>> hosts, final int startIndex) {
+        final int size = hosts.size();
+        for (int i = 0; i < size; ++i) {
+            final Host<ResolvedAddress, C> host = hosts.get((startIndex + i) % size);
+            if (host != null && isSelectable(host)) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@link LoadBalancerFactory} for {@link LocalityAwareLoadBalancer}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class LocalityAwareLoadBalancerFactory<ResolvedAddress, C extends LoadBalancedConnection>
+            implements LoadBalancerFactory<ResolvedAddress, C> {
+
+        private final String locality;
+        @Nullable
+        private final HealthCheckConfig healthCheckConfig;
+        @Nullable
+        private final ConnectionPoolConfig connectionPoolConfig;
+        private final float overprovisioningFactor;
+        private final int overloadedConnectionsPerHost;
+
+        private LocalityAwareLoadBalancerFactory(final String locality,
+                                                 @Nullable final HealthCheckConfig healthCheckConfig,
+                                                 @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                                                 final float overprovisioningFactor,
+                                                 final int overloadedConnectionsPerHost) {
+            this.locality = locality;
+            this.healthCheckConfig = healthCheckConfig;
+            this.connectionPoolConfig = connectionPoolConfig;
+            this.overprovisioningFactor = overprovisioningFactor;
+            this.overloadedConnectionsPerHost = overloadedConnectionsPerHost;
+        }
+
+        @Override
+        public <T extends C> LoadBalancer<T> newLoadBalancer(
+                final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
+            return new LocalityAwareLoadBalancer<>(eventPublisher, connectionFactory, healthCheckConfig,
+                    connectionPoolConfig, locality, overprovisioningFactor, overloadedConnectionsPerHost);
+        }
+
+        /**
+         * A builder of {@link LocalityAwareLoadBalancerFactory}.
+         *
+         * @param <ResolvedAddress> The resolved address type.
+         * @param <C> The type of connection.
+         */
+        public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+            private final String locality;
+            @Nullable
+            private HealthCheckConfig healthCheckConfig;
+            @Nullable
+            private ConnectionPoolConfig connectionPoolConfig;
+            private float overprovisioningFactor = DEFAULT_OVERPROVISIONING_FACTOR;
+            private int overloadedConnectionsPerHost = Integer.MAX_VALUE;
+
+            /**
+             * Creates a new instance.
+             *
+             * @param locality the locality of the client, compared to
+             * {@link WeightedServiceDiscovererEvent#locality()}.
+             */
+            public Builder(final String locality) {
+                this.locality = requireNonNull(locality);
+            }
+
+            /**
+             * Sets the factor by which the healthy share of the local weight is multiplied to compute the share of
+             * selections which use local addresses. For example with a factor of {@code 1.4}, all selections stay
+             * local as long as at least ~72% of the local weight is healthy.
+             *
+             * @param overprovisioningFactor the over-provisioning factor of local addresses.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> overprovisioningFactor(final float overprovisioningFactor) {
+                if (overprovisioningFactor < 1) {
+                    throw new IllegalArgumentException("overprovisioningFactor: " + overprovisioningFactor +
+                            " (expected >= 1)");
+                }
+                this.overprovisioningFactor = overprovisioningFactor;
+                return this;
+            }
+
+            /**
+             * Sets the number of connections from which a local address is considered overloaded, selections which
+             * pick an overloaded local address spill over to other localities.
+             *
+             * @param overloadedConnectionsPerHost the number of connections from which a local address is considered
+             * overloaded.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> overloadedConnectionsPerHost(final int overloadedConnectionsPerHost) {
+                if (overloadedConnectionsPerHost <= 0) {
+                    throw new IllegalArgumentException("overloadedConnectionsPerHost: " +
+                            overloadedConnectionsPerHost + " (expected > 0)");
+                }
+                this.overloadedConnectionsPerHost = overloadedConnectionsPerHost;
+                return this;
+            }
+
+            /**
+             * Configures health checking of hosts.
+             *
+             * @param healthCheckConfig configuration of the health checking of hosts, or {@code null} to disable it.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> healthCheckConfig(@Nullable final HealthCheckConfig healthCheckConfig) {
+                this.healthCheckConfig = healthCheckConfig;
+                return this;
+            }
+
+            /**
+             * Configures the connections to each host, such as the maximum number of concurrent connection attempts and
+             * the number of connections to open as soon as a host becomes available.
+             *
+             * @param connectionPoolConfig configuration of the connections to each host, or {@code null} to use the
+             * defaults.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> connectionPoolConfig(
+                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+                this.connectionPoolConfig = connectionPoolConfig;
+                return this;
+            }
+
+            /**
+             * Builds a {@link LocalityAwareLoadBalancerFactory} using the properties configured on this builder.
+             *
+             * @return a {@link LocalityAwareLoadBalancerFactory}.
+             */
+            public LocalityAwareLoadBalancerFactory<ResolvedAddress, C> build() {
+                return new LocalityAwareLoadBalancerFactory<>(locality, healthCheckConfig, connectionPoolConfig,
+                        overprovisioningFactor, overloadedConnectionsPerHost);
+            }
+        }
+    }
+}
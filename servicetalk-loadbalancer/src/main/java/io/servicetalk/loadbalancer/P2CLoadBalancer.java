@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} that uses the power of two choices strategy for selecting addresses. It has the following
+ * behaviour:
+ * <ul>
+ * <li>Two distinct addresses are picked at random and the one with the higher {@link ScoreSupplier#score() score} is
+ * used. The score of an address is the average score of its connections, which for HTTP connections reflects the
+ * number of in-flight requests and an exponentially weighted moving average of their latency.</li>
+ * <li>Addresses without connections have the highest score, hence new addresses are explored eagerly.</li>
+ * <li>Connections are created lazily. Unless a {@link ConnectionPoolConfig} configured on the
+ * {@link P2CLoadBalancerFactory.Builder} bounds the number of concurrent connection attempts per
+ * address, there is no concurrency control on their creation. This can lead to over-provisioning connections when
+ * dealing with a requests surge.</li>
+ * <li>A {@link ConnectionPoolConfig} can also open a minimum number of connections to each address as soon as it
+ * becomes available, to avoid paying the connection establishment latency on the first requests.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>When a {@link HealthCheckConfig} is configured on the {@link P2CLoadBalancerFactory.Builder}, hosts are skipped
+ * after connection or request failures until they are readmitted.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class P2CLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        extends AbstractLoadBalancer<ResolvedAddress, C> {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     */
+    public P2CLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory) {
+        this(eventPublisher, connectionFactory, null, null);
+    }
+
+    P2CLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                    final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                    @Nullable final HealthCheckConfig healthCheckConfig,
+                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+        super(eventPublisher, connectionFactory, healthCheckConfig, connectionPoolConfig);
+        start();
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    P2CLoadBalancerFactory<ResolvedAddress, C> newP2CFactory() {
+        return new P2CLoadBalancerFactory<>();
+    }
+
+    @Nullable
+    @Override
+    Host<ResolvedAddress, C> selectHost(final HostTable<ResolvedAddress, C> activeHosts) {
+        final int size = activeHosts.size();
+        if (size <= 1) {
+            final Host<ResolvedAddress, C> host = size == 0 ? null : activeHosts.get(0);
+            return host != null && host.isHealthy() ? host : null;
+        }
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final int first = rnd.nextInt(size);
+        int second = rnd.nextInt(size - 1);
+        if (second >= first) {
+            ++second;
+        }
+        final Host<ResolvedAddress, C> firstHost = activeHosts.get(first);
+        final Host<ResolvedAddress, C> secondHost = activeHosts.get(second);
+        // Hosts may be concurrently removed, which is treated as if they were unhealthy.
+        if (firstHost == null || !firstHost.isHealthy()) {
+            return secondHost != null && secondHost.isHealthy() ? secondHost :
+                    nextHealthyHost(activeHosts, first + 1);
+        } else if (secondHost == null || !secondHost.isHealthy()) {
+            return firstHost;
+        }
+        return firstHost.score() >= secondHost.score() ? firstHost : secondHost;
+    }
+
+    /**
+     * {@link LoadBalancerFactory} for {@link P2CLoadBalancer}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class P2CLoadBalancerFactory<ResolvedAddress, C extends LoadBalancedConnection>
+            implements LoadBalancerFactory<ResolvedAddress, C> {
+
+        @Nullable
+        private final HealthCheckConfig healthCheckConfig;
+        @Nullable
+        private final ConnectionPoolConfig connectionPoolConfig;
+
+        /**
+         * Creates a new instance without health checking of hosts, using the default {@link ConnectionPoolConfig}.
+         */
+        public P2CLoadBalancerFactory() {
+            this(null, null);
+        }
+
+        private P2CLoadBalancerFactory(@Nullable final HealthCheckConfig healthCheckConfig,
+                                       @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+            this.healthCheckConfig = healthCheckConfig;
+            this.connectionPoolConfig = connectionPoolConfig;
+        }
+
+        @Override
+        public <T extends C> LoadBalancer<T> newLoadBalancer(
+                final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
+            return new P2CLoadBalancer<>(eventPublisher, connectionFactory, healthCheckConfig,
+                    connectionPoolConfig);
+        }
+
+        /**
+         * A builder of {@link P2CLoadBalancerFactory}.
+         *
+         * @param <ResolvedAddress> The resolved address type.
+         * @param <C> The type of connection.
+         */
+        public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+            @Nullable
+            private HealthCheckConfig healthCheckConfig;
+            @Nullable
+            private ConnectionPoolConfig connectionPoolConfig;
+
+            /**
+             * Configures health checking of hosts.
+             *
+             * @param healthCheckConfig configuration of the health checking of hosts, or {@code null} to disable it.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> healthCheckConfig(@Nullable final HealthCheckConfig healthCheckConfig) {
+                this.healthCheckConfig = healthCheckConfig;
+                return this;
+            }
+
+            /**
+             * Configures the connections to each host, such as the maximum number of concurrent connection attempts and
+             * the number of connections to open as soon as a host becomes available.
+             *
+             * @param connectionPoolConfig configuration of the connections to each host, or {@code null} to use the
+             * defaults.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> connectionPoolConfig(
+                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+                this.connectionPoolConfig = connectionPoolConfig;
+                return this;
+            }
+
+            /**
+             * Builds a {@link P2CLoadBalancerFactory} using the properties configured on this builder.
+             *
+             * @return a {@link P2CLoadBalancerFactory}.
+             */
+            public P2CLoadBalancerFactory<ResolvedAddress, C> build() {
+                return new P2CLoadBalancerFactory<>(healthCheckConfig, connectionPoolConfig);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+/**
+ * A set of {@link Host}s from which hosts are picked at random proportionally to their {@link Host#weight weight}.
+ * <p>
+ * Additions and removals cost {@code O(1)} and are synchronized on this set. Picks use an immutable snapshot of the
+ * cumulative weights which is rebuilt by the first pick that follows a mutation, hence a pick costs {@code O(log n)}
+ * as long as the set does not change and the picked host is selectable. Only picks which land on a host that is
+ * unhealthy or has been removed since the snapshot was created scan the snapshot to pick among the selectable hosts.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class WeightedHosts<Addr, C extends LoadBalancedConnection> {
+    // Mutations are synchronized on "this".
+    private final IndexedArray<Host<Addr, C>> hosts = new IndexedArray<>();
+    @Nullable
+    private volatile Snapshot<Addr, C> snapshot;
+
+    /**
+     * Adds a host.
+     *
+     * @param host the host to add.
+     * @return {@code false} if {@code host} was already present.
+     */
+    synchronized boolean add(final Host<Addr, C> host) {
+        if (!hosts.add(host)) {
+            return false;
+        }
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Removes a host.
+     *
+     * @param host the host to remove.
+     * @return {@code false} if {@code host} was not present.
+     */
+    synchronized boolean remove(final Host<Addr, C> host) {
+        if (!hosts.remove(host)) {
+            return false;
+        }
+        snapshot = null;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return hosts.size() == 0;
+    }
+
+    /**
+     * Returns a snapshot of the hosts.
+     *
+     * @return a snapshot of the hosts.
+     */
+    List<Host<Addr, C>> hosts() {
+        return snapshot().hosts;
+    }
+
+    /**
+     * Picks a selectable host at random, proportionally to the weights of the selectable hosts.
+     *
+     * @param rnd the source of randomness.
+     * @return a selectable host, or {@code null} if no host is selectable.
+     */
+    @Nullable
+    Host<Addr, C> select(final ThreadLocalRandom rnd) {
+        return isEmpty() ? null : snapshot().select(rnd);
+    }
+
+    static boolean isSelectable(final Host<?, ?> host) {
+        // A host may have been removed after the snapshot which contains it was created.
+        return host.isHealthy() && !host.isInactive();
+    }
+
+    private Snapshot<Addr, C> snapshot() {
+        Snapshot<Addr, C> snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null) {
+                    snapshot = new Snapshot<>(hosts.toList());
+                    this.snapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * An immutable list of hosts with their cumulative weights.
+     *
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    private static final class Snapshot<Addr, C extends LoadBalancedConnection> {
+        final List<Host<Addr, C>> hosts;
+        private final long[] cumulativeWeights;
+
+        Snapshot(final List<Host<Addr, C>> hosts) {
+            this.hosts = hosts;
+            cumulativeWeights = new long[hosts.size()];
+            long cumulativeWeight = 0;
+            for (int i = 0; i < cumulativeWeights.length; ++i) {
+                cumulativeWeight += hosts.get(i).weight;
+                cumulativeWeights[i] = cumulativeWeight;
+            }
+        }
+
+        @Nullable
+        Host<Addr, C> select(final ThreadLocalRandom rnd) {
+            if (cumulativeWeights.length == 0) {
+                return null;
+            }
+            final long target = rnd.nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+            // Find the first host whose cumulative weight is above the target.
+            int low = 0;
+            int high = cumulativeWeights.length - 1;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (cumulativeWeights[mid] <= target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            final Host<Addr, C> host = hosts.get(low);
+            return isSelectable(host) ? host : selectAmongSelectable(rnd);
+        }
+
+        @Nullable
+        private Host<Addr, C> selectAmongSelectable(final ThreadLocalRandom rnd) {
+            long selectableWeight = 0;
+            for (Host<Addr, C> host : hosts) {
+                if (isSelectable(host)) {
+                    selectableWeight += host.weight;
+                }
+            }
+            if (selectableWeight == 0) {
+                return null;
+            }
+            long target = rnd.nextLong(selectableWeight);
+            for (Host<Addr, C> host : hosts) {
+                if (isSelectable(host)) {
+                    target -= host.weight;
+                    if (target < 0) {
+                        return host;
+                    }
+                }
+            }
+            // Health changed concurrently with the scan.
+            return null;
+        }
+    }
+}
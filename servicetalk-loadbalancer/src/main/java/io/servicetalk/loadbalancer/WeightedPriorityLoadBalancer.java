@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.client.api.WeightedServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * A {@link LoadBalancer} that honors the {@link WeightedServiceDiscovererEvent#priority() priority} and
+ * {@link WeightedServiceDiscovererEvent#weight() weight} of addresses, following the semantics of DNS SRV records
+ * (<a href="https://tools.ietf.org/html/rfc2782">RFC 2782</a>). It has the following behaviour:
+ * <ul>
+ * <li>Only addresses of the lowest priority class which has at least one healthy address are selected. Addresses of
+ * higher priority classes are only used once all addresses of the lower classes are unhealthy or unavailable.</li>
+ * <li>Within a priority class addresses are picked at random, proportionally to their weight.</li>
+ * <li>Addresses discovered with a plain {@link ServiceDiscovererEvent} have a priority of {@code 0} and a weight of
+ * {@code 1}.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>Health checking of hosts is configured with a {@link HealthCheckConfig} on the
+ * {@link WeightedPriorityLoadBalancerFactory.Builder}, without it addresses are only considered unhealthy once the
+ * {@link io.servicetalk.client.api.ServiceDiscoverer} reports them as unavailable.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class WeightedPriorityLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        extends AbstractLoadBalancer<ResolvedAddress, C> {
+
+    // Guarded by "hostsByPriority", mutations only happen on SD events.
+    private final TreeMap<Integer, WeightedHosts<ResolvedAddress, C>> hostsByPriority = new TreeMap<>();
+    /**
+     * Hosts grouped by priority class, ordered from the most preferred to the least preferred class. Only changes when
+     * a priority class is added or removed, the hosts of a class are updated in place.
+     */
+    private volatile List<WeightedHosts<ResolvedAddress, C>> priorityClasses = emptyList();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher Stream of {@link ServiceDiscovererEvent}s with which this balancer is updated.
+     * @param connectionFactory {@link ConnectionFactory} that creates connections to the resolved addresses.
+     */
+    public WeightedPriorityLoadBalancer(
+            final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+            final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory) {
+        this(eventPublisher, connectionFactory, null, null);
+    }
+
+    WeightedPriorityLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                                 final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                 @Nullable final HealthCheckConfig healthCheckConfig,
+                                 @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+        super(eventPublisher, connectionFactory, healthCheckConfig, connectionPoolConfig);
+        start();
+    }
+
+    @Override
+    void onHostAdded(final Host<ResolvedAddress, C> host) {
+        synchronized (hostsByPriority) {
+            WeightedHosts<ResolvedAddress, C> priorityClass = hostsByPriority.get(host.priority);
+            if (priorityClass == null) {
+                priorityClass = new WeightedHosts<>();
+                priorityClass.add(host);
+                hostsByPriority.put(host.priority, priorityClass);
+                updatePriorityClasses();
+            } else {
+                priorityClass.add(host);
+            }
+        }
+    }
+
+    @Override
+    void onHostRemoved(final Host<ResolvedAddress, C> host) {
+        synchronized (hostsByPriority) {
+            final WeightedHosts<ResolvedAddress, C> priorityClass = hostsByPriority.get(host.priority);
+            if (priorityClass != null && priorityClass.remove(host) && priorityClass.isEmpty()) {
+                hostsByPriority.remove(host.priority);
+                updatePriorityClasses();
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    Host<ResolvedAddress, C> selectHost(final HostTable<ResolvedAddress, C> activeHosts) {
+        final List<WeightedHosts<ResolvedAddress, C>> priorityClasses = this.priorityClasses;
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < priorityClasses.size(); ++i) {
+            final Host<ResolvedAddress, C> host = priorityClasses.get(i).select(rnd);
+            if (host != null) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the priority class which is currently used for selection.
+     *
+     * @return the priority class which is currently used for selection, or {@code -1} if no host is selectable.
+     */
+    // Visible for testing
+    int activePriority() {
+        for (WeightedHosts<ResolvedAddress, C> priorityClass : priorityClasses) {
+            for (Host<ResolvedAddress, C> host : priorityClass.hosts()) {
+                if (WeightedHosts.isSelectable(host)) {
+                    return host.priority;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Orders the priority classes, must be called while holding the lock on {@link #hostsByPriority}.
+     */
+    private void updatePriorityClasses() {
+        priorityClasses = new ArrayList<>(hostsByPriority.values());
+    }
+
+    /**
+     * {@link LoadBalancerFactory} for {@link WeightedPriorityLoadBalancer}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class WeightedPriorityLoadBalancerFactory<ResolvedAddress,
+            C extends LoadBalancedConnection> implements LoadBalancerFactory<ResolvedAddress, C> {
+
+        @Nullable
+        private final HealthCheckConfig healthCheckConfig;
+        @Nullable
+        private final ConnectionPoolConfig connectionPoolConfig;
+
+        private WeightedPriorityLoadBalancerFactory(@Nullable final HealthCheckConfig healthCheckConfig,
+                                                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+            this.healthCheckConfig = healthCheckConfig;
+            this.connectionPoolConfig = connectionPoolConfig;
+        }
+
+        @Override
+        public <T extends C> LoadBalancer<T> newLoadBalancer(
+                final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
+            return new WeightedPriorityLoadBalancer<>(eventPublisher, connectionFactory, healthCheckConfig,
+                    connectionPoolConfig);
+        }
+
+        /**
+         * A builder of {@link WeightedPriorityLoadBalancerFactory}.
+         *
+         * @param <ResolvedAddress> The resolved address type.
+         * @param <C> The type of connection.
+         */
+        public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+            @Nullable
+            private HealthCheckConfig healthCheckConfig;
+            @Nullable
+            private ConnectionPoolConfig connectionPoolConfig;
+
+            /**
+             * Configures health checking of hosts.
+             *
+             * @param healthCheckConfig configuration of the health checking of hosts, or {@code null} to disable it.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> healthCheckConfig(@Nullable final HealthCheckConfig healthCheckConfig) {
+                this.healthCheckConfig = healthCheckConfig;
+                return this;
+            }
+
+            /**
+             * Configures the connections to each host, such as the maximum number of concurrent connection attempts and
+             * the number of connections to open as soon as a host becomes available.
+             *
+             * @param connectionPoolConfig configuration of the connections to each host, or {@code null} to use the
+             * defaults.
+             * @return {@code this}.
+             */
+            public Builder<ResolvedAddress, C> connectionPoolConfig(
+                    @Nullable final ConnectionPoolConfig connectionPoolConfig) {
+                this.connectionPoolConfig = connectionPoolConfig;
+                return this;
+            }
+
+            /**
+             * Builds a {@link WeightedPriorityLoadBalancerFactory} using the properties configured on this builder.
+             *
+             * @return a {@link WeightedPriorityLoadBalancerFactory}.
+             */
+            public WeightedPriorityLoadBalancerFactory<ResolvedAddress, C> build() {
+                return new WeightedPriorityLoadBalancerFactory<>(healthCheckConfig, connectionPoolConfig);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.Collections.disjoint;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ApertureLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final List<TestPublisher<ServiceDiscovererEvent<String>>> publishers = new ArrayList<>();
+    private final List<ApertureLoadBalancer<String, TestLoadBalancedConnection>> loadBalancers = new ArrayList<>();
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+
+    private static <T> Predicate<T> any() {
+        return __ -> true;
+    }
+
+    @After
+    public void closeLoadBalancers() throws Exception {
+        for (ApertureLoadBalancer<String, TestLoadBalancedConnection> lb : loadBalancers) {
+            awaitIndefinitely(lb.closeAsync());
+        }
+    }
+
+    @Test
+    public void selectionIsLimitedToAperture() throws Exception {
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb = newLoadBalancer(0, 5, 5);
+        sendUpEvents(0, 20);
+
+        assertThat(lb.apertureAddresses(), hasSize(5));
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            selected.add(awaitIndefinitely(lb.selectConnection(any())).address());
+        }
+        assertThat(selected, containsInAnyOrder(lb.apertureAddresses().toArray()));
+    }
+
+    @Test
+    public void apertureIsDeterministic() {
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb1 = newLoadBalancer(0.25, 5, 5);
+        sendUpEvents(0, 20);
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb2 = newLoadBalancer(0.25, 5, 5);
+        // Same addresses, discovered in a different order.
+        for (int i = 19; i >= 0; --i) {
+            sendUpEvents(i, i + 1);
+        }
+        assertThat(lb2.apertureAddresses(), containsInAnyOrder(lb1.apertureAddresses().toArray()));
+    }
+
+    @Test
+    public void distinctCoordinatesUseDistinctAddresses() {
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb1 = newLoadBalancer(0, 5, 5);
+        sendUpEvents(0, 20);
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb2 = newLoadBalancer(0.5, 5, 5);
+        sendUpEvents(0, 20);
+        assertThat(disjoint(lb1.apertureAddresses(), lb2.apertureAddresses()), is(true));
+    }
+
+    @Test
+    public void removedAddressIsReplaced() {
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb = newLoadBalancer(0, 5, 5);
+        sendUpEvents(0, 20);
+        final String removed = lb.apertureAddresses().get(0);
+        publishers.get(0).onNext(new DefaultServiceDiscovererEvent<>(removed, false));
+
+        assertThat(lb.apertureAddresses(), hasSize(5));
+        assertThat(lb.apertureAddresses().contains(removed), is(false));
+    }
+
+    @Test
+    public void apertureGrowsUnderLoad() throws Exception {
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb = newLoadBalancer(0, 2, 10);
+        sendUpEvents(0, 20);
+        assertThat(lb.apertureAddresses(), hasSize(2));
+
+        // Each connection can only be selected once, hence every selection opens a new connection.
+        final Set<TestLoadBalancedConnection> reserved = new CopyOnWriteArraySet<>();
+        for (int i = 0; i < 256; ++i) {
+            awaitIndefinitely(lb.selectConnection(reserved::add));
+        }
+        assertThat(lb.apertureAddresses().size(), is(greaterThan(2)));
+    }
+
+    private void sendUpEvents(final int from, final int to) {
+        final TestPublisher<ServiceDiscovererEvent<String>> publisher = publishers.get(publishers.size() - 1);
+        for (int i = from; i < to; ++i) {
+            publisher.onNext(new DefaultServiceDiscovererEvent<>("address-" + i, true));
+        }
+    }
+
+    private ApertureLoadBalancer<String, TestLoadBalancedConnection> newLoadBalancer(
+            final double coordinate, final int minAperture, final int maxAperture) {
+        final TestPublisher<ServiceDiscovererEvent<String>> publisher = new TestPublisher<>();
+        final ApertureLoadBalancer<String, TestLoadBalancedConnection> lb = new ApertureLoadBalancer<>(publisher,
+                new TestConnectionFactory(), null, null, coordinate, minAperture, maxAperture, 0.5f, 2f);
+        publishers.add(publisher);
+        loadBalancers.add(lb);
+        return lb;
+    }
+
+    private TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+        when(cnx.closeAsync()).thenReturn(closeable.closeAsync());
+        when(cnx.closeAsyncGracefully()).thenReturn(closeable.closeAsyncGracefully());
+        when(cnx.onClose()).thenReturn(closeable.onClose());
+        when(cnx.address()).thenReturn(address);
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+
+        connectionsCreated.add(cnx);
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+        String address();
+    }
+
+    private final class TestConnectionFactory implements ConnectionFactory<String, TestLoadBalancedConnection> {
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(final String address,
+                                                                final TransportObserver observer) {
+            return succeeded(ApertureLoadBalancerTest.this.newConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IndexedArrayTest {
+
+    private final IndexedArray<String> array = new IndexedArray<>();
+
+    @Test
+    public void addPreservesOrder() {
+        assertThat(array.add("a"), is(true));
+        assertThat(array.add("b"), is(true));
+        assertThat(array.add("c"), is(true));
+        assertThat(array.size(), is(3));
+        assertThat(array.toList(), contains("a", "b", "c"));
+    }
+
+    @Test
+    public void duplicateIsNotAdded() {
+        final String element = "a";
+        assertThat(array.add(element), is(true));
+        assertThat(array.add(element), is(false));
+        assertThat(array.size(), is(1));
+    }
+
+    @Test
+    public void removeMovesLastElement() {
+        array.add("a");
+        array.add("b");
+        array.add("c");
+        assertThat(array.remove("a"), is(true));
+        assertThat(array.size(), is(2));
+        assertThat(array.get(0), is("c"));
+        assertThat(array.get(1), is("b"));
+        assertThat(array.get(2), is(nullValue()));
+        assertThat(array.remove("a"), is(false));
+    }
+
+    @Test
+    public void growAndShrink() {
+        final List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            final String element = "element-" + i;
+            elements.add(element);
+            array.add(element);
+        }
+        assertThat(array.size(), is(1000));
+        for (int i = 0; i < 990; ++i) {
+            assertThat(array.remove(elements.get(i)), is(true));
+        }
+        assertThat(array.toList(), containsInAnyOrder(elements.subList(990, 1000).toArray()));
+        for (int i = 0; i < array.size(); ++i) {
+            assertThat(elements.contains(array.get(i)), is(true));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllElements() {
+        array.add("a");
+        array.add("b");
+        assertThat(array.clear(), contains("a", "b"));
+        assertThat(array.size(), is(0));
+        assertThat(array.toList(), is(empty()));
+        assertThat(array.get(0), is(nullValue()));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultWeightedServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalityAwareLoadBalancerTest {
+    private static final String LOCAL = "zone-a";
+    private static final String REMOTE = "zone-b";
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> serviceDiscoveryPublisher = new TestPublisher<>();
+    @Nullable
+    private LocalityAwareLoadBalancer<String, TestLoadBalancedConnection> lb;
+
+    private static <T> Predicate<T> any() {
+        return __ -> true;
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        if (lb != null) {
+            awaitIndefinitely(lb.closeAsync());
+        }
+    }
+
+    @Test
+    public void selectionStaysLocal() throws Exception {
+        lb = newLoadBalancer(Integer.MAX_VALUE);
+        sendUpEvent("local-1", LOCAL, 1);
+        sendUpEvent("local-2", LOCAL, 1);
+        sendUpEvent("remote-1", REMOTE, 1);
+
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            selected.add(awaitIndefinitely(lb.selectConnection(any())).address());
+        }
+        assertThat(selected, containsInAnyOrder("local-1", "local-2"));
+    }
+
+    @Test
+    public void selectionSpillsOverWhenLocalHostsAreRemoved() throws Exception {
+        lb = newLoadBalancer(Integer.MAX_VALUE);
+        sendUpEvent("local-1", LOCAL, 1);
+        sendUpEvent("local-2", LOCAL, 1);
+        sendUpEvent("local-3", LOCAL, 1);
+        sendUpEvent("local-4", LOCAL, 1);
+        sendUpEvent("remote-1", REMOTE, 1);
+        assertThat(lb.localShare(), is(1f));
+
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>("local-1", false, LOCAL, 1));
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>("local-2", false, LOCAL, 1));
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>("local-3", false, LOCAL, 1));
+        // A single local host remains, its weight is 1/1 of the local weight so selections stay local.
+        assertThat(lb.localShare(), is(1f));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("local-4"));
+
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>("local-4", false, LOCAL, 1));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("remote-1"));
+    }
+
+    @Test
+    public void spillOverIsProportionalToWeight() throws Exception {
+        lb = newLoadBalancer(Integer.MAX_VALUE);
+        sendUpEvent("remote-1", REMOTE, 1);
+        sendUpEvent("remote-2", REMOTE, 9);
+
+        final Map<String, Integer> selections = new HashMap<>();
+        for (int i = 0; i < 1000; ++i) {
+            selections.merge(awaitIndefinitely(lb.selectConnection(any())).address(), 1, Integer::sum);
+        }
+        assertThat(selections.get("remote-2"), is(greaterThan(selections.get("remote-1"))));
+        assertThat(selections.get("remote-1"), is(lessThan(250)));
+    }
+
+    @Test
+    public void overloadedLocalHostSpillsOver() throws Exception {
+        lb = newLoadBalancer(1);
+        sendUpEvent("local-1", LOCAL, 1);
+        sendUpEvent("remote-1", REMOTE, 1);
+
+        // Each connection can only be selected once, hence every selection opens a new connection.
+        final Set<TestLoadBalancedConnection> reserved = new CopyOnWriteArraySet<>();
+        assertThat(awaitIndefinitely(lb.selectConnection(reserved::add)).address(), is("local-1"));
+        assertThat(awaitIndefinitely(lb.selectConnection(reserved::add)).address(), is("remote-1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overprovisioningFactorBelowOneIsRejected() {
+        new LocalityAwareLoadBalancer.LocalityAwareLoadBalancerFactory.Builder<String, TestLoadBalancedConnection>(
+                LOCAL).overprovisioningFactor(0.5f);
+    }
+
+    private void sendUpEvent(final String address, final String locality, final int weight) {
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>(address, true, locality, weight));
+    }
+
+    private LocalityAwareLoadBalancer<String, TestLoadBalancedConnection> newLoadBalancer(
+            final int overloadedConnectionsPerHost) {
+        return new LocalityAwareLoadBalancer<>(serviceDiscoveryPublisher, new TestConnectionFactory(), null, null,
+                LOCAL, LocalityAwareLoadBalancer.DEFAULT_OVERPROVISIONING_FACTOR, overloadedConnectionsPerHost);
+    }
+
+    private static TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+        when(cnx.closeAsync()).thenReturn(closeable.closeAsync());
+        when(cnx.closeAsyncGracefully()).thenReturn(closeable.closeAsyncGracefully());
+        when(cnx.onClose()).thenReturn(closeable.onClose());
+        when(cnx.address()).thenReturn(address);
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+        String address();
+    }
+
+    private static final class TestConnectionFactory
+            implements ConnectionFactory<String, TestLoadBalancedConnection> {
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(final String address,
+                                                                final TransportObserver observer) {
+            return succeeded(LocalityAwareLoadBalancerTest.newConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed();
+        }
+    }
+}
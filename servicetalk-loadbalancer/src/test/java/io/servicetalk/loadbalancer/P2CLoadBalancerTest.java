@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class P2CLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> serviceDiscoveryPublisher = new TestPublisher<>();
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> scores = new ConcurrentHashMap<>();
+    private final AtomicBoolean connectionFactoryClosed = new AtomicBoolean();
+    private P2CLoadBalancer<String, TestLoadBalancedConnection> lb;
+
+    private static <T> Predicate<T> any() {
+        return __ -> true;
+    }
+
+    @Before
+    public void initialize() {
+        lb = new P2CLoadBalancer<>(serviceDiscoveryPublisher, new TestConnectionFactory());
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+    }
+
+    @Test
+    public void noServiceDiscoveryEvent() throws Exception {
+        try {
+            awaitIndefinitely(lb.selectConnection(any()));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NoAvailableHostException.class)));
+        }
+    }
+
+    @Test
+    public void singleHost() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        for (int i = 0; i < 5; ++i) {
+            assertThat(selectAddress(), is("address-1"));
+        }
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void hostWithoutConnectionsIsExplored() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        scores.put("address-1", 10);
+        scores.put("address-2", 10);
+
+        selectAddress();
+        selectAddress();
+
+        assertThat(connectionsCreated.stream().map(TestLoadBalancedConnection::address).collect(toSet()),
+                containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void higherScoreIsPreferred() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        scores.put("address-1", 10);
+        scores.put("address-2", 10);
+        selectAddress();
+        selectAddress();
+
+        scores.put("address-1", 1);
+        for (int i = 0; i < 10; ++i) {
+            assertThat(selectAddress(), is("address-2"));
+        }
+
+        scores.put("address-1", 100);
+        for (int i = 0; i < 10; ++i) {
+            assertThat(selectAddress(), is("address-1"));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void removedHostIsNotSelected() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        sendServiceDiscoveryEvents(downEvent("address-1"));
+        for (int i = 0; i < 10; ++i) {
+            assertThat(selectAddress(), is("address-2"));
+        }
+    }
+
+    @Test
+    public void closeClosesConnectionFactory() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        assertTrue("ConnectionFactory not closed.", connectionFactoryClosed.get());
+    }
+
+    private String selectAddress() throws Exception {
+        final TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+        assert connection != null;
+        return connection.address();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendServiceDiscoveryEvents(final ServiceDiscovererEvent... events) {
+        serviceDiscoveryPublisher.onNext((ServiceDiscovererEvent<String>[]) events);
+    }
+
+    private static ServiceDiscovererEvent upEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, true);
+    }
+
+    private static ServiceDiscovererEvent downEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, false);
+    }
+
+    private TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+        when(cnx.closeAsync()).thenReturn(closeable.closeAsync());
+        when(cnx.closeAsyncGracefully()).thenReturn(closeable.closeAsyncGracefully());
+        when(cnx.onClose()).thenReturn(closeable.onClose());
+        when(cnx.address()).thenReturn(address);
+        when(cnx.score()).thenAnswer(__ -> scores.getOrDefault(address, 0));
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+
+        connectionsCreated.add(cnx);
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+        String address();
+    }
+
+    private final class TestConnectionFactory implements ConnectionFactory<String, TestLoadBalancedConnection> {
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(final String address,
+                                                                final TransportObserver observer) {
+            return succeeded(P2CLoadBalancerTest.this.newConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed().beforeOnSubscribe(cancellable -> connectionFactoryClosed.set(true));
+        }
+    }
+}
@@ -22,6 +22,8 @@ import io.servicetalk.client.api.LoadBalancedConnection;
 import io.servicetalk.client.api.LoadBalancerReadyEvent;
 import io.servicetalk.client.api.NoAvailableHostException;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.client.api.internal.RequestTracker;
+import io.servicetalk.client.api.internal.RequestTrackerSupplier;
 import io.servicetalk.concurrent.PublisherSource.Subscriber;
 import io.servicetalk.concurrent.PublisherSource.Subscription;
 import io.servicetalk.concurrent.api.Completable;
@@ -29,6 +31,7 @@ import io.servicetalk.concurrent.api.LegacyTestSingle;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
 import io.servicetalk.concurrent.api.TestPublisher;
 import io.servicetalk.concurrent.api.TestSubscription;
 import io.servicetalk.concurrent.internal.DeliberateException;
@@ -43,11 +46,13 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -55,6 +60,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -69,6 +75,8 @@ import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
 import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofSeconds;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toSet;
@@ -437,6 +445,252 @@ public class RoundRobinLoadBalancerTest {
         verify(conn, times(0)).closeAsync();
     }
 
+    @Test
+    public void unhealthyHostIsEjectedUntilIntervalElapses() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final TestExecutor executor = new TestExecutor();
+        final AtomicBoolean address1Fails = new AtomicBoolean(true);
+        connectionFactory = new DelegatingConnectionFactory(address -> address.equals("address-1") &&
+                address1Fails.get() ? failed(DELIBERATE_EXCEPTION) : newRealizedConnectionSingle(address));
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new HealthCheckConfig.Builder(executor)
+                .failedConnectionsThreshold(2)
+                .interval(ofSeconds(1), ZERO)
+                .probeConnections(false)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+
+        for (int i = 0; i < 2; ++i) {
+            assertSelectFails(DeliberateException.class);
+            assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-2"));
+        }
+        // address-1 is now ejected
+        for (int i = 0; i < 4; ++i) {
+            assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-2"));
+        }
+
+        address1Fails.set(false);
+        executor.advanceTimeBy(1, SECONDS);
+        final List<String> addresses = awaitIndefinitely(lb.selectConnection(any())
+                .concat(lb.selectConnection(any()))
+                .map(TestLoadBalancedConnection::address));
+        assertThat(addresses, hasItems("address-1", "address-2"));
+    }
+
+    @Test
+    public void unhealthyHostIsReadmittedAfterSuccessfulProbe() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final TestExecutor executor = new TestExecutor();
+        final AtomicInteger failures = new AtomicInteger(3);
+        connectionFactory = new DelegatingConnectionFactory(address -> failures.getAndDecrement() > 0 ?
+                failed(DELIBERATE_EXCEPTION) : newRealizedConnectionSingle(address));
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new HealthCheckConfig.Builder(executor)
+                .failedConnectionsThreshold(2)
+                .interval(ofSeconds(1), ZERO)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertSelectFails(DeliberateException.class);
+        assertSelectFails(DeliberateException.class);
+        // The only host is ejected, selection fails without trying to connect.
+        assertSelectFails(NoAvailableHostException.class);
+        assertThat(failures.get(), is(1));
+
+        // First probe fails and backs off.
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(failures.get(), is(0));
+        assertSelectFails(NoAvailableHostException.class);
+
+        // Second probe succeeds after backing off, its connection is added to the host.
+        executor.advanceTimeBy(1, SECONDS);
+        assertSelectFails(NoAvailableHostException.class);
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(connectionsCreated, hasSize(1));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())), is(connectionsCreated.get(0)));
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void connectionFailuresBelowThresholdDoNotEject() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final TestExecutor executor = new TestExecutor();
+        final AtomicInteger failures = new AtomicInteger(1);
+        connectionFactory = new DelegatingConnectionFactory(address -> failures.getAndDecrement() > 0 ?
+                failed(DELIBERATE_EXCEPTION) : newRealizedConnectionSingle(address));
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new HealthCheckConfig.Builder(executor)
+                .failedConnectionsThreshold(2)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertSelectFails(DeliberateException.class);
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-1"));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void hostIsEjectedAfterConsecutiveRequestFailures() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final TestExecutor executor = new TestExecutor();
+        final Map<String, RequestTracker> requestTrackers = new ConcurrentHashMap<>();
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(newRequestTrackingConnectionFactory(requestTrackers),
+                new HealthCheckConfig.Builder(executor)
+                        .failedRequestsThreshold(2)
+                        .interval(ofSeconds(1), ZERO)
+                        .probeConnections(false)
+                        .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        awaitIndefinitely(lb.selectConnection(any()).concat(lb.selectConnection(any())));
+        final RequestTracker address1Tracker = requestTrackers.get("address-1");
+        assertThat(address1Tracker, is(notNullValue()));
+
+        address1Tracker.onRequestError(address1Tracker.beforeRequestStart());
+        // Cancelled requests are not failures.
+        address1Tracker.onRequestCancel(address1Tracker.beforeRequestStart());
+        address1Tracker.onRequestCancel(address1Tracker.beforeRequestStart());
+        assertThat(awaitIndefinitely(lb.selectConnection(any())
+                .concat(lb.selectConnection(any()))
+                .map(TestLoadBalancedConnection::address)), hasItems("address-1", "address-2"));
+
+        address1Tracker.onRequestError(address1Tracker.beforeRequestStart());
+        // address-1 is now ejected
+        for (int i = 0; i < 4; ++i) {
+            assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-2"));
+        }
+
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(awaitIndefinitely(lb.selectConnection(any())
+                .concat(lb.selectConnection(any()))
+                .map(TestLoadBalancedConnection::address)), hasItems("address-1", "address-2"));
+    }
+
+    @Test
+    public void hostIsEjectedAboveMaxFailureRate() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final TestExecutor executor = new TestExecutor();
+        final Map<String, RequestTracker> requestTrackers = new ConcurrentHashMap<>();
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(newRequestTrackingConnectionFactory(requestTrackers),
+                new HealthCheckConfig.Builder(executor)
+                        .failedRequestsThreshold(10)
+                        .failureRate(0.5f, 4)
+                        .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        awaitIndefinitely(lb.selectConnection(any()));
+        final RequestTracker tracker = requestTrackers.get("address-1");
+        assertThat(tracker, is(notNullValue()));
+
+        // 2 out of 4 failed requests is not above the maximum failure rate.
+        for (int i = 0; i < 2; ++i) {
+            tracker.onRequestError(tracker.beforeRequestStart());
+            tracker.onRequestSuccess(tracker.beforeRequestStart());
+        }
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-1"));
+
+        tracker.onRequestError(tracker.beforeRequestStart());
+        tracker.onRequestError(tracker.beforeRequestStart());
+        tracker.onRequestSuccess(tracker.beforeRequestStart());
+        tracker.onRequestError(tracker.beforeRequestStart());
+        assertSelectFails(NoAvailableHostException.class);
+    }
+
+    @Test
+    public void concurrentConnectAttemptsAreBounded() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new ConnectionPoolConfig.Builder()
+                .maxConcurrentConnectsPerHost(1)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        final List<Future<TestLoadBalancedConnection>> selections = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            selections.add(lb.selectConnection(any()).toFuture());
+        }
+        // Only one connection attempt is started, other selections wait for it.
+        assertThat(connectionRealizers, hasSize(1));
+        connectionRealizers.poll().run();
+
+        assertThat(connectionsCreated, hasSize(1));
+        for (Future<TestLoadBalancedConnection> selection : selections) {
+            assertThat(selection.get(), is(connectionsCreated.get(0)));
+        }
+    }
+
+    @Test
+    public void waitingSelectionConnectsWhenPendingConnectionIsRejected() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new ConnectionPoolConfig.Builder()
+                .maxConcurrentConnectsPerHost(1)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        // Each connection can only be selected once, like a non-pipelined HTTP/1.x connection.
+        final Set<TestLoadBalancedConnection> reserved = new CopyOnWriteArraySet<>();
+        final Future<TestLoadBalancedConnection> first = lb.selectConnection(reserved::add).toFuture();
+        final Future<TestLoadBalancedConnection> second = lb.selectConnection(reserved::add).toFuture();
+        assertThat(connectionRealizers, hasSize(1));
+        connectionRealizers.poll().run();
+        assertThat(first.get(), is(connectionsCreated.get(0)));
+
+        // The second selection can not use the first connection, it starts a new attempt.
+        assertThat(connectionRealizers, hasSize(1));
+        connectionRealizers.poll().run();
+        assertThat(second.get(), is(connectionsCreated.get(1)));
+    }
+
+    @Test
+    public void minConnectionsAreOpenedWhenHostBecomesAvailable() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        connectionFactory = new DelegatingConnectionFactory(this::newRealizedConnectionSingle);
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new ConnectionPoolConfig.Builder()
+                .minConnectionsPerHost(2)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertThat(connectionsCreated, hasSize(2));
+        assertThat(lb.activeAddresses().get(0).getValue(), hasSize(2));
+        for (int i = 0; i < 4; ++i) {
+            assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-1"));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void warmUpStopsOnConnectionFailure() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+        final AtomicInteger attempts = new AtomicInteger();
+        connectionFactory = new DelegatingConnectionFactory(address -> {
+            attempts.incrementAndGet();
+            return failed(DELIBERATE_EXCEPTION);
+        });
+        awaitIndefinitely(lb.closeAsync());
+        lb = newTestLoadBalancer(connectionFactory, new ConnectionPoolConfig.Builder()
+                .minConnectionsPerHost(3)
+                .build());
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertThat(attempts.get(), is(1));
+        assertThat(lb.activeAddresses().get(0).getValue(), is(empty()));
+    }
+
+    private void assertSelectFails(final Class<? extends Throwable> causeType) throws Exception {
+        try {
+            awaitIndefinitely(lb.selectConnection(any()));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(causeType)));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void sendServiceDiscoveryEvents(final ServiceDiscovererEvent... events) {
         serviceDiscoveryPublisher.onNext((ServiceDiscovererEvent<String>[]) events);
@@ -455,6 +709,17 @@ public class RoundRobinLoadBalancerTest {
         return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory);
     }
 
+    private RoundRobinLoadBalancer<String, TestLoadBalancedConnection> newTestLoadBalancer(
+            final DelegatingConnectionFactory connectionFactory, final HealthCheckConfig healthCheckConfig) {
+        return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, healthCheckConfig, null);
+    }
+
+    private RoundRobinLoadBalancer<String, TestLoadBalancedConnection> newTestLoadBalancer(
+            final DelegatingConnectionFactory connectionFactory, final ConnectionPoolConfig connectionPoolConfig) {
+        return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, null,
+                connectionPoolConfig);
+    }
+
     private LegacyTestSingle<TestLoadBalancedConnection> newUnrealizedConnectionSingle(final String address) {
         final LegacyTestSingle<TestLoadBalancedConnection> unrealizedCnx = new LegacyTestSingle<>();
         connectionRealizers.offer(() -> unrealizedCnx.onSuccess(newConnection(address)));
@@ -479,6 +744,17 @@ public class RoundRobinLoadBalancerTest {
         return cnx;
     }
 
+    private DelegatingConnectionFactory newRequestTrackingConnectionFactory(
+            final Map<String, RequestTracker> requestTrackers) {
+        return new DelegatingConnectionFactory(address -> {
+            final TestLoadBalancedConnection cnx = newConnection(address);
+            final RequestTracker requestTracker = new RequestTracker();
+            when(cnx.requestTracker()).thenReturn(requestTracker);
+            requestTrackers.put(address, requestTracker);
+            return succeeded(cnx);
+        });
+    }
+
     private static Predicate<TestLoadBalancedConnection> newSaturableConnectionFilter() {
         final AtomicInteger selectConnectionCount = new AtomicInteger();
         final Set<TestLoadBalancedConnection> saturatedConnections = new CopyOnWriteArraySet<>();
@@ -493,7 +769,8 @@ public class RoundRobinLoadBalancerTest {
         };
     }
 
-    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection,
+                                                         RequestTrackerSupplier {
         String address();
     }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.DefaultWeightedServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeightedPriorityLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> serviceDiscoveryPublisher = new TestPublisher<>();
+    @Nullable
+    private WeightedPriorityLoadBalancer<String, TestLoadBalancedConnection> lb;
+
+    private static <T> Predicate<T> any() {
+        return __ -> true;
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        if (lb != null) {
+            awaitIndefinitely(lb.closeAsync());
+        }
+    }
+
+    @Test
+    public void onlyLowestPriorityIsSelected() throws Exception {
+        lb = newLoadBalancer();
+        sendUpEvent("primary-1", 1, 10);
+        sendUpEvent("primary-2", 1, 10);
+        sendUpEvent("backup-1", 1, 20);
+        sendUpEvent("primary-3", 1, 10);
+        assertThat(lb.activePriority(), is(10));
+
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            selected.add(awaitIndefinitely(lb.selectConnection(any())).address());
+        }
+        assertThat(selected, containsInAnyOrder("primary-1", "primary-2", "primary-3"));
+    }
+
+    @Test
+    public void higherPriorityIsUsedOnceLowerPriorityIsUnavailable() throws Exception {
+        lb = newLoadBalancer();
+        sendUpEvent("primary-1", 1, 0);
+        sendUpEvent("backup-1", 1, 1);
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("primary-1"));
+
+        serviceDiscoveryPublisher.onNext(new DefaultWeightedServiceDiscovererEvent<>("primary-1", false, null, 1, 0));
+        assertThat(lb.activePriority(), is(1));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("backup-1"));
+
+        sendUpEvent("primary-2", 1, 0);
+        assertThat(lb.activePriority(), is(0));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("primary-2"));
+    }
+
+    @Test
+    public void selectionIsProportionalToWeight() throws Exception {
+        lb = newLoadBalancer();
+        sendUpEvent("address-1", 1, 0);
+        sendUpEvent("address-2", 9, 0);
+
+        final Map<String, Integer> selections = new HashMap<>();
+        // Each connection can only be selected once, hence every selection picks a host.
+        final Set<TestLoadBalancedConnection> reserved = new CopyOnWriteArraySet<>();
+        for (int i = 0; i < 1000; ++i) {
+            selections.merge(awaitIndefinitely(lb.selectConnection(reserved::add)).address(), 1, Integer::sum);
+        }
+        assertThat(selections.get("address-2"), is(greaterThan(selections.get("address-1"))));
+        assertThat(selections.get("address-1"), is(lessThan(250)));
+    }
+
+    @Test
+    public void plainEventsHaveDefaultPriority() throws Exception {
+        lb = newLoadBalancer();
+        serviceDiscoveryPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        sendUpEvent("backup-1", 1, 1);
+        assertThat(lb.activePriority(), is(0));
+        assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-1"));
+    }
+
+    private void sendUpEvent(final String address, final int weight, final int priority) {
+        serviceDiscoveryPublisher.onNext(
+                new DefaultWeightedServiceDiscovererEvent<>(address, true, null, weight, priority));
+    }
+
+    private WeightedPriorityLoadBalancer<String, TestLoadBalancedConnection> newLoadBalancer() {
+        return new WeightedPriorityLoadBalancer<>(serviceDiscoveryPublisher, new TestConnectionFactory());
+    }
+
+    private static TestLoadBalancedConnection newConnection(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+        when(cnx.closeAsync()).thenReturn(closeable.closeAsync());
+        when(cnx.closeAsyncGracefully()).thenReturn(closeable.closeAsyncGracefully());
+        when(cnx.onClose()).thenReturn(closeable.onClose());
+        when(cnx.address()).thenReturn(address);
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+        String address();
+    }
+
+    private static final class TestConnectionFactory
+            implements ConnectionFactory<String, TestLoadBalancedConnection> {
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(final String address,
+                                                                final TransportObserver observer) {
+            return succeeded(WeightedPriorityLoadBalancerTest.newConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed();
+        }
+    }
+}
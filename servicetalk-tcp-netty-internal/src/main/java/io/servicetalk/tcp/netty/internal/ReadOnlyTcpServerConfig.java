@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package io.servicetalk.tcp.netty.internal;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.TransportObserver;
 import io.servicetalk.transport.netty.internal.NoopTransportObserver;
 import io.servicetalk.transport.netty.internal.ReadOnlyServerSecurityConfig;
@@ -23,12 +24,15 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.util.DomainNameMapping;
 import io.netty.util.DomainNameMappingBuilder;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.transport.api.TransportObservers.asSafeObserver;
 import static io.servicetalk.transport.netty.internal.SslContextFactory.forServer;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 
 /**
  * Read only view of {@link TcpServerConfig}.
@@ -41,7 +45,9 @@ public final class ReadOnlyTcpServerConfig
     private final SslContext sslContext;
     @Nullable
     private final DomainNameMapping<SslContext> mappings;
+    private final Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys;
     private final int backlog;
+    private final boolean reusePortAcceptors;
 
     /**
      * Copy constructor.
@@ -58,21 +64,29 @@ public final class ReadOnlyTcpServerConfig
             if (securityConfig == null) {
                 throw new IllegalStateException("No default security config defined but found SNI config mappings");
             }
+            final Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys = new LinkedHashMap<>();
             sslContext = forServer(securityConfig, supportedAlpnProtocols);
+            addSessionTicketKeys(sessionTicketKeys, sslContext, securityConfig);
             final DomainNameMappingBuilder<SslContext> mappingBuilder = new DomainNameMappingBuilder<>(sslContext);
             for (Map.Entry<String, ReadOnlyServerSecurityConfig> sniConfigEntries : from.sniConfigs().entrySet()) {
-                mappingBuilder.add(sniConfigEntries.getKey(),
-                        forServer(sniConfigEntries.getValue(), supportedAlpnProtocols));
+                final SslContext sniContext = forServer(sniConfigEntries.getValue(), supportedAlpnProtocols);
+                addSessionTicketKeys(sessionTicketKeys, sniContext, sniConfigEntries.getValue());
+                mappingBuilder.add(sniConfigEntries.getKey(), sniContext);
             }
             mappings = mappingBuilder.build();
+            this.sessionTicketKeys = sessionTicketKeys.isEmpty() ? emptyMap() : sessionTicketKeys;
         } else if (securityConfig != null) {
             sslContext = forServer(securityConfig, supportedAlpnProtocols);
             mappings = null;
+            final Publisher<? extends List<byte[]>> keys = securityConfig.sessionTicketKeys();
+            sessionTicketKeys = keys == null ? emptyMap() : singletonMap(sslContext, keys);
         } else {
             sslContext = null;
             mappings = null;
+            sessionTicketKeys = emptyMap();
         }
         backlog = from.backlog();
+        reusePortAcceptors = from.reusePortAcceptors();
     }
 
     /**
@@ -100,6 +114,16 @@ public final class ReadOnlyTcpServerConfig
         return mappings;
     }
 
+    /**
+     * Returns the {@link ReadOnlyServerSecurityConfig#sessionTicketKeys() session ticket keys} to set on each
+     * {@link SslContext} while the server is running.
+     *
+     * @return the session ticket keys {@link Publisher} for each {@link SslContext} which uses them
+     */
+    Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys() {
+        return sessionTicketKeys;
+    }
+
     /**
      * Returns the maximum queue length for incoming connection indications (a request to connect).
      *
@@ -108,4 +132,24 @@ public final class ReadOnlyTcpServerConfig
     public int backlog() {
         return backlog;
     }
+
+    /**
+     * Returns {@code true} if one listening socket per {@link io.servicetalk.transport.api.IoExecutor} thread should
+     * be bound with {@code SO_REUSEPORT}.
+     *
+     * @return {@code true} if one listening socket per {@link io.servicetalk.transport.api.IoExecutor} thread should
+     * be bound with {@code SO_REUSEPORT}
+     */
+    public boolean reusePortAcceptors() {
+        return reusePortAcceptors;
+    }
+
+    private static void addSessionTicketKeys(final Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys,
+                                             final SslContext sslContext,
+                                             final ReadOnlyServerSecurityConfig securityConfig) {
+        final Publisher<? extends List<byte[]>> keys = securityConfig.sessionTicketKeys();
+        if (keys != null) {
+            sessionTicketKeys.put(sslContext, keys);
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.tcp.netty.internal;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.PublisherSource;
+import io.servicetalk.concurrent.SingleSource;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.internal.SubscribableSingle;
+import io.servicetalk.concurrent.internal.DelayedSubscription;
+
+import io.netty.handler.ssl.SslContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.transport.netty.internal.SslContextFactory.setSessionTicketKeys;
+
+/**
+ * Sets the session ticket keys emitted for each {@link SslContext} of a server while the server is running.
+ * <p>
+ * Failures before the first keys are set for every {@link SslContext} are propagated, so the server does not start
+ * without the configured keys. Later failures are logged and the keys which are in use are kept.
+ */
+final class SessionTicketKeysUpdater implements Cancellable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionTicketKeysUpdater.class);
+
+    private final SingleSource.Subscriber<? super Cancellable> subscriber;
+    private final List<KeysSubscriber> keysSubscribers;
+    private final AtomicInteger pendingFirstKeys;
+
+    private SessionTicketKeysUpdater(final SingleSource.Subscriber<? super Cancellable> subscriber, final int size) {
+        this.subscriber = subscriber;
+        keysSubscribers = new ArrayList<>(size);
+        pendingFirstKeys = new AtomicInteger(size);
+    }
+
+    /**
+     * Subscribes to the session ticket keys of each {@link SslContext}.
+     *
+     * @param sessionTicketKeys the session ticket keys {@link Publisher} for each {@link SslContext}.
+     * @return a {@link Single} which completes after the first keys are set on every {@link SslContext}, with a
+     * {@link Cancellable} to stop updating the keys.
+     */
+    static Single<Cancellable> subscribe(final Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys) {
+        return new SubscribableSingle<Cancellable>() {
+            @Override
+            protected void handleSubscribe(final Subscriber<? super Cancellable> subscriber) {
+                final SessionTicketKeysUpdater updater = new SessionTicketKeysUpdater(subscriber,
+                        sessionTicketKeys.size());
+                for (SslContext sslContext : sessionTicketKeys.keySet()) {
+                    updater.keysSubscribers.add(updater.new KeysSubscriber(sslContext));
+                }
+                subscriber.onSubscribe(updater);
+                int i = 0;
+                for (Publisher<? extends List<byte[]>> keys : sessionTicketKeys.values()) {
+                    toSource(keys).subscribe(updater.keysSubscribers.get(i++));
+                }
+            }
+        };
+    }
+
+    @Override
+    public void cancel() {
+        for (KeysSubscriber keysSubscriber : keysSubscribers) {
+            keysSubscriber.subscription.cancel();
+        }
+    }
+
+    private void firstKeysSet() {
+        for (;;) {
+            final int pending = pendingFirstKeys.get();
+            if (pending <= 0) {
+                return;
+            }
+            if (pendingFirstKeys.compareAndSet(pending, pending - 1)) {
+                if (pending == 1) {
+                    subscriber.onSuccess(this);
+                }
+                return;
+            }
+        }
+    }
+
+    private void failBeforeFirstKeys(final Throwable cause) {
+        if (pendingFirstKeys.getAndSet(-1) > 0) {
+            cancel();
+            subscriber.onError(cause);
+        }
+    }
+
+    private final class KeysSubscriber implements PublisherSource.Subscriber<List<byte[]>> {
+        private final SslContext sslContext;
+        private final DelayedSubscription subscription = new DelayedSubscription();
+        private boolean keysSet;
+
+        KeysSubscriber(final SslContext sslContext) {
+            this.sslContext = sslContext;
+        }
+
+        @Override
+        public void onSubscribe(final PublisherSource.Subscription subscription) {
+            this.subscription.delayedSubscription(subscription);
+            this.subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final List<byte[]> keys) {
+            try {
+                setSessionTicketKeys(sslContext, keys);
+            } catch (Throwable cause) {
+                if (keysSet) {
+                    LOGGER.warn("Failed to set session ticket keys on {}, keeping the keys in use", sslContext, cause);
+                } else {
+                    failBeforeFirstKeys(cause);
+                }
+                return;
+            }
+            if (!keysSet) {
+                keysSet = true;
+                firstKeysSet();
+            }
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            if (keysSet) {
+                LOGGER.warn("Session ticket keys publisher for {} failed, keys will not be rotated anymore",
+                        sslContext, t);
+            } else {
+                failBeforeFirstKeys(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!keysSet) {
+                failBeforeFirstKeys(new IllegalStateException(
+                        "Session ticket keys publisher for " + sslContext + " completed without emitting keys"));
+            }
+        }
+    }
+}
@@ -56,8 +56,10 @@ import javax.annotation.Nullable;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.socketChannel;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toNettyAddress;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useEpoll;
 import static io.servicetalk.transport.netty.internal.CopyByteBufHandlerChannelInitializer.POOLED_ALLOCATOR;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static io.servicetalk.transport.netty.internal.SocketOptionUtils.isEpollOnlyOption;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
 
@@ -162,9 +164,12 @@ public final class TcpConnector {
         bs.channel(socketChannel(loop, nettyresolvedRemoteAddress.getClass()));
         bs.handler(handler);
 
+        final boolean epoll = useEpoll(loop);
         for (@SuppressWarnings("rawtypes") Map.Entry<ChannelOption, Object> opt : config.options().entrySet()) {
-            //noinspection unchecked
-            bs.option(opt.getKey(), opt.getValue());
+            if (epoll || !isEpollOnlyOption(opt.getKey())) {
+                //noinspection unchecked
+                bs.option(opt.getKey(), opt.getValue());
+            }
         }
         bs.option(ChannelOption.AUTO_READ, autoRead);
 
@@ -177,9 +182,12 @@ public final class TcpConnector {
 
     private static ChannelFuture initFileDescriptorBasedChannel(
             ReadOnlyTcpClientConfig config, boolean autoRead, EventLoop loop, Channel channel, ChannelHandler handler) {
+        final boolean epoll = useEpoll(loop);
         for (@SuppressWarnings("rawtypes") Map.Entry<ChannelOption, Object> opt : config.options().entrySet()) {
-            //noinspection unchecked
-            channel.config().setOption(opt.getKey(), opt.getValue());
+            if (epoll || !isEpollOnlyOption(opt.getKey())) {
+                //noinspection unchecked
+                channel.config().setOption(opt.getKey(), opt.getValue());
+            }
         }
         channel.config().setOption(ChannelOption.AUTO_READ, autoRead);
 
@@ -15,6 +15,9 @@
  */
 package io.servicetalk.tcp.netty.internal;
 
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.SingleSource;
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.concurrent.api.internal.SubscribableSingle;
 import io.servicetalk.transport.api.ConnectionAcceptor;
@@ -32,15 +35,23 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.SslContext;
 import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -48,10 +59,14 @@ import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Single.defer;
 import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.reusePortOption;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toNettyAddress;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useEpoll;
 import static io.servicetalk.transport.netty.internal.ChannelCloseUtils.close;
 import static io.servicetalk.transport.netty.internal.CopyByteBufHandlerChannelInitializer.POOLED_ALLOCATOR;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static io.servicetalk.transport.netty.internal.SocketOptionUtils.isEpollOnlyOption;
+import static io.servicetalk.transport.netty.internal.SocketOptionUtils.isServerListenOption;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -91,28 +106,12 @@ public final class TcpServerBinder {
         requireNonNull(connectionConsumer);
         listenAddress = toNettyAddress(listenAddress);
         EventLoopAwareNettyIoExecutor nettyIoExecutor = toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor());
+        EventLoopGroup eventLoopGroup = nettyIoExecutor.eventLoopGroup();
         ServerBootstrap bs = new ServerBootstrap();
-        configure(config, autoRead, bs, nettyIoExecutor.eventLoopGroup(), listenAddress.getClass());
+        configure(config, autoRead, bs, eventLoopGroup, listenAddress.getClass());
 
         ChannelSet channelSet = new ChannelSet(executionContext.executor());
-        bs.handler(new ChannelInboundHandlerAdapter() {
-            @Override
-            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
-                // Verify that we do not leak pooled memory in the "accept" pipeline
-                if (msg instanceof ReferenceCounted) {
-                    try {
-                        throw new IllegalArgumentException("Unexpected ReferenceCounted msg in 'accept' pipeline: " +
-                                msg);
-                    } finally {
-                        ((ReferenceCounted) msg).release();
-                    }
-                }
-                if (msg instanceof Channel && !channelSet.addIfAbsent((Channel) msg)) {
-                    LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
-                }
-                ctx.fireChannelRead(msg);
-            }
-        });
+        bs.handler(new AcceptHandler(channelSet));
         bs.childHandler(new io.netty.channel.ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel channel) {
@@ -137,10 +136,39 @@ public final class TcpServerBinder {
             }
         });
 
-        ChannelFuture future = bs.bind(listenAddress);
+        final ChannelOption<Boolean> reusePort = config.reusePortAcceptors() &&
+                listenAddress instanceof InetSocketAddress ? reusePortOption(eventLoopGroup) : null;
+        final Single<ServerContext> bindSingle;
+        if (reusePort != null) {
+            bindSingle = bindReusePort(bs, eventLoopGroup, reusePort, listenAddress, channelSet, connectionAcceptor,
+                    executionContext);
+        } else {
+            if (config.reusePortAcceptors()) {
+                LOGGER.debug("SO_REUSEPORT is not supported for address {} with {}, binding a single listener.",
+                        listenAddress, eventLoopGroup);
+            }
+            bindSingle = bindSingleListener(bs, eventLoopGroup, listenAddress, channelSet, connectionAcceptor,
+                    executionContext);
+        }
+
+        final Map<SslContext, Publisher<? extends List<byte[]>>> sessionTicketKeys = config.sessionTicketKeys();
+        if (sessionTicketKeys.isEmpty()) {
+            return bindSingle;
+        }
+        // Bind only after the first keys are set, otherwise the first connections get session tickets encrypted with
+        // random keys which other servers sharing the keys can not decrypt.
+        return SessionTicketKeysUpdater.subscribe(sessionTicketKeys).flatMap(updater -> bindSingle
+                .beforeOnError(__ -> updater.cancel())
+                .beforeOnSuccess(serverContext -> serverContext.onClose().whenFinally(updater::cancel).subscribe()));
+    }
+
+    private static Single<ServerContext> bindSingleListener(final ServerBootstrap bs,
+            final EventLoopGroup eventLoopGroup, final SocketAddress listenAddress, final ChannelSet channelSet,
+            @Nullable final ConnectionAcceptor connectionAcceptor, final ExecutionContext executionContext) {
         return new SubscribableSingle<ServerContext>() {
             @Override
             protected void handleSubscribe(Subscriber<? super ServerContext> subscriber) {
+                ChannelFuture future = bs.group(eventLoopGroup).bind(listenAddress);
                 subscriber.onSubscribe(() -> future.cancel(true));
                 future.addListener((ChannelFuture f) -> {
                     Channel channel = f.channel();
@@ -157,19 +185,44 @@ public final class TcpServerBinder {
         };
     }
 
+    private static Single<ServerContext> bindReusePort(final ServerBootstrap bs, final EventLoopGroup eventLoopGroup,
+            final ChannelOption<Boolean> reusePort, final SocketAddress listenAddress, final ChannelSet channelSet,
+            @Nullable final ConnectionAcceptor connectionAcceptor, final ExecutionContext executionContext) {
+        final List<EventLoop> eventLoops = new ArrayList<>();
+        for (EventExecutor executor : eventLoopGroup) {
+            eventLoops.add((EventLoop) executor);
+        }
+        return new SubscribableSingle<ServerContext>() {
+            @Override
+            protected void handleSubscribe(Subscriber<? super ServerContext> subscriber) {
+                final ReusePortBinder binder = new ReusePortBinder(bs, eventLoops, reusePort, channelSet,
+                        connectionAcceptor, executionContext, subscriber);
+                subscriber.onSubscribe(binder);
+                binder.bindNext(listenAddress);
+            }
+        };
+    }
+
     private static void configure(ReadOnlyTcpServerConfig config, boolean autoRead, ServerBootstrap bs,
                                   @Nullable EventLoopGroup eventLoopGroup,
                                   Class<? extends SocketAddress> bindAddressClass) {
         if (eventLoopGroup == null) {
             throw new IllegalStateException("IoExecutor must be specified before building");
         }
-        bs.group(eventLoopGroup);
         bs.channel(BuilderUtils.serverChannel(eventLoopGroup, bindAddressClass));
 
+        final boolean epoll = useEpoll(eventLoopGroup);
         for (@SuppressWarnings("rawtypes") Map.Entry<ChannelOption, Object> opt : config.options().entrySet()) {
             @SuppressWarnings("unchecked")
             ChannelOption<Object> option = opt.getKey();
-            bs.childOption(option, opt.getValue());
+            if (!epoll && isEpollOnlyOption(option)) {
+                continue;
+            }
+            if (isServerListenOption(option)) {
+                bs.option(option, opt.getValue());
+            } else {
+                bs.childOption(option, opt.getValue());
+            }
         }
 
         bs.childOption(ChannelOption.AUTO_READ, autoRead);
@@ -181,4 +234,115 @@ public final class TcpServerBinder {
         bs.option(ChannelOption.ALLOCATOR, byteBufAllocator);
         bs.childOption(ChannelOption.ALLOCATOR, byteBufAllocator);
     }
+
+    @ChannelHandler.Sharable
+    private static final class AcceptHandler extends ChannelInboundHandlerAdapter {
+        private final ChannelSet channelSet;
+
+        AcceptHandler(final ChannelSet channelSet) {
+            this.channelSet = channelSet;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            // Verify that we do not leak pooled memory in the "accept" pipeline
+            if (msg instanceof ReferenceCounted) {
+                try {
+                    throw new IllegalArgumentException("Unexpected ReferenceCounted msg in 'accept' pipeline: " +
+                            msg);
+                } finally {
+                    ((ReferenceCounted) msg).release();
+                }
+            }
+            if (msg instanceof Channel && !channelSet.addIfAbsent((Channel) msg)) {
+                LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    /**
+     * Binds one listening {@link Channel} per {@link EventLoop} with {@code SO_REUSEPORT}, one after the other. The
+     * first {@link Channel} binds to the requested address and the others to its resolved address, so an ephemeral
+     * port is shared by all of them. Accepted {@link Channel}s stay on the {@link EventLoop} of their listener.
+     */
+    private static final class ReusePortBinder implements Cancellable, ChannelFutureListener {
+        private final ServerBootstrap bs;
+        private final List<EventLoop> eventLoops;
+        private final ChannelOption<Boolean> reusePort;
+        private final ChannelSet channelSet;
+        @Nullable
+        private final ConnectionAcceptor connectionAcceptor;
+        private final ExecutionContext executionContext;
+        private final SingleSource.Subscriber<? super ServerContext> subscriber;
+        private final List<Channel> listenChannels;
+        @Nullable
+        private volatile ChannelFuture pending;
+        private volatile boolean cancelled;
+
+        ReusePortBinder(final ServerBootstrap bs, final List<EventLoop> eventLoops,
+                        final ChannelOption<Boolean> reusePort, final ChannelSet channelSet,
+                        @Nullable final ConnectionAcceptor connectionAcceptor,
+                        final ExecutionContext executionContext,
+                        final SingleSource.Subscriber<? super ServerContext> subscriber) {
+            this.bs = bs;
+            this.eventLoops = eventLoops;
+            this.reusePort = reusePort;
+            this.channelSet = channelSet;
+            this.connectionAcceptor = connectionAcceptor;
+            this.executionContext = executionContext;
+            this.subscriber = subscriber;
+            listenChannels = new ArrayList<>(eventLoops.size());
+        }
+
+        void bindNext(final SocketAddress address) {
+            final EventLoop eventLoop = eventLoops.get(listenChannels.size());
+            final ChannelFuture future = bs.clone().group(eventLoop, eventLoop).option(reusePort, true).bind(address);
+            pending = future;
+            if (cancelled) {
+                future.cancel(true);
+            }
+            future.addListener(this);
+        }
+
+        @Override
+        public void operationComplete(final ChannelFuture future) {
+            // Each bind is started from the listener of the previous one, so listenChannels is accessed sequentially.
+            final Throwable cause = future.cause();
+            if (cause != null) {
+                close(future.channel(), cause);
+                closeAll(cause);
+                subscriber.onError(cause);
+                return;
+            }
+            listenChannels.add(future.channel());
+            if (cancelled) {
+                closeAll(null);
+            } else if (listenChannels.size() == eventLoops.size()) {
+                subscriber.onSuccess(NettyServerContext.wrap(listenChannels, channelSet, connectionAcceptor,
+                        executionContext));
+            } else {
+                bindNext(listenChannels.get(0).localAddress());
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            final ChannelFuture future = pending;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        private void closeAll(@Nullable final Throwable cause) {
+            for (Channel channel : listenChannels) {
+                if (cause == null) {
+                    channel.close();
+                } else {
+                    close(channel, cause);
+                }
+            }
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,7 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
     @Nullable
     private Map<String, ReadOnlyServerSecurityConfig> sniConfigs;
     private int backlog = NetUtil.SOMAXCONN;
+    private boolean reusePortAcceptors;
 
     TransportObserver transportObserver() {
         return transportObserver;
@@ -51,6 +52,10 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
         return backlog;
     }
 
+    boolean reusePortAcceptors() {
+        return reusePortAcceptors;
+    }
+
     /**
      * Sets a {@link TransportObserver} that provides visibility into transport events.
      *
@@ -94,6 +99,23 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
         return this;
     }
 
+    /**
+     * Bind one listening socket per {@link io.servicetalk.transport.api.IoExecutor} thread with {@code SO_REUSEPORT},
+     * so the kernel distributes incoming connections between them instead of accepting all of them on a single thread.
+     * Connections accepted by a listening socket are served by the same thread.
+     * <p>
+     * This is only honored by transports which support {@code SO_REUSEPORT} (epoll) when binding to an IP address,
+     * otherwise a single listening socket is used.
+     *
+     * @param reusePortAcceptors {@code true} to bind one listening socket per {@link
+     * io.servicetalk.transport.api.IoExecutor} thread
+     * @return {@code this}
+     */
+    public TcpServerConfig reusePortAcceptors(final boolean reusePortAcceptors) {
+        this.reusePortAcceptors = reusePortAcceptors;
+        return this;
+    }
+
     @Override
     public ReadOnlyTcpServerConfig asReadOnly(final List<String> supportedAlpnProtocols) {
         return new ReadOnlyTcpServerConfig(this, supportedAlpnProtocols);
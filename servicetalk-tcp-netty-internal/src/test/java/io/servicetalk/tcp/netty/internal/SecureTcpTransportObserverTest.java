@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -90,9 +91,9 @@ public class SecureTcpTransportObserverTest extends AbstractTransportObserverTes
         verify(serverConnectionObserver, atLeastOnce()).onDataRead(anyInt());
         verify(serverConnectionObserver, atLeastOnce()).onDataWrite(anyInt());
         verify(serverConnectionObserver, atLeastOnce()).onFlush();
-        // handshake completes
-        verify(clientSecurityHandshakeObserver).handshakeComplete(any());
-        verify(serverSecurityHandshakeObserver).handshakeComplete(any());
+        // handshake completes, the first connection can not resume a session
+        verify(clientSecurityHandshakeObserver).handshakeComplete(any(), eq(false));
+        verify(serverSecurityHandshakeObserver).handshakeComplete(any(), eq(false));
 
         Buffer content = connection.executionContext().bufferAllocator().fromAscii("Hello");
         connection.write(from(content.duplicate())).toFuture().get();
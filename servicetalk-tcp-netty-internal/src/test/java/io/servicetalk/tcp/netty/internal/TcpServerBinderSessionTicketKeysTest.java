@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.tcp.netty.internal;
+
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.api.TestSubscription;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.test.resources.DefaultTestCerts;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.ExecutionContextRule;
+import io.servicetalk.transport.netty.internal.ServerSecurityConfig;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.transport.api.SecurityConfigurator.SslProvider.OPENSSL;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.ExecutionContextRule.cached;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+public class TcpServerBinderSessionTicketKeysTest {
+
+    @ClassRule
+    public static final ExecutionContextRule SERVER_CTX = cached("server-io", "server-executor");
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<List<byte[]>> sessionTicketKeys =
+            new TestPublisher.Builder<List<byte[]>>().disableAutoOnSubscribe().build();
+    private final TestSubscription subscription = new TestSubscription();
+
+    @Test
+    public void bindWaitsForFirstKeys() throws Exception {
+        final Future<ServerContext> serverContext = bind();
+        sessionTicketKeys.onSubscribe(subscription);
+        subscription.awaitRequestN(1);
+        assertThat(serverContext.isDone(), is(false));
+
+        sessionTicketKeys.onNext(singletonList(new byte[48]));
+        serverContext.get().closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void bindFailsOnInvalidKeys() throws Exception {
+        final Future<ServerContext> serverContext = bind();
+        sessionTicketKeys.onSubscribe(subscription);
+        subscription.awaitRequestN(1);
+
+        sessionTicketKeys.onNext(singletonList(new byte[47]));
+        final ExecutionException e = assertThrows(ExecutionException.class, serverContext::get);
+        assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        assertThat(subscription.isCancelled(), is(true));
+    }
+
+    @Test
+    public void rotationStopsWhenServerCloses() throws Exception {
+        final Future<ServerContext> serverContextFuture = bind();
+        sessionTicketKeys.onSubscribe(subscription);
+        subscription.awaitRequestN(1);
+        sessionTicketKeys.onNext(singletonList(new byte[48]));
+        final ServerContext serverContext = serverContextFuture.get();
+
+        // Keys emitted while the server runs replace the keys in use, invalid keys do not stop the rotation.
+        sessionTicketKeys.onNext(singletonList(new byte[47]));
+        sessionTicketKeys.onNext(singletonList(new byte[48]));
+        assertThat(subscription.isCancelled(), is(false));
+
+        serverContext.closeAsync().toFuture().get();
+        serverContext.onClose().toFuture().get();
+        assertThat(subscription.isCancelled(), is(true));
+    }
+
+    private Future<ServerContext> bind() {
+        final ServerSecurityConfig securityConfig = new ServerSecurityConfig();
+        securityConfig.keyManager(DefaultTestCerts::loadServerPem, DefaultTestCerts::loadServerKey);
+        securityConfig.provider(OPENSSL);
+        securityConfig.sessionTicketKeys(sessionTicketKeys);
+        final TcpServerConfig config = new TcpServerConfig();
+        config.secure(securityConfig);
+        return TcpServerBinder.bind(localAddress(0), config.asReadOnly(emptyList()), false, SERVER_CTX,
+                null, (channel, connectionObserver) -> never(), (ConnectionContext connection) -> { })
+                .toFuture();
+    }
+}
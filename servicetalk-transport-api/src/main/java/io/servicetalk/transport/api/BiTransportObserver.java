@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -120,6 +120,12 @@ final class BiTransportObserver implements TransportObserver {
             first.handshakeComplete(sslSession);
             second.handshakeComplete(sslSession);
         }
+
+        @Override
+        public void handshakeComplete(final SSLSession sslSession, final boolean resumed) {
+            first.handshakeComplete(sslSession, resumed);
+            second.handshakeComplete(sslSession, resumed);
+        }
     }
 
     private static final class BiDataObserver implements DataObserver {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -127,6 +127,11 @@ final class CatchAllTransportObserver implements TransportObserver {
         public void handshakeComplete(final SSLSession sslSession) {
             safeReport(() -> observer.handshakeComplete(sslSession), observer, "handshake complete");
         }
+
+        @Override
+        public void handshakeComplete(final SSLSession sslSession, final boolean resumed) {
+            safeReport(() -> observer.handshakeComplete(sslSession, resumed), observer, "handshake complete");
+        }
     }
 
     private static final class CatchAllDataObserver implements DataObserver {
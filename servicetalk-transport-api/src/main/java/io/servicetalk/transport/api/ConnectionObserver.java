@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -100,6 +100,20 @@ public interface ConnectionObserver {
          * @param sslSession the {@link SSLSession} for this connection
          */
         void handshakeComplete(SSLSession sslSession);
+
+        /**
+         * Callback when the handshake is complete successfully.
+         * <p>
+         * Allows to distinguish full handshakes from abbreviated handshakes which resumed a previously established
+         * session, for example to compute a session resumption rate. Resumption detection is best effort, the
+         * default implementation delegates to {@link #handshakeComplete(SSLSession)}.
+         *
+         * @param sslSession the {@link SSLSession} for this connection
+         * @param resumed {@code true} if the handshake resumed a previously established session
+         */
+        default void handshakeComplete(SSLSession sslSession, boolean resumed) {
+            handshakeComplete(sslSession);
+        }
     }
 
     /**
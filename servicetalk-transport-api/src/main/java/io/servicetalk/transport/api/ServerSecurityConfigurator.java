@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,7 +15,10 @@
  */
 package io.servicetalk.transport.api;
 
+import io.servicetalk.concurrent.api.Publisher;
+
 import java.io.InputStream;
+import java.util.List;
 import java.util.function.Supplier;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManagerFactory;
@@ -72,4 +75,23 @@ public interface ServerSecurityConfigurator extends SecurityConfigurator {
      * @return {@code this}.
      */
     ServerSecurityConfigurator clientAuth(ClientAuth clientAuth);
+
+    /**
+     * Sets the keys which are used to encrypt and decrypt
+     * <a href="https://tools.ietf.org/html/rfc5077">TLS session tickets</a>, so that clients can resume sessions
+     * without a full handshake, including on other servers which share the same keys.
+     * <p>
+     * Each key is {@code 48} bytes: a {@code 16} bytes key name, a {@code 16} bytes HMAC secret and a {@code 16} bytes
+     * AES key. The first key of a {@link List} is used to issue new tickets, all of them are used to decrypt tickets.
+     * Each emitted {@link List} replaces the keys in use, which allows to rotate keys while the server is running. The
+     * {@link Publisher} is subscribed when the server starts, which binds only after the first keys are set, and is
+     * cancelled when the server is closed. If the first keys can not be set the server fails to start, later failures
+     * are logged and the keys in use are kept.
+     * <p>
+     * Session ticket keys are only supported by the {@link SslProvider#OPENSSL OpenSSL} provider.
+     *
+     * @param sessionTicketKeys a {@link Publisher} of the session ticket keys to use.
+     * @return {@code this}.
+     */
+    ServerSecurityConfigurator sessionTicketKeys(Publisher<? extends List<byte[]>> sessionTicketKeys);
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,30 @@ public final class ServiceTalkSocketOptions {
      */
     public static final SocketOption<Long> IDLE_TIMEOUT = new ServiceTalkSocketOption<>("IDLE_TIMEOUT", Long.class);
 
+    /**
+     * The length of the queue of pending TCP Fast Open requests of a server, {@code 0} disables TCP Fast Open.
+     * <p>
+     * This option is only honored by the epoll transport and ignored otherwise.
+     */
+    public static final SocketOption<Integer> TCP_FASTOPEN =
+            new ServiceTalkSocketOption<>("TCP_FASTOPEN", Integer.class);
+
+    /**
+     * Enable TCP Fast Open for outgoing connections, sending data in the {@code SYN} when possible.
+     * <p>
+     * This option is only honored by the epoll transport and ignored otherwise.
+     */
+    public static final SocketOption<Boolean> TCP_FASTOPEN_CONNECT =
+            new ServiceTalkSocketOption<>("TCP_FASTOPEN_CONNECT", Boolean.class);
+
+    /**
+     * The time in seconds a server waits for data to arrive on a new connection before it is accepted.
+     * <p>
+     * This option is only honored by the epoll transport and ignored otherwise.
+     */
+    public static final SocketOption<Integer> TCP_DEFER_ACCEPT =
+            new ServiceTalkSocketOption<>("TCP_DEFER_ACCEPT", Integer.class);
+
     private ServiceTalkSocketOptions() {
     }
 
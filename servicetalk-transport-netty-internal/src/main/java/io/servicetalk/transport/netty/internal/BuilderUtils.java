@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,11 @@ import io.servicetalk.transport.api.FileDescriptorSocketAddress;
 import io.servicetalk.transport.api.HostAndPort;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
@@ -39,6 +41,10 @@ import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import io.netty.util.NetUtil;
 
 import java.io.Closeable;
@@ -87,6 +93,32 @@ public final class BuilderUtils {
                 ((EventLoop) group).parent() instanceof KQueueEventLoopGroup);
     }
 
+    /**
+     * Returns {@code true} if native io_uring transport should be used.
+     *
+     * @param group the used {@link EventLoopGroup}
+     * @return {@code true} if native transport should be used
+     */
+    public static boolean useIoUring(EventLoopGroup group) {
+        // Check if we should use the io_uring transport. This is true if either the IOUringEventLoopGroup is used
+        // directly or if the passed group is a EventLoop and it's parent is an IOUringEventLoopGroup.
+        return group instanceof IOUringEventLoopGroup || (group instanceof EventLoop &&
+                ((EventLoop) group).parent() instanceof IOUringEventLoopGroup);
+    }
+
+    /**
+     * Returns the {@link ChannelOption} which allows multiple server sockets to bind to the same address, so the
+     * kernel distributes incoming connections between them.
+     *
+     * @param group the used {@link EventLoopGroup}
+     * @return the {@code SO_REUSEPORT} {@link ChannelOption} or {@code null} if the transport used by {@code group}
+     * does not support it
+     */
+    @Nullable
+    public static ChannelOption<Boolean> reusePortOption(EventLoopGroup group) {
+        return useEpoll(group) ? EpollChannelOption.SO_REUSEPORT : null;
+    }
+
     /**
      * Returns the correct {@link Class} to use with the given {@link EventLoopGroup}.
      *
@@ -102,6 +134,9 @@ public final class BuilderUtils {
         } else if (useKQueue(group)) {
             return DomainSocketAddress.class.isAssignableFrom(addressClass) ? KQueueServerDomainSocketChannel.class :
                     KQueueServerSocketChannel.class;
+        } else if (useIoUring(group)) {
+            checkIoUringAddress(addressClass);
+            return IOUringServerSocketChannel.class;
         } else {
             return NioServerSocketChannel.class;
         }
@@ -122,6 +157,9 @@ public final class BuilderUtils {
         } else if (useKQueue(group)) {
             return DomainSocketAddress.class.isAssignableFrom(addressClass) ? KQueueDomainSocketChannel.class :
                     KQueueSocketChannel.class;
+        } else if (useIoUring(group)) {
+            checkIoUringAddress(addressClass);
+            return IOUringSocketChannel.class;
         } else {
             return NioSocketChannel.class;
         }
@@ -194,11 +232,19 @@ public final class BuilderUtils {
             return EpollDatagramChannel.class;
         } else if (useKQueue(group)) {
             return KQueueDatagramChannel.class;
+        } else if (useIoUring(group)) {
+            return IOUringDatagramChannel.class;
         } else {
             return NioDatagramChannel.class;
         }
     }
 
+    private static void checkIoUringAddress(final Class<? extends SocketAddress> addressClass) {
+        if (DomainSocketAddress.class.isAssignableFrom(addressClass)) {
+            throw new IllegalArgumentException("Unix domain sockets are not supported by the io_uring transport");
+        }
+    }
+
     /**
      * Format an address into a canonical numeric format.
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,10 +25,13 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 
 import javax.annotation.Nullable;
 
 import static io.servicetalk.transport.netty.internal.ChannelCloseUtils.channelError;
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -69,6 +72,7 @@ public final class ConnectionObserverInitializer implements ChannelInitializer {
         private final boolean secure;
         @Nullable
         private SecurityHandshakeObserver handshakeObserver;
+        private long handshakeStartMillis;
 
         ConnectionObserverHandler(final ConnectionObserver observer, final boolean secure) {
             this.observer = observer;
@@ -92,6 +96,7 @@ public final class ConnectionObserverInitializer implements ChannelInitializer {
 
         void reportSecurityHandshakeStarting() {
             if (handshakeObserver == null) {
+                handshakeStartMillis = currentTimeMillis();
                 handshakeObserver = observer.onSecurityHandshake();
             }
         }
@@ -101,6 +106,10 @@ public final class ConnectionObserverInitializer implements ChannelInitializer {
             return handshakeObserver;
         }
 
+        long handshakeStartMillis() {
+            return handshakeStartMillis;
+        }
+
         @Override
         public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
             if (msg instanceof ByteBuf) {
@@ -117,6 +126,8 @@ public final class ConnectionObserverInitializer implements ChannelInitializer {
                 observer.onDataWrite(((ByteBuf) msg).readableBytes());
             } else if (msg instanceof ByteBufHolder) {
                 observer.onDataWrite(((ByteBufHolder) msg).content().readableBytes());
+            } else if (msg instanceof FileRegion) {
+                observer.onDataWrite((int) min(((FileRegion) msg).count(), Integer.MAX_VALUE));
             }
             ctx.write(msg, promise);
         }
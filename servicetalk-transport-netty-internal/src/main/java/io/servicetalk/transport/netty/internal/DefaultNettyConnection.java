@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -112,6 +112,7 @@ public final class DefaultNettyConnection<Read, Write> extends NettyChannelListe
     private final CompletableSource.Processor onClosing;
     private final SingleSource.Processor<Throwable, Throwable> transportError = newSingleProcessor();
     private final FlushStrategyHolder flushStrategyHolder;
+    private final FlushConsolidator flushConsolidator;
     @Nullable
     private final Long idleTimeoutMs;
     private final Protocol protocol;
@@ -154,6 +155,7 @@ public final class DefaultNettyConnection<Read, Write> extends NettyChannelListe
                 executor, executionStrategy);
         this.closeHandler = requireNonNull(closeHandler);
         this.flushStrategyHolder = new FlushStrategyHolder(flushStrategy);
+        this.flushConsolidator = new FlushConsolidator(channel);
         this.idleTimeoutMs = idleTimeoutMs;
         if (closeHandler != UNSUPPORTED_PROTOCOL_CLOSE_HANDLER) {
             onClosing = newCompletableProcessor();
@@ -399,8 +401,8 @@ public final class DefaultNettyConnection<Read, Write> extends NettyChannelListe
                 WriteStreamSubscriber subscriber = new WriteStreamSubscriber(channel(), demandEstimatorSupplier.get(),
                         completableSubscriber, closeHandler, writeObserver, enrichProtocolError);
                 if (failIfWriteActive(subscriber, completableSubscriber)) {
-                    toSource(composeFlushes(channel(), write, flushStrategySupplier.get(), writeObserver))
-                            .subscribe(subscriber);
+                    toSource(composeFlushes(channel(), write, flushStrategySupplier.get(), writeObserver,
+                            flushConsolidator)).subscribe(subscriber);
                 }
             }
         }).onErrorResume(this::enrichErrorCompletable);
@@ -632,12 +634,14 @@ public final class DefaultNettyConnection<Read, Write> extends NettyChannelListe
         public void channelRead(ChannelHandlerContext ctx, Object msg) {
             @SuppressWarnings("unchecked")
             final Read t = (Read) msg;
+            connection.flushConsolidator.readStarted();
             connection.nettyChannelPublisher.channelRead(t);
         }
 
         @Override
         public void channelReadComplete(ChannelHandlerContext ctx) {
             connection.nettyChannelPublisher.onReadComplete();
+            connection.flushConsolidator.readComplete();
         }
 
         @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,14 @@ import io.servicetalk.concurrent.PublisherSource.Subscriber;
 import io.servicetalk.concurrent.PublisherSource.Subscription;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.ConnectionObserver.WriteObserver;
+import io.servicetalk.transport.netty.internal.FlushStrategy.FlushSender;
 import io.servicetalk.transport.netty.internal.FlushStrategy.WriteEventsListener;
 
 import io.netty.channel.Channel;
 import io.netty.util.concurrent.EventExecutor;
 
+import javax.annotation.Nullable;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -49,9 +52,29 @@ final class Flush {
      */
     static <T> Publisher<T> composeFlushes(Channel channel, Publisher<T> source, FlushStrategy flushStrategy,
                                            WriteObserver observer) {
+        return composeFlushes(channel, source, flushStrategy, observer, null);
+    }
+
+    /**
+     * Apply the passed {@link FlushStrategy} to the passed {@link Publisher} such that the passed {@link Channel} is
+     * flushed according to the {@link FlushStrategy}.
+     *
+     * @param channel Channel to flush.
+     * @param source Original source.
+     * @param flushStrategy {@link FlushStrategy} to apply.
+     * @param observer a {@link WriteObserver} to report write events
+     * @param consolidator {@link FlushConsolidator} for {@link FlushSender#consolidatedFlush()}, or {@code null} if
+     * consolidated flushes should be the same as regular flushes.
+     * @param <T> Type of elements emitted by {@code source}.
+     * @return {@link Publisher} that forwards all items from {@code source} and flushes the channel as directed by
+     * {@link FlushStrategy}.
+     */
+    static <T> Publisher<T> composeFlushes(Channel channel, Publisher<T> source, FlushStrategy flushStrategy,
+                                           WriteObserver observer, @Nullable FlushConsolidator consolidator) {
         requireNonNull(channel);
         requireNonNull(flushStrategy);
-        return source.liftSync(subscriber -> new FlushSubscriber<>(flushStrategy, subscriber, channel, observer));
+        return source.liftSync(subscriber ->
+                new FlushSubscriber<>(flushStrategy, subscriber, channel, observer, consolidator));
     }
 
     private static final class FlushSubscriber<T> implements Subscriber<T> {
@@ -62,16 +85,29 @@ final class Flush {
         private volatile boolean enqueueFlush;
 
         FlushSubscriber(FlushStrategy flushStrategy, Subscriber<? super T> subscriber, Channel channel,
-                        WriteObserver observer) {
+                        WriteObserver observer, @Nullable FlushConsolidator consolidator) {
             this.eventLoop = requireNonNull(channel.eventLoop());
             this.subscriber = requireNonNull(subscriber);
             this.observer = observer;
-            this.writeEventsListener = flushStrategy.apply(() -> {
-                observer.onFlushRequest();
-                if (enqueueFlush) {
-                    eventLoop.execute(channel::flush);
-                } else {
-                    channel.flush();
+            this.writeEventsListener = flushStrategy.apply(new FlushSender() {
+                @Override
+                public void flush() {
+                    observer.onFlushRequest();
+                    if (enqueueFlush) {
+                        eventLoop.execute(channel::flush);
+                    } else {
+                        channel.flush();
+                    }
+                }
+
+                @Override
+                public void consolidatedFlush() {
+                    if (consolidator == null) {
+                        flush();
+                    } else {
+                        observer.onFlushRequest();
+                        consolidator.flush();
+                    }
                 }
             });
         }
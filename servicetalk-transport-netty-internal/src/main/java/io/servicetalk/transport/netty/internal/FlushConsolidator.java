@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * Consolidates {@link FlushStrategy.FlushSender#consolidatedFlush() flush requests} on a {@link Channel} which are
+ * made while more work is pending in the same event loop iteration, similar to netty's
+ * {@link io.netty.handler.flush.FlushConsolidationHandler}.
+ * <p>
+ * A flush is delayed:
+ * <ul>
+ *     <li>till {@link #readComplete()} if it is requested while the {@link Channel} is reading, so that responses
+ *     to pipelined requests are flushed together.</li>
+ *     <li>till the already queued tasks of the {@link EventLoop} have run if there are any, so that writes from
+ *     those tasks are flushed together.</li>
+ * </ul>
+ * Otherwise, the {@link Channel} is idle and it is flushed immediately, so latency does not suffer.
+ * <p>
+ * All methods other than {@link #flush()} MUST be called from the {@link EventLoop} of the {@link Channel}.
+ */
+final class FlushConsolidator {
+    private final Channel channel;
+    private final Runnable flushTask = this::flushTask;
+    private boolean readInProgress;
+    private boolean flushPending;
+    private boolean flushScheduled;
+
+    FlushConsolidator(final Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Notifies that the {@link Channel} read a message.
+     */
+    void readStarted() {
+        readInProgress = true;
+    }
+
+    /**
+     * Notifies that the {@link Channel} completed the current read operation.
+     */
+    void readComplete() {
+        readInProgress = false;
+        if (flushPending) {
+            flushPending = false;
+            channel.flush();
+        }
+    }
+
+    /**
+     * Requests a flush of the {@link Channel}. This method can be called from any thread.
+     */
+    void flush() {
+        final EventLoop eventLoop = channel.eventLoop();
+        if (!eventLoop.inEventLoop()) {
+            eventLoop.execute(flushTask);
+        } else if (readInProgress) {
+            flushPending = true;
+        } else if (!flushScheduled) {
+            if (hasPendingTasks(eventLoop)) {
+                flushScheduled = true;
+                eventLoop.execute(flushTask);
+            } else {
+                channel.flush();
+            }
+        }
+    }
+
+    private void flushTask() {
+        flushScheduled = false;
+        if (readInProgress) {
+            flushPending = true;
+        } else {
+            channel.flush();
+        }
+    }
+
+    private static boolean hasPendingTasks(final EventLoop eventLoop) {
+        return eventLoop instanceof SingleThreadEventExecutor &&
+                ((SingleThreadEventExecutor) eventLoop).pendingTasks() > 0;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.netty.internal.FlushStrategy.FlushSender;
 import io.servicetalk.transport.netty.internal.FlushStrategy.WriteEventsListener;
 
+import static io.servicetalk.transport.netty.internal.AdaptiveFlush.ADAPTIVE_FLUSH;
 import static io.servicetalk.transport.netty.internal.FlushOnEach.FLUSH_ON_EACH;
 import static io.servicetalk.transport.netty.internal.FlushOnEnd.FLUSH_ON_END;
 import static java.lang.Integer.MAX_VALUE;
@@ -52,6 +53,23 @@ public final class FlushStrategies {
         return FLUSH_ON_EACH;
     }
 
+    /**
+     * Creates a {@link FlushStrategy} that will {@link FlushSender#consolidatedFlush() request a consolidated flush}
+     * on each call to the returned {@link WriteEventsListener#itemWritten(Object)} from
+     * {@link FlushStrategy#apply(FlushSender)}.
+     * <p>
+     * Writes are flushed immediately when the connection is idle, but when more reads or event loop tasks are pending,
+     * e.g. for pipelined requests or concurrent streams, the flushes are coalesced into one flush for the whole event
+     * loop iteration.
+     *
+     * @return A {@link FlushStrategy} that will {@link FlushSender#consolidatedFlush() request a consolidated flush}
+     * on each call to the returned {@link WriteEventsListener#itemWritten(Object)} from
+     * {@link FlushStrategy#apply(FlushSender)}.
+     */
+    public static FlushStrategy adaptiveFlush() {
+        return ADAPTIVE_FLUSH;
+    }
+
     /**
      * Creates a {@link FlushStrategy} that will {@link FlushSender#flush() flush writes} in a batch of
      * {@code batchSize} or on expiration of a batch duration i.e. when an item is emitted from
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,6 +56,17 @@ public interface FlushStrategy {
          * {@link WriteEventsListener}.
          */
         void flush();
+
+        /**
+         * Sends a flush on the associated connection, which may be consolidated with other flushes requested in the
+         * same event loop iteration. The connection is flushed immediately if it is idle, otherwise the flush is
+         * delayed until the pending reads or tasks of the event loop have been processed.
+         * <p>
+         * The default implementation is the same as {@link #flush()}.
+         */
+        default void consolidatedFlush() {
+            flush();
+        }
     }
 
     /**
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,10 @@ import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.kqueue.KQueue;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ThreadFactory;
 
@@ -34,6 +38,7 @@ import static java.util.Objects.requireNonNull;
  * A static factory to create or convert to {@link NettyIoExecutor}.
  */
 public final class NettyIoExecutors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NettyIoExecutors.class);
 
     private NettyIoExecutors() {
         // No instances.
@@ -75,6 +80,37 @@ public final class NettyIoExecutors {
                         new NioEventLoopGroup(ioThreads, threadFactory);
     }
 
+    /**
+     * Create a new {@link NettyIoExecutor} backed by the io_uring transport, or by the same transport as
+     * {@link #createIoExecutor(int, ThreadFactory)} if io_uring is not supported by the platform.
+     *
+     * @param ioThreads number of threads.
+     * @param threadFactory the {@link ThreadFactory} to use.
+     * @return The created {@link IoExecutor}
+     */
+    public static EventLoopAwareNettyIoExecutor createIoUringIoExecutor(int ioThreads, ThreadFactory threadFactory) {
+        validateIoThreads(ioThreads);
+        return new EventLoopGroupIoExecutor(createIoUringEventLoopGroup(ioThreads, threadFactory), true);
+    }
+
+    /**
+     * Create a new {@link EventLoopGroup} backed by the io_uring transport, or by the same transport as
+     * {@link #createEventLoopGroup(int, ThreadFactory)} if io_uring is not supported by the platform.
+     *
+     * @param ioThreads number of threads
+     * @param threadFactory the {@link ThreadFactory} to use.
+     * @return The created {@link EventLoopGroup}
+     */
+    public static EventLoopGroup createIoUringEventLoopGroup(int ioThreads, ThreadFactory threadFactory) {
+        validateIoThreads(ioThreads);
+        if (IOUring.isAvailable()) {
+            return new IOUringEventLoopGroup(ioThreads, threadFactory);
+        }
+        LOGGER.debug("io_uring transport is not available, falling back to the default transport.",
+                IOUring.unavailabilityCause());
+        return createEventLoopGroup(ioThreads, threadFactory);
+    }
+
     /**
      * Attempts to convert the passed {@link IoExecutor} to a {@link NettyIoExecutor}.
      *
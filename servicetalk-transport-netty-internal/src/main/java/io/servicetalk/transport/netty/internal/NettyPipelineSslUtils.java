@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,13 +65,14 @@ public final class NettyPipelineSslUtils {
                                                         SslHandshakeCompletionEvent sslEvent,
                                                         Consumer<Throwable> failureConsumer,
                                                         boolean shouldReport) {
-        final SecurityHandshakeObserver observer = shouldReport ? handshakeObserver(pipeline) : null;
+        final ConnectionObserverHandler handler = shouldReport ? connectionObserverHandler(pipeline) : null;
+        final SecurityHandshakeObserver observer = handler == null ? null : handler.handshakeObserver();
         if (sslEvent.isSuccess()) {
             final SslHandler sslHandler = pipeline.get(SslHandler.class);
             if (sslHandler != null) {
                 final SSLSession session = sslHandler.engine().getSession();
                 if (observer != null) {
-                    observer.handshakeComplete(session);
+                    observer.handshakeComplete(session, isSessionResumed(session, handler.handshakeStartMillis()));
                 }
                 return session;
             } else {
@@ -92,20 +93,32 @@ public final class NettyPipelineSslUtils {
         failureConsumer.accept(cause);
     }
 
+    /**
+     * Best effort detection of an abbreviated handshake: a resumed {@link SSLSession} was created before the current
+     * handshake started. OpenSSL reports creation time with seconds precision, so the comparison is done at that
+     * granularity and a session resumed within the same second as it was created is reported as a full handshake.
+     *
+     * @param session the {@link SSLSession} negotiated by the handshake.
+     * @param handshakeStartMillis the time when the handshake started, in milliseconds since the epoch.
+     * @return {@code true} if the {@code session} was resumed.
+     */
+    static boolean isSessionResumed(final SSLSession session, final long handshakeStartMillis) {
+        return session.getCreationTime() < handshakeStartMillis - handshakeStartMillis % 1000;
+    }
+
     @Nullable
-    private static SecurityHandshakeObserver handshakeObserver(final ChannelPipeline pipeline) {
+    private static ConnectionObserverHandler connectionObserverHandler(final ChannelPipeline pipeline) {
         final ConnectionObserverHandler handler = pipeline.get(ConnectionObserverHandler.class);
         if (handler == null) {
             LOGGER.warn("Expected to report the handshake completion event, but unable to find {} in the pipeline.",
                     ConnectionObserverHandler.class);
             return null;
         }
-        final SecurityHandshakeObserver handshakeObserver = handler.handshakeObserver();
-        if (handshakeObserver == null) {
+        if (handler.handshakeObserver() == null) {
             LOGGER.warn("Expected to report the handshake completion event, but {} was not initialized.",
                     SecurityHandshakeObserver.class);
             return null;
         }
-        return handshakeObserver;
+        return handler;
     }
 }
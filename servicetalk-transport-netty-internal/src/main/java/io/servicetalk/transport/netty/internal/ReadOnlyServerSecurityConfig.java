@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,8 +15,12 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.ServerSecurityConfigurator.ClientAuth;
 
+import java.util.List;
+import javax.annotation.Nullable;
+
 import static io.servicetalk.transport.api.ServerSecurityConfigurator.ClientAuth.NONE;
 
 /**
@@ -25,6 +29,8 @@ import static io.servicetalk.transport.api.ServerSecurityConfigurator.ClientAuth
 public class ReadOnlyServerSecurityConfig extends ReadOnlySecurityConfig {
 
     protected ClientAuth clientAuth = NONE;
+    @Nullable
+    protected Publisher<? extends List<byte[]>> sessionTicketKeys;
 
     /**
      * Creates new instance.
@@ -40,6 +46,7 @@ public class ReadOnlyServerSecurityConfig extends ReadOnlySecurityConfig {
     protected ReadOnlyServerSecurityConfig(final ReadOnlyServerSecurityConfig from) {
         super(from);
         clientAuth = from.clientAuth;
+        sessionTicketKeys = from.sessionTicketKeys;
     }
 
     /**
@@ -49,4 +56,13 @@ public class ReadOnlyServerSecurityConfig extends ReadOnlySecurityConfig {
     public ClientAuth clientAuth() {
         return clientAuth;
     }
+
+    /**
+     * Returns the {@link Publisher} of session ticket keys.
+     * @return The {@link Publisher} of session ticket keys, or {@code null} if none were configured.
+     */
+    @Nullable
+    public Publisher<? extends List<byte[]>> sessionTicketKeys() {
+        return sessionTicketKeys;
+    }
 }
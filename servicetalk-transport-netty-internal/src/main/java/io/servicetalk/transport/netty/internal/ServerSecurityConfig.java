@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,10 +15,12 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.SecurityConfigurator.SslProvider;
 import io.servicetalk.transport.api.ServerSecurityConfigurator.ClientAuth;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.function.Supplier;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
@@ -145,6 +147,15 @@ public class ServerSecurityConfig extends ReadOnlyServerSecurityConfig {
         this.clientAuth = requireNonNull(clientAuth);
     }
 
+    /**
+     * Sets the {@link Publisher} of session ticket keys, each emitted {@link List} replaces the keys in use.
+     *
+     * @param sessionTicketKeys the {@link Publisher} of session ticket keys to use.
+     */
+    public void sessionTicketKeys(final Publisher<? extends List<byte[]>> sessionTicketKeys) {
+        this.sessionTicketKeys = requireNonNull(sessionTicketKeys);
+    }
+
     /**
      * Returns this config as a {@link ReadOnlyServerSecurityConfig}.
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import io.servicetalk.transport.api.ServiceTalkSocketOptions;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
 
 import java.net.SocketOption;
 import java.net.StandardSocketOptions;
@@ -75,6 +76,12 @@ public final class SocketOptionUtils {
             final int writeBufferThreshold = (Integer) value;
             channelOpts.put(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferThreshold >>> 1,
                     writeBufferThreshold));
+        } else if (option == ServiceTalkSocketOptions.TCP_FASTOPEN) {
+            channelOpts.put(EpollChannelOption.TCP_FASTOPEN, value);
+        } else if (option == ServiceTalkSocketOptions.TCP_FASTOPEN_CONNECT) {
+            channelOpts.put(EpollChannelOption.TCP_FASTOPEN_CONNECT, value);
+        } else if (option == ServiceTalkSocketOptions.TCP_DEFER_ACCEPT) {
+            channelOpts.put(EpollChannelOption.TCP_DEFER_ACCEPT, value);
         } else {
             throw unsupported(option);
         }
@@ -139,9 +146,41 @@ public final class SocketOptionUtils {
         if (option == ServiceTalkSocketOptions.IDLE_TIMEOUT) {
             return (T) idleTimeoutMs;
         }
+        if (option == ServiceTalkSocketOptions.TCP_FASTOPEN) {
+            return (T) config.getOption(EpollChannelOption.TCP_FASTOPEN);
+        }
+        if (option == ServiceTalkSocketOptions.TCP_FASTOPEN_CONNECT) {
+            return (T) config.getOption(EpollChannelOption.TCP_FASTOPEN_CONNECT);
+        }
+        if (option == ServiceTalkSocketOptions.TCP_DEFER_ACCEPT) {
+            return (T) config.getOption(EpollChannelOption.TCP_DEFER_ACCEPT);
+        }
         throw unsupported(option);
     }
 
+    /**
+     * Determine if a {@link ChannelOption} applies to the listening socket of a server rather than to the sockets it
+     * accepts.
+     *
+     * @param option the {@link ChannelOption} to check
+     * @return {@code true} if the {@link ChannelOption} has to be set on the listening socket of a server
+     */
+    public static boolean isServerListenOption(final ChannelOption<?> option) {
+        return option == EpollChannelOption.TCP_FASTOPEN || option == EpollChannelOption.TCP_DEFER_ACCEPT;
+    }
+
+    /**
+     * Determine if a {@link ChannelOption} is only supported by the epoll transport. Such options must not be set when
+     * other transports are used, which would otherwise log a warning for each unknown option of every new channel.
+     *
+     * @param option the {@link ChannelOption} to check
+     * @return {@code true} if the {@link ChannelOption} is only supported by the epoll transport
+     */
+    public static boolean isEpollOnlyOption(final ChannelOption<?> option) {
+        return option == EpollChannelOption.TCP_FASTOPEN || option == EpollChannelOption.TCP_FASTOPEN_CONNECT ||
+                option == EpollChannelOption.TCP_DEFER_ACCEPT;
+    }
+
     private static <T> IllegalArgumentException unsupported(final SocketOption<T> option) {
         return new IllegalArgumentException("SocketOption(" + option.name() + ", " + option.type().getName() +
                 ") is not supported");
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 package io.servicetalk.transport.netty.internal;
 
 import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 
@@ -23,10 +25,16 @@ import java.io.InputStream;
 import java.util.List;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSessionContext;
 
+import static io.netty.handler.ssl.OpenSslSessionTicketKey.AES_KEY_SIZE;
+import static io.netty.handler.ssl.OpenSslSessionTicketKey.HMAC_KEY_SIZE;
+import static io.netty.handler.ssl.OpenSslSessionTicketKey.NAME_SIZE;
+import static io.netty.handler.ssl.OpenSslSessionTicketKey.TICKET_KEY_SIZE;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.closeAndRethrowUnchecked;
 import static io.servicetalk.transport.netty.internal.SslUtils.nettyApplicationProtocol;
 import static io.servicetalk.transport.netty.internal.SslUtils.toNettySslProvider;
+import static java.util.Arrays.copyOfRange;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -131,11 +139,55 @@ public final class SslContextFactory {
         builder.ciphers(config.ciphers());
 
         builder.sslProvider(toNettySslProvider(config.provider(), !supportedAlpnProtocols.isEmpty()));
+        final SslContext sslContext;
         try {
-            return builder.build();
+            sslContext = builder.build();
         } catch (SSLException e) {
             throw new IllegalArgumentException(e);
         }
+        if (config.sessionTicketKeys() != null) {
+            // Keys are set by the server when it starts, validate the provider early.
+            openSslSessionContext(sslContext);
+        }
+        return sslContext;
+    }
+
+    /**
+     * Sets the session ticket keys used by a server {@link SslContext}, replacing the keys in use.
+     *
+     * @param sslContext {@link SslContext} created by {@link #forServer(ReadOnlyServerSecurityConfig, List)}.
+     * @param keys the {@code 48} bytes session ticket keys, the first one is used to issue new tickets.
+     * @see ReadOnlyServerSecurityConfig#sessionTicketKeys()
+     */
+    public static void setSessionTicketKeys(SslContext sslContext, List<byte[]> keys) {
+        openSslSessionContext(sslContext).setTicketKeys(toTicketKeys(keys));
+    }
+
+    private static OpenSslSessionContext openSslSessionContext(final SslContext sslContext) {
+        final SSLSessionContext sessionContext = sslContext.sessionContext();
+        if (!(sessionContext instanceof OpenSslSessionContext)) {
+            throw new IllegalArgumentException("Session ticket keys require the OPENSSL provider, got: " +
+                    sessionContext.getClass().getName());
+        }
+        return (OpenSslSessionContext) sessionContext;
+    }
+
+    static OpenSslSessionTicketKey[] toTicketKeys(final List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("session ticket keys: 0 (expected > 0)");
+        }
+        final OpenSslSessionTicketKey[] ticketKeys = new OpenSslSessionTicketKey[keys.size()];
+        for (int i = 0; i < ticketKeys.length; ++i) {
+            final byte[] key = requireNonNull(keys.get(i));
+            if (key.length != TICKET_KEY_SIZE) {
+                throw new IllegalArgumentException("session ticket key length: " + key.length +
+                        " (expected " + TICKET_KEY_SIZE + ')');
+            }
+            ticketKeys[i] = new OpenSslSessionTicketKey(copyOfRange(key, 0, NAME_SIZE),
+                    copyOfRange(key, NAME_SIZE, NAME_SIZE + HMAC_KEY_SIZE),
+                    copyOfRange(key, NAME_SIZE + HMAC_KEY_SIZE, NAME_SIZE + HMAC_KEY_SIZE + AES_KEY_SIZE));
+        }
+        return ticketKeys;
     }
 
     private static void configureTrustManager(ReadOnlySecurityConfig config, SslContextBuilder builder) {
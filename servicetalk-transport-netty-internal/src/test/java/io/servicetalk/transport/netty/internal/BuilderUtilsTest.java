@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,29 @@ package io.servicetalk.transport.netty.internal;
 
 import io.servicetalk.transport.api.HostAndPort;
 
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import io.netty.util.NetUtil;
 import org.junit.Test;
 
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 
+import static io.servicetalk.transport.netty.internal.BuilderUtils.serverChannel;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.socketChannel;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toResolvedInetSocketAddress;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.useIoUring;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoUringEventLoopGroup;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assume.assumeTrue;
 
 public class BuilderUtilsTest {
 
@@ -58,4 +69,28 @@ public class BuilderUtilsTest {
                 () -> toResolvedInetSocketAddress(HostAndPort.of("unresolved-hostname", 8080)));
         assertThat(t.getCause(), instanceOf(UnknownHostException.class));
     }
+
+    @Test
+    public void ioUringEventLoopGroupMatchesAvailability() throws Exception {
+        EventLoopGroup group = createIoUringEventLoopGroup(1, new IoThreadFactory("io_uring"));
+        try {
+            assertThat(useIoUring(group), is(IOUring.isAvailable()));
+            assertThat(useIoUring(group.next()), is(IOUring.isAvailable()));
+        } finally {
+            group.shutdownGracefully(0, 0, SECONDS).sync();
+        }
+    }
+
+    @Test
+    public void ioUringChannels() throws Exception {
+        assumeTrue(IOUring.isAvailable());
+        EventLoopGroup group = createIoUringEventLoopGroup(1, new IoThreadFactory("io_uring"));
+        try {
+            assertThat(socketChannel(group, InetSocketAddress.class), equalTo(IOUringSocketChannel.class));
+            assertThat(serverChannel(group, InetSocketAddress.class), equalTo(IOUringServerSocketChannel.class));
+            assertThrows(IllegalArgumentException.class, () -> socketChannel(group, DomainSocketAddress.class));
+        } finally {
+            group.shutdownGracefully(0, 0, SECONDS).sync();
+        }
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FlushConsolidatorTest {
+
+    private EventLoop eventLoop;
+    private Channel channel;
+    private FlushConsolidator consolidator;
+
+    @Before
+    public void setUp() {
+        eventLoop = new DefaultEventLoop();
+        channel = mock(Channel.class);
+        when(channel.eventLoop()).thenReturn(eventLoop);
+        consolidator = new FlushConsolidator(channel);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventLoop.shutdownGracefully(0, 0, SECONDS).sync();
+    }
+
+    @Test
+    public void flushImmediatelyWhenIdle() throws Exception {
+        eventLoop.submit(() -> {
+            consolidator.flush();
+            verify(channel).flush();
+        }).get();
+    }
+
+    @Test
+    public void flushOnReadComplete() throws Exception {
+        eventLoop.submit(() -> {
+            consolidator.readStarted();
+            consolidator.flush();
+            consolidator.flush();
+            verify(channel, never()).flush();
+            consolidator.readComplete();
+            verify(channel).flush();
+            consolidator.readComplete();
+            verify(channel).flush();
+        }).get();
+    }
+
+    @Test
+    public void flushAfterPendingTasks() throws Exception {
+        CountDownLatch tasksQueued = new CountDownLatch(1);
+        Future<?> first = eventLoop.submit(() -> {
+            tasksQueued.await();
+            consolidator.flush();
+            verify(channel, never()).flush();
+            return null;
+        });
+        Future<Future<?>> second = eventLoop.submit(() -> {
+            consolidator.flush();
+            verify(channel, never()).flush();
+            // Runs after the flush task scheduled by the first task.
+            return eventLoop.submit(() -> verify(channel).flush());
+        });
+        tasksQueued.countDown();
+        first.get();
+        second.get().get();
+    }
+
+    @Test
+    public void flushFromOutsideEventLoop() throws Exception {
+        consolidator.flush();
+        eventLoop.submit(() -> verify(channel, times(1)).flush()).get();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,11 +25,14 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.transport.netty.internal.FlushStrategies.adaptiveFlush;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushOnEach;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushOnEnd;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushWith;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -164,6 +167,15 @@ public class FlushStrategiesTest {
         assertTrue(subscription.isCancelled());
     }
 
+    @Test
+    public void testAdaptiveFlush() {
+        setupFor(adaptiveFlush());
+        listener.itemWritten(1);
+        listener.itemWritten(2);
+        verify(flushSender, times(2)).consolidatedFlush();
+        verify(flushSender, never()).flush();
+    }
+
     private void setupFor(FlushStrategy strategy) {
         listener = strategy.apply(flushSender);
         listener.writeStarted();
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import org.junit.Test;
+
+import javax.net.ssl.SSLSession;
+
+import static io.servicetalk.transport.netty.internal.NettyPipelineSslUtils.isSessionResumed;
+import static io.servicetalk.transport.netty.internal.SslContextFactory.toTicketKeys;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SslContextFactoryTest {
+
+    @Test
+    public void ticketKeysAreSplitIntoNameHmacAndAes() {
+        final byte[] key = newKey(0);
+        final OpenSslSessionTicketKey[] ticketKeys = toTicketKeys(asList(key, newKey(48)));
+        assertThat(ticketKeys, arrayWithSize(2));
+        assertThat(ticketKeys[0].name(), equalTo(range(0, 16)));
+        assertThat(ticketKeys[0].hmacKey(), equalTo(range(16, 32)));
+        assertThat(ticketKeys[0].aesKey(), equalTo(range(32, 48)));
+        assertThat(ticketKeys[1].name(), equalTo(range(48, 64)));
+    }
+
+    @Test
+    public void ticketKeysWithInvalidLengthAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> toTicketKeys(singletonList(new byte[47])));
+        assertThrows(IllegalArgumentException.class, () -> toTicketKeys(singletonList(new byte[49])));
+    }
+
+    @Test
+    public void emptyTicketKeysAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> toTicketKeys(emptyList()));
+    }
+
+    @Test
+    public void sessionCreatedBeforeHandshakeIsResumed() {
+        assertThat(isSessionResumed(session(10_000), 12_500), is(true));
+    }
+
+    @Test
+    public void sessionCreatedDuringHandshakeIsNotResumed() {
+        // OpenSSL truncates the creation time to seconds.
+        assertThat(isSessionResumed(session(12_000), 12_500), is(false));
+        assertThat(isSessionResumed(session(12_700), 12_500), is(false));
+    }
+
+    private static SSLSession session(final long creationTime) {
+        final SSLSession session = mock(SSLSession.class);
+        when(session.getCreationTime()).thenReturn(creationTime);
+        return session;
+    }
+
+    private static byte[] newKey(final int offset) {
+        return range(offset, offset + 48);
+    }
+
+    private static byte[] range(final int from, final int to) {
+        final byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) (from + i);
+        }
+        return bytes;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -72,6 +72,33 @@ public final class NettyIoExecutors {
         return createIoExecutor(newIoThreadFactory());
     }
 
+    /**
+     * Creates a new {@link IoExecutor} backed by the io_uring transport with the specified number of
+     * {@code ioThreads}. If io_uring is not supported by the platform, for example because the kernel is too old, the
+     * {@link IoExecutor} uses the same transport as {@link #createIoExecutor(int, ThreadFactory)}.
+     *
+     * @param ioThreads number of threads.
+     * @param threadFactory the {@link ThreadFactory} to use. If possible you should use an instance
+     * of {@link IoThreadFactory} as it allows internal optimizations.
+     * @return The created {@link IoExecutor}
+     */
+    public static IoExecutor createIoUringIoExecutor(int ioThreads, ThreadFactory threadFactory) {
+        return io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoUringIoExecutor(ioThreads,
+                threadFactory);
+    }
+
+    /**
+     * Creates a new {@link IoExecutor} backed by the io_uring transport with the specified number of
+     * {@code ioThreads}. If io_uring is not supported by the platform, for example because the kernel is too old, the
+     * {@link IoExecutor} uses the same transport as {@link #createIoExecutor(int)}.
+     *
+     * @param ioThreads number of threads.
+     * @return The created {@link IoExecutor}
+     */
+    public static IoExecutor createIoUringIoExecutor(int ioThreads) {
+        return createIoUringIoExecutor(ioThreads, newIoThreadFactory());
+    }
+
     private static IoThreadFactory newIoThreadFactory() {
         return new IoThreadFactory(NettyIoExecutor.class.getSimpleName());
     }